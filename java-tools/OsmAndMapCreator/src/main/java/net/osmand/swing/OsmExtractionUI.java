@@ -86,8 +86,6 @@ import javax.swing.UIManager;
 import javax.swing.filechooser.FileFilter;
 import javax.xml.stream.XMLStreamException;
 
-import rtree.RTree;
-
 
 public class OsmExtractionUI implements IMapLocationListener {
 
@@ -806,7 +804,6 @@ public class OsmExtractionUI implements IMapLocationListener {
 						}
 						MapRenderingTypesEncoder types;
 						types = new MapRenderingTypesEncoder(fn, f.getName());
-						RTree.clearCache();
 						creator.generateIndexes(f, dlg, filter, DataExtractionSettings.getSettings().getMapZooms(), types, log);
 					} catch (IOException e) {
 						throw new IllegalArgumentException(e);
@@ -0,0 +1,232 @@
+package net.osmand.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.xmlpull.v1.XmlPullParserException;
+
+import com.google.protobuf.ByteString;
+
+import crosby.binary.Osmformat;
+import crosby.binary.file.BlockOutputStream;
+import crosby.binary.file.FileBlock;
+import net.osmand.IProgress;
+import net.osmand.data.Multipolygon;
+import net.osmand.data.MultipolygonBuilder;
+import net.osmand.data.Ring;
+import net.osmand.osm.edit.Entity;
+import net.osmand.osm.edit.Node;
+import net.osmand.osm.edit.Relation;
+import net.osmand.osm.edit.Relation.RelationMember;
+import net.osmand.osm.edit.Way;
+import net.osmand.osm.io.OsmBaseStorage;
+
+/**
+ * Inputs for benchmarks from the small extract bundled with tests (see build.gradle).
+ * Benchmarks which need more data repeat the extract with shifted ids and coordinates,
+ * so every run works on the same data.
+ */
+public class BenchmarkFixtures {
+
+	public static final String EXTRACT = "/multipolygon.osm";
+
+	private static List<Entity> entities;
+
+	/**
+	 * @return entities of the extract with resolved links, in a stable order
+	 */
+	public static synchronized List<Entity> loadExtract() throws IOException {
+		if (entities == null) {
+			OsmBaseStorage st = new OsmBaseStorage();
+			try (InputStream is = BenchmarkFixtures.class.getResourceAsStream(EXTRACT)) {
+				if (is == null) {
+					throw new IOException("Bundled extract is not found: " + EXTRACT);
+				}
+				st.parseOSM(is, IProgress.EMPTY_PROGRESS);
+			} catch (XmlPullParserException e) {
+				throw new IOException(e);
+			}
+			List<Entity> res = new ArrayList<>(st.getRegisteredEntities().values());
+			for (Entity e : res) {
+				e.initializeLinks(st.getRegisteredEntities());
+			}
+			res.sort(Comparator.comparing((Entity e) -> e.getClass().getSimpleName()).thenComparingLong(Entity::getId));
+			entities = res;
+		}
+		return entities;
+	}
+
+	public static List<Node> getNodes() throws IOException {
+		List<Node> res = new ArrayList<>();
+		for (Entity e : loadExtract()) {
+			if (e instanceof Node) {
+				res.add((Node) e);
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Ways of the extract with all nodes present
+	 */
+	public static List<List<Node>> getWays() throws IOException {
+		List<List<Node>> res = new ArrayList<>();
+		for (Entity e : loadExtract()) {
+			if (e instanceof Way) {
+				List<Node> nodes = ((Way) e).getNodes();
+				if (nodes.size() >= 2 && !nodes.contains(null)) {
+					res.add(nodes);
+				}
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Closed ways and outer rings of multipolygons (first node equals last one)
+	 */
+	public static List<List<Node>> getCycleWays() throws IOException {
+		List<List<Node>> res = new ArrayList<>();
+		for (List<Node> nodes : getWays()) {
+			if (nodes.size() > 3 && nodes.get(0).getId() == nodes.get(nodes.size() - 1).getId()) {
+				res.add(nodes);
+			}
+		}
+		for (Entity e : loadExtract()) {
+			if (!(e instanceof Relation)) {
+				continue;
+			}
+			MultipolygonBuilder bld = new MultipolygonBuilder();
+			for (RelationMember m : ((Relation) e).getMembers()) {
+				if (m.getEntity() instanceof Way && "outer".equals(m.getRole())) {
+					bld.addOuterWay((Way) m.getEntity());
+				}
+			}
+			Multipolygon polygon = bld.build();
+			for (Ring r : polygon.getOuterRings()) {
+				List<Node> border = new ArrayList<>(r.getBorder());
+				if (border.size() > 3) {
+					if (border.get(0).getId() != border.get(border.size() - 1).getId()) {
+						border.add(border.get(0));
+					}
+					res.add(border);
+				}
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Tags of tagged entities of the extract
+	 */
+	public static List<Map<String, String>> createTags(int count) throws IOException {
+		List<Map<String, String>> entityTags = new ArrayList<>();
+		for (Entity e : loadExtract()) {
+			if (!e.getTags().isEmpty()) {
+				entityTags.add(new LinkedHashMap<>(e.getTags()));
+			}
+		}
+		List<Map<String, String>> res = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			res.add(entityTags.get(i % entityTags.size()));
+		}
+		return res;
+	}
+
+	/**
+	 * PBF file with a header, blocks of dense nodes and blocks of ways of the extract repeated
+	 * {@code copies} times with shifted ids and coordinates
+	 */
+	public static byte[] createPbf(int copies, int blockSize) throws IOException {
+		List<Node> nodes = getNodes();
+		List<Way> ways = new ArrayList<>();
+		long maxId = 0;
+		for (Entity e : loadExtract()) {
+			if (e instanceof Way) {
+				ways.add((Way) e);
+			}
+			maxId = Math.max(maxId, e.getId());
+		}
+		long idShift = maxId + 1;
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BlockOutputStream bos = new BlockOutputStream(out);
+		Osmformat.HeaderBlock header = Osmformat.HeaderBlock.newBuilder()
+				.addRequiredFeatures("OsmSchema-V0.6").addRequiredFeatures("DenseNodes")
+				.setWritingprogram("OsmAndMapCreatorBenchmarks").build();
+		bos.write(FileBlock.newInstance("OSMHeader", header.toByteString(), null));
+
+		Map<String, Integer> strings = new LinkedHashMap<>();
+		strings.put("", 0);
+		for (Entity e : loadExtract()) {
+			for (Map.Entry<String, String> t : e.getTags().entrySet()) {
+				strings.putIfAbsent(t.getKey(), strings.size());
+				strings.putIfAbsent(t.getValue(), strings.size());
+			}
+		}
+		Osmformat.StringTable.Builder st = Osmformat.StringTable.newBuilder();
+		for (String s : strings.keySet()) {
+			st.addS(ByteString.copyFrom(s, StandardCharsets.UTF_8));
+		}
+		Osmformat.StringTable stringTable = st.build();
+		int granularity = 100;
+
+		int nodesCount = copies * nodes.size();
+		for (int start = 0; start < nodesCount; start += blockSize) {
+			Osmformat.DenseNodes.Builder dn = Osmformat.DenseNodes.newBuilder();
+			long prevId = 0, prevLat = 0, prevLon = 0;
+			for (int i = start; i < Math.min(nodesCount, start + blockSize); i++) {
+				int copy = i / nodes.size();
+				Node n = nodes.get(i % nodes.size());
+				long id = n.getId() + copy * idShift;
+				long lat = (long) ((n.getLatitude() + (copy / 32) * 0.1) * 1e9 / granularity);
+				long lon = (long) ((n.getLongitude() + (copy % 32) * 0.1) * 1e9 / granularity);
+				dn.addId(id - prevId).addLat(lat - prevLat).addLon(lon - prevLon);
+				for (Map.Entry<String, String> t : n.getTags().entrySet()) {
+					dn.addKeysVals(strings.get(t.getKey())).addKeysVals(strings.get(t.getValue()));
+				}
+				dn.addKeysVals(0);
+				prevId = id;
+				prevLat = lat;
+				prevLon = lon;
+			}
+			writeBlock(bos, stringTable, granularity, Osmformat.PrimitiveGroup.newBuilder().setDense(dn).build());
+		}
+		int waysCount = copies * ways.size();
+		for (int start = 0; start < waysCount; start += blockSize) {
+			Osmformat.PrimitiveGroup.Builder group = Osmformat.PrimitiveGroup.newBuilder();
+			for (int i = start; i < Math.min(waysCount, start + blockSize); i++) {
+				int copy = i / ways.size();
+				Way way = ways.get(i % ways.size());
+				Osmformat.Way.Builder w = Osmformat.Way.newBuilder().setId(way.getId() + copy * idShift);
+				for (Map.Entry<String, String> t : way.getTags().entrySet()) {
+					w.addKeys(strings.get(t.getKey())).addVals(strings.get(t.getValue()));
+				}
+				long prev = 0;
+				for (int j = 0; j < way.getNodeIds().size(); j++) {
+					long ref = way.getNodeIds().get(j) + copy * idShift;
+					w.addRefs(ref - prev);
+					prev = ref;
+				}
+				group.addWays(w);
+			}
+			writeBlock(bos, stringTable, granularity, group.build());
+		}
+		bos.close();
+		return out.toByteArray();
+	}
+
+	private static void writeBlock(BlockOutputStream bos, Osmformat.StringTable stringTable, int granularity,
+			Osmformat.PrimitiveGroup group) throws IOException {
+		Osmformat.PrimitiveBlock block = Osmformat.PrimitiveBlock.newBuilder().setStringtable(stringTable)
+				.setGranularity(granularity).addPrimitivegroup(group).build();
+		bos.write(FileBlock.newInstance("OSMData", block.toByteString(), null));
+	}
+}
@@ -0,0 +1,113 @@
+package net.osmand.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import net.osmand.binary.OsmandOdb.MapData;
+import net.osmand.binary.OsmandOdb.MapDataBlock;
+import net.osmand.obf.preparation.BinaryFileReference;
+import net.osmand.obf.preparation.BinaryMapIndexWriter;
+import net.osmand.osm.MapRenderingTypes.MapRulType;
+import net.osmand.osm.edit.Node;
+import net.osmand.util.Algorithms;
+import net.osmand.util.MapUtils;
+
+/**
+ * Writing map data blocks of a map level into an OBF file (tree element, objects, string table).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BinaryMapIndexWriterBenchmark {
+
+	private static final int OBJECTS_PER_BLOCK = 1000;
+
+	@Param({ "16", "128" })
+	int blocks;
+
+	private File file;
+	private final List<byte[]> coordinates = new ArrayList<>();
+	private final int[] typeUse = new int[] { 1 };
+	private final Map<MapRulType, String> names = Collections.emptyMap();
+	private int left, right, top, bottom;
+
+	@Setup
+	public void setup() throws IOException {
+		file = File.createTempFile("benchmark", ".obf");
+		List<List<Node>> ways = BenchmarkFixtures.getWays();
+		left = top = Integer.MAX_VALUE;
+		for (int i = 0; i < OBJECTS_PER_BLOCK; i++) {
+			List<Node> way = ways.get(i % ways.size());
+			ByteArrayOutputStream bcoordinates = new ByteArrayOutputStream();
+			for (Node n : way) {
+				int x = MapUtils.get31TileNumberX(n.getLongitude() + (i % 32) * 0.1);
+				int y = MapUtils.get31TileNumberY(n.getLatitude() + (i / 32) * 0.1);
+				left = Math.min(left, x);
+				right = Math.max(right, x);
+				top = Math.min(top, y);
+				bottom = Math.max(bottom, y);
+				Algorithms.writeInt(bcoordinates, x);
+				Algorithms.writeInt(bcoordinates, y);
+			}
+			coordinates.add(bcoordinates.toByteArray());
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		file.delete();
+	}
+
+	@Benchmark
+	public long writeMapLevel() throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.setLength(0);
+			BinaryMapIndexWriter writer = new BinaryMapIndexWriter(raf, 0);
+			writer.startWriteMapIndex("benchmark");
+			writer.startWriteMapLevelIndex(13, 14, left, right, top, bottom);
+			// tree is written first, data blocks follow it and back-patch shifts in tree leaves
+			List<BinaryFileReference> refs = new ArrayList<>();
+			writer.startMapTreeElement(left, right, top, bottom, false);
+			for (int b = 0; b < blocks; b++) {
+				refs.add(writer.startMapTreeElement(left, right, top, bottom, true));
+				writer.endWriteMapTreeElement();
+			}
+			writer.endWriteMapTreeElement();
+			for (int b = 0; b < blocks; b++) {
+				long baseId = (long) b * OBJECTS_PER_BLOCK;
+				MapDataBlock.Builder dataBlock = writer.createWriteMapDataBlock(baseId);
+				Map<String, Integer> stringTable = new LinkedHashMap<>();
+				for (int i = 0; i < OBJECTS_PER_BLOCK; i++) {
+					MapData data = writer.writeMapData(i, left, top, true, coordinates.get(i), null, typeUse, null,
+							names, null, null, stringTable, dataBlock, false);
+					if (data != null) {
+						dataBlock.addDataObjects(data);
+					}
+				}
+				writer.writeMapDataBlock(dataBlock, stringTable, refs.get(b));
+			}
+			writer.endWriteMapLevelIndex();
+			writer.endWriteMapIndex();
+			writer.close();
+			return raf.length();
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package net.osmand.benchmarks;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.osmand.obf.preparation.IndexHeightData;
+import net.osmand.obf.preparation.IndexHeightData.TileData;
+import net.osmand.osm.edit.Node;
+
+/**
+ * Height interpolation in a SRTM tile at the extract nodes, shifted to cover the tile
+ * (no SRTM tile is bundled, so heights are 3601x3601 synthetic relief).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class HeightDataBenchmark {
+
+	private static final int SIZE = 3601;
+	private static final int POINTS = 10000;
+
+	private File raw;
+	private TileData tileData;
+	private final double[] lats = new double[POINTS];
+	private final double[] lons = new double[POINTS];
+	private final double[] neighbours = new double[16];
+
+	@Setup
+	public void setup() throws IOException {
+		raw = File.createTempFile("height", ".raw");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(raw)))) {
+			out.writeInt(SIZE);
+			out.writeInt(SIZE);
+			for (int y = 0; y < SIZE; y++) {
+				for (int x = 0; x < SIZE; x++) {
+					out.writeShort((int) (500 + 300 * Math.sin(x / 150.0) * Math.cos(y / 200.0)));
+				}
+			}
+		}
+		tileData = new TileData(0);
+		tileData.loadRawData(raw);
+		List<Node> nodes = BenchmarkFixtures.getNodes();
+		for (int i = 0; i < POINTS; i++) {
+			Node n = nodes.get(i % nodes.size());
+			double shift = (i / nodes.size()) * 0.029;
+			lats[i] = Math.floor(n.getLatitude()) + (n.getLatitude() + shift) % 1;
+			lons[i] = Math.floor(n.getLongitude()) + (n.getLongitude() + shift) % 1;
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		raw.delete();
+	}
+
+	@Benchmark
+	public void interpolateHeights(Blackhole bh) {
+		for (int i = 0; i < POINTS; i++) {
+			bh.consume(IndexHeightData.getTileHeight(tileData, lats[i], lons[i], neighbours));
+		}
+	}
+}
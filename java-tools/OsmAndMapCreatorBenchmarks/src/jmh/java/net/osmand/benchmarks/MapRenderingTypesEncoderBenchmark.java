@@ -0,0 +1,62 @@
+package net.osmand.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import gnu.trove.list.array.TIntArrayList;
+import net.osmand.osm.MapRenderingTypes.MapRulType;
+import net.osmand.osm.MapRenderingTypesEncoder;
+
+/**
+ * Tag encoding of map objects (done for every entity at every map level).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MapRenderingTypesEncoderBenchmark {
+
+	@Param({ "13", "17" })
+	int zoom;
+
+	private MapRenderingTypesEncoder encoder;
+	private List<Map<String, String>> tags;
+	private final TIntArrayList outTypes = new TIntArrayList();
+	private final TIntArrayList outAddTypes = new TIntArrayList();
+	private final TreeMap<MapRulType, String> namesToEncode = new TreeMap<>(
+			Comparator.comparingInt(MapRulType::getOrder).thenComparingInt(MapRulType::getInternalId));
+	private final List<MapRulType> tempList = new ArrayList<>();
+
+	@Setup
+	public void setup() throws IOException {
+		encoder = new MapRenderingTypesEncoder("");
+		tags = BenchmarkFixtures.createTags(1000);
+		// rules are loaded lazily, so load them before measurement
+		for (Map<String, String> t : tags) {
+			encoder.encodeEntityWithType(false, t, zoom, outTypes, outAddTypes, namesToEncode, tempList);
+		}
+	}
+
+	@Benchmark
+	public void encodeEntities(Blackhole bh) {
+		for (int i = 0; i < tags.size(); i++) {
+			bh.consume(encoder.encodeEntityWithType(i % 5 == 0, tags.get(i), zoom, outTypes, outAddTypes,
+					namesToEncode, tempList));
+			bh.consume(outTypes.size() + outAddTypes.size());
+		}
+	}
+}
@@ -0,0 +1,45 @@
+package net.osmand.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import net.osmand.osm.io.OsmBaseStoragePbf;
+
+/**
+ * Parsing of PBF blocks (dense nodes and ways) into entities, the extract is repeated to ~200 000 nodes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PbfParsingBenchmark {
+
+	@Param({ "false", "true" })
+	boolean entityInfo;
+
+	@Param({ "1", "4" })
+	int threads;
+
+	private byte[] pbf;
+
+	@Setup
+	public void setup() throws IOException {
+		pbf = BenchmarkFixtures.createPbf(700, 8000);
+	}
+
+	@Benchmark
+	public int parse() throws IOException {
+		OsmBaseStoragePbf storage = new OsmBaseStoragePbf();
+		storage.parseOSMPbf(new ByteArrayInputStream(pbf), null, entityInfo, threads);
+		return storage.getRegisteredEntities().size();
+	}
+}
@@ -0,0 +1,88 @@
+package net.osmand.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import net.osmand.obf.preparation.PackedRTree;
+import net.osmand.osm.edit.Node;
+import net.osmand.util.MapUtils;
+
+/**
+ * Building R-tree of map objects: inserts and packing (as for map and route sections).
+ * Boxes are bboxes of the extract ways repeated on a grid.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RTreeBenchmark {
+
+	@Param({ "10000", "100000", "1000000" })
+	int objects;
+
+	private int[] rects;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		List<List<Node>> ways = BenchmarkFixtures.getWays();
+		int[] bboxes = new int[ways.size() * 4];
+		for (int i = 0; i < ways.size(); i++) {
+			int left = Integer.MAX_VALUE, top = Integer.MAX_VALUE, right = 0, bottom = 0;
+			for (Node n : ways.get(i)) {
+				int x = MapUtils.get31TileNumberX(n.getLongitude());
+				int y = MapUtils.get31TileNumberY(n.getLatitude());
+				left = Math.min(left, x);
+				right = Math.max(right, x);
+				top = Math.min(top, y);
+				bottom = Math.max(bottom, y);
+			}
+			bboxes[i * 4] = left;
+			bboxes[i * 4 + 1] = top;
+			bboxes[i * 4 + 2] = right;
+			bboxes[i * 4 + 3] = bottom;
+		}
+		rects = new int[objects * 4];
+		for (int i = 0; i < objects; i++) {
+			int w = i % ways.size();
+			int copy = i / ways.size();
+			// grid step is smaller than the extract, so copies overlap as neighbouring objects do
+			int dx = (copy % 1024) << 18;
+			int dy = (copy / 1024) << 18;
+			rects[i * 4] = bboxes[w * 4] + dx;
+			rects[i * 4 + 1] = bboxes[w * 4 + 1] + dy;
+			rects[i * 4 + 2] = bboxes[w * 4 + 2] + dx;
+			rects[i * 4 + 3] = bboxes[w * 4 + 3] + dy;
+		}
+	}
+
+	@Benchmark
+	public PackedRTree insert() {
+		PackedRTree tree = new PackedRTree();
+		insertAll(tree);
+		return tree;
+	}
+
+	@Benchmark
+	public PackedRTree insertAndPack() {
+		PackedRTree tree = new PackedRTree();
+		insertAll(tree);
+		tree.pack();
+		return tree;
+	}
+
+	private void insertAll(PackedRTree tree) {
+		for (int i = 0; i < objects; i++) {
+			tree.insert(rects[i * 4], rects[i * 4 + 1], rects[i * 4 + 2], rects[i * 4 + 3], i);
+		}
+	}
+}
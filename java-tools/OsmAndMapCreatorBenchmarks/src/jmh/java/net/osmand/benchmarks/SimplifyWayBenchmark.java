@@ -0,0 +1,45 @@
+package net.osmand.benchmarks;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.osmand.obf.preparation.IndexVectorMapCreator;
+import net.osmand.osm.edit.Node;
+
+/**
+ * Simplification of closed ways (closed ways and multipolygon rings of the extract) for low map levels.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SimplifyWayBenchmark {
+
+	@Param({ "8", "11" })
+	int zoom;
+
+	private List<List<Node>> ways;
+
+	@Setup
+	public void setup() throws IOException {
+		ways = BenchmarkFixtures.getCycleWays();
+	}
+
+	@Benchmark
+	public void simplifyCycleWays(Blackhole bh) throws SQLException {
+		for (List<Node> w : ways) {
+			bh.consume(IndexVectorMapCreator.simplifyCycleWay(w, zoom, 2));
+		}
+	}
+}
@@ -7,11 +7,11 @@ import java.util.List;
 import com.google.protobuf.InvalidProtocolBufferException;
 
 import crosby.binary.Osmformat;
-import crosby.binary.file.BlockReaderAdapter;
+import crosby.binary.file.BlockDecoder;
 import crosby.binary.file.FileBlock;
 import crosby.binary.file.FileBlockPosition;
 
-public abstract class BinaryParser implements BlockReaderAdapter {
+public abstract class BinaryParser implements BlockDecoder<Object> {
     protected int granularity;
     private long lat_offset;
     private long lon_offset;
@@ -39,17 +39,8 @@ public abstract class BinaryParser implements BlockReaderAdapter {
 
     @Override
     public void handleBlock(FileBlock message) {
-        // TODO Auto-generated method stub
         try {
-            if (message.getType().equals("OSMHeader")) {
-                Osmformat.HeaderBlock headerblock = Osmformat.HeaderBlock
-                        .parseFrom(message.getData());
-                parse(headerblock);
-            } else if (message.getType().equals("OSMData")) {
-                Osmformat.PrimitiveBlock primblock = Osmformat.PrimitiveBlock
-                        .parseFrom(message.getData());
-                parse(primblock);
-            }
+            handleDecodedBlock(decodeBlock(message));
         } catch (InvalidProtocolBufferException e) {
             // TODO Auto-generated catch block
             e.printStackTrace();
@@ -58,6 +49,25 @@ public abstract class BinaryParser implements BlockReaderAdapter {
 
     }
 
+    /** Parse the protocol buffer of the block, parser state is not used, so it could be called from several threads */
+    @Override
+    public Object decodeBlock(FileBlock message) throws InvalidProtocolBufferException {
+        if (message.getType().equals("OSMHeader")) {
+            return Osmformat.HeaderBlock.parseFrom(message.getData());
+        } else if (message.getType().equals("OSMData")) {
+            return Osmformat.PrimitiveBlock.parseFrom(message.getData());
+        }
+        return null;
+    }
+
+    @Override
+    public void handleDecodedBlock(Object block) {
+        if (block instanceof Osmformat.HeaderBlock) {
+            parse((Osmformat.HeaderBlock) block);
+        } else if (block instanceof Osmformat.PrimitiveBlock) {
+            parse((Osmformat.PrimitiveBlock) block);
+        }
+    }
 
     @Override
     public boolean skipBlock(FileBlockPosition block) {
@@ -0,0 +1,15 @@
+package crosby.binary.file;
+
+import java.io.IOException;
+
+/**
+ * Adaptor which decodes blocks separately from handling them, so blocks
+ * could be decoded on several threads while handled one by one in file order.
+ */
+public interface BlockDecoder<T> extends BlockReaderAdapter {
+    /** Decodes the data in the block, could be called from several threads. */
+    T decodeBlock(FileBlock message) throws IOException;
+
+    /** Called with decoded blocks in file order. */
+    void handleDecodedBlock(T block);
+}
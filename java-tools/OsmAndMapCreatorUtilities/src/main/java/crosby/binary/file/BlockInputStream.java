@@ -2,6 +2,13 @@ package crosby.binary.file;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class BlockInputStream {
     // TODO: Should be seekable input stream!
@@ -17,6 +24,68 @@ public class BlockInputStream {
         adaptor.complete();
     }
 
+    /**
+     * Reads blocks sequentially, but decompresses and decodes them on a pool of
+     * threads, decoded blocks are handled in file order on the calling thread.
+     * Falls back to {@link #process()} if adaptor is not a {@link BlockDecoder}.
+     */
+    @SuppressWarnings("unchecked")
+    public void process(int threads) throws IOException {
+        if (threads <= 1 || !(adaptor instanceof BlockDecoder)) {
+            process();
+            return;
+        }
+        final BlockDecoder<Object> decoder = (BlockDecoder<Object>) adaptor;
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "PbfBlockDecoder");
+            t.setDaemon(true);
+            return t;
+        });
+        // blocks being decoded in file order, limited to keep memory bounded
+        int maxInProgress = threads * 2;
+        Deque<Future<Object>> inProgress = new ArrayDeque<>(maxInProgress);
+        try {
+            while (input.available() > 0) {
+                final FileBlockHead head = FileBlockHead.readHead(input);
+                if (decoder.skipBlock(head)) {
+                    head.skipContents(input);
+                    continue;
+                }
+                final byte[] raw = head.readRawContents(input);
+                inProgress.add(executor.submit(() -> decoder.decodeBlock(head.parseData(raw))));
+                if (inProgress.size() >= maxInProgress) {
+                    handleDecoded(decoder, inProgress.poll());
+                }
+            }
+            while (!inProgress.isEmpty()) {
+                handleDecoded(decoder, inProgress.poll());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        adaptor.complete();
+    }
+
+    private static void handleDecoded(BlockDecoder<Object> decoder, Future<Object> decoded) throws IOException {
+        Object block;
+        try {
+            block = decoded.get();
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException("Interrupted while decoding blocks");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+        decoder.handleDecodedBlock(block);
+    }
+
     public void close() throws IOException {
         input.close();
     }
@@ -72,9 +72,19 @@ public class FileBlockHead extends FileBlockReference {
      * @throws IOException
      */
     FileBlock readContents(InputStream input) throws IOException {
+        return parseData(readRawContents(input));
+    }
+
+    /**
+     * Assumes the stream is positioned over at the start of the data, read it
+     * without decompressing, so it could be parsed later with parseData
+     *
+     * @throws IOException
+     */
+    byte[] readRawContents(InputStream input) throws IOException {
         DataInputStream datinput = new DataInputStream(input);
         byte buf[] = new byte[getDatasize()];
         datinput.readFully(buf);
-        return parseData(buf);
+        return buf;
     }
 }
@@ -329,6 +329,12 @@ public class MainUtilities {
 			} else if (s.equals("--ram-process")) {
 				settings.processInRam = true;
 				it.remove();
+			} else if (s.equals("--node-locations-in-file")) {
+				settings.nodeLocationsInFile = true;
+				it.remove();
+			} else if (s.startsWith("--processing-threads=")) {
+				settings.processingThreads = Integer.parseInt(s.substring(s.indexOf('=') + 1));
+				it.remove();
 			} else if (s.startsWith("--max-height-tiles-in-ram=")) {
 				settings.maxHeightTilesInRam = Integer.parseInt(s.substring(s.indexOf('=') + 1));
 				it.remove();
@@ -122,6 +122,16 @@ public class NativeJavaRendering extends NativeLibrary {
 		initRenderingRulesStorage(storage);
 	}
 
+	/**
+	 * Loads already parsed rule storage into the native library without parsing xml again.
+	 */
+	public void initRuleStorage(RenderingRulesStorage storage, String renderingProperties) {
+		this.storage = storage;
+		setRenderingProps(renderingProperties);
+		clearRenderingRulesStorage();
+		initRenderingRulesStorage(storage);
+	}
+
 	public static RenderingRulesStorage parseStorage(String path) throws SAXException, IOException, XmlPullParserException{
 		RenderingRulesStorage storage;
 		final LinkedHashMap<String, String> renderingConstants = new LinkedHashMap<String, String>();
@@ -195,6 +205,29 @@ public class NativeJavaRendering extends NativeLibrary {
 		}
 	}
 
+	private NativeJavaRendering(NativeJavaRendering shared) {
+		super();
+		this.storage = shared.storage;
+		this.renderingProps = new HashMap<String, String>(shared.renderingProps);
+		this.diffs = shared.diffs;
+	}
+
+	/**
+	 * Creates another rendering context on top of the native state (map files, fonts, rule storage)
+	 * already set up by this one. Unlike the constructor it doesn't reload the global rule storage.
+	 */
+	public NativeJavaRendering createSharedContext() {
+		return new NativeJavaRendering(this);
+	}
+
+	/**
+	 * Switches to a rule storage which is already loaded into the native library by another context.
+	 */
+	public void useRuleStorage(RenderingRulesStorage storage, String renderingProperties) {
+		this.storage = storage;
+		setRenderingProps(renderingProperties);
+	}
+
 	public void setRenderingProps(String renderingProperties) {
 		renderingProps = new HashMap<String, String>();
 		String[] props = renderingProperties.split(",");
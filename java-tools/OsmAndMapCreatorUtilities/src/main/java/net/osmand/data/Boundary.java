@@ -16,6 +16,8 @@ public class Boundary {
 	private long adminCenterId;
 	private CityType cityType;
 	private Multipolygon multipolygon;
+	// bbox of multipolygon to skip testing points far from boundary
+	private QuadRect latLonBbox;
 	private Map<String, String> nameTags;
 	
 
@@ -32,15 +34,28 @@ public class Boundary {
 	}
 
 	public boolean containsPoint(double latitude, double longitude) {
-		return multipolygon.containsPoint(latitude, longitude);
+		return bboxContains(latitude, longitude) && multipolygon.containsPoint(latitude, longitude);
 	}
 
 	public void mergeWith(Boundary boundary) {
 		multipolygon.mergeWith(boundary.multipolygon);
+		latLonBbox = null;
 	}
 
 	public boolean containsPoint(LatLon location) {
-		return multipolygon.containsPoint(location);
+		return bboxContains(location.getLatitude(), location.getLongitude()) && multipolygon.containsPoint(location);
+	}
+
+	public QuadRect getLatLonBbox() {
+		if (latLonBbox == null) {
+			latLonBbox = multipolygon.getLatLonBbox();
+		}
+		return latLonBbox;
+	}
+
+	private boolean bboxContains(double latitude, double longitude) {
+		QuadRect bbox = getLatLonBbox();
+		return longitude >= bbox.left && longitude <= bbox.right && latitude >= bbox.bottom && latitude <= bbox.top;
 	}
 
 	public long getBoundaryId() {
@@ -24,7 +24,6 @@ import net.osmand.util.IndexUploader;
 import net.osmand.util.MapUtils;
 import org.apache.commons.logging.Log;
 import org.xmlpull.v1.XmlPullParserException;
-import rtree.RTreeException;
 
 import java.io.*;
 import java.sql.SQLException;
@@ -158,7 +157,7 @@ public class BinaryMerger {
 		System.out.println("Sign added to file:" + pathToFile + " . Sign name=" + name + ", resource=" + resource + ", pluginid=" + pluginid + ", description=" + description);
 	}
 
-	public static void mergeStandardFiles(String[] args) throws IOException, SQLException, XmlPullParserException, RTreeException {
+	public static void mergeStandardFiles(String[] args) throws IOException, SQLException, XmlPullParserException {
 		BinaryMerger in = new BinaryMerger();
 		String pathWithGeneratedMapZips = args[0];
 		String pathToPutJointFiles = args[1];
@@ -695,7 +694,7 @@ public class BinaryMerger {
 			writer.writeOsmAndOwner(osmAndOwner);
 		}
 		ous.writeInt32(OsmandOdb.OsmAndStructure.VERSIONCONFIRM_FIELD_NUMBER, version);
-		ous.flush();
+		writer.flush();
 	}
 
 	public void merger(String[] args) throws IOException, SQLException {
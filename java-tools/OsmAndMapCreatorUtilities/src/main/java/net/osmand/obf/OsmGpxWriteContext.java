@@ -73,7 +73,6 @@ import net.osmand.osm.OsmRouteType;
 import net.osmand.util.Algorithms;
 import net.osmand.util.MapAlgorithms;
 import net.osmand.util.MapUtils;
-import rtree.RTree;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -604,9 +603,6 @@ public class OsmGpxWriteContext {
 //			settings.indexRouting = true;
 //			settings.srtmDataFolderUrl = srtmDirectory;
 //		}
-		// reduce memory footprint for single thread generation
-		// Remove it if it is called in multithread
-		RTree.clearCache();
 		try {
 			tmpFolder.mkdirs();
 			IndexCreator ic = new IndexCreator(tmpFolder, settings);
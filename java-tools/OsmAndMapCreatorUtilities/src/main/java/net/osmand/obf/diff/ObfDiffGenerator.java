@@ -23,7 +23,6 @@ import java.util.Map.Entry;
 import gnu.trove.iterator.TLongObjectIterator;
 import gnu.trove.map.hash.TLongObjectHashMap;
 import gnu.trove.set.hash.TLongHashSet;
-import rtree.RTreeException;
 
 public class ObfDiffGenerator {
 	private static final long ID_MULTIPOLYGON_LIMIT = 1l << 41l;
@@ -34,7 +33,7 @@ public class ObfDiffGenerator {
 	private static final String OSMAND_CHANGE_TAG = "osmand_change";
 	public static boolean COMPARE_TRANSPORT = true;
 
-	public static void main(String[] args) throws IOException, RTreeException {
+	public static void main(String[] args) throws IOException {
 		if(args.length == 1 && args[0].equals("test")) {
 			args = new String[3];
 			args[0] = System.getProperty("maps.dir") + "Andorra_europe_2.obf";
@@ -57,7 +56,7 @@ public class ObfDiffGenerator {
 		}
 	}
 
-	private void run(String[] args) throws IOException, RTreeException, SQLException {
+	private void run(String[] args) throws IOException, SQLException {
 		File start = new File(args[0]);
 		File end = new File(args[1]);
 		File diff = args.length < 4 ? null : new File(args[3]);
@@ -75,7 +74,7 @@ public class ObfDiffGenerator {
 		generateDiff(start, end, result, diff);
 	}
 
-	private void generateDiff(File start, File end, File result, File diff) throws IOException, RTreeException, SQLException {
+	private void generateDiff(File start, File end, File result, File diff) throws IOException, SQLException {
 		ObfFileInMemory fStart = new ObfFileInMemory();
 		fStart.readObfFiles(Collections.singletonList(start));
 		ObfFileInMemory fEnd = new ObfFileInMemory();
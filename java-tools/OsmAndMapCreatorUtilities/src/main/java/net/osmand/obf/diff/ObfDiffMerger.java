@@ -13,7 +13,6 @@ import org.apache.commons.logging.Log;
 
 import net.osmand.PlatformUtil;
 import net.osmand.util.Algorithms;
-import rtree.RTreeException;
 
 public class ObfDiffMerger {
 	static SimpleDateFormat day = new SimpleDateFormat("yyyy_MM_dd");
@@ -197,8 +196,6 @@ public class ObfDiffMerger {
 			System.out.println("Saving merged file");
 			commonObf.writeFile(result, true);
 			System.out.println("SUCCESS");
-		} catch (RTreeException e) {
-			e.printStackTrace();
 		} catch (SQLException throwables) {
 			throwables.printStackTrace();
 		}
@@ -309,7 +306,7 @@ public class ObfDiffMerger {
 		});
 	}
 
-	private void mergeChanges(String[] args) throws IOException, RTreeException, SQLException {
+	private void mergeChanges(String[] args) throws IOException, SQLException {
 		File result = new File(args[0]);
 		List<File> inputDiffs = new ArrayList<>();
 		boolean checkTimestamps = false;
@@ -328,7 +325,7 @@ public class ObfDiffMerger {
 	}
 
 	public boolean process(File result, List<File> inputDiffs, boolean checkTimestamps) throws IOException,
-			RTreeException, SQLException {
+			SQLException {
 		List<File> diffs = new ArrayList<>();
 		for (File fl : inputDiffs) {
 			if (fl.isDirectory()) {
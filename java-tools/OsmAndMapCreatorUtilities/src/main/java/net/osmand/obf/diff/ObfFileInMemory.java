@@ -31,10 +31,6 @@ import net.osmand.osm.edit.Way;
 import net.osmand.util.Algorithms;
 import net.osmand.util.MapUtils;
 import org.apache.commons.logging.Log;
-import rtree.LeafElement;
-import rtree.RTree;
-import rtree.RTreeException;
-import rtree.Rect;
 
 import java.io.*;
 import java.sql.SQLException;
@@ -116,7 +112,7 @@ public class ObfFileInMemory {
 		}
 	}
 
-	public void writeFile(File targetFile, boolean doNotSimplifyObjects) throws IOException, RTreeException, SQLException {
+	public void writeFile(File targetFile, boolean doNotSimplifyObjects) throws IOException, SQLException {
 		boolean gzip = targetFile.getName().endsWith(".gz");
 		File nonGzip = targetFile;
 		if(gzip) {
@@ -159,7 +155,7 @@ public class ObfFileInMemory {
 			Iterator<Entry<MapZoomPair, TLongObjectHashMap<BinaryMapDataObject>>> it = mapObjects.entrySet().iterator();
 			while (it.hasNext()) {
 				Entry<MapZoomPair, TLongObjectHashMap<BinaryMapDataObject>> n = it.next();
-				writeMapData(writer, n.getKey(), n.getValue(), targetFile, doNotSimplifyObjects);
+				writeMapData(writer, n.getKey(), n.getValue(), doNotSimplifyObjects);
 			}
 			writer.endWriteMapIndex();
 		}
@@ -170,7 +166,7 @@ public class ObfFileInMemory {
 			}
 			writer.startWriteRouteIndex(name);
 			writer.writeRouteRawEncodingRules(routeIndex.routeEncodingRules);
-			writeRouteData(writer, routeObjects, targetFile);
+			writeRouteData(writer, routeObjects);
 
 			writer.endWriteRouteIndex();
 		}
@@ -262,7 +258,7 @@ public class ObfFileInMemory {
 				stop.setReferencesToRoutes(nrefs);
 			}
 
-			writeTransportStops(indexCreator, writer, transportStops, stringTable, targetFile);
+			writeTransportStops(indexCreator, writer, transportStops, stringTable);
 			writer.writeTransportStringTable(stringTable);
 			writer.endWriteTransportIndex();
 		}
@@ -301,146 +297,80 @@ public class ObfFileInMemory {
 	}
 
 	private void writeTransportStops(IndexTransportCreator indexCreator, BinaryMapIndexWriter writer,
-									 TLongObjectHashMap<TransportStop> transportStops, Map<String, Integer> stringTable,
-									 File fileToWrite) throws IOException, RTreeException, SQLException {
-		File nonpackRtree = new File(fileToWrite.getParentFile(), "nonpacktrans." + fileToWrite.getName() + ".rtree");
-		File packRtree = new File(fileToWrite.getParentFile(), "packtrans." + fileToWrite.getName() + ".rtree");
-		RTree rtree = null;
-		try {
-			rtree = new RTree(nonpackRtree.getAbsolutePath());
-			for (TransportStop s : transportStops.valueCollection()) {
-				int x = (int) MapUtils.getTileNumberX(24, s.getLocation().getLongitude());
-				int y = (int) MapUtils.getTileNumberY(24, s.getLocation().getLatitude());
-				try {
-					rtree.insert(new LeafElement(new Rect(x, y, x, y), s.getId()));
-				} catch (Exception e) {
-					throw new RuntimeException(e);
-				}
-			}
-			rtree = AbstractIndexPartCreator.packRtreeFile(rtree, nonpackRtree.getAbsolutePath(),
-					packRtree.getAbsolutePath());
-
-			long rootIndex = rtree.getFileHdr().getRootIndex();
-			rtree.Node root = rtree.getReadNode(rootIndex);
-			Rect rootBounds = IndexVectorMapCreator.calcBounds(root);
-			if (rootBounds != null) {
-				writer.startTransportTreeElement(rootBounds.getMinX(), rootBounds.getMaxX(), rootBounds.getMinY(), rootBounds.getMaxY());
-				indexCreator.writeBinaryTransportTree(root, rtree, writer, transportStops, stringTable);
-				writer.endWriteTransportTreeElement();
-			}
-		} finally {
-			if (rtree != null) {
-				RandomAccessFile file = rtree.getFileHdr().getFile();
-				file.close();
-			}
-			nonpackRtree.delete();
-			packRtree.delete();
+									 TLongObjectHashMap<TransportStop> transportStops, Map<String, Integer> stringTable)
+			throws IOException, SQLException {
+		PackedRTree rtree = new PackedRTree();
+		for (TransportStop s : transportStops.valueCollection()) {
+			int x = (int) MapUtils.getTileNumberX(24, s.getLocation().getLongitude());
+			int y = (int) MapUtils.getTileNumberY(24, s.getLocation().getLatitude());
+			rtree.insert(x, y, x, y, s.getId());
+		}
+		rtree.pack();
+		int root = rtree.getRoot();
+		if (root >= 0) {
+			writer.startTransportTreeElement(rtree.getMinX(root), rtree.getMaxX(root), rtree.getMinY(root), rtree.getMaxY(root));
+			indexCreator.writeBinaryTransportTree(root, rtree, writer, transportStops, stringTable);
+			writer.endWriteTransportTreeElement();
 		}
 	}
 
-	private void writeRouteData(BinaryMapIndexWriter writer, TLongObjectHashMap<RouteDataObject> routeObjs, File fileToWrite) throws IOException, RTreeException, SQLException {
-		File nonpackRtree = new File(fileToWrite.getParentFile(), "nonpackroute."
-				+ fileToWrite.getName() + ".rtree");
-		File packRtree = new File(fileToWrite.getParentFile(), "packroute."
-				+ fileToWrite.getName() + ".rtree");
-		RTree rtree = null;
-		try {
-			rtree = new RTree(nonpackRtree.getAbsolutePath());
-			for (long key : routeObjs.keys()) {
-				RouteDataObject obj = routeObjs.get(key);
-				int minX = obj.getPoint31XTile(0);
-				int maxX = obj.getPoint31XTile(0);
-				int maxY = obj.getPoint31YTile(0);
-				int minY = obj.getPoint31YTile(0);
-				for (int i = 1; i < obj.getPointsLength(); i++) {
-					minX = Math.min(minX, obj.getPoint31XTile(i));
-					minY = Math.min(minY, obj.getPoint31YTile(i));
-					maxX = Math.max(maxX, obj.getPoint31XTile(i));
-					maxY = Math.max(maxY, obj.getPoint31YTile(i));
-				}
-				try {
-					rtree.insert(new LeafElement(new Rect(minX, minY, maxX, maxY), obj.getId()));
-				} catch (Exception e) {
-					throw new RuntimeException(e);
-				}
-			}
-			rtree = AbstractIndexPartCreator.packRtreeFile(rtree, nonpackRtree.getAbsolutePath(),
-					packRtree.getAbsolutePath());
-
-			TLongObjectHashMap<BinaryFileReference> treeHeader = new TLongObjectHashMap<BinaryFileReference>();
-			long rootIndex = rtree.getFileHdr().getRootIndex();
-			rtree.Node root = rtree.getReadNode(rootIndex);
-			Rect rootBounds = IndexVectorMapCreator.calcBounds(root);
-			if (rootBounds != null) {
-				IndexRouteCreator.writeBinaryRouteTree(root, rootBounds, rtree, writer, treeHeader, false);
-				RouteWriteContext wc = new RouteWriteContext(null, treeHeader, null, routeObjs);
-				IndexRouteCreator.writeBinaryMapBlock(root, rootBounds, rtree, writer, wc, false);
-			}
-
-		} finally {
-			if (rtree != null) {
-				RandomAccessFile file = rtree.getFileHdr().getFile();
-				file.close();
-			}
-			nonpackRtree.delete();
-			packRtree.delete();
+	private void writeRouteData(BinaryMapIndexWriter writer, TLongObjectHashMap<RouteDataObject> routeObjs) throws IOException, SQLException {
+		PackedRTree rtree = new PackedRTree();
+		for (long key : routeObjs.keys()) {
+			RouteDataObject obj = routeObjs.get(key);
+			int minX = obj.getPoint31XTile(0);
+			int maxX = obj.getPoint31XTile(0);
+			int maxY = obj.getPoint31YTile(0);
+			int minY = obj.getPoint31YTile(0);
+			for (int i = 1; i < obj.getPointsLength(); i++) {
+				minX = Math.min(minX, obj.getPoint31XTile(i));
+				minY = Math.min(minY, obj.getPoint31YTile(i));
+				maxX = Math.max(maxX, obj.getPoint31XTile(i));
+				maxY = Math.max(maxY, obj.getPoint31YTile(i));
+			}
+			rtree.insert(minX, minY, maxX, maxY, obj.getId());
+		}
+		rtree.pack();
+
+		TLongObjectHashMap<BinaryFileReference> treeHeader = new TLongObjectHashMap<BinaryFileReference>();
+		int root = rtree.getRoot();
+		if (root >= 0) {
+			IndexRouteCreator.writeBinaryRouteTree(root, rtree, writer, treeHeader, false);
+			RouteWriteContext wc = new RouteWriteContext(null, treeHeader, null, routeObjs);
+			IndexRouteCreator.writeBinaryMapBlock(root, rtree, writer, wc, false);
 		}
-
 	}
 
 	private void writeMapData(BinaryMapIndexWriter writer, MapZoomPair mapZoomPair,
-			TLongObjectHashMap<BinaryMapDataObject> objects, File fileToWrite, boolean doNotSimplify) throws IOException, RTreeException {
-		File nonpackRtree = new File(fileToWrite.getParentFile(), "nonpack" + mapZoomPair.getMinZoom() + "."
-				+ fileToWrite.getName() + ".rtree");
-		File packRtree = new File(fileToWrite.getParentFile(), "pack" + mapZoomPair.getMinZoom() + "."
-				+ fileToWrite.getName() + ".rtree");
-		RTree rtree = null;
-		try {
-			rtree = new RTree(nonpackRtree.getAbsolutePath());
-			for (long key : objects.keys()) {
-				BinaryMapDataObject obj = objects.get(key);
-				int minX = obj.getPoint31XTile(0);
-				int maxX = obj.getPoint31XTile(0);
-				int maxY = obj.getPoint31YTile(0);
-				int minY = obj.getPoint31YTile(0);
-				for (int i = 1; i < obj.getPointsLength(); i++) {
-					minX = Math.min(minX, obj.getPoint31XTile(i));
-					minY = Math.min(minY, obj.getPoint31YTile(i));
-					maxX = Math.max(maxX, obj.getPoint31XTile(i));
-					maxY = Math.max(maxY, obj.getPoint31YTile(i));
-				}
-				try {
-					rtree.insert(new LeafElement(new Rect(minX, minY, maxX, maxY), obj.getId()));
-				} catch (Exception e) {
-					throw new RuntimeException(e);
-				}
-			}
-			rtree = AbstractIndexPartCreator.packRtreeFile(rtree, nonpackRtree.getAbsolutePath(),
-					packRtree.getAbsolutePath());
-			TLongObjectHashMap<BinaryFileReference> treeHeader = new TLongObjectHashMap<BinaryFileReference>();
-
-			long rootIndex = rtree.getFileHdr().getRootIndex();
-			rtree.Node root = rtree.getReadNode(rootIndex);
-			Rect rootBounds = IndexVectorMapCreator.calcBounds(root);
-			if (rootBounds != null) {
-				writer.startWriteMapLevelIndex(mapZoomPair.getMinZoom(), mapZoomPair.getMaxZoom(),
-						rootBounds.getMinX(), rootBounds.getMaxX(), rootBounds.getMinY(), rootBounds.getMaxY());
-				IndexVectorMapCreator.writeBinaryMapTree(root, rootBounds, rtree, writer, treeHeader);
-
-				IndexVectorMapCreator.writeBinaryMapBlock(root, rootBounds, rtree, writer, treeHeader, objects, mapZoomPair,
-						doNotSimplify);
-				writer.endWriteMapLevelIndex();
-
-			}
-		} finally {
-			if (rtree != null) {
-				RandomAccessFile file = rtree.getFileHdr().getFile();
-				file.close();
-			}
-			nonpackRtree.delete();
-			packRtree.delete();
+			TLongObjectHashMap<BinaryMapDataObject> objects, boolean doNotSimplify) throws IOException {
+		PackedRTree rtree = new PackedRTree();
+		for (long key : objects.keys()) {
+			BinaryMapDataObject obj = objects.get(key);
+			int minX = obj.getPoint31XTile(0);
+			int maxX = obj.getPoint31XTile(0);
+			int maxY = obj.getPoint31YTile(0);
+			int minY = obj.getPoint31YTile(0);
+			for (int i = 1; i < obj.getPointsLength(); i++) {
+				minX = Math.min(minX, obj.getPoint31XTile(i));
+				minY = Math.min(minY, obj.getPoint31YTile(i));
+				maxX = Math.max(maxX, obj.getPoint31XTile(i));
+				maxY = Math.max(maxY, obj.getPoint31YTile(i));
+			}
+			rtree.insert(minX, minY, maxX, maxY, obj.getId());
+		}
+		rtree.pack();
+		TLongObjectHashMap<BinaryFileReference> treeHeader = new TLongObjectHashMap<BinaryFileReference>();
+
+		int root = rtree.getRoot();
+		if (root >= 0) {
+			writer.startWriteMapLevelIndex(mapZoomPair.getMinZoom(), mapZoomPair.getMaxZoom(),
+					rtree.getMinX(root), rtree.getMaxX(root), rtree.getMinY(root), rtree.getMaxY(root));
+			IndexVectorMapCreator.writeBinaryMapTree(root, rtree, writer, treeHeader);
+
+			IndexVectorMapCreator.writeBinaryMapBlock(root, rtree, writer, treeHeader, objects, mapZoomPair,
+					doNotSimplify);
+			writer.endWriteMapLevelIndex();
 		}
-
 	}
 
 	public void updateTimestamp(long dateCreated) {
@@ -1,7 +1,5 @@
 package net.osmand.obf.preparation;
 
-import java.io.File;
-import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
@@ -11,11 +9,6 @@ import java.util.Map;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import rtree.Element;
-import rtree.Pack;
-import rtree.RTree;
-import rtree.RTreeException;
-
 public class AbstractIndexPartCreator {
 
 	private final static Log log = LogFactory.getLog(AbstractIndexPartCreator.class);
@@ -23,6 +16,9 @@ public class AbstractIndexPartCreator {
 
 	protected Map<PreparedStatement, Integer> pStatements = new LinkedHashMap<PreparedStatement, Integer>();
 
+	// optional, statements registered there are executed in background
+	protected BatchDbWriter batchWriter;
+
 	public PreparedStatement createPrepareStatement(Connection mapConnection,
 			String string) throws SQLException {
 		PreparedStatement prepareStatement = mapConnection.prepareStatement(string);
@@ -31,9 +27,14 @@ public class AbstractIndexPartCreator {
 	}
 
 	protected void closePreparedStatements(PreparedStatement... preparedStatements) throws SQLException {
+		if (batchWriter != null) {
+			batchWriter.flush();
+		}
 		for (PreparedStatement p : preparedStatements) {
 			if (p != null) {
-				p.executeBatch();
+				synchronized (p.getConnection()) {
+					p.executeBatch();
+				}
 				p.close();
 				pStatements.remove(p);
 			}
@@ -41,9 +42,15 @@ public class AbstractIndexPartCreator {
 	}
 
 	protected void closeAllPreparedStatements() throws SQLException {
+		if (batchWriter != null) {
+			batchWriter.close();
+			batchWriter = null;
+		}
 		for (PreparedStatement p : pStatements.keySet()) {
 			if (pStatements.get(p) > 0) {
-				p.executeBatch();
+				synchronized (p.getConnection()) {
+					p.executeBatch();
+				}
 			}
 			p.close();
 		}
@@ -51,9 +58,14 @@ public class AbstractIndexPartCreator {
 
 	protected boolean executePendingPreparedStatements() throws SQLException {
 		boolean exec = false;
+		if (batchWriter != null) {
+			batchWriter.flush();
+		}
 		for (PreparedStatement p : pStatements.keySet()) {
 			if (pStatements.get(p) > 0) {
-				p.executeBatch();
+				synchronized (p.getConnection()) {
+					p.executeBatch();
+				}
 				pStatements.put(p, 0);
 				exec = true;
 			}
@@ -61,6 +73,24 @@ public class AbstractIndexPartCreator {
 		return exec;
 	}
 
+	/**
+	 * Waits until rows buffered in background writer are written, before the connection is used directly
+	 */
+	public void flushBatchWriter() throws SQLException {
+		if (batchWriter != null) {
+			batchWriter.flush();
+		}
+	}
+
+	/**
+	 * Commits holding the connection monitor, {@link BatchDbWriter} executes batches on the same connection
+	 */
+	protected static void commit(Connection conn) throws SQLException {
+		synchronized (conn) {
+			conn.commit();
+		}
+	}
+
 	protected void addBatch(PreparedStatement p) throws SQLException {
 		addBatch(p, BATCH_SIZE, true);
 	}
@@ -72,52 +102,18 @@ public class AbstractIndexPartCreator {
 	protected void addBatch(PreparedStatement p, int batchSize, boolean commit) throws SQLException {
 		p.addBatch();
 		if (pStatements.get(p) >= batchSize) {
-			p.executeBatch();
-			if (commit) {
-				p.getConnection().commit();
+			Connection conn = p.getConnection();
+			synchronized (conn) {
+				p.executeBatch();
+				if (commit) {
+					conn.commit();
+				}
 			}
 			pStatements.put(p, 0);
 		} else {
 			pStatements.put(p, pStatements.get(p) + 1);
 		}
 	}
-
-	protected static boolean nodeIsLastSubTree(RTree tree, long ptr) throws RTreeException {
-		rtree.Node parent = tree.getReadNode(ptr);
-		Element[] e = parent.getAllElements();
-		for (int i = 0; i < parent.getTotalElements(); i++) {
-			if (e[i].getElementType() != rtree.Node.LEAF_NODE) {
-				return false;
-			}
-		}
-		return true;
-
-	}
-
-	public static RTree packRtreeFile(RTree tree, String nonPackFileName, String packFileName) throws IOException {
-		try {
-			assert rtree.Node.MAX < 50 : "It is better for search performance"; //$NON-NLS-1$
-			tree.flush();
-			File file = new File(packFileName);
-			if (file.exists()) {
-				file.delete();
-			}
-			long rootIndex = tree.getFileHdr().getRootIndex();
-			if (!nodeIsLastSubTree(tree, rootIndex)) {
-				// there is a bug for small files in packing method
-				new Pack().packTree(tree, packFileName);
-				tree.getFileHdr().getFile().close();
-				file = new File(nonPackFileName);
-				file.delete();
-
-				return new RTree(packFileName);
-			}
-		} catch (RTreeException e) {
-			log.error("Error flushing", e); //$NON-NLS-1$
-			throw new IOException(e);
-		}
-		return tree;
-	}
 	
 	
 }
@@ -0,0 +1,237 @@
+package net.osmand.obf.preparation;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Buffers rows of insert statements and executes them as batches on a background thread,
+ * so entity processing doesn't stop while sqlite writes a batch and commits.
+ * Registered statements should be used only through the writer, rows become visible
+ * for selects after {@link #flush()}. Memory is bounded: buffers are handed over by size or by bytes
+ * and adding waits while there are too many buffers not written yet.
+ * The connection is shared with the processing thread (and other writers), so batches and commits
+ * are executed holding the connection monitor and other writes to it should hold it as well,
+ * see {@link AbstractIndexPartCreator}.
+ */
+public class BatchDbWriter {
+
+	private static final Log log = LogFactory.getLog(BatchDbWriter.class);
+
+	public static final int BATCH_SIZE = IndexCreator.BATCH_SIZE;
+	public static final long BATCH_BYTES = 8L << 20;
+	private static final int MAX_PENDING_BATCHES = 8;
+	private static final long LOG_STALL_MS = 1000;
+
+	private final String name;
+	private final Map<PreparedStatement, TableBatch> tables = new LinkedHashMap<>();
+	private final BlockingQueue<PendingBatch> queue = new ArrayBlockingQueue<>(MAX_PENDING_BATCHES);
+	private final Thread writerThread;
+	private volatile SQLException error;
+	private long stallMs;
+
+	private static class TableBatch {
+		final String table;
+		final PreparedStatement statement;
+		List<Object[]> rows = new ArrayList<>();
+		long bytes;
+		boolean commit;
+		// written by writer thread, read after flush
+		long rowsWritten;
+		long bytesWritten;
+		long writeNanos;
+
+		TableBatch(String table, PreparedStatement statement) {
+			this.table = table;
+			this.statement = statement;
+		}
+	}
+
+	private static class PendingBatch {
+		final TableBatch table;
+		final List<Object[]> rows;
+		final long bytes;
+		final boolean commit;
+		final CountDownLatch flushed;
+
+		PendingBatch(TableBatch table, List<Object[]> rows, long bytes, boolean commit, CountDownLatch flushed) {
+			this.table = table;
+			this.rows = rows;
+			this.bytes = bytes;
+			this.commit = commit;
+			this.flushed = flushed;
+		}
+	}
+
+	public BatchDbWriter(String name) {
+		this.name = name;
+		writerThread = new Thread(this::writeBatches, "BatchDbWriter-" + name);
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+
+	public void register(PreparedStatement statement, String table) {
+		tables.put(statement, new TableBatch(table, statement));
+	}
+
+	/**
+	 * Adds row of statement parameters (in order), commit - to commit transaction after batch is executed
+	 */
+	public void add(PreparedStatement statement, boolean commit, Object... row) throws SQLException {
+		checkError();
+		TableBatch t = tables.get(statement);
+		if (t == null) {
+			throw new IllegalArgumentException("Statement is not registered in " + name);
+		}
+		t.rows.add(row);
+		t.bytes += estimateBytes(row);
+		t.commit |= commit;
+		if (t.rows.size() >= BATCH_SIZE || t.bytes >= BATCH_BYTES) {
+			submit(t, null);
+		}
+	}
+
+	/**
+	 * Writes all buffered rows and waits until they are executed
+	 */
+	public void flush() throws SQLException {
+		for (TableBatch t : tables.values()) {
+			if (!t.rows.isEmpty()) {
+				submit(t, null);
+			}
+		}
+		CountDownLatch flushed = new CountDownLatch(1);
+		submit(null, flushed);
+		try {
+			flushed.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for " + name + " batches", e);
+		}
+		checkError();
+	}
+
+	/**
+	 * Flushes rows, stops writer thread and logs statistics (statements are not closed)
+	 */
+	public void close() throws SQLException {
+		try {
+			flush();
+		} finally {
+			writerThread.interrupt();
+			logStats();
+		}
+	}
+
+	public void logStats() {
+		for (TableBatch t : tables.values()) {
+			double sec = t.writeNanos / 1e9;
+			log.info(String.format("Batch writer %s: %s %d rows (%d MB) written in %.1f s (%d rows/s)", name, t.table,
+					t.rowsWritten, t.bytesWritten >> 20, sec, sec > 0 ? (long) (t.rowsWritten / sec) : 0));
+		}
+		if (stallMs > 0) {
+			log.info(String.format("Batch writer %s: processing waited for writer %d ms", name, stallMs));
+		}
+	}
+
+	private void submit(TableBatch t, CountDownLatch flushed) throws SQLException {
+		PendingBatch batch;
+		if (t != null) {
+			batch = new PendingBatch(t, t.rows, t.bytes, t.commit, null);
+			t.rows = new ArrayList<>();
+			t.bytes = 0;
+			t.commit = false;
+		} else {
+			batch = new PendingBatch(null, null, 0, false, flushed);
+		}
+		long start = System.currentTimeMillis();
+		try {
+			queue.put(batch);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while adding batch to " + name, e);
+		}
+		long wait = System.currentTimeMillis() - start;
+		stallMs += wait;
+		if (wait >= LOG_STALL_MS) {
+			log.info(String.format("Batch writer %s: processing waited %d ms for writer", name, wait));
+		}
+	}
+
+	private void writeBatches() {
+		while (true) {
+			PendingBatch batch;
+			try {
+				batch = queue.take();
+			} catch (InterruptedException e) {
+				return;
+			}
+			if (batch.flushed != null) {
+				batch.flushed.countDown();
+			} else if (error == null) {
+				// after error remaining batches are skipped, error is thrown to processing thread
+				try {
+					executeBatch(batch);
+				} catch (SQLException e) {
+					log.error("Batch writer " + name + ": error writing " + batch.table.table, e);
+					error = e;
+				} catch (RuntimeException e) {
+					log.error("Batch writer " + name + ": error writing " + batch.table.table, e);
+					error = new SQLException(e);
+				}
+			}
+		}
+	}
+
+	private void executeBatch(PendingBatch batch) throws SQLException {
+		long start = System.nanoTime();
+		TableBatch t = batch.table;
+		PreparedStatement p = t.statement;
+		for (Object[] row : batch.rows) {
+			for (int i = 0; i < row.length; i++) {
+				p.setObject(i + 1, row[i]);
+			}
+			p.addBatch();
+		}
+		Connection conn = p.getConnection();
+		synchronized (conn) {
+			p.executeBatch();
+			if (batch.commit) {
+				conn.commit();
+			}
+		}
+		t.rowsWritten += batch.rows.size();
+		t.bytesWritten += batch.bytes;
+		t.writeNanos += System.nanoTime() - start;
+	}
+
+	private void checkError() throws SQLException {
+		if (error != null) {
+			throw new SQLException("Batch writer " + name + " failed: " + error.getMessage(), error);
+		}
+	}
+
+	private static long estimateBytes(Object[] row) {
+		long bytes = 16 + 8L * row.length;
+		for (Object o : row) {
+			if (o instanceof byte[]) {
+				bytes += ((byte[]) o).length;
+			} else if (o instanceof String) {
+				bytes += 2L * ((String) o).length();
+			} else if (o != null) {
+				bytes += 16;
+			}
+		}
+		return bytes;
+	}
+}
@@ -26,18 +26,34 @@ public class BinaryFileReference {
 	}
 
 	public long writeReference(RandomAccessFile raf, long pointerToCalculateShifTo) throws IOException {
-		this.pointerToCalculateShiftTo = pointerToCalculateShifTo;
+		long val = calculateReference(pointerToCalculateShifTo);
 		long currentPosition = raf.getFilePointer();
 		raf.seek(pointerToWrite);
-		long val = pointerToCalculateShiftTo - pointerToCalculateShiftFrom;
 		if (_8bit) {
 			raf.writeLong(val | (1L << 63)); // mark highest bit to 1 as long
-		} else if (val < Integer.MAX_VALUE) {
+		} else {
 			raf.writeInt((int) val);
+		}
+		raf.seek(currentPosition);
+		return val;
+	}
+
+	public long writeReference(BufferedObfOutputStream out, long pointerToCalculateShifTo) throws IOException {
+		long val = calculateReference(pointerToCalculateShifTo);
+		if (_8bit) {
+			out.patchLong(pointerToWrite, val | (1L << 63)); // mark highest bit to 1 as long
 		} else {
+			out.patchInt(pointerToWrite, (int) val);
+		}
+		return val;
+	}
+
+	private long calculateReference(long pointerToCalculateShifTo) {
+		this.pointerToCalculateShiftTo = pointerToCalculateShifTo;
+		long val = pointerToCalculateShiftTo - pointerToCalculateShiftFrom;
+		if (!_8bit && val >= Integer.MAX_VALUE) {
 			throw new IllegalStateException("Out of bounds value: " + val);
 		}
-		raf.seek(currentPosition);
 		return val;
 	}
 
@@ -3,7 +3,6 @@ package net.osmand.obf.preparation;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.io.RandomAccessFile;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
@@ -110,6 +109,8 @@ import static net.osmand.util.SearchAlgorithms.*;
 public class BinaryMapIndexWriter {
 
 	private RandomAccessFile raf;
+	// null if coded stream is provided from outside and writes to file directly
+	private BufferedObfOutputStream output;
 	private CodedOutputStream codedOutStream;
 
 	protected static final int SHIFT_COORDINATES = BinaryMapIndexReader.SHIFT_COORDINATES;
@@ -168,23 +169,8 @@ public class BinaryMapIndexWriter {
 
 	public BinaryMapIndexWriter(final RandomAccessFile raf, long timestamp) throws IOException {
 		this.raf = raf;
-		codedOutStream = CodedOutputStream.newInstance(new OutputStream() {
-			@Override
-			public void write(int b) throws IOException {
-				raf.write(b);
-			}
-
-			@Override
-			public void write(byte[] b) throws IOException {
-				raf.write(b);
-			}
-
-			@Override
-			public void write(byte[] b, int off, int len) throws IOException {
-				raf.write(b, off, len);
-			}
-
-		});
+		this.output = new BufferedObfOutputStream(raf);
+		codedOutStream = CodedOutputStream.newInstance(output);
 		codedOutStream.writeUInt32(OsmandOdb.OsmAndStructure.VERSION_FIELD_NUMBER, IndexConstants.BINARY_MAP_VERSION);
 		codedOutStream.writeInt64(OsmandOdb.OsmAndStructure.DATECREATED_FIELD_NUMBER, timestamp);
 		state.push(OSMAND_STRUCTURE_INIT);
@@ -216,10 +202,21 @@ public class BinaryMapIndexWriter {
 
 	public long getFilePointer() throws IOException {
 		codedOutStream.flush();
+		if (output != null) {
+			return output.getPosition();
+		}
 		return raf.getFilePointer();
 		// return codedOutStream.getWrittenBytes(); // doesn't work with route section rewrite (should not take into account)
 	}
 
+	private long writeReference(BinaryFileReference ref, long pointerToCalculateShiftTo) throws IOException {
+		codedOutStream.flush();
+		if (output != null) {
+			return ref.writeReference(output, pointerToCalculateShiftTo);
+		}
+		return ref.writeReference(raf, pointerToCalculateShiftTo);
+	}
+
 	public CodedOutputStream getCodedOutStream() {
 		return codedOutStream;
 	}
@@ -228,7 +225,7 @@ public class BinaryMapIndexWriter {
 		long filePointer = getFilePointer();
 		BinaryFileReference ref = stackSizes.pop();
 		codedOutStream.flush();
-		long length = ref.writeReference(raf, filePointer);
+		long length = writeReference(ref, filePointer);
 		return length;
 	}
 
@@ -236,7 +233,7 @@ public class BinaryMapIndexWriter {
 		long filePointer = getFilePointer();
 		BinaryFileReference ref = stackSizes.peek();
 		codedOutStream.flush();
-		long length = ref.writeReference(raf, filePointer);
+		long length = writeReference(ref, filePointer);
 		return length;
 	}
 
@@ -316,6 +313,9 @@ public class BinaryMapIndexWriter {
 		log.info("PREROUTE INDEX SIZE : " + len);
 	}
 
+	/**
+	 * Writer should be flushed before file is accessed directly
+	 */
 	public RandomAccessFile getRaf() {
 		return raf;
 	}
@@ -659,7 +659,7 @@ public class BinaryMapIndexWriter {
 		}
 		codedOutStream.writeTag(OsmAndMapIndex.MapRootLevel.BLOCKS_FIELD_NUMBER, FieldType.MESSAGE.getWireType());
 		codedOutStream.flush();
-		ref.writeReference(raf, getFilePointer());
+		writeReference(ref, getFilePointer());
 		RouteDataBlock block = builder.build();
 		ROUTE_DATA_SIZE += block.getSerializedSize();
 		codedOutStream.writeMessageNoTag(block);
@@ -787,7 +787,7 @@ public class BinaryMapIndexWriter {
 		codedOutStream.writeTag(OsmAndMapIndex.MapRootLevel.BLOCKS_FIELD_NUMBER, FieldType.MESSAGE.getWireType());
 
 		codedOutStream.flush();
-		ref.writeReference(raf, getFilePointer());
+		writeReference(ref, getFilePointer());
 		MapDataBlock block = builder.build();
 		MAP_DATA_SIZE += block.getSerializedSize();
 		codedOutStream.writeMessageNoTag(block);
@@ -1006,7 +1006,7 @@ public class BinaryMapIndexWriter {
 			codedOutStream.flush();
 			long pointer = getFilePointer();
 			if (ref != null) {
-				ref.writeReference(raf, getFilePointer());
+				writeReference(ref, getFilePointer());
 			}
 			AddressNameIndexData.Builder builder = AddressNameIndexData.newBuilder();
 			IndexAddressCreator.MapObjectIndex indexEntry = entry.getValue();
@@ -1130,7 +1130,7 @@ public class BinaryMapIndexWriter {
 		codedOutStream.flush();
 		long startMessage = getFilePointer();
 		long startCityBlock = ref.getStartPointer();
-		ref.writeReference(raf, startMessage);
+		writeReference(ref, startMessage);
 		CityBlockIndex.Builder cityInd = OsmandOdb.CityBlockIndex.newBuilder();
 		cityInd.setShiftToCityIndex((int) (startMessage - startCityBlock));
 		long currentPointer = startMessage + 4 + CodedOutputStream.computeTagSize(CityBlockIndex.SHIFTTOCITYINDEX_FIELD_NUMBER);
@@ -1756,7 +1756,7 @@ public class BinaryMapIndexWriter {
 			codedOutStream.writeTag(OsmandOdb.OsmAndPoiNameIndex.DATA_FIELD_NUMBER, FieldType.MESSAGE.getWireType());
 			BinaryFileReference nameTableRef = indexedTable.get(e.getKey());
 			codedOutStream.flush();
-			nameTableRef.writeReference(raf, getFilePointer());
+			writeReference(nameTableRef, getFilePointer());
 
 			OsmAndPoiNameIndex.OsmAndPoiNameIndexData.Builder builder = OsmAndPoiNameIndex.OsmAndPoiNameIndexData.newBuilder();
 			List<PoiTileBox> tileBoxes = new ArrayList<PoiTileBox>(e.getValue());
@@ -1897,7 +1897,7 @@ public class BinaryMapIndexWriter {
 		codedOutStream.flush();
 		// write shift to that data
 		for (int i = 0; i < fpPoiBox.size(); i++) {
-			fpPoiBox.get(i).writeReference(raf, pointer);
+			writeReference(fpPoiBox.get(i), pointer);
 		}
 
 		codedOutStream.writeUInt32(OsmandOdb.OsmAndPoiBoxData.ZOOM_FIELD_NUMBER, zoom);
@@ -1974,17 +1974,20 @@ public class BinaryMapIndexWriter {
 
 	public void flush() throws IOException {
 		codedOutStream.flush();
+		if (output != null) {
+			output.flush();
+		}
 	}
 
 	public void close() throws IOException {
 		checkPeekState(OSMAND_STRUCTURE_INIT);
 		codedOutStream.writeInt32(OsmandOdb.OsmAndStructure.VERSIONCONFIRM_FIELD_NUMBER, IndexConstants.BINARY_MAP_VERSION);
-		codedOutStream.flush();
+		flush();
 	}
 
 	public void preclose() throws IOException {
 		codedOutStream.writeInt32(OsmandOdb.OsmAndStructure.VERSIONCONFIRM_FIELD_NUMBER, IndexConstants.BINARY_MAP_VERSION);
-		codedOutStream.flush();
+		flush();
 	}
 
 	public void writeOsmAndOwner(BinaryMapIndexReader.OsmAndOwner owner) throws IOException {
@@ -0,0 +1,131 @@
+package net.osmand.obf.preparation;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+
+import gnu.trove.list.array.TByteArrayList;
+import gnu.trove.list.array.TLongArrayList;
+
+/**
+ * Output of binary file with large write buffer which keeps file position and allows to patch bytes written before
+ * (sizes and shifts of messages). Patches of bytes still in buffer are done in memory, patches of bytes already
+ * written to file are kept and applied in one pass on {@link #flush()}.
+ * File should be flushed before it is accessed directly, after that position is taken from file again.
+ */
+public class BufferedObfOutputStream extends OutputStream {
+
+	public static final int DEFAULT_BUFFER_SIZE = 16 << 20;
+
+	private final RandomAccessFile raf;
+	private final byte[] buf;
+	private int count;
+	// file position of buf[0], -1 when it should be read from file
+	private long bufferStart = -1;
+
+	// patches of bytes already written to file
+	private final TLongArrayList patchPositions = new TLongArrayList();
+	private final TLongArrayList patchValues = new TLongArrayList();
+	private final TByteArrayList patchSizes = new TByteArrayList();
+
+	public BufferedObfOutputStream(RandomAccessFile raf) {
+		this(raf, DEFAULT_BUFFER_SIZE);
+	}
+
+	public BufferedObfOutputStream(RandomAccessFile raf, int bufferSize) {
+		this.raf = raf;
+		this.buf = new byte[bufferSize];
+	}
+
+	private long getBufferStart() throws IOException {
+		if (bufferStart < 0) {
+			bufferStart = raf.getFilePointer();
+		}
+		return bufferStart;
+	}
+
+	public long getPosition() throws IOException {
+		return getBufferStart() + count;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		if (count == buf.length) {
+			writeBuffer();
+		}
+		getBufferStart();
+		buf[count++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		if (len > buf.length - count) {
+			writeBuffer();
+		}
+		getBufferStart();
+		if (len >= buf.length) {
+			raf.write(b, off, len);
+			bufferStart += len;
+		} else {
+			System.arraycopy(b, off, buf, count, len);
+			count += len;
+		}
+	}
+
+	private void writeBuffer() throws IOException {
+		if (count > 0) {
+			raf.write(buf, 0, count);
+			bufferStart += count;
+			count = 0;
+		}
+	}
+
+	public void patchInt(long position, int value) throws IOException {
+		patch(position, value, 4);
+	}
+
+	public void patchLong(long position, long value) throws IOException {
+		patch(position, value, 8);
+	}
+
+	private void patch(long position, long value, int size) throws IOException {
+		if (bufferStart >= 0 && position >= bufferStart) {
+			int off = (int) (position - bufferStart);
+			if (off + size > count) {
+				throw new IllegalStateException("Patch of not written bytes at " + position);
+			}
+			for (int i = size - 1; i >= 0; i--) {
+				buf[off + i] = (byte) value;
+				value >>>= 8;
+			}
+		} else {
+			patchPositions.add(position);
+			patchValues.add(value);
+			patchSizes.add((byte) size);
+		}
+	}
+
+	/**
+	 * Writes buffer and pending patches to file, file pointer is left at the end of written data.
+	 */
+	@Override
+	public void flush() throws IOException {
+		writeBuffer();
+		if (!patchPositions.isEmpty()) {
+			long end = raf.getFilePointer();
+			for (int i = 0; i < patchPositions.size(); i++) {
+				raf.seek(patchPositions.get(i));
+				if (patchSizes.get(i) == 8) {
+					raf.writeLong(patchValues.get(i));
+				} else {
+					raf.writeInt((int) patchValues.get(i));
+				}
+			}
+			raf.seek(end);
+			patchPositions.resetQuick();
+			patchValues.resetQuick();
+			patchSizes.resetQuick();
+		}
+		bufferStart = -1;
+	}
+}
@@ -241,10 +241,12 @@ public class DBStreetDAO extends AbstractIndexPartCreator {
 			City city, String cityPart) throws SQLException {
 		long streetId = fillInsertStreetStatement(name, names, location, city, cityPart,
 				constructLangs(names));
-		// execute the insert statement
-		addressStreetStat.execute();
-		// commit immediately to search after
-		mapConnection.commit();
+		synchronized (mapConnection) {
+			// execute the insert statement
+			addressStreetStat.execute();
+			// commit immediately to search after
+			mapConnection.commit();
+		}
 
 		return streetId;
 	}
@@ -277,7 +279,10 @@ public class DBStreetDAO extends AbstractIndexPartCreator {
 	public boolean removeBuilding(Entity e) throws SQLException {
 		executePendingPreparedStatements(); //ala flush
 		addressRemoveBuildingStat.setLong(1, e.getId());
-		boolean res = addressRemoveBuildingStat.execute();
+		boolean res;
+		synchronized (mapConnection) {
+			res = addressRemoveBuildingStat.execute();
+		}
 		commit();
 		return res;
 	}
@@ -293,7 +298,7 @@ public class DBStreetDAO extends AbstractIndexPartCreator {
 
 	public void commit() throws SQLException {
 		if (executePendingPreparedStatements()) {
-			mapConnection.commit();
+			commit(mapConnection);
 		}
 	}
 
@@ -304,8 +309,10 @@ public class DBStreetDAO extends AbstractIndexPartCreator {
 	public DBStreetDAO.SimpleStreet updateStreetCityPart(DBStreetDAO.SimpleStreet street, String cityPart) throws SQLException {
 		addressStreetUpdateCityPart.setString(1, cityPart);
 		addressStreetUpdateCityPart.setLong(2, street.getId());
-		addressStreetUpdateCityPart.executeUpdate();
-		mapConnection.commit();
+		synchronized (mapConnection) {
+			addressStreetUpdateCityPart.executeUpdate();
+			mapConnection.commit();
+		}
 		return new SimpleStreet(street.getId(), street.getName(), street.getCityId(), cityPart, street.getLocation(),
 				street.getLangs(), street.getNameEn());
 	}
@@ -317,8 +324,10 @@ public class DBStreetDAO extends AbstractIndexPartCreator {
 		addressStreetLangsUpdate.setString(1, nameEn);
 		addressStreetLangsUpdate.setString(2, langs);
 		addressStreetLangsUpdate.setLong(3, street.getId());
-		addressStreetLangsUpdate.executeUpdate();
-		mapConnection.commit();
+		synchronized (mapConnection) {
+			addressStreetLangsUpdate.executeUpdate();
+			mapConnection.commit();
+		}
 		return new SimpleStreet(street.getId(), street.getName(), street.getCityId(), street.getCityPart(),
 				street.getLocation(), langs, nameEn);
 	}
@@ -2,6 +2,7 @@ package net.osmand.obf.preparation;
 
 
 import gnu.trove.iterator.TLongObjectIterator;
+import gnu.trove.list.array.TLongArrayList;
 import gnu.trove.map.hash.TLongObjectHashMap;
 import gnu.trove.set.hash.TLongHashSet;
 
@@ -261,6 +262,23 @@ public class IndexAddressCreator extends AbstractIndexPartCreator {
 		// This is incorrect to do with suburbs because it assigns boundary that is much bigger!
 		// Than suburb and after that findCityPart works incorrectly
 		// So we do only for Cities & Towns without boundaries, try to find the right one
+		List<Boundary> notAssignedBoundaries = new ArrayList<>(cityDataStorage.getNotAssignedBoundaries());
+		PackedRTree boundariesTree = new PackedRTree();
+		for (int i = 0; i < notAssignedBoundaries.size(); i++) {
+			QuadRect bbox = notAssignedBoundaries.get(i).getLatLonBbox();
+			int x1 = MapUtils.get31TileNumberX(bbox.left);
+			int x2 = MapUtils.get31TileNumberX(bbox.right);
+			int y1 = MapUtils.get31TileNumberY(bbox.top);
+			int y2 = MapUtils.get31TileNumberY(bbox.bottom);
+			if (x1 <= x2 && y1 <= y2) {
+				// expanded by 1 to cover rounding of 31 coordinates
+				boundariesTree.insert(x1 - 1, y1 - 1, (int) Math.min(Integer.MAX_VALUE, x2 + 1L),
+						(int) Math.min(Integer.MAX_VALUE, y2 + 1L), i);
+			}
+		}
+		boundariesTree.pack();
+		boolean[] assigned = new boolean[notAssignedBoundaries.size()];
+		TLongArrayList candidates = new TLongArrayList();
 		for (City c : cityDataStorage.getAllCities()) {
 			progress.progress(1);
 			Boundary cityB = cityDataStorage.getBoundaryByCity(c);
@@ -268,20 +286,28 @@ public class IndexAddressCreator extends AbstractIndexPartCreator {
 			if (cityB == null && (c.getType() == CityType.CITY || c.getType() == CityType.TOWN)) {
 				int smallestAdminLevel = c.getType() == CityType.CITY? 7 : 8; //start at level 8 for now...
 				LatLon location = c.getLocation();
-				Boundary smallestBoundary = null;
-				// try to found boundary
-				for (Boundary b : cityDataStorage.getNotAssignedBoundaries()) {
-					if (b.getAdminLevel() >= smallestAdminLevel) {
+				int smallestBoundary = -1;
+				// try to found boundary among boundaries with bbox containing the city (in order of list)
+				int x = MapUtils.get31TileNumberX(location.getLongitude());
+				int y = MapUtils.get31TileNumberY(location.getLatitude());
+				candidates.resetQuick();
+				boundariesTree.search(x, y, x, y, candidates);
+				candidates.sort();
+				for (int i = 0; i < candidates.size(); i++) {
+					int ind = (int) candidates.get(i);
+					Boundary b = notAssignedBoundaries.get(ind);
+					if (!assigned[ind] && b.getAdminLevel() >= smallestAdminLevel) {
 						if (b.containsPoint(location.getLatitude(), location.getLongitude())) {
 							// the bigger the admin level, the smaller the boundary :-)
 							smallestAdminLevel = b.getAdminLevel();
-							smallestBoundary = b;
+							smallestBoundary = ind;
 						}
 					}
 				}
-				if (smallestBoundary != null) {
-					putCityBoundary(smallestBoundary, c);
-					cityDataStorage.removeNotAssignedBoundary(smallestBoundary);
+				if (smallestBoundary != -1) {
+					assigned[smallestBoundary] = true;
+					putCityBoundary(notAssignedBoundaries.get(smallestBoundary), c);
+					cityDataStorage.removeNotAssignedBoundary(notAssignedBoundaries.get(smallestBoundary));
 				}
 			}
 		}
@@ -1125,9 +1151,11 @@ public class IndexAddressCreator extends AbstractIndexPartCreator {
 
 	private void commitWriteCity() throws SQLException {
 		if (pStatements.get(addressCityStat) > 0) {
-			addressCityStat.executeBatch();
+			synchronized (mapConnection) {
+				addressCityStat.executeBatch();
+				mapConnection.commit();
+			}
 			pStatements.put(addressCityStat, 0);
-			mapConnection.commit();
 		}
 	}
 
@@ -1153,7 +1181,9 @@ public class IndexAddressCreator extends AbstractIndexPartCreator {
 		pStatements.put(postcodeSetStat, 0);
 		processPostcodeRelations();
 		if (pStatements.get(postcodeSetStat) > 0) {
-			postcodeSetStat.executeBatch();
+			synchronized (mapConnection) {
+				postcodeSetStat.executeBatch();
+			}
 		}
 		pStatements.remove(postcodeSetStat);
 	}
@@ -2,6 +2,7 @@ package net.osmand.obf.preparation;
 
 import net.osmand.binary.Abbreviations;
 import net.osmand.binary.BinaryMapDataObject;
+import net.osmand.binary.BinaryMapIndexReader;
 import net.osmand.data.LatLon;
 import net.osmand.data.QuadRect;
 import net.osmand.map.OsmandRegions;
@@ -25,13 +26,21 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedDeque;
 
 public class IndexCreationContext {
     private static final Log log = LogFactory.getLog(IndexCreationContext.class);
     private static final String JAPAN = "japan";
 	private static final String CHINA = "china";
+	private static final String REGIONS_OCBF = "regions.ocbf";
 
     public OsmandRegions allRegions;
+	private File regionsFile;
+	// region readers are not thread safe, allRegions is used by the thread which created context,
+	// processing threads take readers from the pool
+	private final Thread ownerThread = Thread.currentThread();
+	private final Deque<OsmandRegions> regionTagReaders = new ConcurrentLinkedDeque<>();
+	private final List<BinaryMapIndexReader> regionTagFiles = Collections.synchronizedList(new ArrayList<>());
     public boolean basemap;
 
     private boolean decryptAbbreviations = false;
@@ -78,6 +87,7 @@ public class IndexCreationContext {
         try {
             File loadedRegionsFile = refreshRegionsFileFromResources();
             or.prepareFile(loadedRegionsFile.getAbsolutePath());
+            regionsFile = loadedRegionsFile;
             or.cacheAllCountries();
         } catch (IOException e) {
             log.error("Error preparing regions", e);
@@ -87,8 +97,6 @@ public class IndexCreationContext {
     }
 
 	private File refreshRegionsFileFromResources() throws IOException {
-		final String REGIONS_OCBF = "regions.ocbf";
-
 		long pid = ProcessHandle.current().pid();
 		long threadId = Thread.currentThread().getId();
 		File regionsTmpFile = new File(String.format("%s.%d.%d.tmp", REGIONS_OCBF, pid, threadId));
@@ -177,7 +185,7 @@ public class IndexCreationContext {
 		if (decryptAbbreviations) {
 			upd = true;
 		} else if (addRegionTag && loc != null) {
-			Set<String> dwNames = calcDownloadNames(null, false, allRegions,
+			Set<String> dwNames = allRegions == null ? Collections.emptySet() : calcDownloadNames(allRegions,
 					new QuadRect(loc.getLongitude(), loc.getLatitude(), loc.getLongitude(), loc.getLatitude()));
 			for (String dwName : dwNames) {
 				if (needDecryptAbbreviations(getRegionLang(allRegions, dwName))) {
@@ -193,7 +201,26 @@ public class IndexCreationContext {
 	}
 
 	public Set<String> calcRegionTag(Entity entity, boolean add) {
-		OsmandRegions or = allRegions;
+		TreeSet<String> lst = calcEntityRegions(entity);
+		if (lst == null) {
+			return Collections.emptySet();
+		}
+		if (add) {
+			entity.putTag(MapRenderingTypesEncoder.OSMAND_REGION_NAME_TAG, serialize(lst));
+		}
+		return lst;
+	}
+
+	/**
+	 * Value of region tag added by {@link #calcRegionTag(Entity, boolean)}, null if regions are not known.
+	 * Entity is not changed, so it could be called from processing threads.
+	 */
+	public String calcRegionTagValue(Entity entity) {
+		TreeSet<String> lst = calcEntityRegions(entity);
+		return lst == null ? null : serialize(lst);
+	}
+
+	private TreeSet<String> calcEntityRegions(Entity entity) {
 		QuadRect qr = null;
 		if (entity instanceof Relation) {
 			LatLon l = ((Relation) entity).getLatLon();
@@ -209,33 +236,65 @@ public class IndexCreationContext {
 			double lon = ((Node) entity).getLongitude();
 			qr = new QuadRect(lon, lat, lon, lat);
 		}
-		return calcDownloadNames(entity, add, or, qr);
+		if (qr == null || allRegions == null) {
+			return null;
+		}
+		if (Thread.currentThread() == ownerThread) {
+			return calcDownloadNames(allRegions, qr);
+		}
+		OsmandRegions or = regionTagReaders.poll();
+		if (or == null) {
+			or = new OsmandRegions();
+			try {
+				regionTagFiles.add(or.prepareFile(regionsFile.getAbsolutePath()));
+				or.cacheAllCountries();
+			} catch (IOException e) {
+				log.error("Error preparing regions", e);
+				return null;
+			}
+		}
+		try {
+			return calcDownloadNames(or, qr);
+		} finally {
+			regionTagReaders.offer(or);
+		}
 	}
 
-	private Set<String> calcDownloadNames(Entity entity, boolean add, OsmandRegions or, QuadRect qr) {
-		if (qr != null && or != null) {
-			try {
-				int lx = MapUtils.get31TileNumberX(qr.left);
-				int rx = MapUtils.get31TileNumberX(qr.right);
-				int by = MapUtils.get31TileNumberY(qr.bottom);
-				int ty = MapUtils.get31TileNumberY(qr.top);
-				List<BinaryMapDataObject> bbox = or.query(lx, rx, ty, by);
-				TreeSet<String> lst = new TreeSet<String>();
-				for (BinaryMapDataObject bo : bbox) {
-					String dw = or.getDownloadName(bo);
-					if (!Algorithms.isEmpty(dw) && or.isDownloadOfType(bo, OsmandRegions.MAP_TYPE)) {
-						lst.add(dw);
-					}
+	/**
+	 * Closes region readers created for processing threads
+	 */
+	public void closeRegionTagReaders() {
+		regionTagReaders.clear();
+		synchronized (regionTagFiles) {
+			for (BinaryMapIndexReader r : regionTagFiles) {
+				try {
+					r.close();
+				} catch (IOException e) {
+					log.error("Error closing regions", e);
 				}
-				if (add && entity != null) {
-					entity.putTag(MapRenderingTypesEncoder.OSMAND_REGION_NAME_TAG, serialize(lst));
+			}
+			regionTagFiles.clear();
+		}
+	}
+
+	private TreeSet<String> calcDownloadNames(OsmandRegions or, QuadRect qr) {
+		try {
+			int lx = MapUtils.get31TileNumberX(qr.left);
+			int rx = MapUtils.get31TileNumberX(qr.right);
+			int by = MapUtils.get31TileNumberY(qr.bottom);
+			int ty = MapUtils.get31TileNumberY(qr.top);
+			List<BinaryMapDataObject> bbox = or.query(lx, rx, ty, by);
+			TreeSet<String> lst = new TreeSet<String>();
+			for (BinaryMapDataObject bo : bbox) {
+				String dw = or.getDownloadName(bo);
+				if (!Algorithms.isEmpty(dw) && or.isDownloadOfType(bo, OsmandRegions.MAP_TYPE)) {
+					lst.add(dw);
 				}
-				return lst;
-			} catch (IOException e) {
-				throw new RuntimeException(e);
 			}
+			return lst;
+		} catch (IOException e) {
+			throw new RuntimeException(e);
 		}
-		return Collections.emptySet();
 	}
 
 	private static String serialize(TreeSet<String> lst) {
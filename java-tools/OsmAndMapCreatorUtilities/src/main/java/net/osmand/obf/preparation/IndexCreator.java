@@ -22,7 +22,6 @@ import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.xmlpull.v1.XmlPullParserException;
-import rtree.RTreeException;
 
 import javax.imageio.ImageIO;
 import javax.imageio.ImageReader;
@@ -30,6 +29,8 @@ import java.io.*;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.zip.GZIPInputStream;
 
 /**
@@ -53,6 +54,7 @@ public class IndexCreator {
 	public static final int BATCH_SIZE = 5000;
 	public static final int BATCH_SIZE_OSM = 10000;
 	public static final String TEMP_NODES_DB = "nodes.tmp.odb";
+	public static final String TEMP_NODES_LOCATIONS = "nodes.tmp.locations";
 
 	public static final int STEP_MAIN = 4;
 
@@ -172,22 +174,10 @@ public class IndexCreator {
 		return new File(workingDir, getPoiFileName());
 	}
 
-	public String getRTreeMapIndexNonPackFileName() {
-		return mapFile.getAbsolutePath() + ".rtree"; //$NON-NLS-1$
-	}
-
-	public String getRTreeRouteIndexNonPackFileName() {
-		return mapFile.getAbsolutePath() + ".rte"; //$NON-NLS-1$
-	}
-
 	public String getRTreeRouteIndexPackFileName() {
 		return mapFile.getAbsolutePath() + ".prte"; //$NON-NLS-1$
 	}
 
-	public String getRTreeTransportStopsFileName() {
-		return mapFile.getAbsolutePath() + ".trans"; //$NON-NLS-1$
-	}
-
 	public String getRTreeTransportStopsPackFileName() {
 		return mapFile.getAbsolutePath() + ".ptrans"; //$NON-NLS-1$
 	}
@@ -200,6 +190,16 @@ public class IndexCreator {
 
 	private void iterateMainEntity(Entity e, OsmDbAccessorContext ctx, IndexCreationContext icc) throws SQLException {
 		calculateRegionTagAndTransliterate(e, icc);
+		iteratePreparedMainEntity(e, ctx, icc);
+	}
+
+	private void iteratePreparedMainEntity(Entity e, OsmDbAccessorContext ctx, IndexCreationContext icc)
+			throws SQLException {
+		iteratePreparedMainEntity(e, ctx, icc, null);
+	}
+
+	private void iteratePreparedMainEntity(Entity e, OsmDbAccessorContext ctx, IndexCreationContext icc,
+			double[] preparedHeights) throws SQLException {
         if (e.getTag(TIGER_OSMAND_TAG) != null) {
 			if (settings.indexAddress) {
 				indexAddressCreator.iterateMainEntity(e, ctx, icc);
@@ -208,7 +208,7 @@ public class IndexCreator {
         }
 		if (heightData != null && e instanceof Way) {
 			if (!settings.keepOnlyRouteRelationObjects) {// small speedup
-				heightData.proccess((Way) e);
+				heightData.proccess((Way) e, preparedHeights);
 			}
 		}
 		if (propagateToNodes != null && e instanceof Node) {
@@ -242,6 +242,16 @@ public class IndexCreator {
 		icc.translitChineseNames(e);
 	}
 
+	private void calculateRegionTagAndTransliterate(Entity e, IndexCreationContext icc, String preparedRegionTag) {
+		if (preparedRegionTag != null) {
+			e.putTag(MapRenderingTypesEncoder.OSMAND_REGION_NAME_TAG, preparedRegionTag);
+		} else if (settings.addRegionTag) {
+			icc.calcRegionTag(e, true);
+		}
+		icc.translitJapaneseNames(e);
+		icc.translitChineseNames(e);
+	}
+
 	private boolean checkBoundary(Entity e) {
 		if (settings.boundary != null) {
 			if (e instanceof Way) {
@@ -301,6 +311,7 @@ public class IndexCreator {
 			dbCreator.setPropagateToNodes(propagateToNodes);
 		}
 		accessor.setCreator(dbCreator);
+		dbCreator.setNodeLocationStore(accessor.getNodeLocationStore());
 
 		try {
 			setGeneralProgress(progress, "[15 / 100]"); //$NON-NLS-1$
@@ -308,8 +319,12 @@ public class IndexCreator {
 			// 1 init database to store temporary data
 			dbCreator.initDatabase(osmDBdialect, accessor.getDbConn(), idSourceMapInd == 0, previous);
 			storage.getFilters().add(dbCreator);
+			if (pbfFile && addFilter == null) {
+				// untagged nodes are not needed for other filters (address creator registers only places)
+				((OsmBaseStoragePbf) storage).setUntaggedNodeFilter(dbCreator);
+			}
 			if (pbfFile) {
-				((OsmBaseStoragePbf) storage).parseOSMPbf(stream, progress, false);
+				((OsmBaseStoragePbf) storage).parseOSMPbf(stream, progress, false, settings.processingThreads);
 			} else {
 				storage.parseOSM(stream, progress, streamFile, false);
 			}
@@ -347,6 +362,10 @@ public class IndexCreator {
 
 		Connection dbConn = (Connection) getDatabaseConnection(dbFile.getAbsolutePath(), osmDBdialect);
 		accessor.setDbConn(dbConn, osmDBdialect);
+		accessor.setProcessingThreads(settings.processingThreads);
+		if (settings.nodeLocationsInFile) {
+			accessor.setNodeLocationStore(new NodeLocationStore(new File(workingDir, TEMP_NODES_LOCATIONS)));
+		}
 		OsmDbCreator dbCreator = null;
 		int idShift = readFile.length < 16 ? 4 : (readFile.length < 64 ? 6 : 11);
 		if (readFile.length > (1 << 11)) {
@@ -378,12 +397,10 @@ public class IndexCreator {
 
 		// 2.2 create rtree map
 		if (settings.indexMap) {
-			indexMapCreator.createDatabaseStructure(mapConnection, mapIndexDBDialect,
-					getRTreeMapIndexNonPackFileName());
+			indexMapCreator.createDatabaseStructure(mapConnection, mapIndexDBDialect);
 		}
 		if (settings.indexRouting) {
-			indexRouteCreator.createDatabaseStructure(mapConnection, mapIndexDBDialect,
-					getRTreeRouteIndexNonPackFileName());
+			indexRouteCreator.createDatabaseStructure(mapConnection, mapIndexDBDialect);
 		}
 		if (settings.indexAddress) {
 			indexAddressCreator.createDatabaseStructure(mapConnection, mapIndexDBDialect);
@@ -392,8 +409,7 @@ public class IndexCreator {
 			indexPoiCreator.createDatabaseStructure(getPoiFile());
 		}
 		if (settings.indexTransport) {
-			indexTransportCreator.createDatabaseStructure(mapConnection, mapIndexDBDialect,
-					getRTreeTransportStopsFileName());
+			indexTransportCreator.createDatabaseStructure(mapConnection, mapIndexDBDialect);
 		}
 	}
 
@@ -561,19 +577,14 @@ public class IndexCreator {
 				File tempDBMapFile = new File(workingDir, getTempMapDBFileName());
 				mapConnection = (Connection) getDatabaseConnection(tempDBMapFile.getAbsolutePath(), mapIndexDBDialect);
 				mapConnection.setAutoCommit(false);
-				try {
-					if (settings.indexMap) {
-						indexMapCreator.createRTreeFiles(getRTreeMapIndexPackFileName());
-					}
-					if (settings.indexRouting) {
-						indexRouteCreator.createRTreeFiles(getRTreeRouteIndexPackFileName());
-					}
-					if (settings.indexTransport) {
-						indexTransportCreator.createRTreeFile(getRTreeTransportStopsPackFileName());
-					}
-				} catch (RTreeException e) {
-					log.error("Error flushing", e); //$NON-NLS-1$
-					throw new IOException(e);
+				if (settings.indexMap) {
+					indexMapCreator.loadRTreeFiles(getRTreeMapIndexPackFileName());
+				}
+				if (settings.indexRouting) {
+					indexRouteCreator.loadRTreeFiles(getRTreeRouteIndexPackFileName());
+				}
+				if (settings.indexTransport) {
+					indexTransportCreator.loadRTreeFile(getRTreeTransportStopsPackFileName());
 				}
 			} else {
 				// 2. Create index connections and index structure
@@ -601,6 +612,8 @@ public class IndexCreator {
 				if (settings.indexMap || settings.indexRouting) {
 					setGeneralProgress(progress, "[90 / 100]");
 					if (settings.indexMap) {
+						// map low level ways are read directly from the connection shared with route writer
+						indexRouteCreator.flushBatchWriter();
 						progress.startTask(settings.getString("IndexCreator.INDEX_LO_LEVEL_WAYS"),
 								indexMapCreator.getLowLevelWays());
 						indexMapCreator.processingLowLevelWays(progress);
@@ -612,22 +625,29 @@ public class IndexCreator {
 
 				}
 
-				// 4. packing map rtree indexes
+				// 4. packing map rtree indexes (saved only to recreate binary file later)
 				if (settings.indexMap) {
 					setGeneralProgress(progress, "[90 / 100]"); //$NON-NLS-1$
 					progress.startTask(settings.getString("IndexCreator.PACK_RTREE_MAP"), -1); //$NON-NLS-1$
-					indexMapCreator.packRtreeFiles(getRTreeMapIndexNonPackFileName(), getRTreeMapIndexPackFileName());
+					indexMapCreator.packRtreeFiles();
+					if (!deleteDatabaseIndexes) {
+						indexMapCreator.saveRTreeFiles(getRTreeMapIndexPackFileName());
+					}
 				}
 				if (settings.indexRouting) {
-					indexRouteCreator.packRtreeFiles(getRTreeRouteIndexNonPackFileName(),
-							getRTreeRouteIndexPackFileName());
+					indexRouteCreator.packRtreeFiles();
+					if (!deleteDatabaseIndexes) {
+						indexRouteCreator.saveRTreeFiles(getRTreeRouteIndexPackFileName());
+					}
 				}
 
 				if (settings.indexTransport) {
 					setGeneralProgress(progress, "[90 / 100]"); //$NON-NLS-1$
 					progress.startTask(settings.getString("IndexCreator.PACK_RTREE_TRANSP"), -1); //$NON-NLS-1$
-					indexTransportCreator.packRTree(getRTreeTransportStopsFileName(),
-							getRTreeTransportStopsPackFileName());
+					indexTransportCreator.packRTree();
+					if (!deleteDatabaseIndexes) {
+						indexTransportCreator.saveRTree(getRTreeTransportStopsPackFileName());
+					}
 				}
 			}
 
@@ -687,6 +707,7 @@ public class IndexCreator {
 			log.error("Log exception", e); //$NON-NLS-1$
 			throw e;
 		} finally {
+			icc.closeRegionTagReaders();
 			try {
 				indexPoiCreator.commitAndClosePoiFile(lastModifiedDate);
 				if (REMOVE_POI_DB) {
@@ -695,12 +716,9 @@ public class IndexCreator {
 				indexRouteRelationCreatorV1.closeAllStatements();
 				indexRouteRelationCreatorV2.closeAllStatements();
 				indexAddressCreator.closeAllPreparedStatements();
-				indexTransportCreator.commitAndCloseFiles(getRTreeTransportStopsFileName(),
-						getRTreeTransportStopsPackFileName(), deleteDatabaseIndexes);
-				indexMapCreator.commitAndCloseFiles(getRTreeMapIndexNonPackFileName(), getRTreeMapIndexPackFileName(),
-						deleteDatabaseIndexes);
-				indexRouteCreator.commitAndCloseFiles(getRTreeRouteIndexNonPackFileName(),
-						getRTreeRouteIndexPackFileName(), deleteDatabaseIndexes);
+				indexTransportCreator.commitAndCloseFiles(getRTreeTransportStopsPackFileName(), deleteDatabaseIndexes);
+				indexMapCreator.commitAndCloseFiles(getRTreeMapIndexPackFileName(), deleteDatabaseIndexes);
+				indexRouteCreator.commitAndCloseFiles(getRTreeRouteIndexPackFileName(), deleteDatabaseIndexes);
 
 				if (mapConnection != null) {
 					mapConnection.commit();
@@ -727,19 +745,53 @@ public class IndexCreator {
 		setGeneralProgress(progress, "[50 / 100]");
 		progress.startTask(settings.getString("IndexCreator.PROCESS_OSM_NODES"), accessor.getAllNodes());
 		accessor.iterateOverEntities(progress, EntityType.NODE, new OsmDbVisitor() {
+			@Override
+			public void prepareEntity(Entity e) {
+				calculateRegionTagAndTransliterate(e, icc);
+			}
+
 			@Override
 			public void iterateEntity(Entity e, OsmDbAccessorContext ctx) throws SQLException {
-				iterateMainEntity(e, ctx, icc);
+				iteratePreparedMainEntity(e, ctx, icc);
 			}
 		});
 		setGeneralProgress(progress, "[70 / 100]");
 		progress.startTask(settings.getString("IndexCreator.PROCESS_OSM_WAYS"), accessor.getAllWays());
 		accessor.iterateOverEntities(progress, EntityType.WAY, new OsmDbVisitor() {
+			// border points are calculated with tags before region tag and height tags are added,
+			// so only values are calculated in advance and tags are added while iterating
+			final Map<Long, String> preparedRegionTags = new ConcurrentHashMap<>();
+			final Map<Long, double[]> preparedHeights = new ConcurrentHashMap<>();
+
+			@Override
+			public void prepareEntity(Entity e) {
+				boolean tiger = e.getTag(TIGER_OSMAND_TAG) != null;
+				if (heightData != null && !tiger && !settings.keepOnlyRouteRelationObjects) { // small speedup
+					double[] heights = heightData.calculatePointHeights((Way) e);
+					if (heights != null) {
+						preparedHeights.put(e.getId(), heights);
+					}
+				}
+				if (settings.addRegionTag) {
+					String regionTag = icc.calcRegionTagValue(e);
+					if (regionTag != null) {
+						preparedRegionTags.put(e.getId(), regionTag);
+					}
+				}
+				// geometry is simplified in advance only if it is done by several threads
+				if (settings.processingThreads > 1 && settings.indexMap && !tiger
+						&& !settings.keepOnlyRouteRelationObjects && !e.getTags().isEmpty()
+						&& (settings.boundary == null || checkBoundary(e))) {
+					indexMapCreator.prepareWay((Way) e);
+				}
+			}
+
 			@Override
 			public void iterateEntity(Entity e, OsmDbAccessorContext ctx) throws SQLException {
 				Way w = (Way) e;
 				propagateToNodes.calculateBorderPoints(w);
-				iterateMainEntity(e, ctx, icc);
+				calculateRegionTagAndTransliterate(e, icc, preparedRegionTags.remove(e.getId()));
+				iteratePreparedMainEntity(e, ctx, icc, preparedHeights.remove(e.getId()));
 			}
 		});
 		setGeneralProgress(progress, "[85 / 100]");
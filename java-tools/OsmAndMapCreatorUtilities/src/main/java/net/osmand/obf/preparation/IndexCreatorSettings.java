@@ -18,6 +18,13 @@ public class IndexCreatorSettings {
 	// use Sqlite in RAM instead of normal Sqlite (speeds up process but takes a lot of RAM)  
 	public boolean processInRam;
 	
+	// keep locations of untagged nodes in memory-mapped file instead of temporary sqlite node table
+	// (much less disk and I/O for big regions, nodes in input file should be sorted by id)
+	public boolean nodeLocationsInFile;
+
+	// threads to decode pbf blocks and to prepare entities (i.e. calculate heights) while main thread writes them in order
+	public int processingThreads = 1;
+
 	// maximum tiles to use in RAM
 	public int maxHeightTilesInRam = -1;
 
@@ -5,6 +5,11 @@ import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferShort;
 import java.io.*;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -15,6 +20,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 import javax.imageio.ImageIO;
 import javax.imageio.ImageReader;
@@ -84,11 +91,13 @@ public class IndexHeightData {
 
 	
 	private Map<Integer, TileData> map = new HashMap<Integer, TileData>();
+	// tiles being loaded by one of processing threads, guarded by this as map
+	private final Map<Integer, FutureTask<TileData>> loadingTiles = new HashMap<>();
 
 	private static final Log log = PlatformUtil.getLog(IndexHeightData.class);
 	
-	private static class TileData {
-		DataBufferShort data;
+	public static class TileData {
+		ShortBuffer data;
 		private int id;
 		private boolean dataLoaded;
 		private int height;
@@ -96,10 +105,61 @@ public class IndexHeightData {
 		public int accessed;
 		public int loaded;
 		
-		private TileData(int id) {
+		public TileData(int id) {
 			this.id = id;
 			
 		}
+
+		public int getId() {
+			return id;
+		}
+
+		public boolean hasData() {
+			return data != null;
+		}
+
+		public long getDataSize() {
+			return data == null ? 0 : 2L * data.capacity();
+		}
+
+		/**
+		 * Maps heights previously saved with {@link #writeRawData(File)}, so the tile is not decoded again
+		 * and the heights stay outside of java heap.
+		 */
+		public boolean loadRawData(File raw) throws IOException {
+			if (!raw.exists()) {
+				return false;
+			}
+			try (FileChannel ch = FileChannel.open(raw.toPath(), StandardOpenOption.READ)) {
+				MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+				width = buf.getInt(0);
+				height = buf.getInt(4);
+				buf.position(8);
+				data = buf.slice().asShortBuffer();
+				dataLoaded = true;
+				return true;
+			}
+		}
+
+		public void writeRawData(File raw) throws IOException {
+			if (data == null) {
+				return;
+			}
+			File tmp = new File(raw.getParentFile(), raw.getName() + ".tmp");
+			ByteBuffer buf = ByteBuffer.allocate(8 + 2 * data.capacity());
+			buf.putInt(width).putInt(height);
+			buf.asShortBuffer().put(data.duplicate().clear());
+			buf.rewind();
+			try (FileChannel ch = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				while (buf.hasRemaining()) {
+					ch.write(buf);
+				}
+			}
+			if (!tmp.renameTo(raw)) {
+				tmp.delete();
+			}
+		}
 		
 		public File loadData(String srtmDataUrl, File workDir) throws IOException {
 			dataLoaded = true;
@@ -161,12 +221,12 @@ public class IndexHeightData {
 			if (img != null) {
 				width = img.getWidth();
 				height = img.getHeight();
-				data = (DataBufferShort) img.getRaster().getDataBuffer();
+				data = ShortBuffer.wrap(((DataBufferShort) img.getRaster().getDataBuffer()).getData());
 			}
 		}
 		
 
-		private String getFileName() {
+		public String getFileName() {
 			int ln = (id >> 10) - 180;
 			int lt = (id - ((id >> 10) << 10)) - 90;
 			String nd = getId(ln, lt);
@@ -274,11 +334,11 @@ public class IndexHeightData {
 			}
 			
 			int ind = px + py * width;
-			if (ind >= data.getSize()) {
+			if (ind >= data.capacity()) {
 				throw new IllegalArgumentException("Illegal access (" + px + ", " + py + ") " + ind + " - "
 						+ getFileName());
 			}
-			int h = data.getElem(ind) & 0xffff;
+			int h = data.get(ind) & 0xffff;
 			if(h > 0x7fff) {
 				return h - (0xffff);
 			}
@@ -370,7 +430,31 @@ public class IndexHeightData {
 		}
 	}
 	
+	/**
+	 * Heights of way nodes (tile lookups) which could be read in advance by processing threads, null if not needed
+	 */
+	public double[] calculatePointHeights(Way e) {
+		if (!isHeightDataNeeded(e)) {
+			return null;
+		}
+		List<Node> ns = e.getNodes();
+		double[] heights = new double[ns.size()];
+		for (int i = 0; i < ns.size(); i++) {
+			Node n = ns.get(i);
+			heights[i] = n != null && n.getId() <= ObfConstants.PROPAGATE_NODE_BIT
+					? getPointHeight(n.getLatitude(), n.getLongitude()) : INEXISTENT_HEIGHT;
+		}
+		return heights;
+	}
+
 	public boolean proccess(Way e) {
+		return proccess(e, null);
+	}
+
+	/**
+	 * @param preparedHeights result of {@link #calculatePointHeights(Way)} or null to read heights now
+	 */
+	public boolean proccess(Way e, double[] preparedHeights) {
 		if (!isHeightDataNeeded(e)) {
 			// true processed
 			return true;
@@ -384,7 +468,8 @@ public class IndexHeightData {
 		for (int i = 0; i < ns.size(); i++) {
 			Node n = ns.get(i);
 			if (n != null && n.getId() <= ObfConstants.PROPAGATE_NODE_BIT) {
-				double pointHeight = getPointHeight(n.getLatitude(), n.getLongitude());
+				double pointHeight = preparedHeights != null && preparedHeights.length == ns.size() ? preparedHeights[i]
+						: getPointHeight(n.getLatitude(), n.getLongitude());
 				if (prev == null) {
 					if (pointHeight != INEXISTENT_HEIGHT) {
 						prevHeight = pointHeight;
@@ -560,6 +645,33 @@ public class IndexHeightData {
 		return getPointHeight(lat, lon, fileName, null);
 	}
 	
+	public static int getTileId(double lat, double lon) {
+		int lt = (int) lat;
+		int ln = (int) lon;
+		if (lon - ln < 0) {
+			ln -= 1;
+		}
+		if (lat - lt < 0) {
+			lt -= 1;
+		}
+		return getTileId(lt, ln);
+	}
+
+	/**
+	 * Height of the point inside of the tile returned by {@link #getTileId(double, double)}.
+	 */
+	public static double getTileHeight(TileData tileData, double lat, double lon, double[] neighboors) {
+		double lonDelta = lon - (int) lon;
+		double latDelta = lat - (int) lat;
+		if (lonDelta < 0) {
+			lonDelta += 1;
+		}
+		if (latDelta < 0) {
+			latDelta += 1;
+		}
+		return tileData.getHeight(lonDelta, latDelta, neighboors);
+	}
+
 	private double getPointHeight(double lat, double lon, File[] fileName, double[] neighboors) {
 		int lt = (int) lat;
 		int ln = (int) lon;
@@ -573,31 +685,76 @@ public class IndexHeightData {
 			latDelta += 1;
 			lt -= 1;
 		}
-		int id = getTileId(lt, ln);
-		TileData tileData = map.get(id);
-		if (tileData == null) {
-			tileData = new TileData(id);
-			map.put(id, tileData);
-		}
-		if (!tileData.dataLoaded) {
-			gcTiles();
-			try {
-				tileData.loaded++;
-				log.info(String.format("SRTM: Load srtm data %d: %d %d", id, (int) lt, (int) ln));
-				File missingFile = tileData.loadData(srtmDataUrl, srtmWorkingDir);
-				if (fileName != null && fileName.length > 0) {
-					fileName[0] = missingFile;
+		TileData tileData = getTileData(getTileId(lt, ln), lt, ln, fileName);
+		return tileData.getHeight(lonDelta, latDelta, neighboors);
+	}
+
+	// heights of the returned tile could be read concurrently, gc only removes tile from the map.
+	// Tile is loaded and decoded outside of the lock, other threads asking for it wait for the same load.
+	private TileData getTileData(int id, int lt, int ln, File[] fileName) {
+		FutureTask<TileData> load;
+		File[] missingFile = new File[1];
+		boolean loading = false;
+		synchronized (this) {
+			load = loadingTiles.get(id);
+			if (load == null) {
+				TileData tileData = map.get(id);
+				if (tileData == null) {
+					tileData = new TileData(id);
+					map.put(id, tileData);
+				}
+				if (tileData.dataLoaded) {
+					tileData.accessed++;
+					return tileData;
 				}
+				gcTiles();
+				tileData.loaded++;
 				srtmCountDownload++;
 				if (srtmCountDownload > MAX_SRTM_COUNT_DOWNLOAD) {
 					throw new RuntimeException("Max count of download SRTM data " + MAX_SRTM_COUNT_DOWNLOAD);
 				}
-			} catch (IOException e) {
-				log.error(e.getMessage(), e);
+				TileData toLoad = tileData;
+				load = new FutureTask<>(() -> {
+					log.info(String.format("SRTM: Load srtm data %d: %d %d", id, (int) lt, (int) ln));
+					try {
+						missingFile[0] = toLoad.loadData(srtmDataUrl, srtmWorkingDir);
+					} catch (IOException e) {
+						log.error(e.getMessage(), e);
+					}
+					return toLoad;
+				});
+				loadingTiles.put(id, load);
+				loading = true;
+			}
+		}
+		TileData tileData;
+		try {
+			if (loading) {
+				load.run();
+			}
+			tileData = load.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			if (loading) {
+				synchronized (this) {
+					loadingTiles.remove(id);
+				}
 			}
 		}
-		tileData.accessed++;
-		return tileData.getHeight(lonDelta, latDelta, neighboors);
+		if (loading && fileName != null && fileName.length > 0) {
+			fileName[0] = missingFile[0];
+		}
+		synchronized (this) {
+			tileData.accessed++;
+		}
+		return tileData;
 	}
 
 
@@ -624,9 +781,10 @@ public class IndexHeightData {
 			for (int i = 0; i < lst.size(); i++) {
 				TileData tile = lst.get(i);
 				if (i > toGC) {
-					// unload
-					tile.dataLoaded = false;
-					tile.data = null;
+					// unload (data is kept by the old tile object while somebody reads it)
+					TileData unloaded = new TileData(tile.id);
+					unloaded.loaded = tile.loaded;
+					map.put(tile.id, unloaded);
 				}
 				tile.accessed = 0;
 			}
@@ -343,22 +343,22 @@ public class IndexPoiCreator extends AbstractIndexPartCreator {
 
 	public void insertAmenityIntoPoi(Amenity amenity) throws SQLException {
 		assert IndexConstants.POI_TABLE != null : "use constants here to show table usage "; //$NON-NLS-1$
-		poiPreparedStatement.setLong(1, amenity.getId());
-		poiPreparedStatement.setInt(2, MapUtils.get31TileNumberX(amenity.getLocation().getLongitude()));
-		poiPreparedStatement.setInt(3, MapUtils.get31TileNumberY(amenity.getLocation().getLatitude()));
-		poiPreparedStatement.setString(4, amenity.getType().getKeyName());
-		poiPreparedStatement.setString(5, amenity.getSubType());
-		poiPreparedStatement.setString(6, encodeAdditionalInfo(amenity, amenity.getName()));
-		poiPreparedStatement.setInt(7, amenity.getOrder());
-		String tagGroups = insertMergedTaggroups(amenity);
-		poiPreparedStatement.setString(8, tagGroups);
-		int topIndex = 9;
+		Object[] row = new Object[8 + poiTypes.topIndexPoiAdditional.size()];
+		row[0] = amenity.getId();
+		row[1] = MapUtils.get31TileNumberX(amenity.getLocation().getLongitude());
+		row[2] = MapUtils.get31TileNumberY(amenity.getLocation().getLatitude());
+		row[3] = amenity.getType().getKeyName();
+		row[4] = amenity.getSubType();
+		row[5] = encodeAdditionalInfo(amenity, amenity.getName());
+		row[6] = amenity.getOrder();
+		row[7] = insertMergedTaggroups(amenity);
+		int topIndex = 8;
 		for (Map.Entry<String, PoiType> entry : poiTypes.topIndexPoiAdditional.entrySet()) {
 			String val = amenity.getAdditionalInfo(entry.getKey().replace(MapPoiTypes.TOP_INDEX_ADDITIONAL_PREFIX, ""));
-			poiPreparedStatement.setString(topIndex, val);
+			row[topIndex] = val;
 			topIndex++;
 		}
-		addBatch(poiPreparedStatement);
+		batchWriter.add(poiPreparedStatement, true, row);
 	}
 
 
@@ -489,6 +489,8 @@ public class IndexPoiCreator extends AbstractIndexPartCreator {
 		tagGroupsPreparedStatement = poiConnection.prepareStatement("INSERT INTO taggroups (id, tagvalues) VALUES (?, ?)");
 		pStatements.put(poiPreparedStatement, 0);
 		pStatements.put(tagGroupsPreparedStatement, 0);
+		batchWriter = new BatchDbWriter("poi");
+		batchWriter.register(poiPreparedStatement, IndexConstants.POI_TABLE);
 
 		poiConnection.setAutoCommit(false);
 	}
@@ -644,6 +646,10 @@ public class IndexPoiCreator extends AbstractIndexPartCreator {
 			closePreparedStatements(tagGroupsPreparedStatement);
 		}
 		poiConnection.commit();
+		if (poiGeocoding != null) {
+			// geocoding reads sections already written to the same file, buffered data has to be on disk
+			writer.flush();
+		}
 
 		Map<String, Set<PoiTileBox>> namesIndex = new TreeMap<String, Set<PoiTileBox>>();
 
@@ -40,7 +40,6 @@ import net.osmand.osm.io.OsmBaseStorage;
 import net.osmand.util.Algorithms;
 import net.osmand.util.MapUtils;
 import org.apache.commons.logging.Log;
-import rtree.*;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
@@ -56,8 +55,8 @@ public class IndexRouteCreator extends AbstractIndexPartCreator {
 	private final Log logMapDataWarn;
 	private final static int CLUSTER_ZOOM = 15;
 	private final static String CONFLICT_NAME = "#CONFLICT";
-	private RTree routeTree = null;
-	private RTree baserouteTree = null;
+	private PackedRTree routeTree = null;
+	private PackedRTree baserouteTree = null;
 	private MapRoutingTypes routeTypes;
 	RelationTagsPropagation tagsTransformer = new RelationTagsPropagation();
 
@@ -332,7 +331,7 @@ public class IndexRouteCreator extends AbstractIndexPartCreator {
 		return false;
 	}
 
-	private void addWayToIndex(long id, List<Node> nodes, PreparedStatement insertStat, RTree rTree,
+	private void addWayToIndex(long id, List<Node> nodes, PreparedStatement insertStat, PackedRTree rTree,
 			TIntArrayList outTypes,	TLongObjectHashMap<TIntArrayList> pointTypes,
 			TLongObjectHashMap<TIntObjectHashMap<String>> pointNamesRaw, Map<MapRoutingTypes.MapRouteType, String> names ) throws SQLException {
 		boolean init = false;
@@ -396,22 +395,10 @@ public class IndexRouteCreator extends AbstractIndexPartCreator {
 		}
 		if (init) {
 			// conn.prepareStatement("insert into route_objects(id, types, pointTypes, pointIds, pointCoordinates, name) values(?, ?, ?, ?, ?, ?, ?)");
-			insertStat.setLong(1, id);
-			insertStat.setBytes(2, btypes.toByteArray());
-			insertStat.setBytes(3, bpointTypes.toByteArray());
-			insertStat.setBytes(4, bpointIds.toByteArray());
-			insertStat.setBytes(5, bcoordinates.toByteArray());
-			insertStat.setString(6, encodeNames(names));
-			insertStat.setString(7, encodeListNames(pointNamesEmp));
-
-			addBatch(insertStat, false);
-			try {
-				rTree.insert(new LeafElement(new Rect(minX, minY, maxX, maxY), id));
-			} catch (RTreeInsertException e1) {
-				throw new IllegalArgumentException(e1);
-			} catch (IllegalValueException e1) {
-				throw new IllegalArgumentException(e1);
-			}
+			batchWriter.add(insertStat, false, id, btypes.toByteArray(), bpointTypes.toByteArray(),
+					bpointIds.toByteArray(), bcoordinates.toByteArray(), encodeNames(names),
+					encodeListNames(pointNamesEmp));
+			rTree.insert(minX, minY, maxX, maxY, id);
 		}
 	}
 
@@ -495,23 +482,6 @@ public class IndexRouteCreator extends AbstractIndexPartCreator {
 
 
 
-	public Rect calcBounds(rtree.Node n) {
-		Rect r = null;
-		Element[] e = n.getAllElements();
-		for (int i = 0; i < n.getTotalElements(); i++) {
-			Rect re = e[i].getRect();
-			if (r == null) {
-				try {
-					r = new Rect(re.getMinX(), re.getMinY(), re.getMaxX(), re.getMaxY());
-				} catch (IllegalValueException ex) {
-				}
-			} else {
-				r.expandToInclude(re);
-			}
-		}
-		return r;
-	}
-
 	private static final String TABLE_ROUTE = "route_objects";
 	private static final String TABLE_BASEROUTE = "baseroute_objects";
 	private static final String CREATETABLE = "(id bigint primary key, "
@@ -522,7 +492,7 @@ public class IndexRouteCreator extends AbstractIndexPartCreator {
 	private static final String INSERT_STAT = "(id, types, pointTypes, pointIds, pointCoordinates, name, pointNames) values(?, ?, ?, ?, ?, ?, ?)";
 	private static final String COPY_BASE = "INSERT INTO " + TABLE_BASEROUTE + " SELECT id, types, pointTypes, pointIds, pointCoordinates, name, pointNames FROM "+TABLE_ROUTE+" WHERE id = ?";
 
-	public void createDatabaseStructure(Connection mapConnection, DBDialect dialect, String rtreeMapIndexNonPackFileName)
+	public void createDatabaseStructure(Connection mapConnection, DBDialect dialect)
 			throws SQLException, IOException {
 		this.mapConnection = mapConnection;
 		Statement stat = mapConnection.createStatement();
@@ -532,20 +502,15 @@ public class IndexRouteCreator extends AbstractIndexPartCreator {
 		stat.executeUpdate("create index " +TABLE_BASEROUTE + CREATE_IND);
 		stat.close();
 		mapRouteInsertStat = createStatementRouteObjInsert(mapConnection, false);
-		try {
-			routeTree = new RTree(rtreeMapIndexNonPackFileName);
-		} catch (RTreeException e) {
-			throw new IOException(e);
-		}
+		routeTree = new PackedRTree();
 		pStatements.put(mapRouteInsertStat, 0);
+		batchWriter = new BatchDbWriter("route");
+		batchWriter.register(mapRouteInsertStat, TABLE_ROUTE);
 		if (settings.generateLowLevel) {
 			basemapRouteInsertStat = createStatementRouteObjInsert(mapConnection, true);
-			try {
-				baserouteTree = new RTree(rtreeMapIndexNonPackFileName + "b");
-			} catch (RTreeException e) {
-				throw new IOException(e);
-			}
+			baserouteTree = new PackedRTree();
 			pStatements.put(basemapRouteInsertStat, 0);
+			batchWriter.register(basemapRouteInsertStat, TABLE_BASEROUTE);
 		}
 	}
 
@@ -555,33 +520,22 @@ public class IndexRouteCreator extends AbstractIndexPartCreator {
 		return conn.prepareStatement("insert into " + ( basemap ? TABLE_BASEROUTE : TABLE_ROUTE) + INSERT_STAT);
 	}
 
-	public void commitAndCloseFiles(String rTreeMapIndexNonPackFileName, String rTreeMapIndexPackFileName, boolean deleteDatabaseIndexes)
+	public void commitAndCloseFiles(String rTreeMapIndexPackFileName, boolean deleteDatabaseIndexes)
 			throws IOException, SQLException {
 		// delete map rtree files
-		deleteRouteTreeFiles(rTreeMapIndexNonPackFileName, rTreeMapIndexPackFileName, deleteDatabaseIndexes, routeTree);
-		if(settings.generateLowLevel) {
-			deleteRouteTreeFiles(rTreeMapIndexNonPackFileName+"b", rTreeMapIndexPackFileName+"b", deleteDatabaseIndexes, baserouteTree);
+		deleteRouteTreeFile(rTreeMapIndexPackFileName, deleteDatabaseIndexes);
+		if (settings.generateLowLevel) {
+			deleteRouteTreeFile(rTreeMapIndexPackFileName + "b", deleteDatabaseIndexes);
 		}
+		routeTree = null;
+		baserouteTree = null;
 		closeAllPreparedStatements();
 	}
 
-	private void deleteRouteTreeFiles(String rTreeMapIndexNonPackFileName, String rTreeMapIndexPackFileName, boolean deleteDatabaseIndexes,
-			RTree rte) throws IOException {
-		if (rte != null) {
-			RandomAccessFile file = rte.getFileHdr().getFile();
-			file.close();
-		}
-		if (rTreeMapIndexNonPackFileName != null) {
-			File f = new File(rTreeMapIndexNonPackFileName);
-			if (f.exists() && deleteDatabaseIndexes) {
-				f.delete();
-			}
-		}
-		if (rTreeMapIndexPackFileName != null) {
-			File f = new File(rTreeMapIndexPackFileName);
-			if (f.exists() && deleteDatabaseIndexes) {
-				f.delete();
-			}
+	private void deleteRouteTreeFile(String rTreeMapIndexPackFileName, boolean deleteDatabaseIndexes) {
+		File f = new File(rTreeMapIndexPackFileName);
+		if (f.exists() && deleteDatabaseIndexes) {
+			f.delete();
 		}
 	}
 
@@ -668,18 +622,24 @@ public class IndexRouteCreator extends AbstractIndexPartCreator {
 		}
 	}
 
-	public void createRTreeFiles(String rTreeRouteIndexPackFileName) throws RTreeException {
-		routeTree = new RTree(rTreeRouteIndexPackFileName);
-		if(settings.generateLowLevel) {
-			baserouteTree = new RTree(rTreeRouteIndexPackFileName+"b");
+	public void loadRTreeFiles(String rTreeRouteIndexPackFileName) throws IOException {
+		routeTree = PackedRTree.load(new File(rTreeRouteIndexPackFileName));
+		if (settings.generateLowLevel) {
+			baserouteTree = PackedRTree.load(new File(rTreeRouteIndexPackFileName + "b"));
+		}
+	}
+
+	public void packRtreeFiles() {
+		routeTree.pack();
+		if (settings.generateLowLevel) {
+			baserouteTree.pack();
 		}
 	}
 
-	public void packRtreeFiles(String rTreeRouteIndexNonPackFileName, String rTreeRouteIndexPackFileName) throws IOException {
-		routeTree = packRtreeFile(routeTree, rTreeRouteIndexNonPackFileName, rTreeRouteIndexPackFileName);
+	public void saveRTreeFiles(String rTreeRouteIndexPackFileName) throws IOException {
+		routeTree.save(new File(rTreeRouteIndexPackFileName));
 		if (settings.generateLowLevel) {
-			baserouteTree = packRtreeFile(baserouteTree, rTreeRouteIndexNonPackFileName + "b",
-					rTreeRouteIndexPackFileName + "b");
+			baserouteTree.save(new File(rTreeRouteIndexPackFileName + "b"));
 		}
 	}
 
@@ -688,52 +648,45 @@ public class IndexRouteCreator extends AbstractIndexPartCreator {
 		if (basemapRouteInsertStat != null) {
 			closePreparedStatements(basemapRouteInsertStat);
 		}
-		mapConnection.commit();
+		commit(mapConnection);
 
-		try {
-			writer.startWriteRouteIndex(regionName);
-			// write map encoding rules
-			// save position
-			writer.writeRouteEncodingRules(routeTypes.getEncodingRuleTypes());
-			RandomAccessFile raf = writer.getRaf();
+		writer.startWriteRouteIndex(regionName);
+		// write map encoding rules
+		// save position
+		writer.writeRouteEncodingRules(routeTypes.getEncodingRuleTypes());
+		RandomAccessFile raf = writer.getRaf();
+		writer.flush();
+		long fp = raf.getFilePointer();
+
+		// 1st write
+		writeRouteSections(writer);
+		if (baserouteTree != null) {
+			// prewrite end of file to read it
+			writer.simulateWriteEndRouteIndex();
+			writer.preclose();
 			writer.flush();
-			long fp = raf.getFilePointer();
 
-			// 1st write
+			// use file to recalulate tree
+			raf.seek(0);
+			appendMissingRoadsForBaseMap(mapConnection, new BinaryMapIndexReader(raf, fl));
+			// repack
+			baserouteTree.pack();
+
+			// seek to previous position
+			raf.seek(fp);
+			raf.getChannel().truncate(fp);
+
+			// 2nd write
 			writeRouteSections(writer);
-			String fname = null;
-			if (baserouteTree != null) {
-				// prewrite end of file to read it
-				writer.simulateWriteEndRouteIndex();
-				writer.preclose();
-				writer.flush();
-
-				// use file to recalulate tree
-				raf.seek(0);
-				appendMissingRoadsForBaseMap(mapConnection, new BinaryMapIndexReader(raf, fl));
-				// repack
-				fname = baserouteTree.getFileName();
-				baserouteTree = packRtreeFile(baserouteTree, fname, fname + "p");
-
-				// seek to previous position
-				raf.seek(fp);
-				raf.getChannel().truncate(fp);
-
-				// 2nd write
-				writeRouteSections(writer);
-			}
-			writer.endWriteRouteIndex();
-			writer.flush();
-			if (generateLowLevel) {
-				baserouteTree = null;
-				new File(fname + "p").delete();
-			}
-		} catch (RTreeException e) {
-			throw new IllegalStateException(e);
+		}
+		writer.endWriteRouteIndex();
+		writer.flush();
+		if (generateLowLevel) {
+			baserouteTree = null;
 		}
 	}
 	private TLongObjectHashMap<BinaryFileReference> writeRouteSections(BinaryMapIndexWriter writer) throws IOException,
-			SQLException, RTreeException {
+			SQLException {
 		TLongObjectHashMap<BinaryFileReference> route = writeBinaryRouteIndexHeader(writer, routeTree, false);
 		TLongObjectHashMap<BinaryFileReference> base = null;
 		if (baserouteTree != null) {
@@ -769,13 +722,7 @@ public class IndexRouteCreator extends AbstractIndexPartCreator {
 			}
 			ps.setLong(1, id);
 			ps.execute();
-			try {
-				baserouteTree.insert(new LeafElement(new Rect(minX, minY, maxX, maxY), id));
-			} catch (RTreeInsertException e1) {
-				throw new IllegalArgumentException(e1);
-			} catch (IllegalValueException e1) {
-				throw new IllegalArgumentException(e1);
-			}
+			baserouteTree.insert(minX, minY, maxX, maxY, id);
 		}
 		ps.close();
 	}
@@ -1429,54 +1376,48 @@ public class IndexRouteCreator extends AbstractIndexPartCreator {
 
 	}
 
-	private void writeBinaryRouteIndexBlocks(BinaryMapIndexWriter writer, RTree rte, boolean basemap,
-			TLongObjectHashMap<BinaryFileReference> treeHeader) throws IOException, SQLException, RTreeException {
+	private void writeBinaryRouteIndexBlocks(BinaryMapIndexWriter writer, PackedRTree rte, boolean basemap,
+			TLongObjectHashMap<BinaryFileReference> treeHeader) throws IOException, SQLException {
 
 		// write map levels and map index
-		long rootIndex = rte.getFileHdr().getRootIndex();
-		rtree.Node root = rte.getReadNode(rootIndex);
-		Rect rootBounds = calcBounds(root);
-		if (rootBounds != null) {
+		int root = rte.getRoot();
+		if (root >= 0) {
 				PreparedStatement selectData = mapConnection.prepareStatement(basemap ? SELECT_BASE_STAT : SELECT_STAT);
 				RouteWriteContext wc = new RouteWriteContext(logMapDataWarn, treeHeader, routeTypes, selectData);
 				wc.highwayRestrictions = highwayRestrictions;
 				if(basemap) {
 					wc.basemapNodesToReinsert = basemapNodesToReinsert;
 				}
-				writeBinaryMapBlock(root, rootBounds, rte, writer, wc, basemap);
+				writeBinaryMapBlock(root, rte, writer, wc, basemap);
 				selectData.close();
 		}
 	}
 
 	private TLongObjectHashMap<BinaryFileReference> writeBinaryRouteIndexHeader(BinaryMapIndexWriter writer,
-			RTree rte, boolean basemap) throws IOException, SQLException, RTreeException {
+			PackedRTree rte, boolean basemap) throws IOException, SQLException {
 		// write map levels and map index
 		TLongObjectHashMap<BinaryFileReference> treeHeader = new TLongObjectHashMap<BinaryFileReference>();
-		long rootIndex = rte.getFileHdr().getRootIndex();
-		rtree.Node root = rte.getReadNode(rootIndex);
-		Rect rootBounds = calcBounds(root);
-		if (rootBounds != null) {
-			writeBinaryRouteTree(root, rootBounds, rte, writer, treeHeader, basemap);
+		int root = rte.getRoot();
+		if (root >= 0) {
+			writeBinaryRouteTree(root, rte, writer, treeHeader, basemap);
 		}
 		return treeHeader;
 	}
 
 
 
-	public static void writeBinaryMapBlock(rtree.Node parent, Rect parentBounds, RTree r, BinaryMapIndexWriter writer, RouteWriteContext wc, boolean basemap)
-					throws IOException, RTreeException, SQLException {
-		Element[] e = parent.getAllElements();
-
+	public static void writeBinaryMapBlock(int parent, PackedRTree r, BinaryMapIndexWriter writer, RouteWriteContext wc, boolean basemap)
+					throws IOException, SQLException {
 		RouteDataBlock.Builder dataBlock = null;
-		BinaryFileReference ref = wc.treeHeader.get(parent.getNodeIndex());
+		BinaryFileReference ref = wc.treeHeader.get(parent);
 		wc.wayMapIds.clear();
 		wc.wayMapIdsCache.clear();
 		wc.pointMapIds.clear();
         Set<Long> restrictionVia = new HashSet<>();
         List<Long> ids = new ArrayList<>();
-        for (int i = 0; i < parent.getTotalElements(); i++) {
-            if (e[i].getElementType() == rtree.Node.LEAF_NODE) {
-                long id = e[i].getPtr();
+        if (r.isLeaf(parent)) {
+            for (int i = 0; i < r.getChildCount(parent); i++) {
+                long id = r.getEntryId(parent, i);
                 List<RestrictionInfo> restrictions = wc.highwayRestrictions.get(id);
                 if (restrictions != null) {
                     for (int li = 0; li < restrictions.size(); li++) {
@@ -1527,7 +1468,7 @@ public class IndexRouteCreator extends AbstractIndexPartCreator {
                         dataBlock.addRestrictions(restriction.build());
                     }
                 }
-                RouteData routeData = writer.writeRouteData(cid, parentBounds.getMinX(), parentBounds.getMinY(), wc.wayTypes,
+                RouteData routeData = writer.writeRouteData(cid, r.getMinX(parent), r.getMinY(parent), wc.wayTypes,
                         wc.points.toArray(new RoutePointToWrite[wc.points.size()]),
                         wc.wayNames, wc.stringTable, wc.pointNames, dataBlock, true, false);
                 if (routeData != null) {
@@ -1557,34 +1498,24 @@ public class IndexRouteCreator extends AbstractIndexPartCreator {
 			dataBlock.setIdTable(idTable.build());
 			writer.writeRouteDataBlock(dataBlock, wc.stringTable, ref);
 		}
-		for (int i = 0; i < parent.getTotalElements(); i++) {
-			if (e[i].getElementType() != rtree.Node.LEAF_NODE) {
-				long ptr = e[i].getPtr();
-				rtree.Node ns = r.getReadNode(ptr);
-				writeBinaryMapBlock(ns, e[i].getRect(), r, writer, wc, basemap);
+		if (!r.isLeaf(parent)) {
+			for (int i = 0; i < r.getChildCount(parent); i++) {
+				writeBinaryMapBlock(r.getChild(parent, i), r, writer, wc, basemap);
 			}
 		}
 	}
 
-	public static void writeBinaryRouteTree(rtree.Node parent, Rect re, RTree r, BinaryMapIndexWriter writer,
-			TLongObjectHashMap<BinaryFileReference> bounds, boolean basemap)
-			throws IOException, RTreeException {
-		Element[] e = parent.getAllElements();
-		boolean containsLeaf = false;
-		for (int i = 0; i < parent.getTotalElements(); i++) {
-			if (e[i].getElementType() == rtree.Node.LEAF_NODE) {
-				containsLeaf = true;
-			}
-		}
-		BinaryFileReference ref = writer.startRouteTreeElement(re.getMinX(), re.getMaxX(), re.getMinY(), re.getMaxY(), containsLeaf,
-				basemap);
+	public static void writeBinaryRouteTree(int parent, PackedRTree r, BinaryMapIndexWriter writer,
+			TLongObjectHashMap<BinaryFileReference> bounds, boolean basemap) throws IOException {
+		boolean containsLeaf = r.isLeaf(parent);
+		BinaryFileReference ref = writer.startRouteTreeElement(r.getMinX(parent), r.getMaxX(parent), r.getMinY(parent),
+				r.getMaxY(parent), containsLeaf, basemap);
 		if (ref != null) {
-			bounds.put(parent.getNodeIndex(), ref);
+			bounds.put(parent, ref);
 		}
-		for (int i = 0; i < parent.getTotalElements(); i++) {
-			if (e[i].getElementType() != rtree.Node.LEAF_NODE) {
-				rtree.Node chNode = r.getReadNode(e[i].getPtr());
-				writeBinaryRouteTree(chNode, e[i].getRect(), r, writer, bounds, basemap);
+		if (!containsLeaf) {
+			for (int i = 0; i < r.getChildCount(parent); i++) {
+				writeBinaryRouteTree(r.getChild(parent, i), r, writer, bounds, basemap);
 			}
 		}
 		writer.endRouteTreeElement();
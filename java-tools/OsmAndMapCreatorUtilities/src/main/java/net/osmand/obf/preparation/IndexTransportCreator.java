@@ -50,13 +50,6 @@ import net.osmand.osm.edit.Way;
 import net.osmand.util.Algorithms;
 import net.osmand.util.MapUtils;
 import net.sf.junidecode.Junidecode;
-import rtree.Element;
-import rtree.IllegalValueException;
-import rtree.LeafElement;
-import rtree.RTree;
-import rtree.RTreeException;
-import rtree.RTreeInsertException;
-import rtree.Rect;
 
 
 public class IndexTransportCreator extends AbstractIndexPartCreator {
@@ -72,7 +65,7 @@ public class IndexTransportCreator extends AbstractIndexPartCreator {
 	private PreparedStatement transRouteStopsStat;
 	private PreparedStatement transStopsStat;
 	private PreparedStatement transRouteGeometryStat;
-	private RTree transportStopsTree;
+	private PackedRTree transportStopsTree;
 	private Map<Long, Relation> masterRoutes = new HashMap<Long, Relation>();
 	private Connection gtfsConnection;
 
@@ -125,21 +118,19 @@ public class IndexTransportCreator extends AbstractIndexPartCreator {
 	}
 
 
-	public void createRTreeFile(String rtreeTransportStopFile) throws RTreeException {
-		transportStopsTree = new RTree(rtreeTransportStopFile);
+	public void loadRTreeFile(String rtreeTransportStopFile) throws IOException {
+		transportStopsTree = PackedRTree.load(new File(rtreeTransportStopFile));
 	}
 
-	public void writeBinaryTransportTree(rtree.Node parent, RTree r, BinaryMapIndexWriter writer,
+	public void writeBinaryTransportTree(int parent, PackedRTree r, BinaryMapIndexWriter writer,
 			PreparedStatement selectTransportStop, PreparedStatement selectTransportRouteStop,
-			Map<Long, Long> transportRoutes, Map<String, Integer> stringTable) throws IOException, RTreeException, SQLException {
-		Element[] e = parent.getAllElements();
+			Map<Long, Long> transportRoutes, Map<String, Integer> stringTable) throws IOException, SQLException {
 		TLongArrayList routesOffsets = null;
 		TLongArrayList routesIds = null;
 		TLongArrayList deletedRoutes = null;
-		for (int i = 0; i < parent.getTotalElements(); i++) {
-			Rect re = e[i].getRect();
-			if (e[i].getElementType() == rtree.Node.LEAF_NODE) {
-				long id = e[i].getPtr();
+		if (r.isLeaf(parent)) {
+			for (int i = 0; i < r.getChildCount(parent); i++) {
+				long id = r.getEntryId(parent, i);
 				selectTransportStop.setLong(1, id);
 				selectTransportRouteStop.setLong(1, id);
 				ResultSet rs = selectTransportStop.executeQuery();
@@ -198,25 +189,23 @@ public class IndexTransportCreator extends AbstractIndexPartCreator {
 				} else {
 					log.error("Something goes wrong with transport id = " + id); //$NON-NLS-1$
 				}
-			} else {
-				long ptr = e[i].getPtr();
-				rtree.Node ns = r.getReadNode(ptr);
-
-				writer.startTransportTreeElement(re.getMinX(), re.getMaxX(), re.getMinY(), re.getMaxY());
+			}
+		} else {
+			for (int i = 0; i < r.getChildCount(parent); i++) {
+				int ns = r.getChild(parent, i);
+				writer.startTransportTreeElement(r.getMinX(ns), r.getMaxX(ns), r.getMinY(ns), r.getMaxY(ns));
 				writeBinaryTransportTree(ns, r, writer, selectTransportStop, selectTransportRouteStop, transportRoutes, stringTable);
 				writer.endWriteTransportTreeElement();
 			}
 		}
 	}
 
-	public void writeBinaryTransportTree(rtree.Node parent, RTree r, BinaryMapIndexWriter writer,
+	public void writeBinaryTransportTree(int parent, PackedRTree r, BinaryMapIndexWriter writer,
 										 TLongObjectHashMap<TransportStop> transportStops,
-										 Map<String, Integer> stringTable) throws IOException, RTreeException, SQLException {
-		Element[] e = parent.getAllElements();
-		for (int i = 0; i < parent.getTotalElements(); i++) {
-			Rect re = e[i].getRect();
-			if (e[i].getElementType() == rtree.Node.LEAF_NODE) {
-				long id = e[i].getPtr();
+										 Map<String, Integer> stringTable) throws IOException, SQLException {
+		if (r.isLeaf(parent)) {
+			for (int i = 0; i < r.getChildCount(parent); i++) {
+				long id = r.getEntryId(parent, i);
 				TransportStop stop = transportStops.get(id);
 				if (stop != null) {
 					int x24 = (int) MapUtils.getTileNumberX(24, stop.getLocation().getLongitude());
@@ -242,19 +231,23 @@ public class IndexTransportCreator extends AbstractIndexPartCreator {
 				} else {
 					log.error("Something goes wrong with transport id = " + id);
 				}
-			} else {
-				long ptr = e[i].getPtr();
-				rtree.Node ns = r.getReadNode(ptr);
-
-				writer.startTransportTreeElement(re.getMinX(), re.getMaxX(), re.getMinY(), re.getMaxY());
+			}
+		} else {
+			for (int i = 0; i < r.getChildCount(parent); i++) {
+				int ns = r.getChild(parent, i);
+				writer.startTransportTreeElement(r.getMinX(ns), r.getMaxX(ns), r.getMinY(ns), r.getMaxY(ns));
 				writeBinaryTransportTree(ns, r, writer, transportStops, stringTable);
 				writer.endWriteTransportTreeElement();
 			}
 		}
 	}
 
-	public void packRTree(String rtreeTransportStopsFileName, String rtreeTransportStopsPackFileName) throws IOException {
-		transportStopsTree = packRtreeFile(transportStopsTree, rtreeTransportStopsFileName, rtreeTransportStopsPackFileName);
+	public void packRTree() {
+		transportStopsTree.pack();
+	}
+
+	public void saveRTree(String rtreeTransportStopsPackFileName) throws IOException {
+		transportStopsTree.save(new File(rtreeTransportStopsPackFileName));
 	}
 
 	public void indexRelations(Relation e, OsmDbAccessorContext ctx) throws SQLException {
@@ -315,7 +308,7 @@ public class IndexTransportCreator extends AbstractIndexPartCreator {
 		}
 	}
 
-	public void createDatabaseStructure(Connection conn, DBDialect dialect, String rtreeStopsFileName) throws SQLException, IOException {
+	public void createDatabaseStructure(Connection conn, DBDialect dialect) throws SQLException, IOException {
 		Statement stat = conn.createStatement();
 
 		stat.executeUpdate("create table transport_route (id bigint primary key, type varchar(1024), operator varchar(1024)," +
@@ -339,15 +332,7 @@ public class IndexTransportCreator extends AbstractIndexPartCreator {
 //        }
 		stat.close();
 
-		try {
-			File file = new File(rtreeStopsFileName);
-			if (file.exists()) {
-				file.delete();
-			}
-			transportStopsTree = new RTree(file.getAbsolutePath());
-		} catch (RTreeException e) {
-			throw new IOException(e);
-		}
+		transportStopsTree = new PackedRTree();
 		transRouteStat = conn.prepareStatement("insert into transport_route(id, type, operator, ref, name, name_en, dist, color) values(?, ?, ?, ?, ?, ?, ?, ?)");
 		transRouteStopsStat = conn.prepareStatement("insert into transport_route_stop(route, stop, ord) values(?, ?, ?)");
 		transStopsStat = conn.prepareStatement("insert into transport_stop(id, latitude, longitude, name, name_en, names, deleted_routes) values(?, ?, ?, ?, ?, ?, ?)");
@@ -522,13 +507,7 @@ public class IndexTransportCreator extends AbstractIndexPartCreator {
 				int x = (int) MapUtils.getTileNumberX(24, s.getLocation().getLongitude());
 				int y = (int) MapUtils.getTileNumberY(24, s.getLocation().getLatitude());
 				addBatch(transStopsStat);
-				try {
-					transportStopsTree.insert(new LeafElement(new Rect(x, y, x, y), s.getId()));
-				} catch (RTreeInsertException e) {
-					throw new IllegalArgumentException(e);
-				} catch (IllegalValueException e) {
-					throw new IllegalArgumentException(e);
-				}
+				transportStopsTree.insert(x, y, x, y, s.getId());
 				visitedStops.add(s.getId());
 			}
 			transRouteStopsStat.setLong(1, r.getId());
@@ -542,134 +521,111 @@ public class IndexTransportCreator extends AbstractIndexPartCreator {
 
 	public void writeBinaryTransportIndex(BinaryMapIndexWriter writer, String regionName,
 			Connection mapConnection) throws IOException, SQLException {
-		try {
-			closePreparedStatements(transRouteStat, transRouteStopsStat, transStopsStat, transRouteGeometryStat);
-			mapConnection.commit();
-			transportStopsTree.flush();
-
-			visitedStops = null; // allow gc to collect it
-			PreparedStatement selectTransportRouteData = mapConnection.prepareStatement(
-					"SELECT id, dist, name, name_en, ref, operator, type, color FROM transport_route"); //$NON-NLS-1$
-			PreparedStatement selectTransportData = mapConnection.prepareStatement("SELECT S.stop, " + //$NON-NLS-1$
-					"  A.latitude,  A.longitude, A.name, A.name_en, A.names, A.deleted_routes " + //$NON-NLS-1$
-					"FROM transport_route_stop S INNER JOIN transport_stop A ON A.id = S.stop WHERE S.route = ? ORDER BY S.ord asc"); //$NON-NLS-1$
-			PreparedStatement selectTransportRouteGeometry = mapConnection.prepareStatement("SELECT S.geometry " + 
-					"FROM transport_route_geometry S WHERE S.route = ? order by S.ind"); //$NON-NLS-1$
-
-			long transportIndexOffset = writer.startWriteTransportIndex(regionName);
-
-			writer.startWriteTransportRoutes();
-
-			// expect that memory would be enough
-			Map<String, Integer> stringTable = createStringTableForTransport();
-			Map<Long, Long> transportRoutes = new LinkedHashMap<>();
-
-			ResultSet rs = selectTransportRouteData.executeQuery();
-			List<TransportStop> directStops = new ArrayList<>();
-			List<TransportStop> reverseStops = new ArrayList<>();
-			List<byte[]> directGeometry = new ArrayList<>();
-			while (rs.next()) {
-				long idRoute = rs.getLong(1);
-				int dist = rs.getInt(2);
-				String routeName = rs.getString(3);
-				String routeEnName = rs.getString(4);
-				if (routeEnName != null && routeEnName.equals(Junidecode.unidecode(routeName))) {
-					routeEnName = null;	
-				}
-				String ref = rs.getString(5);
-				String operator = rs.getString(6);
-				String type = rs.getString(7);
-				String color = rs.getString(8);
-
-				selectTransportData.setLong(1, idRoute);
-				ResultSet rset = selectTransportData.executeQuery();
-				reverseStops.clear();
-				directStops.clear();
-				directGeometry.clear();
-				while (rset.next()) {
-					long idStop = rset.getLong(1);
-					String stopName = rset.getString(4);
-					String stopEnName = rset.getString(5);
-					Gson gson = new Gson();
-					String names = rset.getString(6);
-					Type t = new TypeToken<Map<String, String>>(){}.getType();
-					Map<String, String> map = gson.fromJson(names, t);
-					if (stopEnName != null && stopEnName.equals(Junidecode.unidecode(stopName))) {
-						stopEnName = null;
-					}
-					TransportStop st = new TransportStop();
-					st.setNames(map);
-					st.setId(idStop);
-					st.setName(stopName);
-					st.setLocation(rset.getDouble(2), rset.getDouble(3));
-					if (stopEnName != null) {
-						st.setEnName(stopEnName);
-					}
-					directStops.add(st);
-				}
-				selectTransportRouteGeometry.setLong(1, idRoute);
-				rset = selectTransportRouteGeometry.executeQuery();
-				while (rset.next()) {
-					byte[] bytes = rset.getBytes(1);
-					directGeometry.add(bytes);
+		closePreparedStatements(transRouteStat, transRouteStopsStat, transStopsStat, transRouteGeometryStat);
+		mapConnection.commit();
+
+		visitedStops = null; // allow gc to collect it
+		PreparedStatement selectTransportRouteData = mapConnection.prepareStatement(
+				"SELECT id, dist, name, name_en, ref, operator, type, color FROM transport_route"); //$NON-NLS-1$
+		PreparedStatement selectTransportData = mapConnection.prepareStatement("SELECT S.stop, " + //$NON-NLS-1$
+				"  A.latitude,  A.longitude, A.name, A.name_en, A.names, A.deleted_routes " + //$NON-NLS-1$
+				"FROM transport_route_stop S INNER JOIN transport_stop A ON A.id = S.stop WHERE S.route = ? ORDER BY S.ord asc"); //$NON-NLS-1$
+		PreparedStatement selectTransportRouteGeometry = mapConnection.prepareStatement("SELECT S.geometry " + 
+				"FROM transport_route_geometry S WHERE S.route = ? order by S.ind"); //$NON-NLS-1$
+
+		long transportIndexOffset = writer.startWriteTransportIndex(regionName);
+
+		writer.startWriteTransportRoutes();
+
+		// expect that memory would be enough
+		Map<String, Integer> stringTable = createStringTableForTransport();
+		Map<Long, Long> transportRoutes = new LinkedHashMap<>();
+
+		ResultSet rs = selectTransportRouteData.executeQuery();
+		List<TransportStop> directStops = new ArrayList<>();
+		List<TransportStop> reverseStops = new ArrayList<>();
+		List<byte[]> directGeometry = new ArrayList<>();
+		while (rs.next()) {
+			long idRoute = rs.getLong(1);
+			int dist = rs.getInt(2);
+			String routeName = rs.getString(3);
+			String routeEnName = rs.getString(4);
+			if (routeEnName != null && routeEnName.equals(Junidecode.unidecode(routeName))) {
+				routeEnName = null;	
+			}
+			String ref = rs.getString(5);
+			String operator = rs.getString(6);
+			String type = rs.getString(7);
+			String color = rs.getString(8);
+
+			selectTransportData.setLong(1, idRoute);
+			ResultSet rset = selectTransportData.executeQuery();
+			reverseStops.clear();
+			directStops.clear();
+			directGeometry.clear();
+			while (rset.next()) {
+				long idStop = rset.getLong(1);
+				String stopName = rset.getString(4);
+				String stopEnName = rset.getString(5);
+				Gson gson = new Gson();
+				String names = rset.getString(6);
+				Type t = new TypeToken<Map<String, String>>(){}.getType();
+				Map<String, String> map = gson.fromJson(names, t);
+				if (stopEnName != null && stopEnName.equals(Junidecode.unidecode(stopName))) {
+					stopEnName = null;
 				}
-				TransportSchedule schedule = readSchedule(ref, directStops);
-				long ptr = writer.writeTransportRoute(idRoute, routeName, routeEnName, ref, operator, type, dist, color, directStops,
-						directGeometry, stringTable, transportRoutes, schedule, transportRouteTagValues);
-				if (isRouteIncomplete(idRoute)) {
-					incompleteRoutesMap.get(idRoute).setFileOffset((int) ptr);
+				TransportStop st = new TransportStop();
+				st.setNames(map);
+				st.setId(idStop);
+				st.setName(stopName);
+				st.setLocation(rset.getDouble(2), rset.getDouble(3));
+				if (stopEnName != null) {
+					st.setEnName(stopEnName);
 				}
+				directStops.add(st);
 			}
-			rs.close();
-			selectTransportRouteData.close();
-			selectTransportData.close();
-			writer.endWriteTransportRoutes();
-
-			PreparedStatement selectTransportStop = mapConnection.prepareStatement(
-					"SELECT A.id,  A.latitude,  A.longitude, A.name, A.name_en, A.names, A.deleted_routes FROM transport_stop A where A.id = ?"); //$NON-NLS-1$
-			PreparedStatement selectTransportRouteStop = mapConnection.prepareStatement(
-					"SELECT DISTINCT S.route FROM transport_route_stop S join transport_route R  on R.id = S.route WHERE S.stop = ? ORDER BY R.type, R.ref "); //$NON-NLS-1$
-			long rootIndex = transportStopsTree.getFileHdr().getRootIndex();
-			rtree.Node root = transportStopsTree.getReadNode(rootIndex);
-			Rect rootBounds = calcBounds(root);
-			if (rootBounds != null) {
-				writer.startTransportTreeElement(rootBounds.getMinX(), rootBounds.getMaxX(), rootBounds.getMinY(), rootBounds.getMaxY());
-				writeBinaryTransportTree(root, transportStopsTree, writer, selectTransportStop, selectTransportRouteStop,
-						transportRoutes, stringTable);
-				writer.endWriteTransportTreeElement();
+			selectTransportRouteGeometry.setLong(1, idRoute);
+			rset = selectTransportRouteGeometry.executeQuery();
+			while (rset.next()) {
+				byte[] bytes = rset.getBytes(1);
+				directGeometry.add(bytes);
 			}
-			selectTransportStop.close();
-			selectTransportRouteStop.close();
-
-			writer.writeIncompleteTransportRoutes(incompleteRoutesMap.valueCollection(), stringTable, transportIndexOffset);
-			writer.writeTransportStringTable(stringTable);
-			
-			writer.endWriteTransportIndex();
-			writer.flush();
-			log.info(gtfsStats);
-		} catch (RTreeException e) {
-			throw new IllegalStateException(e);
-		}
-	}
-
-
-	private Rect calcBounds(rtree.Node n) {
-		Rect r = null;
-		Element[] e = n.getAllElements();
-		for (int i = 0; i < n.getTotalElements(); i++) {
-			Rect re = e[i].getRect();
-			if (r == null) {
-				try {
-					r = new Rect(re.getMinX(), re.getMinY(), re.getMaxX(), re.getMaxY());
-				} catch (IllegalValueException ex) {
-				}
-			} else {
-				r.expandToInclude(re);
+			TransportSchedule schedule = readSchedule(ref, directStops);
+			long ptr = writer.writeTransportRoute(idRoute, routeName, routeEnName, ref, operator, type, dist, color, directStops,
+					directGeometry, stringTable, transportRoutes, schedule, transportRouteTagValues);
+			if (isRouteIncomplete(idRoute)) {
+				incompleteRoutesMap.get(idRoute).setFileOffset((int) ptr);
 			}
 		}
-		return r;
+		rs.close();
+		selectTransportRouteData.close();
+		selectTransportData.close();
+		writer.endWriteTransportRoutes();
+
+		PreparedStatement selectTransportStop = mapConnection.prepareStatement(
+				"SELECT A.id,  A.latitude,  A.longitude, A.name, A.name_en, A.names, A.deleted_routes FROM transport_stop A where A.id = ?"); //$NON-NLS-1$
+		PreparedStatement selectTransportRouteStop = mapConnection.prepareStatement(
+				"SELECT DISTINCT S.route FROM transport_route_stop S join transport_route R  on R.id = S.route WHERE S.stop = ? ORDER BY R.type, R.ref "); //$NON-NLS-1$
+		int root = transportStopsTree.getRoot();
+		if (root >= 0) {
+			writer.startTransportTreeElement(transportStopsTree.getMinX(root), transportStopsTree.getMaxX(root),
+					transportStopsTree.getMinY(root), transportStopsTree.getMaxY(root));
+			writeBinaryTransportTree(root, transportStopsTree, writer, selectTransportStop, selectTransportRouteStop,
+					transportRoutes, stringTable);
+			writer.endWriteTransportTreeElement();
+		}
+		selectTransportStop.close();
+		selectTransportRouteStop.close();
+
+		writer.writeIncompleteTransportRoutes(incompleteRoutesMap.valueCollection(), stringTable, transportIndexOffset);
+		writer.writeTransportStringTable(stringTable);
+		
+		writer.endWriteTransportIndex();
+		writer.flush();
+		log.info(gtfsStats);
 	}
 
+
 	private int registerString(Map<String, Integer> stringTable, String s) {
 		if (stringTable.containsKey(s)) {
 			return stringTable.get(s);
@@ -693,18 +649,14 @@ public class IndexTransportCreator extends AbstractIndexPartCreator {
 	}
 
 
-	public void commitAndCloseFiles(String rtreeStopsFileName, String rtreeStopsPackFileName, boolean deleteDatabaseIndexes) throws IOException, SQLException {
+	public void commitAndCloseFiles(String rtreeStopsPackFileName, boolean deleteDatabaseIndexes) throws IOException, SQLException {
 		// delete transport rtree files
 		if (transportStopsTree != null) {
-			transportStopsTree.getFileHdr().getFile().close();
-			File f = new File(rtreeStopsFileName);
-			if (f.exists() && deleteDatabaseIndexes) {
-				f.delete();
-			}
-			f = new File(rtreeStopsPackFileName);
+			File f = new File(rtreeStopsPackFileName);
 			if (f.exists() && deleteDatabaseIndexes) {
 				f.delete();
 			}
+			transportStopsTree = null;
 		}
 		closeAllPreparedStatements();
 	}
@@ -3,7 +3,6 @@ package net.osmand.obf.preparation;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -18,6 +17,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import net.osmand.data.*;
 import org.apache.commons.logging.Log;
@@ -49,13 +49,6 @@ import net.osmand.osm.edit.Relation.RelationMember;
 import net.osmand.osm.edit.Way;
 import net.osmand.util.Algorithms;
 import net.osmand.util.MapUtils;
-import rtree.Element;
-import rtree.IllegalValueException;
-import rtree.LeafElement;
-import rtree.RTree;
-import rtree.RTreeException;
-import rtree.RTreeInsertException;
-import rtree.Rect;
 
 public class IndexVectorMapCreator extends AbstractIndexPartCreator {
 
@@ -101,11 +94,13 @@ public class IndexVectorMapCreator extends AbstractIndexPartCreator {
     });
     RelationTagsPropagation tagsTransformer = new RelationTagsPropagation();
     TIntArrayList addtypeUse = new TIntArrayList(8);
+    // simplified geometry of ways by map zoom level, prepared by processing threads
+    private final Map<Long, List<List<Node>>> preparedWays = new ConcurrentHashMap<>();
 
     private PreparedStatement mapBinaryStat;
     private PreparedStatement mapLowLevelBinaryStat;
     private int lowLevelWays = -1;
-    private RTree[] mapTree = null;
+    private PackedRTree[] mapTree = null;
     private Connection mapConnection;
 
     private static int DUPLICATE_SPLIT = 5;
@@ -506,11 +501,15 @@ public class IndexVectorMapCreator extends AbstractIndexPartCreator {
     }
 
     public void processingLowLevelWays(IProgress progress) throws SQLException {
-        mapLowLevelBinaryStat.executeBatch();
-        mapLowLevelBinaryStat.close();
-        pStatements.remove(mapLowLevelBinaryStat);
-        mapLowLevelBinaryStat = null;
-        mapConnection.commit();
+        // route writer shares the connection and should be flushed by caller as well
+        batchWriter.flush();
+        synchronized (mapConnection) {
+            mapLowLevelBinaryStat.executeBatch();
+            mapLowLevelBinaryStat.close();
+            pStatements.remove(mapLowLevelBinaryStat);
+            mapLowLevelBinaryStat = null;
+            mapConnection.commit();
+        }
 
         PreparedStatement startStat = mapConnection
                 .prepareStatement("SELECT id, end_node, nodes, name, type, addType FROM low_level_map_objects"
@@ -519,8 +518,11 @@ public class IndexVectorMapCreator extends AbstractIndexPartCreator {
                 .prepareStatement("SELECT id, start_node, nodes, name, type, addType FROM low_level_map_objects"
                         + " WHERE end_node = ? AND level = ?");
         Statement selectStatement = mapConnection.createStatement();
-        ResultSet rs = selectStatement.executeQuery(
-                "SELECT id, start_node, end_node, nodes, name, type, addType, level FROM low_level_map_objects");
+        ResultSet rs;
+        synchronized (mapConnection) {
+            rs = selectStatement.executeQuery(
+                    "SELECT id, start_node, end_node, nodes, name, type, addType, level FROM low_level_map_objects");
+        }
         TLongHashSet visitedWays = new TLongHashSet();
         ArrayList<Float> list = new ArrayList<Float>(100);
         TIntArrayList temp = new TIntArrayList();
@@ -574,9 +576,11 @@ public class IndexVectorMapCreator extends AbstractIndexPartCreator {
                 combined = false;
                 endStat.setLong(1, startNode);
                 endStat.setShort(2, (short) level);
-                ResultSet fs = endStat.executeQuery();
-                readLowLevelCandidates(fs, candidates, temp, tempAdd, visitedWays);
-                fs.close();
+                synchronized (mapConnection) {
+                    ResultSet fs = endStat.executeQuery();
+                    readLowLevelCandidates(fs, candidates, temp, tempAdd, visitedWays);
+                    fs.close();
+                }
                 LowLevelWayCandidate cand = getCandidate(candidates, cmpCandidates);
                 if (cand != null) {
                     combined = true;
@@ -604,9 +608,11 @@ public class IndexVectorMapCreator extends AbstractIndexPartCreator {
                 combined = false;
                 startStat.setLong(1, endNode);
                 startStat.setShort(2, (short) level);
-                ResultSet fs = startStat.executeQuery();
-                readLowLevelCandidates(fs, candidates, temp, tempAdd, visitedWays);
-                fs.close();
+                synchronized (mapConnection) {
+                    ResultSet fs = startStat.executeQuery();
+                    readLowLevelCandidates(fs, candidates, temp, tempAdd, visitedWays);
+                    fs.close();
+                }
                 LowLevelWayCandidate cand = getCandidate(candidates, cmpCandidates);
                 if (cand != null) {
                     combined = true;
@@ -773,8 +779,12 @@ public class IndexVectorMapCreator extends AbstractIndexPartCreator {
             long assignedId = e.getId();
             // split doesn't work correctly with OsmAnd Live so it was disabled
 //            List<Map<String, String>> splitTags = renderingTypes.splitTags(e.getTags(), EntityType.valueOf(e));
+            // transform tags once for all levels (sea objects filter changes tags for each level)
+            Map<String, String> transformedTags = settings.keepOnlySeaObjects ? null : renderingTypes.transformTags(tags,
+                    e instanceof Node ? EntityType.NODE : EntityType.WAY, EntityConvertApplyType.MAP);
+            List<List<Node>> simplified = e instanceof Way ? preparedWays.remove(e.getId()) : null;
             for (int level = 0; level < mapZooms.size(); level++) {
-                processMainEntity(e, originalId, assignedId, level, tags, icc);
+                processMainEntity(e, originalId, assignedId, level, tags, transformedTags, simplified, icc);
             }
             createCenterNodeForSmallIsland(e, tags, originalId, icc);
         }
@@ -800,13 +810,52 @@ public class IndexVectorMapCreator extends AbstractIndexPartCreator {
 		}
 	}
 
+    /**
+     * Ways which are going to be processed by {@link #iterateMainEntity} are simplified for all map zoom levels
+     * in advance, it is called from processing threads.
+     */
+    public void prepareWay(Way w) {
+        List<Node> nodes = w.getNodes();
+        boolean cycle = w.getFirstNodeId() == w.getLastNodeId();
+        List<List<Node>> simplified = new ArrayList<>(mapZooms.size());
+        try {
+            for (int level = 0; level < mapZooms.size(); level++) {
+                List<Node> res = null;
+                if (level > 0 || mapZooms.isDetailedZoomSimplified()) {
+                    int zoomToSimplify = mapZooms.getLevel(level).getMaxZoom() - 1;
+                    if (cycle) {
+                        res = simplifyCycleWay(nodes, zoomToSimplify, settings.zoomWaySmoothness);
+                        // empty list - way is too small for the level
+                        res = res == null ? Collections.emptyList() : res;
+                    } else {
+                        res = new ArrayList<>();
+                        OsmMapUtils.simplifyDouglasPeucker(nodes, zoomToSimplify + 8 + settings.zoomWaySmoothness, 3,
+                                res, false);
+                    }
+                }
+                simplified.add(res);
+            }
+        } catch (SQLException | RuntimeException ex) {
+            // simplified again while processing to report error in order
+            return;
+        }
+        preparedWays.put(w.getId(), simplified);
+    }
+
     protected void processMainEntity(Entity e, long originalId, long assignedId, int level, Map<String, String> tags,
                                      IndexCreationContext icc) throws SQLException {
+        processMainEntity(e, originalId, assignedId, level, tags, null, null, icc);
+    }
+
+    private void processMainEntity(Entity e, long originalId, long assignedId, int level, Map<String, String> tags,
+                                   Map<String, String> transformedTags, List<List<Node>> simplified,
+                                   IndexCreationContext icc) throws SQLException {
         if (settings.keepOnlySeaObjects) {
             // fix issue with duplicate coastlines from seamarks
             if ("coastline".equals(tags.get("natural"))) {
             	tags = new LinkedHashMap<>(tags);
                 tags.remove("natural", "coastline");
+                transformedTags = null;
             }
             if (e instanceof Node && !checkBelongsToSea(Collections.singletonList((Node) e))) {
                 return;
@@ -814,9 +863,14 @@ public class IndexVectorMapCreator extends AbstractIndexPartCreator {
                 return;
             }
         }
-        boolean area = renderingTypes.encodeEntityWithType(e instanceof Node,
-                tags, mapZooms.getLevel(level).getMaxZoom(), typeUse, addtypeUse, namesUse,
-                tempNameUse);
+        boolean area;
+        if (transformedTags != null) {
+            area = renderingTypes.encodeTransformedEntityWithType(e instanceof Node, transformedTags,
+                    mapZooms.getLevel(level).getMaxZoom(), typeUse, addtypeUse, namesUse, tempNameUse);
+        } else {
+            area = renderingTypes.encodeEntityWithType(e instanceof Node, tags, mapZooms.getLevel(level).getMaxZoom(),
+                    typeUse, addtypeUse, namesUse, tempNameUse);
+        }
         if (typeUse.isEmpty()) {
             return;
         }
@@ -847,15 +901,20 @@ public class IndexVectorMapCreator extends AbstractIndexPartCreator {
             if (!mostDetailedLevel) {
                 int zoomToSimplify = mapZooms.getLevel(level).getMaxZoom() - 1;
 
+                List<Node> prepared = simplified != null ? simplified.get(level) : null;
                 if (cycle) {
-                    res = simplifyCycleWay(((Way) e).getNodes(), zoomToSimplify, settings.zoomWaySmoothness);
+                    if (prepared != null) {
+                        res = prepared.isEmpty() ? null : prepared;
+                    } else {
+                        res = simplifyCycleWay(((Way) e).getNodes(), zoomToSimplify, settings.zoomWaySmoothness);
+                    }
                     if (isClockwiseBroken(tags, (Way) e, res)) {
                         res = null;
                     }
                 } else {
                     validateDuplicate(originalId, id);
                     insertLowLevelMapBinaryObject(level, zoomToSimplify, typeUse, addtypeUse, id, ((Way) e).getNodes(),
-                            namesUse);
+                            prepared, namesUse);
                 }
             } else {
                 res = ((Way) e).getNodes();
@@ -881,43 +940,37 @@ public class IndexVectorMapCreator extends AbstractIndexPartCreator {
 
     public void writeBinaryMapIndex(BinaryMapIndexWriter writer, String regionName) throws IOException, SQLException {
         closePreparedStatements(mapBinaryStat, mapLowLevelBinaryStat);
-        mapConnection.commit();
-        try {
-            writer.startWriteMapIndex(regionName);
-            // write map encoding rules
-            writer.writeMapEncodingRules(renderingTypes.getEncodingRuleTypes());
-
-            PreparedStatement selectData = mapConnection
-                    .prepareStatement(
-                            "SELECT area, coordinates, innerPolygons, types, additionalTypes, name, labelCoordinates FROM binary_map_objects WHERE id = ?");
-
-            // write map levels and map index
-            TLongObjectHashMap<BinaryFileReference> treeHeader = new TLongObjectHashMap<BinaryFileReference>();
-            for (int i = 0; i < mapZooms.size(); i++) {
-                RTree rtree = mapTree[i];
-                long rootIndex = rtree.getFileHdr().getRootIndex();
-                rtree.Node root = rtree.getReadNode(rootIndex);
-                Rect rootBounds = calcBounds(root);
-                if (rootBounds != null) {
-                    writer.startWriteMapLevelIndex(mapZooms.getLevel(i).getMinZoom(), mapZooms.getLevel(i).getMaxZoom(),
-                            rootBounds.getMinX(), rootBounds.getMaxX(), rootBounds.getMinY(), rootBounds.getMaxY());
-                    writeBinaryMapTree(root, rootBounds, rtree, writer, treeHeader);
-
-                    writeBinaryMapBlock(root, rootBounds, rtree, writer, selectData, treeHeader,
-                            new LinkedHashMap<String, Integer>(),
-                            new LinkedHashMap<MapRulType, String>(), mapZooms.getLevel(i));
-
-                    writer.endWriteMapLevelIndex();
-                }
-            }
+        commit(mapConnection);
+        writer.startWriteMapIndex(regionName);
+        // write map encoding rules
+        writer.writeMapEncodingRules(renderingTypes.getEncodingRuleTypes());
 
-            selectData.close();
+        PreparedStatement selectData = mapConnection
+                .prepareStatement(
+                        "SELECT area, coordinates, innerPolygons, types, additionalTypes, name, labelCoordinates FROM binary_map_objects WHERE id = ?");
 
-            writer.endWriteMapIndex();
-            writer.flush();
-        } catch (RTreeException e) {
-            throw new IllegalStateException(e);
+        // write map levels and map index
+        TLongObjectHashMap<BinaryFileReference> treeHeader = new TLongObjectHashMap<BinaryFileReference>();
+        for (int i = 0; i < mapZooms.size(); i++) {
+            PackedRTree rtree = mapTree[i];
+            int root = rtree.getRoot();
+            if (root >= 0) {
+                writer.startWriteMapLevelIndex(mapZooms.getLevel(i).getMinZoom(), mapZooms.getLevel(i).getMaxZoom(),
+                        rtree.getMinX(root), rtree.getMaxX(root), rtree.getMinY(root), rtree.getMaxY(root));
+                writeBinaryMapTree(root, rtree, writer, treeHeader);
+
+                writeBinaryMapBlock(root, rtree, writer, selectData, treeHeader,
+                        new LinkedHashMap<String, Integer>(),
+                        new LinkedHashMap<MapRulType, String>(), mapZooms.getLevel(i));
+
+                writer.endWriteMapLevelIndex();
+            }
         }
+
+        selectData.close();
+
+        writer.endWriteMapIndex();
+        writer.flush();
     }
 
     private long convertBaseIdToGeneratedId(long baseId, int level) {
@@ -960,18 +1013,16 @@ public class IndexVectorMapCreator extends AbstractIndexPartCreator {
         return tempNames;
     }
 
-    public void writeBinaryMapBlock(rtree.Node parent, Rect parentBounds, RTree r, BinaryMapIndexWriter writer,
+    public void writeBinaryMapBlock(int parent, PackedRTree r, BinaryMapIndexWriter writer,
             PreparedStatement selectData, TLongObjectHashMap<BinaryFileReference> bounds, Map<String, Integer> tempStringTable,
             LinkedHashMap<MapRulType, String> tempNames, MapZoomPair level)
-            throws IOException, RTreeException, SQLException {
-        Element[] e = parent.getAllElements();
-
+            throws IOException, SQLException {
         MapDataBlock.Builder dataBlock = null;
-        BinaryFileReference ref = bounds.get(parent.getNodeIndex());
+        BinaryFileReference ref = bounds.get(parent);
         long baseId = 0;
-        for (int i = 0; i < parent.getTotalElements(); i++) {
-            if (e[i].getElementType() == rtree.Node.LEAF_NODE) {
-                long id = e[i].getPtr();
+        if (r.isLeaf(parent)) {
+            for (int i = 0; i < r.getChildCount(parent); i++) {
+                long id = r.getEntryId(parent, i);
                 selectData.setLong(1, id);
                 // selectData = mapConnection.prepareStatement("SELECT area, coordinates,
                 // innerPolygons, types, additionalTypes, name FROM binary_map_objects WHERE id = ?");
@@ -1021,7 +1072,7 @@ public class IndexVectorMapCreator extends AbstractIndexPartCreator {
                         }
                     }
 
-                    MapData mapData = writer.writeMapData(cid - baseId, parentBounds.getMinX(), parentBounds.getMinY(),
+                    MapData mapData = writer.writeMapData(cid - baseId, r.getMinX(parent), r.getMinY(parent),
                             rs.getBoolean(1), rs.getBytes(2), rs.getBytes(3),
                             typeUse, addtypeUse, tempNames, rs.getBytes(7), null, tempStringTable, dataBlock,
                             allowWaySimplification);
@@ -1036,69 +1087,40 @@ public class IndexVectorMapCreator extends AbstractIndexPartCreator {
         if (dataBlock != null) {
             writer.writeMapDataBlock(dataBlock, tempStringTable, ref);
         }
-        for (int i = 0; i < parent.getTotalElements(); i++) {
-            if (e[i].getElementType() != rtree.Node.LEAF_NODE) {
-                long ptr = e[i].getPtr();
-                rtree.Node ns = r.getReadNode(ptr);
-                writeBinaryMapBlock(ns, e[i].getRect(), r, writer, selectData, bounds, tempStringTable, tempNames,
+        if (!r.isLeaf(parent)) {
+            for (int i = 0; i < r.getChildCount(parent); i++) {
+                writeBinaryMapBlock(r.getChild(parent, i), r, writer, selectData, bounds, tempStringTable, tempNames,
                         level);
             }
         }
     }
 
-    public static void writeBinaryMapTree(rtree.Node parent, Rect re, RTree r, BinaryMapIndexWriter writer,
-            TLongObjectHashMap<BinaryFileReference> bounds)
-            throws IOException, RTreeException {
-        Element[] e = parent.getAllElements();
-        boolean containsLeaf = false;
-        for (int i = 0; i < parent.getTotalElements(); i++) {
-            if (e[i].getElementType() == rtree.Node.LEAF_NODE) {
-                containsLeaf = true;
-            }
-        }
-        BinaryFileReference ref = writer.startMapTreeElement(re.getMinX(), re.getMaxX(), re.getMinY(), re.getMaxY(),
-                containsLeaf);
+    public static void writeBinaryMapTree(int parent, PackedRTree r, BinaryMapIndexWriter writer,
+            TLongObjectHashMap<BinaryFileReference> bounds) throws IOException {
+        boolean containsLeaf = r.isLeaf(parent);
+        BinaryFileReference ref = writer.startMapTreeElement(r.getMinX(parent), r.getMaxX(parent), r.getMinY(parent),
+                r.getMaxY(parent), containsLeaf);
         if (ref != null) {
-            bounds.put(parent.getNodeIndex(), ref);
+            bounds.put(parent, ref);
         }
-        for (int i = 0; i < parent.getTotalElements(); i++) {
-            if (e[i].getElementType() != rtree.Node.LEAF_NODE) {
-                rtree.Node chNode = r.getReadNode(e[i].getPtr());
-                writeBinaryMapTree(chNode, e[i].getRect(), r, writer, bounds);
+        if (!containsLeaf) {
+            for (int i = 0; i < r.getChildCount(parent); i++) {
+                writeBinaryMapTree(r.getChild(parent, i), r, writer, bounds);
             }
         }
         writer.endWriteMapTreeElement();
     }
 
-    public static Rect calcBounds(rtree.Node n) {
-        Rect r = null;
-        rtree.Element[] e = n.getAllElements();
-        for (int i = 0; i < n.getTotalElements(); i++) {
-            Rect re = e[i].getRect();
-            if (r == null) {
-                try {
-                    r = new Rect(re.getMinX(), re.getMinY(), re.getMaxX(), re.getMaxY());
-                } catch (IllegalValueException ex) {
-                }
-            } else {
-                r.expandToInclude(re);
-            }
-        }
-        return r;
-    }
-
-    public static void writeBinaryMapBlock(rtree.Node parent, Rect parentBounds, RTree r, BinaryMapIndexWriter writer,
+    public static void writeBinaryMapBlock(int parent, PackedRTree r, BinaryMapIndexWriter writer,
             TLongObjectHashMap<BinaryFileReference> bounds, TLongObjectHashMap<BinaryMapDataObject> objects,
-            MapZooms.MapZoomPair pair, boolean doNotSimplify) throws IOException, RTreeException {
-        rtree.Element[] e = parent.getAllElements();
-
+            MapZooms.MapZoomPair pair, boolean doNotSimplify) throws IOException {
         MapDataBlock.Builder dataBlock = null;
-        BinaryFileReference ref = bounds.get(parent.getNodeIndex());
+        BinaryFileReference ref = bounds.get(parent);
         long baseId = 0;
         Map<String, Integer> tempStringTable = new LinkedHashMap<String, Integer>();
-        for (int i = 0; i < parent.getTotalElements(); i++) {
-            if (e[i].getElementType() == rtree.Node.LEAF_NODE) {
-                long id = e[i].getPtr();
+        if (r.isLeaf(parent)) {
+            for (int i = 0; i < r.getChildCount(parent); i++) {
+                long id = r.getEntryId(parent, i);
                 if (objects.containsKey(id)) {
                     long cid = id;
                     BinaryMapDataObject mdo = objects.get(id);
@@ -1140,7 +1162,7 @@ public class IndexVectorMapCreator extends AbstractIndexPartCreator {
                         }
                         innerPolygonTypes = bous.toByteArray();
                     }
-                    MapData mapData = writer.writeMapData(cid - baseId, parentBounds.getMinX(), parentBounds.getMinY(),
+                    MapData mapData = writer.writeMapData(cid - baseId, r.getMinX(parent), r.getMinY(parent),
                             mdo.isArea(), coordinates, innerPolygonTypes,
                             typeUse, addtypeUse, null, labelCoordinates, mdo.getOrderedObjectNames(),
                             tempStringTable, dataBlock, !doNotSimplify && pair.getMaxZoom() > 15);
@@ -1155,38 +1177,28 @@ public class IndexVectorMapCreator extends AbstractIndexPartCreator {
         if (dataBlock != null) {
             writer.writeMapDataBlock(dataBlock, tempStringTable, ref);
         }
-        for (int i = 0; i < parent.getTotalElements(); i++) {
-            if (e[i].getElementType() != rtree.Node.LEAF_NODE) {
-                long ptr = e[i].getPtr();
-                rtree.Node ns = r.getReadNode(ptr);
-                writeBinaryMapBlock(ns, e[i].getRect(), r, writer, bounds, objects, pair, doNotSimplify);
+        if (!r.isLeaf(parent)) {
+            for (int i = 0; i < r.getChildCount(parent); i++) {
+                writeBinaryMapBlock(r.getChild(parent, i), r, writer, bounds, objects, pair, doNotSimplify);
             }
         }
     }
 
-    public void createDatabaseStructure(Connection mapConnection, DBDialect dialect,
-            String rtreeMapIndexNonPackFileName)
+    public void createDatabaseStructure(Connection mapConnection, DBDialect dialect)
             throws SQLException, IOException {
         createMapIndexStructure(mapConnection);
         this.mapConnection = mapConnection;
         mapBinaryStat = createStatementMapBinaryInsert(mapConnection);
         mapLowLevelBinaryStat = createStatementLowLevelMapBinaryInsert(mapConnection);
-        try {
-            mapTree = new RTree[mapZooms.size()];
-            for (int i = 0; i < mapZooms.size(); i++) {
-                File file = new File(rtreeMapIndexNonPackFileName + i);
-                if (file.exists()) {
-                    file.delete();
-                }
-                mapTree[i] = new RTree(rtreeMapIndexNonPackFileName + i);
-                // very slow
-                // mapTree[i].getFileHdr().setBufferPolicy(true);
-            }
-        } catch (RTreeException e) {
-            throw new IOException(e);
+        mapTree = new PackedRTree[mapZooms.size()];
+        for (int i = 0; i < mapZooms.size(); i++) {
+            mapTree[i] = new PackedRTree();
         }
         pStatements.put(mapBinaryStat, 0);
         pStatements.put(mapLowLevelBinaryStat, 0);
+        batchWriter = new BatchDbWriter("map");
+        batchWriter.register(mapBinaryStat, "binary_map_objects");
+        batchWriter.register(mapLowLevelBinaryStat, "low_level_map_objects");
     }
 
     public void createMapIndexTableIndexes(Connection conn) throws SQLException {
@@ -1219,11 +1231,14 @@ public class IndexVectorMapCreator extends AbstractIndexPartCreator {
 	}
 
     private void insertLowLevelMapBinaryObject(int level, int zoom, TIntArrayList types, TIntArrayList addTypes,
-            long id, List<Node> in, TreeMap<MapRulType, String> namesUse)
+            long id, List<Node> in, List<Node> simplified, TreeMap<MapRulType, String> namesUse)
             throws SQLException {
         lowLevelWays++;
-        List<Node> nodes = new ArrayList<Node>();
-        OsmMapUtils.simplifyDouglasPeucker(in, zoom + 8 + settings.zoomWaySmoothness, 3, nodes, false);
+        List<Node> nodes = simplified;
+        if (nodes == null) {
+            nodes = new ArrayList<Node>();
+            OsmMapUtils.simplifyDouglasPeucker(in, zoom + 8 + settings.zoomWaySmoothness, 3, nodes, false);
+        }
         boolean first = true;
         long firstId = -1;
         long lastId = -1;
@@ -1260,19 +1275,11 @@ public class IndexVectorMapCreator extends AbstractIndexPartCreator {
             } catch (IOException e) {
             }
         }
-        mapLowLevelBinaryStat.setLong(1, id);
-        mapLowLevelBinaryStat.setLong(2, firstId);
-        mapLowLevelBinaryStat.setLong(3, lastId);
-        mapLowLevelBinaryStat.setString(4, encodeNames(namesUse));
-        mapLowLevelBinaryStat.setBytes(5, bNodes.toByteArray());
-        mapLowLevelBinaryStat.setBytes(6, bTypes.toByteArray());
-        mapLowLevelBinaryStat.setBytes(7, bAddtTypes.toByteArray());
-        mapLowLevelBinaryStat.setShort(8, (short) level);
-
-        addBatch(mapLowLevelBinaryStat);
+        batchWriter.add(mapLowLevelBinaryStat, true, id, firstId, lastId, encodeNames(namesUse),
+                bNodes.toByteArray(), bTypes.toByteArray(), bAddtTypes.toByteArray(), (short) level);
     }
 
-    private void insertBinaryMapRenderObjectIndex(RTree mapTree, Collection<Node> nodes, List<List<Node>> innerWays,
+    private void insertBinaryMapRenderObjectIndex(PackedRTree mapTree, Collection<Node> nodes, List<List<Node>> innerWays,
             Map<MapRulType, String> names, long id, boolean area, TIntArrayList types, TIntArrayList addTypes,
             boolean commit, boolean cycle)
             throws SQLException {
@@ -1342,62 +1349,43 @@ public class IndexVectorMapCreator extends AbstractIndexPartCreator {
         if (init) {
             // conn.prepareStatement("insert into binary_map_objects(id, area, coordinates,
             // innerPolygons, types, additionalTypes, name) values(?, ?, ?, ?, ?, ?, ?)");
-            mapBinaryStat.setLong(1, id);
-            mapBinaryStat.setBoolean(2, area);
-            mapBinaryStat.setBytes(3, bcoordinates.toByteArray());
-            mapBinaryStat.setBytes(4, binnercoord.toByteArray());
-            mapBinaryStat.setBytes(5, btypes.toByteArray());
-            mapBinaryStat.setBytes(6, badditionalTypes.toByteArray());
-            mapBinaryStat.setString(7, encodeNames(names));
-            mapBinaryStat.setBytes(8, blabelCoordinates.toByteArray());
-            addBatch(mapBinaryStat, commit);
-            try {
-                mapTree.insert(new LeafElement(new Rect(minX, minY, maxX, maxY), id));
-            } catch (RTreeInsertException e1) {
-                throw new IllegalArgumentException(e1);
-            } catch (IllegalValueException e1) {
-                throw new IllegalArgumentException(e1);
-            }
+            batchWriter.add(mapBinaryStat, commit, id, area, bcoordinates.toByteArray(), binnercoord.toByteArray(),
+                    btypes.toByteArray(), badditionalTypes.toByteArray(), encodeNames(names),
+                    blabelCoordinates.toByteArray());
+            mapTree.insert(minX, minY, maxX, maxY, id);
         }
     }
 
-    public void createRTreeFiles(String rTreeMapIndexPackFileName) throws RTreeException {
-        mapTree = new RTree[mapZooms.size()];
+    public void loadRTreeFiles(String rTreeMapIndexPackFileName) throws IOException {
+        mapTree = new PackedRTree[mapZooms.size()];
         for (int i = 0; i < mapZooms.size(); i++) {
-            mapTree[i] = new RTree(rTreeMapIndexPackFileName + i);
+            mapTree[i] = PackedRTree.load(new File(rTreeMapIndexPackFileName + i));
         }
+    }
 
+    public void packRtreeFiles() {
+        for (int i = 0; i < mapZooms.size(); i++) {
+            mapTree[i].pack();
+        }
     }
 
-    public void packRtreeFiles(String rTreeMapIndexNonPackFileName, String rTreeMapIndexPackFileName)
-            throws IOException {
+    public void saveRTreeFiles(String rTreeMapIndexPackFileName) throws IOException {
         for (int i = 0; i < mapZooms.size(); i++) {
-            mapTree[i] = packRtreeFile(mapTree[i], rTreeMapIndexNonPackFileName + i, rTreeMapIndexPackFileName + i);
+            mapTree[i].save(new File(rTreeMapIndexPackFileName + i));
         }
     }
 
-    public void commitAndCloseFiles(String rTreeMapIndexNonPackFileName, String rTreeMapIndexPackFileName,
-            boolean deleteDatabaseIndexes)
+    public void commitAndCloseFiles(String rTreeMapIndexPackFileName, boolean deleteDatabaseIndexes)
             throws IOException, SQLException {
         // delete map rtree files
         if (mapTree != null) {
             for (int i = 0; i < mapTree.length; i++) {
-                if (mapTree[i] != null) {
-                    RandomAccessFile file = mapTree[i].getFileHdr().getFile();
-                    file.close();
-                }
-
-            }
-            for (int i = 0; i < mapTree.length; i++) {
-                File f = new File(rTreeMapIndexNonPackFileName + i);
-                if (f.exists() && deleteDatabaseIndexes) {
-                    f.delete();
-                }
-                f = new File(rTreeMapIndexPackFileName + i);
+                File f = new File(rTreeMapIndexPackFileName + i);
                 if (f.exists() && deleteDatabaseIndexes) {
                     f.delete();
                 }
             }
+            mapTree = null;
         }
         closeAllPreparedStatements();
 
@@ -42,7 +42,6 @@ import net.osmand.osm.io.OsmBaseStorage;
 import net.osmand.osm.io.OsmStorageWriter;
 import net.osmand.util.Algorithms;
 import net.osmand.util.MapUtils;
-import rtree.RTree;
 
 /**
  * This is migration from SOURCE: https://github.com/quantenschaum/mapping/
@@ -323,7 +322,6 @@ public class LightSectorProcessor {
 			MapZooms ms = new MapZooms();
 			ms.setLevels(config.mapZooms);
 			MainUtilities.generateObf(subArgs, ms, settings);
-			RTree.clearCache();
 			ind++;
 			
 		}
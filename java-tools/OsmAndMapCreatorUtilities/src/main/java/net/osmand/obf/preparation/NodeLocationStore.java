@@ -0,0 +1,158 @@
+package net.osmand.obf.preparation;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import gnu.trove.list.array.TLongArrayList;
+import net.osmand.osm.edit.Node;
+
+/**
+ * Locations of untagged nodes kept outside of the sqlite database.
+ * Nodes are appended in ascending id order into a file of fixed records (id, lat, lon with 1e-7 precision)
+ * which is memory-mapped for lookups, so there is no b-tree to maintain and nothing is kept on java heap
+ * except a sparse index with every {@link #BLOCK_SIZE}th id.
+ * Nodes which come out of order can't be stored here and should be stored in the node table instead.
+ */
+public class NodeLocationStore {
+
+	private static final Log log = LogFactory.getLog(NodeLocationStore.class);
+
+	private static final int RECORD_SIZE = 16;
+	private static final int BLOCK_SIZE = 256;
+	// multiple of record size
+	private static final long CHUNK_SIZE = (1L << 30) - (1L << 30) % RECORD_SIZE;
+	private static final double COORDINATES_PRECISION = 1e7;
+
+	private final File file;
+	private final RandomAccessFile raf;
+	private final FileChannel channel;
+	private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(RECORD_SIZE * 65536);
+	private final TLongArrayList blockIds = new TLongArrayList();
+	// mapped buffers are only read with absolute gets, so they could be shared by reading threads
+	private volatile MappedByteBuffer[] chunks = new MappedByteBuffer[0];
+	private volatile long mappedSize;
+	private long size;
+	private long lastId = Long.MIN_VALUE;
+	private int outOfOrder;
+
+	public NodeLocationStore(File file) throws IOException {
+		this.file = file;
+		if (file.exists()) {
+			file.delete();
+		}
+		raf = new RandomAccessFile(file, "rw");
+		channel = raf.getChannel();
+	}
+
+	/**
+	 * @return false if node id is not greater than previous one and node wasn't stored
+	 */
+	public boolean add(long id, double lat, double lon) throws IOException {
+		if (id <= lastId) {
+			outOfOrder++;
+			return false;
+		}
+		if (size % BLOCK_SIZE == 0) {
+			blockIds.add(id);
+		}
+		if (!writeBuffer.hasRemaining()) {
+			flush();
+		}
+		writeBuffer.putLong(id);
+		writeBuffer.putInt((int) Math.round(lat * COORDINATES_PRECISION));
+		writeBuffer.putInt((int) Math.round(lon * COORDINATES_PRECISION));
+		lastId = id;
+		size++;
+		return true;
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	public Node getNode(long id) throws IOException {
+		int block = blockIds.binarySearch(id);
+		if (block < 0) {
+			block = -block - 2;
+			if (block < 0 || id > lastId) {
+				return null;
+			}
+		}
+		if (mappedSize < size * RECORD_SIZE) {
+			map();
+		}
+		MappedByteBuffer[] chunks = this.chunks;
+		long lo = (long) block * BLOCK_SIZE;
+		long hi = Math.min(lo + BLOCK_SIZE, size) - 1;
+		while (lo <= hi) {
+			long mid = (lo + hi) >>> 1;
+			long midId = readId(chunks, mid);
+			if (midId < id) {
+				lo = mid + 1;
+			} else if (midId > id) {
+				hi = mid - 1;
+			} else {
+				long pos = mid * RECORD_SIZE;
+				MappedByteBuffer chunk = chunks[(int) (pos / CHUNK_SIZE)];
+				int off = (int) (pos % CHUNK_SIZE);
+				return new Node(chunk.getInt(off + 8) / COORDINATES_PRECISION,
+						chunk.getInt(off + 12) / COORDINATES_PRECISION, id);
+			}
+		}
+		return null;
+	}
+
+	private static long readId(MappedByteBuffer[] chunks, long ind) {
+		long pos = ind * RECORD_SIZE;
+		return chunks[(int) (pos / CHUNK_SIZE)].getLong((int) (pos % CHUNK_SIZE));
+	}
+
+	private void flush() throws IOException {
+		writeBuffer.flip();
+		while (writeBuffer.hasRemaining()) {
+			channel.write(writeBuffer);
+		}
+		writeBuffer.clear();
+	}
+
+	/**
+	 * Makes all added nodes visible for lookups, should be called once loading is finished
+	 * (otherwise lookups remap the file themselves).
+	 */
+	public synchronized void map() throws IOException {
+		long fileSize = size * RECORD_SIZE;
+		if (mappedSize == fileSize) {
+			return;
+		}
+		flush();
+		// last chunk could be partially mapped, so map it once again
+		int from = (int) (mappedSize / CHUNK_SIZE);
+		MappedByteBuffer[] mapped = Arrays.copyOf(chunks, (int) ((fileSize + CHUNK_SIZE - 1) / CHUNK_SIZE));
+		for (int i = from; i < mapped.length; i++) {
+			long pos = i * CHUNK_SIZE;
+			mapped[i] = channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(CHUNK_SIZE, fileSize - pos));
+		}
+		chunks = mapped;
+		mappedSize = fileSize;
+	}
+
+	public void close() throws IOException {
+		if (outOfOrder > 0) {
+			log.info(String.format("Node location store: %d nodes, %d nodes out of order stored in db", size, outOfOrder));
+		} else {
+			log.info(String.format("Node location store: %d nodes", size));
+		}
+		chunks = new MappedByteBuffer[0];
+		channel.close();
+		raf.close();
+		file.delete();
+	}
+}
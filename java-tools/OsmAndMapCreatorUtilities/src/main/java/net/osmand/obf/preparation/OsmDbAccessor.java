@@ -1,6 +1,7 @@
 package net.osmand.obf.preparation;
 
 
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -10,6 +11,10 @@ import java.sql.Statement;
 import java.util.*;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import net.osmand.IProgress;
 import net.osmand.osm.edit.Entity;
@@ -43,9 +48,20 @@ public class OsmDbAccessor implements OsmDbAccessorContext {
 	private PreparedStatement iterateWayBoundaries;
 	private OsmDbCreator dbCreator;
 	private OsmDbTagsPreparation tagsPrepration;
+	private NodeLocationStore nodeLocations;
+	private int processingThreads = 1;
 
 	public interface OsmDbVisitor {
-		
+
+		/**
+		 * Called before iterateEntity from processing threads (concurrently if there are several),
+		 * so it should be thread safe and shouldn't access database.
+		 */
+		default void prepareEntity(Entity e) {}
+
+		/**
+		 * Called from iterating thread in the order of entities
+		 */
 		public void iterateEntity(Entity e, OsmDbAccessorContext ctx) throws SQLException;
 		
 	}
@@ -86,10 +102,36 @@ public class OsmDbAccessor implements OsmDbAccessorContext {
 		}
 	}
 	
+	public NodeLocationStore getNodeLocationStore() {
+		return nodeLocations;
+	}
+
+	/**
+	 * Untagged nodes missing in node table are looked up in the store
+	 */
+	public void setNodeLocationStore(NodeLocationStore nodeLocations) {
+		this.nodeLocations = nodeLocations;
+	}
+
+	private Node getStoredNode(long id) throws SQLException {
+		if (nodeLocations == null) {
+			return null;
+		}
+		try {
+			return nodeLocations.getNode(id);
+		} catch (IOException e) {
+			throw new SQLException(e);
+		}
+	}
+
 	public void setTagsPrepration(OsmDbTagsPreparation tagsPrepration) {
 		this.tagsPrepration = tagsPrepration;
 	}
 
+	public void setProcessingThreads(int processingThreads) {
+		this.processingThreads = processingThreads;
+	}
+
 	public Connection getDbConn() {
 		return dbConn;
 	}
@@ -118,10 +160,13 @@ public class OsmDbAccessor implements OsmDbAccessorContext {
 					if (ord == 0) {
 						readTags(e, rs.getBytes(3));
 					}
+					Node stored;
 					if (rs.getObject(5) != null) {
 						Node n = new Node(rs.getDouble(4), rs.getDouble(5), rs.getLong(1));
 						((Way) e).addNode(n);
 						readTags(n, rs.getBytes(6));
+					} else if ((stored = getStoredNode(rs.getLong(1))) != null) {
+						((Way) e).addNode(stored);
 					} else {
 						((Way) e).addNode(rs.getLong(1));
 					}
@@ -194,6 +239,9 @@ public class OsmDbAccessor implements OsmDbAccessorContext {
 								readTags(n, rs.getBytes(3));
 							}
 						}
+						if (n == null) {
+							n = getStoredNode(i.getEntityId().getId());
+						}
 						map.put(i.getEntityId(), n);
 						rs.close();
 					}
@@ -282,23 +330,70 @@ public class OsmDbAccessor implements OsmDbAccessorContext {
 
 		//produce
 		entityProducer.start();
-		try {
-			// wait a little before starting taking entities from queue
-			Thread.sleep(150);
-		} catch (InterruptedException e) {
-		}
 
 		Entity entityToProcess = null;
 		Entity endEntity = entityProducer.getEndingEntity();
+		if (processingThreads > 1) {
+			iterateOverEntitiesParallel(progress, toProcess, endEntity, visitor);
+			return count;
+		}
 		while ((entityToProcess = toProcess.take())  != endEntity) {
 			if (progress != null) {
 				progress.progress(1);
 			}
+			visitor.prepareEntity(entityToProcess);
 			visitor.iterateEntity(entityToProcess, this);
 		}
 		return count;
 	}
 
+	private void iterateOverEntitiesParallel(IProgress progress, BlockingQueue<Entity> toProcess, Entity endEntity,
+			OsmDbVisitor visitor) throws SQLException, InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(processingThreads, r -> {
+			Thread t = new Thread(r, "EntityProcessor");
+			t.setDaemon(true);
+			return t;
+		});
+		// entities being prepared in order of iteration, limited to keep memory bounded
+		int maxInProgress = processingThreads * 256;
+		Deque<Future<Entity>> inProgress = new ArrayDeque<>(maxInProgress);
+		try {
+			Entity entityToProcess;
+			while ((entityToProcess = toProcess.take()) != endEntity) {
+				final Entity e = entityToProcess;
+				inProgress.add(executor.submit(() -> {
+					visitor.prepareEntity(e);
+					return e;
+				}));
+				if (inProgress.size() >= maxInProgress) {
+					iteratePrepared(progress, inProgress.poll(), visitor);
+				}
+			}
+			while (!inProgress.isEmpty()) {
+				iteratePrepared(progress, inProgress.poll(), visitor);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void iteratePrepared(IProgress progress, Future<Entity> prepared, OsmDbVisitor visitor)
+			throws SQLException, InterruptedException {
+		Entity e;
+		try {
+			e = prepared.get();
+		} catch (ExecutionException ex) {
+			if (ex.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) ex.getCause();
+			}
+			throw new IllegalStateException(ex.getCause());
+		}
+		if (progress != null) {
+			progress.progress(1);
+		}
+		visitor.iterateEntity(e, this);
+	}
+
 
 	private void computeRealCounts() throws SQLException {
 		if (!realCounts) {
@@ -337,6 +432,14 @@ public class OsmDbAccessor implements OsmDbAccessorContext {
 		if (iterateWayBoundaries != null) {
 			iterateWayBoundaries.close();
 		}
+		if (nodeLocations != null) {
+			try {
+				nodeLocations.close();
+			} catch (IOException e) {
+				throw new SQLException(e);
+			}
+			nodeLocations = null;
+		}
 
 	}
 
@@ -393,7 +496,10 @@ public class OsmDbAccessor implements OsmDbAccessorContext {
 						if (ord == 0) {
 							readTags(e, rs.getBytes(4));
 						}
-						if (rs.getObject(6) == null) {
+						Node stored;
+						if (rs.getObject(6) == null && (stored = getStoredNode(rs.getLong(2))) != null) {
+							((Way) e).addNode(stored);
+						} else if (rs.getObject(6) == null) {
 							((Way) e).addNode(rs.getLong(2));
 						} else {
 							Node n = new Node(rs.getDouble(5), rs.getDouble(6), rs.getLong(2));
@@ -18,6 +18,7 @@ import net.osmand.osm.edit.Relation;
 import net.osmand.osm.edit.Relation.RelationMember;
 import net.osmand.osm.edit.Way;
 import net.osmand.osm.io.IOsmStorageFilter;
+import net.osmand.osm.io.IOsmUntaggedNodeFilter;
 import net.osmand.osm.io.OsmBaseStorage;
 import net.osmand.util.MapUtils;
 import org.apache.commons.logging.Log;
@@ -28,7 +29,7 @@ import java.io.IOException;
 import java.sql.*;
 import java.util.Map.Entry;
 
-public class OsmDbCreator implements IOsmStorageFilter {
+public class OsmDbCreator implements IOsmStorageFilter, IOsmUntaggedNodeFilter {
 
 	public static String OSMAND_DELETE_TAG = "osmand_change";
 	public static String OSMAND_DELETE_VALUE = "delete";
@@ -55,6 +56,10 @@ public class OsmDbCreator implements IOsmStorageFilter {
 
 	int propagateCount = 0;
 	private PreparedStatement prepPropagateNode;
+	private PreparedStatement prepPropagateStoredNode;
+
+	// untagged nodes are stored here instead of node table (optional)
+	private NodeLocationStore nodeLocations;
 	
 	
 
@@ -71,6 +76,7 @@ public class OsmDbCreator implements IOsmStorageFilter {
 
 	
 	private static boolean VALIDATE_DUPLICATES = false;
+	private static final byte[] EMPTY_TAGS = new byte[0];
 	private TLongObjectHashMap<Long> generatedIds = new TLongObjectHashMap<Long>();
 	private TLongObjectHashMap<Long> hashes = new TLongObjectHashMap<Long>();
 	private TLongSet idSetToValidateDuplicates = new TLongHashSet();
@@ -116,11 +122,7 @@ public class OsmDbCreator implements IOsmStorageFilter {
 		int ord = EntityType.valueOf(e).ordinal();
 		// for points id > 0 add always geohash (for basemap points)
 		if (e instanceof Node) {
-			if (!addGeoHash || id < 0) {
-				return getSimpleConvertId(id, EntityType.NODE, true);
-			}
-			int hash = getNodeHash(e);
-			return getConvertId(id, ord, hash);
+			return convertNodeId(id, ((Node) e).getLatitude(), ((Node) e).getLongitude());
 		} else if (e instanceof Way) {
 			TLongArrayList lids = ((Way) e).getNodeIds();
 			long hash = 0;
@@ -190,9 +192,16 @@ public class OsmDbCreator implements IOsmStorageFilter {
 		
 	}
 
-	private int getNodeHash(Entity e) {
-		int y = MapUtils.get31TileNumberY(((Node) e).getLatitude());
-		int x = MapUtils.get31TileNumberX(((Node) e).getLongitude());
+	private long convertNodeId(long id, double lat, double lon) {
+		if (!addGeoHash || id < 0) {
+			return getSimpleConvertId(id, EntityType.NODE, true);
+		}
+		return getConvertId(id, EntityType.NODE.ordinal(), getNodeHash(lat, lon));
+	}
+
+	private int getNodeHash(double lat, double lon) {
+		int y = MapUtils.get31TileNumberY(lat);
+		int x = MapUtils.get31TileNumberX(lon);
 		int hash = (x + y) >> 10;
 		return hash;
 	}
@@ -242,7 +251,9 @@ public class OsmDbCreator implements IOsmStorageFilter {
 		if (create) {
 			dialect.deleteTableIfExists("node", stat);
 			stat.executeUpdate("create table node (id bigint primary key, latitude double, longitude double, tags blob, propagate boolean)"); //$NON-NLS-1$
-			stat.executeUpdate("create index IdIndex ON node (id)"); //$NON-NLS-1$
+			if (nodeLocations == null) {
+				stat.executeUpdate("create index IdIndex ON node (id)"); //$NON-NLS-1$
+			}
 			dialect.deleteTableIfExists("ways", stat);
 			stat.executeUpdate("create table ways (id bigint, node bigint, ord smallint, tags blob, boundary smallint, primary key (id, ord))"); //$NON-NLS-1$
 			stat.executeUpdate("create index IdWIndex ON ways (id)"); //$NON-NLS-1$
@@ -266,6 +277,10 @@ public class OsmDbCreator implements IOsmStorageFilter {
 		prepWays = dbConn.prepareStatement("replace into ways(id, node, ord, tags, boundary) values (?, ?, ?, ?, ?)"); //$NON-NLS-1$
 		prepRelations = dbConn.prepareStatement("replace into relations(id, member, type, role, ord, tags) values (?, ?, ?, ?, ?, ?)"); //$NON-NLS-1$
 		prepPropagateNode = dbConn.prepareStatement("update node set propagate=1 where id=?");
+		if (nodeLocations != null) {
+			// propagated node from location store is copied to node table to be iterated
+			prepPropagateStoredNode = dbConn.prepareStatement("insert or ignore into node(id, latitude, longitude, tags, propagate) values (?, ?, ?, ?, 1)"); //$NON-NLS-1$
+		}
 		selectNode = dbConn.prepareStatement("select latitude, longitude from node where id=?"); //$NON-NLS-1$
 		dbConn.setAutoCommit(false);
 	}
@@ -296,13 +311,19 @@ public class OsmDbCreator implements IOsmStorageFilter {
 				prepRelations.executeBatch();
 			}
 			if (propagateCount > 0) {
-				prepPropagateNode.executeBatch();
+				executePropagateBatch();
 			}
-		} catch (SQLException ex) {
+			if (nodeLocations != null) {
+				nodeLocations.map();
+			}
+		} catch (SQLException | IOException ex) {
 			log.error("TODO FIX: Could not save in db ", ex); //$NON-NLS-1$
 		}
 		prepRelations.close();
 		prepPropagateNode.close();
+		if (prepPropagateStoredNode != null) {
+			prepPropagateStoredNode.close();
+		}
 		if (delNode != null) {
 			delNode.close();
 		}
@@ -336,7 +357,7 @@ public class OsmDbCreator implements IOsmStorageFilter {
 		prepNode.executeBatch();
 		prepWays.executeBatch();
 		prepRelations.executeBatch();
-		prepPropagateNode.executeBatch();
+		executePropagateBatch();
 		currentWaysCount = 0;
 		currentCountNode = 0;
 		currentRelationsCount = 0;
@@ -396,6 +417,14 @@ public class OsmDbCreator implements IOsmStorageFilter {
 							if (pn != null) {
 								prepPropagateNode.setLong(1, pn.id);
 								prepPropagateNode.addBatch();
+								Node stored = nodeLocations != null ? nodeLocations.getNode(pn.id) : null;
+								if (stored != null) {
+									prepPropagateStoredNode.setLong(1, pn.id);
+									prepPropagateStoredNode.setDouble(2, stored.getLatitude());
+									prepPropagateStoredNode.setDouble(3, stored.getLongitude());
+									prepPropagateStoredNode.setBytes(4, new byte[0]);
+									prepPropagateStoredNode.addBatch();
+								}
 								propagateCount++;
 								propagateToNodes.registerNode(pn);
 							}
@@ -430,16 +459,19 @@ public class OsmDbCreator implements IOsmStorageFilter {
 					}
 				}
 				if (propagateCount >= BATCH_SIZE_OSM) {
-					prepPropagateNode.executeBatch();
+					executePropagateBatch();
 					dbConn.commit(); // clear memory
 					propagateCount = 0;
 				}
 			}
 			if (e instanceof Node) {
-				currentCountNode++;
 				if (!e.getTags().isEmpty()) {
 					allNodes++;
+				} else if (nodeLocations != null
+						&& nodeLocations.add(id, ((Node) e).getLatitude(), ((Node) e).getLongitude())) {
+					return false;
 				}
+				currentCountNode++;
 				prepNode.setLong(1, id);
 				prepNode.setDouble(2, ((Node) e).getLatitude());
 				prepNode.setDouble(3, ((Node) e).getLongitude());
@@ -493,13 +525,43 @@ public class OsmDbCreator implements IOsmStorageFilter {
 				}
 			}
 
-		} catch (SQLException ex) {
+		} catch (SQLException | IOException ex) {
 			log.error("TODO FIX: Could not save in db (entity " + entityId + ") ", ex); //$NON-NLS-1$
 		}
 		// do not add to storage
 		return false;
 	}
 
+	/**
+	 * Same as {@link #acceptEntityToLoad} for node without tags, but Node object is not needed
+	 */
+	@Override
+	public boolean acceptUntaggedNode(long nodeId, double lat, double lon) {
+		if (VALIDATE_DUPLICATES) {
+			long l = (nodeId << 2) + EntityType.NODE.ordinal();
+			if (!idSetToValidateDuplicates.add(l)) {
+				throw new IllegalStateException("Duplicate id '" + nodeId + "' " + EntityType.NODE);
+			}
+		}
+		long id = convertNodeId(nodeId, lat, lon);
+		if (nodeLocations != null && nodeLocations.add(id, lat, lon)) {
+			return true;
+		}
+		try {
+			currentCountNode++;
+			prepNode.setLong(1, id);
+			prepNode.setDouble(2, lat);
+			prepNode.setDouble(3, lon);
+			prepNode.setBytes(4, EMPTY_TAGS);
+			prepNode.setBoolean(5, false);
+			prepNode.addBatch();
+			executeNodesBatch(false);
+		} catch (SQLException ex) {
+			log.error("TODO FIX: Could not save in db (node " + nodeId + ") ", ex); //$NON-NLS-1$
+		}
+		return true;
+	}
+
 	private void executeNodesBatch(boolean force) throws SQLException {
 		if (currentCountNode >= BATCH_SIZE_OSM || force) {
 			prepNode.executeBatch();
@@ -510,7 +572,20 @@ public class OsmDbCreator implements IOsmStorageFilter {
 
 
 
-	private Node getNode(long l) throws SQLException {
+	private void executePropagateBatch() throws SQLException {
+		if (prepPropagateStoredNode != null) {
+			prepPropagateStoredNode.executeBatch();
+		}
+		prepPropagateNode.executeBatch();
+	}
+
+	private Node getNode(long l) throws SQLException, IOException {
+		if (nodeLocations != null) {
+			Node n = nodeLocations.getNode(l);
+			if (n != null) {
+				return n;
+			}
+		}
 		selectNode.setLong(1, l);
 		ResultSet q = selectNode.executeQuery();
 		if (q.next()) {
@@ -534,6 +609,13 @@ public class OsmDbCreator implements IOsmStorageFilter {
 	public void setPropagateToNodes(PropagateToNodes propagateToNodes) {
 		this.propagateToNodes = propagateToNodes;
 	}
+
+	/**
+	 * Should be set before {@link #initDatabase}
+	 */
+	public void setNodeLocationStore(NodeLocationStore nodeLocations) {
+		this.nodeLocations = nodeLocations;
+	}
 	
 
 }
@@ -0,0 +1,289 @@
+package net.osmand.obf.preparation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import gnu.trove.list.array.TLongArrayList;
+
+/**
+ * In-memory R-tree of rectangles with long ids, bulk loaded with Sort-Tile-Recursive packing (Leutenegger).
+ * Entries are inserted first, {@link #pack()} builds nodes bottom-up, all data is kept in primitive arrays.
+ * Nodes are addressed by index: leaf nodes come first, the root is the last node.
+ * Leaf nodes contain only entries, other nodes contain only child nodes.
+ */
+public class PackedRTree {
+
+	// same node size as in rtree files written before
+	public static final int NODE_CAPACITY = 40;
+	private static final int INITIAL_CAPACITY = 1024;
+	private static final int FILE_VERSION = 1;
+
+	// 4 ints per entry: minX, minY, maxX, maxY
+	private int[] entryBounds = new int[INITIAL_CAPACITY * 4];
+	private long[] entryIds = new long[INITIAL_CAPACITY];
+	private int entries;
+
+	// result of packing
+	private boolean packed;
+	private int leafNodes;
+	private int[] nodeBounds;
+	private int[] nodeChildStart;
+	private int[] nodeChildCount;
+	// children of leaf nodes (entry indexes) and of non-leaf nodes (node indexes)
+	private int[] leafChildren;
+	private int[] nodeChildren;
+
+	public void insert(int minX, int minY, int maxX, int maxY, long id) {
+		if (minX > maxX || minY > maxY) {
+			throw new IllegalArgumentException(String.format("Illegal rect %d %d %d %d for %d", minX, minY, maxX, maxY, id));
+		}
+		if (entries == entryIds.length) {
+			entryIds = Arrays.copyOf(entryIds, entries * 2);
+			entryBounds = Arrays.copyOf(entryBounds, entries * 2 * 4);
+		}
+		entryBounds[entries * 4] = minX;
+		entryBounds[entries * 4 + 1] = minY;
+		entryBounds[entries * 4 + 2] = maxX;
+		entryBounds[entries * 4 + 3] = maxY;
+		entryIds[entries++] = id;
+		packed = false;
+	}
+
+	public int size() {
+		return entries;
+	}
+
+	public boolean isEmpty() {
+		return entries == 0;
+	}
+
+	/**
+	 * Builds the tree from all inserted entries, could be called again after more inserts.
+	 */
+	public void pack() {
+		leafChildren = new int[entries];
+		for (int i = 0; i < entries; i++) {
+			leafChildren[i] = i;
+		}
+		int levelNodes = chunks(entries);
+		int totalNodes = levelNodes;
+		while (levelNodes > 1) {
+			levelNodes = chunks(levelNodes);
+			totalNodes += levelNodes;
+		}
+		nodeBounds = new int[totalNodes * 4];
+		nodeChildStart = new int[totalNodes];
+		nodeChildCount = new int[totalNodes];
+		nodeChildren = new int[Math.max(0, totalNodes - 1)];
+
+		sortTileRecursive(leafChildren, 0, entries, entryBounds);
+		int nodes = addLevel(leafChildren, 0, entries, entryBounds, 0);
+		leafNodes = nodes;
+		int levelStart = 0;
+		int childrenSize = 0;
+		while (nodes - levelStart > 1) {
+			int levelSize = nodes - levelStart;
+			for (int i = 0; i < levelSize; i++) {
+				nodeChildren[childrenSize + i] = levelStart + i;
+			}
+			sortTileRecursive(nodeChildren, childrenSize, levelSize, nodeBounds);
+			levelStart = nodes;
+			nodes = addLevel(nodeChildren, childrenSize, levelSize, nodeBounds, nodes);
+			childrenSize += levelSize;
+		}
+		packed = true;
+	}
+
+	private static int chunks(int cnt) {
+		return (cnt + NODE_CAPACITY - 1) / NODE_CAPACITY;
+	}
+
+	private static long center(int[] bounds, int item, int coord) {
+		return ((long) bounds[item * 4 + coord] + bounds[item * 4 + coord + 2]) >> 1;
+	}
+
+	private static void sortTileRecursive(int[] items, int start, int count, int[] bounds) {
+		long[] keys = new long[count];
+		// item index is kept in the low bits, so sort is stable and primitive
+		for (int i = 0; i < count; i++) {
+			keys[i] = (center(bounds, items[start + i], 0) << 32) | items[start + i];
+		}
+		Arrays.sort(keys);
+		int slices = (int) Math.ceil(Math.sqrt(chunks(count)));
+		int sliceSize = slices * NODE_CAPACITY;
+		for (int s = 0; s < count; s += sliceSize) {
+			int e = Math.min(count, s + sliceSize);
+			for (int i = s; i < e; i++) {
+				int item = (int) keys[i];
+				keys[i] = (center(bounds, item, 1) << 32) | item;
+			}
+			Arrays.sort(keys, s, e);
+		}
+		for (int i = 0; i < count; i++) {
+			items[start + i] = (int) keys[i];
+		}
+	}
+
+	private int addLevel(int[] items, int start, int count, int[] bounds, int node) {
+		for (int s = 0; s < count; s += NODE_CAPACITY, node++) {
+			int cnt = Math.min(NODE_CAPACITY, count - s);
+			nodeChildStart[node] = start + s;
+			nodeChildCount[node] = cnt;
+			int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+			int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+			for (int i = 0; i < cnt; i++) {
+				int item = items[start + s + i];
+				minX = Math.min(minX, bounds[item * 4]);
+				minY = Math.min(minY, bounds[item * 4 + 1]);
+				maxX = Math.max(maxX, bounds[item * 4 + 2]);
+				maxY = Math.max(maxY, bounds[item * 4 + 3]);
+			}
+			nodeBounds[node * 4] = minX;
+			nodeBounds[node * 4 + 1] = minY;
+			nodeBounds[node * 4 + 2] = maxX;
+			nodeBounds[node * 4 + 3] = maxY;
+		}
+		return node;
+	}
+
+	private void checkPacked() {
+		if (!packed) {
+			throw new IllegalStateException("Tree is not packed");
+		}
+	}
+
+	/**
+	 * @return root node or -1 if tree is empty
+	 */
+	public int getRoot() {
+		checkPacked();
+		return nodeChildCount.length - 1;
+	}
+
+	public boolean isLeaf(int node) {
+		return node < leafNodes;
+	}
+
+	public int getChildCount(int node) {
+		return nodeChildCount[node];
+	}
+
+	public int getChild(int node, int i) {
+		return nodeChildren[nodeChildStart[node] + i];
+	}
+
+	public long getEntryId(int node, int i) {
+		return entryIds[leafChildren[nodeChildStart[node] + i]];
+	}
+
+	public int getEntryMinX(int node, int i) {
+		return entryBounds[leafChildren[nodeChildStart[node] + i] * 4];
+	}
+
+	public int getEntryMinY(int node, int i) {
+		return entryBounds[leafChildren[nodeChildStart[node] + i] * 4 + 1];
+	}
+
+	public int getEntryMaxX(int node, int i) {
+		return entryBounds[leafChildren[nodeChildStart[node] + i] * 4 + 2];
+	}
+
+	public int getEntryMaxY(int node, int i) {
+		return entryBounds[leafChildren[nodeChildStart[node] + i] * 4 + 3];
+	}
+
+	public int getMinX(int node) {
+		return nodeBounds[node * 4];
+	}
+
+	public int getMinY(int node) {
+		return nodeBounds[node * 4 + 1];
+	}
+
+	public int getMaxX(int node) {
+		return nodeBounds[node * 4 + 2];
+	}
+
+	public int getMaxY(int node) {
+		return nodeBounds[node * 4 + 3];
+	}
+
+	/**
+	 * Adds ids of entries intersecting rect (borders included) to result, tree could be searched by several threads.
+	 */
+	public void search(int minX, int minY, int maxX, int maxY, TLongArrayList result) {
+		int root = getRoot();
+		if (root >= 0 && intersects(nodeBounds, root, minX, minY, maxX, maxY)) {
+			search(root, minX, minY, maxX, maxY, result);
+		}
+	}
+
+	private void search(int node, int minX, int minY, int maxX, int maxY, TLongArrayList result) {
+		int start = nodeChildStart[node];
+		int cnt = nodeChildCount[node];
+		if (isLeaf(node)) {
+			for (int i = 0; i < cnt; i++) {
+				int entry = leafChildren[start + i];
+				if (intersects(entryBounds, entry, minX, minY, maxX, maxY)) {
+					result.add(entryIds[entry]);
+				}
+			}
+		} else {
+			for (int i = 0; i < cnt; i++) {
+				int child = nodeChildren[start + i];
+				if (intersects(nodeBounds, child, minX, minY, maxX, maxY)) {
+					search(child, minX, minY, maxX, maxY, result);
+				}
+			}
+		}
+	}
+
+	private static boolean intersects(int[] bounds, int item, int minX, int minY, int maxX, int maxY) {
+		return bounds[item * 4] <= maxX && bounds[item * 4 + 2] >= minX
+				&& bounds[item * 4 + 1] <= maxY && bounds[item * 4 + 3] >= minY;
+	}
+
+	/**
+	 * Saves entries, so binary file could be regenerated later without indexing.
+	 */
+	public void save(File file) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(FILE_VERSION);
+			out.writeInt(entries);
+			for (int i = 0; i < entries; i++) {
+				out.writeInt(entryBounds[i * 4]);
+				out.writeInt(entryBounds[i * 4 + 1]);
+				out.writeInt(entryBounds[i * 4 + 2]);
+				out.writeInt(entryBounds[i * 4 + 3]);
+				out.writeLong(entryIds[i]);
+			}
+		}
+	}
+
+	public static PackedRTree load(File file) throws IOException {
+		PackedRTree tree = new PackedRTree();
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			int version = in.readInt();
+			if (version != FILE_VERSION) {
+				throw new IOException("Unsupported rtree file version " + version + ": " + file.getAbsolutePath());
+			}
+			int size = in.readInt();
+			for (int i = 0; i < size; i++) {
+				int minX = in.readInt();
+				int minY = in.readInt();
+				int maxX = in.readInt();
+				int maxY = in.readInt();
+				tree.insert(minX, minY, maxX, maxY, in.readLong());
+			}
+		}
+		tree.pack();
+		return tree;
+	}
+}
@@ -291,10 +291,21 @@ public class MapRenderingTypesEncoder extends MapRenderingTypes {
 
 	public boolean encodeEntityWithType(boolean node, Map<String, String> tags, int zoom, TIntArrayList outTypes,
 			TIntArrayList outAddTypes, TreeMap<MapRulType, String> namesToEncode, List<MapRulType> tempListNotUsed) {
+		tags = transformTags(tags, node ? EntityType.NODE : EntityType.WAY, EntityConvertApplyType.MAP);
+		return encodeTransformedEntityWithType(node, tags, zoom, outTypes, outAddTypes, namesToEncode, tempListNotUsed);
+	}
+
+	/**
+	 * Same as {@link #encodeEntityWithType(boolean, Map, int, TIntArrayList, TIntArrayList, TreeMap, List)}
+	 * for tags already transformed by {@link #transformTags(Map, EntityType, EntityConvertApplyType)} for map,
+	 * so entity encoded for several zoom levels is transformed once.
+	 */
+	public boolean encodeTransformedEntityWithType(boolean node, Map<String, String> tags, int zoom,
+			TIntArrayList outTypes, TIntArrayList outAddTypes, TreeMap<MapRulType, String> namesToEncode,
+			List<MapRulType> tempListNotUsed) {
 		outTypes.clear();
 		outAddTypes.clear();
 		namesToEncode.clear();
-		tags = transformTags(tags, node ? EntityType.NODE : EntityType.WAY, EntityConvertApplyType.MAP);
 		boolean area = "yes".equals(tags.get("area"));
 		for (String tag : tags.keySet()) {
 			String val = tags.get(tag);
@@ -0,0 +1,13 @@
+package net.osmand.osm.io;
+
+/**
+ * Filter of untagged nodes which doesn't require creating Node objects (nodes without tags
+ * are only needed for geometry of ways and relations and they are most of nodes in osm file).
+ */
+public interface IOsmUntaggedNodeFilter {
+
+	/**
+	 * @return true if node is processed, otherwise Node is created and passed to storage filters
+	 */
+	boolean acceptUntaggedNode(long id, double lat, double lon);
+}
@@ -24,7 +24,25 @@ import crosby.binary.file.BlockInputStream;
 
 public class OsmBaseStoragePbf extends OsmBaseStorage {
 
-	public synchronized void parseOSMPbf(final InputStream stream, final IProgress progress, final boolean entityInfo) throws IOException {
+	private IOsmUntaggedNodeFilter untaggedNodeFilter;
+
+	/**
+	 * Untagged nodes of dense blocks accepted by this filter are not created and not passed to storage filters,
+	 * so it should be set only if other filters don't need untagged nodes. Not used if entity info is read.
+	 */
+	public void setUntaggedNodeFilter(IOsmUntaggedNodeFilter untaggedNodeFilter) {
+		this.untaggedNodeFilter = untaggedNodeFilter;
+	}
+
+	public void parseOSMPbf(final InputStream stream, final IProgress progress, final boolean entityInfo) throws IOException {
+		parseOSMPbf(stream, progress, entityInfo, 1);
+	}
+
+	/**
+	 * @param threads threads to decompress and decode blocks, entities are still accepted in file order
+	 */
+	public synchronized void parseOSMPbf(final InputStream stream, final IProgress progress, final boolean entityInfo,
+			int threads) throws IOException {
 		BinaryParser parser = new BinaryParser() {
 			public void updateProgress(int count) {
 				progressEntity += count;
@@ -69,10 +87,18 @@ public class OsmBaseStoragePbf extends OsmBaseStorage {
 				long lon = 0;
 				int keyInd = 0;
 				boolean tagsEmpty = n.getKeysValsCount() == 0;
+				IOsmUntaggedNodeFilter untaggedFilter = entityInfo ? null : untaggedNodeFilter;
 				for (int i = 0; i < n.getIdCount(); i++) {
 					id += n.getId(i);
 					lat += n.getLat(i);
 					lon += n.getLon(i);
+					if (untaggedFilter != null && (tagsEmpty || n.getKeysVals(keyInd) == 0)
+							&& untaggedFilter.acceptUntaggedNode(id, parseLat(lat), parseLon(lon))) {
+						if (!tagsEmpty) {
+							keyInd++;
+						}
+						continue;
+					}
 					Node node = new Node(parseLat(lat), parseLon(lon), id);
 
 					if (entityInfo && n.getDenseinfo() != null) {
@@ -211,7 +237,7 @@ public class OsmBaseStoragePbf extends OsmBaseStorage {
 		}
 
 		BlockInputStream bis = new BlockInputStream(stream, parser);
-		bis.process();
+		bis.process(threads);
 
 		if(progress != null){
 			progress.finishTask();
@@ -49,18 +49,10 @@ import net.osmand.binary.BinaryMapIndexReader.TagValuePair;
 import net.osmand.data.QuadRect;
 import net.osmand.map.OsmandRegions;
 import net.osmand.obf.BinaryInspector;
-import net.osmand.obf.preparation.AbstractIndexPartCreator;
 import net.osmand.obf.preparation.BinaryMapIndexWriter;
-import net.osmand.obf.preparation.IndexVectorMapCreator;
+import net.osmand.obf.preparation.PackedRTree;
 import net.osmand.router.HHRouteDataStructure.NetworkDBPoint;
 import net.osmand.util.MapUtils;
-import rtree.Element;
-import rtree.IllegalValueException;
-import rtree.LeafElement;
-import rtree.RTree;
-import rtree.RTreeException;
-import rtree.RTreeInsertException;
-import rtree.Rect;
 
 public class HHRoutingOBFWriter {
 	final static Log LOG = PlatformUtil.getLog(HHRoutingOBFWriter.class);
@@ -91,9 +83,8 @@ public class HHRoutingOBFWriter {
 	 * @param args
 	 * @throws IOException
 	 * @throws SQLException
-	 * @throws IllegalValueException
 	 */
-	public static void main(String[] args) throws IOException, SQLException, IllegalValueException {
+	public static void main(String[] args) throws IOException, SQLException {
 		File dbFile = null;
 		File obfPolyFile = null;
 		File outFolder = null;
@@ -152,7 +143,7 @@ public class HHRoutingOBFWriter {
 		}
 	}
 	
-	public void writeFile(File obfPolyFileIn, File outFolder, boolean updateExistingFiles, boolean overwriteProfiles) throws IOException, SQLException, IllegalValueException {
+	public void writeFile(File obfPolyFileIn, File outFolder, boolean updateExistingFiles, boolean overwriteProfiles) throws IOException, SQLException {
 		if (THREAD_POOL > 1) {
 			System.err.println("Threads > 1 are may be not supported cause of current R-Tree limitations (needs to be tested)");
 //			THREAD_POOL = 1;
@@ -413,145 +404,126 @@ public class HHRoutingOBFWriter {
 	
 
 	private String writeObfFileByBbox(List<NetworkDBPointWrite> points, TLongObjectHashMap<NetworkDBPointWrite> pntsMap, File outFile, 
-			QuadRect bbox31, TLongArrayList filteredPoints, boolean overwrite) throws SQLException, IOException, IllegalValueException {
+			QuadRect bbox31, TLongArrayList filteredPoints, boolean overwrite) throws SQLException, IOException {
 		StringBuilder log = new StringBuilder();
-		String rTreeFile = outFile.getAbsolutePath() + ".rtree";
-		String rpTreeFile = outFile.getAbsolutePath() + ".rptree";
-		try {
-			
-			BinaryMapIndexReader reader = null;
-			File writeFile = outFile; 
-			if (outFile.exists()) {
-				reader = new BinaryMapIndexReader(new RandomAccessFile(outFile, "rw"), outFile);
-				long profileEdition = -1;
-				for (HHRouteRegion h : reader.getHHRoutingIndexes()) {
-					if (h.profile.equals(profile)) {
-						profileEdition = h.edition;
-						break;
-					}
+		BinaryMapIndexReader reader = null;
+		File writeFile = outFile; 
+		if (outFile.exists()) {
+			reader = new BinaryMapIndexReader(new RandomAccessFile(outFile, "rw"), outFile);
+			long profileEdition = -1;
+			for (HHRouteRegion h : reader.getHHRoutingIndexes()) {
+				if (h.profile.equals(profile)) {
+					profileEdition = h.edition;
+					break;
 				}
-				if (edition == profileEdition && !overwrite) {
-					log.append(String.format("Skip file %s as same hh routing profile (%s) already exist", outFile.getName(),
-							new Date(edition)));
-					// regenerate in case there is an issue with writer itself
-					return log.toString();
-				} else if(!overwrite && profileEdition > 0){
-					log.append(String.format("Skip file %s as same hh routing profile (%s) as date do not match!!!", outFile.getName(),
-							new Date(edition)));
-					return log.toString();
-				}
-				log.append((profileEdition > 0 ? "Replace" : "Augment") +" file with hh routing: " + outFile.getName()).append("\n");
-				writeFile = new File(outFile.getParentFile(), outFile.getName() + ".tmp");
 			}
-			// clear up to re use
-			for (NetworkDBPointWrite p : points) {
-				p.includeFlag = 0;
-				p.localId = 0;
-				p.tagValuesInts = null;
+			if (edition == profileEdition && !overwrite) {
+				log.append(String.format("Skip file %s as same hh routing profile (%s) already exist", outFile.getName(),
+						new Date(edition)));
+				// regenerate in case there is an issue with writer itself
+				return log.toString();
+			} else if(!overwrite && profileEdition > 0){
+				log.append(String.format("Skip file %s as same hh routing profile (%s) as date do not match!!!", outFile.getName(),
+						new Date(edition)));
+				return log.toString();
 			}
-			
-			ValidateClusterSizeStructure vc = null;
-			if (VALIDATE_CLUSTER_SIZE) {
-				vc = new ValidateClusterSizeStructure(points);
-			}
-			
-			final RTree routeTree = new RTree(rTreeFile);
-			String logRes = preparePointsToWrite(routeTree, points, pntsMap, bbox31, filteredPoints);
-			log.append(logRes);
-			RTree packRTree = AbstractIndexPartCreator.packRtreeFile(routeTree, rTreeFile, rpTreeFile);
-			long rootIndex = packRTree.getFileHdr().getRootIndex();
-			rtree.Node root = packRTree.getReadNode(rootIndex);
-			Rect rootBounds = IndexVectorMapCreator.calcBounds(root);
+			log.append((profileEdition > 0 ? "Replace" : "Augment") +" file with hh routing: " + outFile.getName()).append("\n");
+			writeFile = new File(outFile.getParentFile(), outFile.getName() + ".tmp");
+		}
+		// clear up to re use
+		for (NetworkDBPointWrite p : points) {
+			p.includeFlag = 0;
+			p.localId = 0;
+			p.tagValuesInts = null;
+		}
+		
+		ValidateClusterSizeStructure vc = null;
+		if (VALIDATE_CLUSTER_SIZE) {
+			vc = new ValidateClusterSizeStructure(points);
+		}
+		
+		final PackedRTree routeTree = new PackedRTree();
+		String logRes = preparePointsToWrite(routeTree, points, pntsMap, bbox31, filteredPoints);
+		log.append(logRes);
+		routeTree.pack();
+		int root = routeTree.getRoot();
 
-			List<String> tagValuesDictionary = null;
-			if (WRITE_TAG_VALUES) {
-				tagValuesDictionary = prepareTagValuesDictionary(points);
-			}
-			
-			/// START WRITING
-			long timestamp = reader != null ? reader.getDateCreated() : edition;
-			BinaryMapIndexWriter bmiw = new BinaryMapIndexWriter(new RandomAccessFile(writeFile, "rw"), timestamp);
-			if (reader != null) {
-				byte[] BUFFER_TO_READ = new byte[BUFFER_SIZE];
-				for (int i = 0; i < reader.getIndexes().size(); i++) {
-					BinaryIndexPart part = reader.getIndexes().get(i);
-					if (part instanceof HHRouteRegion && ((HHRouteRegion) part).profile.equals(profile)) {
-						// ignore same
-						continue;
-					}
-					bmiw.getCodedOutStream().writeTag(part.getFieldNumber(), WireFormat.WIRETYPE_FIXED32_LENGTH_DELIMITED);
-					BinaryInspector.writeInt(bmiw.getCodedOutStream(), part.getLength());
-					BinaryInspector.copyBinaryPart(bmiw.getCodedOutStream(), BUFFER_TO_READ, reader.getRaf(), part.getFilePointer(), part.getLength());
+		List<String> tagValuesDictionary = null;
+		if (WRITE_TAG_VALUES) {
+			tagValuesDictionary = prepareTagValuesDictionary(points);
+		}
+		
+		/// START WRITING
+		long timestamp = reader != null ? reader.getDateCreated() : edition;
+		BinaryMapIndexWriter bmiw = new BinaryMapIndexWriter(new RandomAccessFile(writeFile, "rw"), timestamp);
+		if (reader != null) {
+			byte[] BUFFER_TO_READ = new byte[BUFFER_SIZE];
+			for (int i = 0; i < reader.getIndexes().size(); i++) {
+				BinaryIndexPart part = reader.getIndexes().get(i);
+				if (part instanceof HHRouteRegion && ((HHRouteRegion) part).profile.equals(profile)) {
+					// ignore same
+					continue;
 				}
+				bmiw.getCodedOutStream().writeTag(part.getFieldNumber(), WireFormat.WIRETYPE_FIXED32_LENGTH_DELIMITED);
+				BinaryInspector.writeInt(bmiw.getCodedOutStream(), part.getLength());
+				BinaryInspector.copyBinaryPart(bmiw.getCodedOutStream(), BUFFER_TO_READ, reader.getRaf(), part.getFilePointer(), part.getLength());
 			}
-			boolean allowLongSize = false; // worldwide maps - 2 profiles by 8M points
-			int pointsSize = (filteredPoints != null ? filteredPoints.size() : points.size());
-			if (profileParams.length * pointsSize > 8 * 1000 * 1000 * 2) {
-				LOG.info(String.format("!!! Use 64-bit allowLongSize = true (%d params, %d points) !!! File could be used only in Java-version ",
-						profileParams.length, pointsSize));
-				allowLongSize = true;
+		}
+		boolean allowLongSize = false; // worldwide maps - 2 profiles by 8M points
+		int pointsSize = (filteredPoints != null ? filteredPoints.size() : points.size());
+		if (profileParams.length * pointsSize > 8 * 1000 * 1000 * 2) {
+			LOG.info(String.format("!!! Use 64-bit allowLongSize = true (%d params, %d points) !!! File could be used only in Java-version ",
+					profileParams.length, pointsSize));
+			allowLongSize = true;
+		}
+		bmiw.startHHRoutingIndex(edition, profile, tagValuesDictionary, allowLongSize, profileParams);
+		if (root >= 0) {
+			long fp = bmiw.getFilePointer();
+			List<NetworkDBPointWrite> pntsList = writeBinaryRouteTree(root, routeTree, bmiw, pntsMap, new int[] {0});
+			long size = bmiw.getFilePointer() - fp;
+			// validate number of clusters
+			if (vc != null) {
+				vc.validateClusterSizeMatch(db, pntsList);
 			}
-			bmiw.startHHRoutingIndex(edition, profile, tagValuesDictionary, allowLongSize, profileParams);
-			if (rootBounds != null) {
-				long fp = bmiw.getFilePointer();
-				List<NetworkDBPointWrite> pntsList = writeBinaryRouteTree(root, rootBounds, packRTree, bmiw, pntsMap, new int[] {0});
-				long size = bmiw.getFilePointer() - fp;
-				// validate number of clusters
-				if (vc != null) {
-					vc.validateClusterSizeMatch(db, pntsList);
-				}
-				pntsList.sort(new Comparator<NetworkDBPointWrite>() {
-					@Override
-					public int compare(NetworkDBPointWrite o1, NetworkDBPointWrite o2) {
-						return Integer.compare(o1.localId, o2.localId);
-					}
-				});
-				List<Integer> blocks = new ArrayList<Integer>();
-				int numberOfBlocks = (pntsList.size() - 1) / BLOCK_SEGMENTS_AVG_BUCKET_SIZE + 1;
-				while (numberOfBlocks > 1) {
-					blocks.add(numberOfBlocks);
-					numberOfBlocks = (numberOfBlocks - 1) / BLOCK_SEGMENTS_AVG_BLOCKS_SIZE + 1;
-				}
-				Collections.reverse(blocks);
-				List<Integer> ranges = new ArrayList<Integer>();
-				for (int i = 0; i < blocks.size(); i++) {
-					ranges.add((pntsList.size() - 1) / blocks.get(i) + 1);
-				}
-				fp = bmiw.getFilePointer();
-				log.append(String.format("Tree of points %d: ranges - %s, number of subblocks - %s\n", points.size(), ranges, blocks));
-				for (int i = 0; i < dbProfileParamsKeys.length; i++) {
-					writeSegments(db, i, dbProfileParamsKeys[i], bmiw, pntsList, ranges, 0);
+			pntsList.sort(new Comparator<NetworkDBPointWrite>() {
+				@Override
+				public int compare(NetworkDBPointWrite o1, NetworkDBPointWrite o2) {
+					return Integer.compare(o1.localId, o2.localId);
 				}
-				long size2 = bmiw.getFilePointer() - fp;
-				log.append(String.format("Points size %d bytes, segments size %d bytes \n", size, size2));
+			});
+			List<Integer> blocks = new ArrayList<Integer>();
+			int numberOfBlocks = (pntsList.size() - 1) / BLOCK_SEGMENTS_AVG_BUCKET_SIZE + 1;
+			while (numberOfBlocks > 1) {
+				blocks.add(numberOfBlocks);
+				numberOfBlocks = (numberOfBlocks - 1) / BLOCK_SEGMENTS_AVG_BLOCKS_SIZE + 1;
 			}
-			bmiw.endHHRoutingIndex();
-			bmiw.close();
-
-			RandomAccessFile file = packRTree.getFileHdr().getFile();
-			file.close();
-			if (reader != null) {
-				reader.close();
-				writeFile.renameTo(outFile);
-//				outFile.setLastModified(timestamp); // don't update timestamp to use to compare with latest files
+			Collections.reverse(blocks);
+			List<Integer> ranges = new ArrayList<Integer>();
+			for (int i = 0; i < blocks.size(); i++) {
+				ranges.add((pntsList.size() - 1) / blocks.get(i) + 1);
+			}
+			fp = bmiw.getFilePointer();
+			log.append(String.format("Tree of points %d: ranges - %s, number of subblocks - %s\n", points.size(), ranges, blocks));
+			for (int i = 0; i < dbProfileParamsKeys.length; i++) {
+				writeSegments(db, i, dbProfileParamsKeys[i], bmiw, pntsList, ranges, 0);
 			}
-		} catch (RTreeException | RTreeInsertException e) {
-			throw new IOException(e);
-		} finally {
-			new File(rTreeFile).delete();
-			new File(rpTreeFile).delete();
+			long size2 = bmiw.getFilePointer() - fp;
+			log.append(String.format("Points size %d bytes, segments size %d bytes \n", size, size2));
 		}
-		if (THREAD_POOL == 1) {
-			// check if we can run in parallel
-			RTree.clearCache();
+		bmiw.endHHRoutingIndex();
+		bmiw.close();
+
+		if (reader != null) {
+			reader.close();
+			writeFile.renameTo(outFile);
+//				outFile.setLastModified(timestamp); // don't update timestamp to use to compare with latest files
 		}
 		return log.toString();
 	}
 
 
-	private String preparePointsToWrite(final RTree routeTree, List<NetworkDBPointWrite> points, TLongObjectHashMap<NetworkDBPointWrite> pntsMap,
-			QuadRect bbox31, TLongArrayList filteredPoints)
-			throws RTreeInsertException, IllegalValueException {
+	private String preparePointsToWrite(final PackedRTree routeTree, List<NetworkDBPointWrite> points, TLongObjectHashMap<NetworkDBPointWrite> pntsMap,
+			QuadRect bbox31, TLongArrayList filteredPoints) {
 		StringBuilder log = new StringBuilder();
 		if (filteredPoints != null) {
 			filteredPoints.forEach(new TLongProcedure() {
@@ -559,11 +531,7 @@ public class HHRoutingOBFWriter {
 				public boolean execute(long value) {
 					NetworkDBPointWrite p = pntsMap.get(value);
 					p.includeFlag = 1;
-					try {
-						routeTree.insert(new LeafElement(new Rect(p.pnt.midX(), p.pnt.midY(), p.pnt.midX(), p.pnt.midY()), p.pnt.index));
-					} catch (Exception e) {
-						throw new RuntimeException(e); 
-					}
+					routeTree.insert(p.pnt.midX(), p.pnt.midY(), p.pnt.midX(), p.pnt.midY(), p.pnt.index);
 					return true;
 				}
 			});
@@ -572,7 +540,7 @@ public class HHRoutingOBFWriter {
 			for (NetworkDBPointWrite p : points) {
 				if (initialState || bbox31.contains(p.pnt.midX(), p.pnt.midY(), p.pnt.midX(), p.pnt.midY())) {
 					p.includeFlag = 1;
-					routeTree.insert(new LeafElement(new Rect(p.pnt.midX(), p.pnt.midY(), p.pnt.midX(), p.pnt.midY()), p.pnt.index));
+					routeTree.insert(p.pnt.midX(), p.pnt.midY(), p.pnt.midX(), p.pnt.midY(), p.pnt.index);
 				}
 			}
 		}
@@ -594,8 +562,7 @@ public class HHRoutingOBFWriter {
 		return log.toString();
 	}
 
-	private String addIncompletePointsToFormClusters(String msg, Collection<NetworkDBPointWrite> points, RTree routeTree)
-			throws RTreeInsertException, IllegalValueException {
+	private String addIncompletePointsToFormClusters(String msg, Collection<NetworkDBPointWrite> points, PackedRTree routeTree) {
 		// IMPORTANT: same(pnt.clusterId) - forms a shape where segments look outward the shape
 		TLongHashSet clusterDualPointsForInNeeded = new TLongHashSet();
 		TLongHashSet clusterPointsForOutNeeded = new TLongHashSet();
@@ -613,8 +580,7 @@ public class HHRoutingOBFWriter {
 						clusterDualPointsForInNeeded.contains(p.pnt.clusterId)) {
 					partial++;
 					if (p.includeFlag == 0) {
-						routeTree.insert(
-								new LeafElement(new Rect(p.pnt.midX(), p.pnt.midY(), p.pnt.midX(), p.pnt.midY()), p.pnt.index));
+						routeTree.insert(p.pnt.midX(), p.pnt.midY(), p.pnt.midX(), p.pnt.midY(), p.pnt.index);
 					}
 					p.includeFlag = 2;
 				}
@@ -660,25 +626,17 @@ public class HHRoutingOBFWriter {
 		writer.endHHRouteBlockSegments();
 	}
 
-	private List<NetworkDBPointWrite> writeBinaryRouteTree(rtree.Node parent, Rect re, RTree r, BinaryMapIndexWriter writer,
-			TLongObjectHashMap<NetworkDBPointWrite> points, int[] pntId)
-			throws IOException, RTreeException {
-		Element[] es = parent.getAllElements();
-		writer.startHHRouteTreeElement(re.getMinX(), re.getMaxX(), re.getMinY(), re.getMaxY());
+	private List<NetworkDBPointWrite> writeBinaryRouteTree(int parent, PackedRTree r, BinaryMapIndexWriter writer,
+			TLongObjectHashMap<NetworkDBPointWrite> points, int[] pntId) throws IOException {
+		writer.startHHRouteTreeElement(r.getMinX(parent), r.getMaxX(parent), r.getMinY(parent), r.getMaxY(parent));
 		List<NetworkDBPointWrite> l = new ArrayList<>();
-		boolean leaf = false;
-		for (int i = 0; i < parent.getTotalElements(); i++) {
-			Element e = es[i];
-			if (e.getElementType() != rtree.Node.LEAF_NODE) {
-				if (leaf) {
-					throw new IllegalStateException();
-				}
-				rtree.Node chNode = r.getReadNode(e.getPtr());
-				List<NetworkDBPointWrite> ps = writeBinaryRouteTree(chNode, e.getRect(), r, writer, points, pntId);
+		boolean leaf = r.isLeaf(parent);
+		for (int i = 0; i < r.getChildCount(parent); i++) {
+			if (!leaf) {
+				List<NetworkDBPointWrite> ps = writeBinaryRouteTree(r.getChild(parent, i), r, writer, points, pntId);
 				l.addAll(ps);
 			} else {
-				leaf = true;
-				NetworkDBPointWrite pnt = points.get(e.getPtr());
+				NetworkDBPointWrite pnt = points.get(r.getEntryId(parent, i));
 				if (pnt.includeFlag > 0) {
 					pnt.localId = pntId[0]++;
 					l.add(pnt);
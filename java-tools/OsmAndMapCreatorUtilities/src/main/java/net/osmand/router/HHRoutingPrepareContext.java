@@ -87,15 +87,7 @@ public class HHRoutingPrepareContext {
 			if (!force && (ntusedMemory - MEMORY_LAST_USED_MB) < MEMORY_RELOAD_MB) {
 				return ctx;
 			}
-			Set<File> fls = null;
-			if (subRegions != null) {
-				fls = new LinkedHashSet<>();
-				for (NetworkRouteRegion r : subRegions) {
-					fls.add(r.file);
-				}
-			}
-			ctx = prepareContext(fls, ctx);
-			ctx.calculationProgress = new RouteCalculationProgress();
+			ctx = reloadContext(ctx, subRegions);
 			System.gc();
 			MEMORY_LAST_USED_MB = (Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory()) >> 20;
 			MEMEORY_LAST_RELOAD = System.currentTimeMillis();
@@ -110,6 +102,36 @@ public class HHRoutingPrepareContext {
 		return ctx;
 	}
 
+	/**
+	 * Runs gc if memory grew since last reload (no context to reload)
+	 */
+	void gcMemoryLimit() {
+		long usedMemory = (Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory()) >> 20;
+		if ((usedMemory - MEMORY_LAST_USED_MB) > MEMORY_RELOAD_MB
+				&& (System.currentTimeMillis() - MEMEORY_LAST_RELOAD) > MEMORY_RELOAD_TIMEOUT_SECONDS * 1000) {
+			System.gc();
+			MEMORY_LAST_USED_MB = (Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory()) >> 20;
+			MEMEORY_LAST_RELOAD = System.currentTimeMillis();
+			logf("***** Memory used before %d MB -> GC %d MB *****\n", usedMemory, MEMORY_LAST_USED_MB);
+		}
+	}
+
+	/**
+	 * Reloads context without gc and memory accounting (used by processing threads)
+	 */
+	RoutingContext reloadContext(RoutingContext ctx, List<NetworkRouteRegion> subRegions) throws IOException {
+		Set<File> fls = null;
+		if (subRegions != null) {
+			fls = new LinkedHashSet<>();
+			for (NetworkRouteRegion r : subRegions) {
+				fls.add(r.file);
+			}
+		}
+		ctx = prepareContext(fls, ctx);
+		ctx.calculationProgress = new RouteCalculationProgress();
+		return ctx;
+	}
+
 	RoutingContext prepareContext(Collection<File> fileSources, RoutingContext oldCtx) throws IOException {
 		List<BinaryMapIndexReader> readers = initReaders(fileSources);
 		if (oldCtx != null) {
@@ -8,15 +8,25 @@ import static net.osmand.router.HHRoutingUtilities.saveOsmFile;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -57,6 +67,7 @@ public class HHRoutingShortcutCreator {
 	private static boolean CLEAN;
 	private static int BATCH_SIZE = 1000;
 	private static int THREAD_POOL = 2;
+	private static int WORKER_MEMORY_MB = 0; // 0 - 3/4 of max heap shared by threads
 	
 	private static String ROUTING_PROFILE = "car";
 	private static String ROUTING_PARAMS = "";
@@ -98,6 +109,8 @@ public class HHRoutingShortcutCreator {
 				ROUTING_PARAMS = a.substring("--routing_params=".length()).trim();
 			} else if (a.startsWith("--threads=")) {
 				THREAD_POOL = Integer.parseInt(a.substring("--threads=".length()));
+			} else if (a.startsWith("--worker_memory_mb=")) {
+				WORKER_MEMORY_MB = Integer.parseInt(a.substring("--worker_memory_mb=".length()));
 			} else if (a.equals("--clean")) {
 				CLEAN = true;
 			} else if (a.equals("--onlycompact")) {
@@ -168,47 +181,118 @@ public class HHRoutingShortcutCreator {
 		TLongObjectHashMap<Entity> osmObjects = new TLongObjectHashMap<>();
 		double totalTime;
 		int taskId;
+		int workerId;
 	}
 
-	private static class BuildNetworkShortcutTask implements Callable<BuildNetworkShortcutResult> {
+	private static class BuildNetworkShortcutTask {
+		final List<NetworkDBPoint> batch = new ArrayList<>();
+		final int taskId;
+		int clusters;
 
-		private static ThreadLocal<RoutingContext> context = new ThreadLocal<>();
+		BuildNetworkShortcutTask(int taskId) {
+			this.taskId = taskId;
+		}
+	}
+
+	/**
+	 * Worker takes tasks (points of neighbor clusters) one by one and keeps own routing context between tasks,
+	 * context is unloaded only when heap left after gc exceeds memory budget of all workers.
+	 * Then only the worker which loaded most (points processed since its last unload) unloads its context,
+	 * others wait for the next gc to see whether heap is still over the budget.
+	 */
+	private static class BuildNetworkShortcutWorker implements Callable<Void> {
 
-		private List<NetworkDBPoint> batch;
-		private TLongObjectHashMap<RouteSegment> segments;
-		private HHRoutingShortcutCreator creator;
-		private TLongObjectHashMap<NetworkDBPoint> networkPointsByGeoId;
-		private int taskId;
+		private final int workerId;
+		private final HHRoutingShortcutCreator creator;
+		private final Queue<BuildNetworkShortcutTask> tasks;
+		private final BlockingQueue<BuildNetworkShortcutResult> results;
+		private final TLongObjectHashMap<RouteSegment> segments;
+		private final TLongObjectHashMap<NetworkDBPoint> networkPointsByGeoId;
+		private final List<BuildNetworkShortcutWorker> workers;
+		private RoutingContext ctx;
+		private volatile int loadedPoints;
 
-		public BuildNetworkShortcutTask(HHRoutingShortcutCreator creator, List<NetworkDBPoint> batch,
-				TLongObjectHashMap<RouteSegment> segments, TLongObjectHashMap<NetworkDBPoint> networkPointsByGeoId,
-				int taskId) {
+		// progress / throughput metrics
+		private final long startTime = System.nanoTime();
+		private volatile int points;
+		private volatile int clusters;
+		private volatile long shortcuts;
+		private volatile int unloads;
+
+		public BuildNetworkShortcutWorker(HHRoutingShortcutCreator creator, int workerId, Queue<BuildNetworkShortcutTask> tasks,
+				BlockingQueue<BuildNetworkShortcutResult> results, TLongObjectHashMap<RouteSegment> segments,
+				TLongObjectHashMap<NetworkDBPoint> networkPointsByGeoId, List<BuildNetworkShortcutWorker> workers) {
 			this.creator = creator;
-			this.batch = batch;
+			this.workerId = workerId;
+			this.tasks = tasks;
+			this.results = results;
 			this.segments = segments;
 			this.networkPointsByGeoId = networkPointsByGeoId;
-			this.taskId = taskId;
+			this.workers = workers;
 		}
 
 		@Override
-		public BuildNetworkShortcutResult call() throws Exception {
-			RoutingContext ctx = context.get();
-			ctx = prepareContext.gcMemoryLimitToUnloadAll(ctx, null, ctx == null);
-			((GeneralRouter) ctx.getRouter()).clearCaches();
-			ctx.unloadAllData();
-			for (RouteRegion r : ctx.reverseMap.keySet()) {
-				for (RouteSubregion s : r.getSubregions()) {
-					s.subregions = null;
-					s.dataObjects = null;
+		public Void call() throws Exception {
+			BuildNetworkShortcutTask task;
+			while ((task = tasks.poll()) != null) {
+				if (Thread.interrupted()) {
+					throw new InterruptedException();
+				}
+				prepareRoutingContext();
+				BuildNetworkShortcutResult res = process(task);
+				clusters += task.clusters;
+				results.put(res);
+			}
+			return null;
+		}
+
+		private void prepareRoutingContext() throws IOException {
+			boolean init = ctx == null;
+			ctx = HHRoutingShortcutCreator.prepareContext.gcMemoryLimitToUnloadAll(ctx, null, init);
+			if (init || shouldUnload()) {
+				if (!init) {
+					unloads++;
+				}
+				loadedPoints = 0;
+				((GeneralRouter) ctx.getRouter()).clearCaches();
+				ctx.unloadAllData();
+				for (RouteRegion r : ctx.reverseMap.keySet()) {
+					for (RouteSubregion s : r.getSubregions()) {
+						s.subregions = null;
+						s.dataObjects = null;
+					}
 				}
 			}
-			context.set(ctx);
+		}
+
+		private boolean shouldUnload() {
+			if (getLiveHeapMB() <= WORKER_MEMORY_MB * THREAD_POOL) {
+				return false;
+			}
+			synchronized (workers) {
+				// live heap is measured after gc, so it doesn't reflect unloads done since then
+				long gcCount = getGcCount();
+				if (gcCount <= lastUnloadGcCount) {
+					return false;
+				}
+				for (BuildNetworkShortcutWorker w : workers) {
+					if (w.loadedPoints > loadedPoints) {
+						return false;
+					}
+				}
+				lastUnloadGcCount = gcCount;
+				return true;
+			}
+		}
+
+		private BuildNetworkShortcutResult process(BuildNetworkShortcutTask task) throws InterruptedException, IOException {
 			BuildNetworkShortcutResult res = new BuildNetworkShortcutResult();
-			res.taskId = taskId;
+			res.taskId = task.taskId;
+			res.workerId = workerId;
 			long nt = System.nanoTime();
-			for (NetworkDBPoint pnt : batch) {
+			for (NetworkDBPoint pnt : task.batch) {
 				if (Thread.interrupted()) {
-					return res;
+					throw new InterruptedException();
 				}
 				ctx.calculationProgress = new RouteCalculationProgress();
 				long nt2 = System.nanoTime();
@@ -279,6 +363,9 @@ public class HHRoutingShortcutCreator {
 					res.points.add(pnt);
 					res.progress.add(ctx.calculationProgress);
 					res.shortcuts.add(result.size());
+					points++;
+					loadedPoints++;
+					shortcuts += result.size();
 				} catch (RuntimeException e) {
 					logf("Error %s while processing %d road - %s (%d)", e.getMessage(), pnt.roadId / 64, pnt.getPoint(),
 							pnt.index);
@@ -286,12 +373,38 @@ public class HHRoutingShortcutCreator {
 				}
 
 			}
-			segments = null;
 			res.totalTime = (System.nanoTime() - nt) / 1e9;
 			return res;
 		}
 
+		public String getStats() {
+			double sec = (System.nanoTime() - startTime) / 1e9;
+			return String.format("Worker %d: %,d points (%,d clusters), %,d shortcuts, %.1f points/s, %d context unloads",
+					workerId, points, clusters, shortcuts, points / Math.max(sec, 1e-3), unloads);
+		}
+	}
+
+	// guarded by workers list, gc count when a worker unloaded context last time
+	private static long lastUnloadGcCount = -1;
 
+	private static long getGcCount() {
+		long count = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			count += Math.max(gc.getCollectionCount(), 0);
+		}
+		return count;
+	}
+
+	// heap used after last gc (live objects), doesn't count garbage unlike Runtime.freeMemory
+	private static long getLiveHeapMB() {
+		long used = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			MemoryUsage usage = pool.getCollectionUsage();
+			if (pool.getType() == MemoryType.HEAP && usage != null) {
+				used += usage.getUsed();
+			}
+		}
+		return used >> 20;
 	}
 
 	private Collection<Entity> buildNetworkShortcuts(TLongObjectHashMap<NetworkDBPoint> pnts, HHRoutingPreparationDB networkDB, int routingProfile)
@@ -305,12 +418,9 @@ public class HHRoutingShortcutCreator {
 			segments.put(calculateRoutePointInternalId(pnt.roadId, pnt.start, pnt.end), s);
 			HHRoutingUtilities.addNode(osmObjects, pnt, null, "highway", "stop");
 		}
-
-		ExecutorService service = Executors.newFixedThreadPool(THREAD_POOL);
-		List<Future<BuildNetworkShortcutResult>> results = new ArrayList<>();
-		List<NetworkDBPoint> batch = new ArrayList<>();
-		int taskId = 0;
-		int total = 0;
+		if (WORKER_MEMORY_MB <= 0) {
+			WORKER_MEMORY_MB = (int) ((Runtime.getRuntime().maxMemory() >> 20) * 3 / 4 / THREAD_POOL);
+		}
 		int batchSize = BATCH_SIZE;
 		if (pnts.size() / THREAD_POOL < batchSize) {
 			batchSize = pnts.size() / THREAD_POOL + 1;
@@ -329,6 +439,8 @@ public class HHRoutingShortcutCreator {
 				return Integer.compare(o1.index, o2.index);
 			}
 		});
+		// group by cluster where shortcuts are searched (cluster of dual point), so routing runs in the same tiles
+		Map<Integer, List<NetworkDBPoint>> clusters = new LinkedHashMap<>();
 		for (NetworkDBPoint pnt : lst) {
 			ind++;
 			if (pnt.connectedReverse.size() > 0) {
@@ -341,70 +453,102 @@ public class HHRoutingShortcutCreator {
 			if (ind < DEBUG_LIMIT_START_OFFSET) {
 				continue;
 			}
-			batch.add(pnt);
+			int clusterId = pnt.dualPoint != null ? pnt.dualPoint.clusterId : pnt.clusterId;
+			clusters.computeIfAbsent(clusterId, k -> new ArrayList<>()).add(pnt);
 			if (ind > DEBUG_LIMIT_PROCESS && DEBUG_LIMIT_PROCESS != -1) {
 				break;
 			}
-			if (batch.size() == batchSize) {
-				results.add(service.submit(new BuildNetworkShortcutTask(this, batch, segments, networkPointsByGeoId, taskId++)));
-				total += batch.size();
-				batch = new ArrayList<>();
+		}
+		// clusters are not split between tasks
+		Queue<BuildNetworkShortcutTask> tasks = new ConcurrentLinkedQueue<>();
+		BuildNetworkShortcutTask task = null;
+		int taskId = 0;
+		int total = 0;
+		for (List<NetworkDBPoint> cluster : clusters.values()) {
+			if (task == null || task.batch.size() + cluster.size() > batchSize) {
+				task = new BuildNetworkShortcutTask(taskId++);
+				tasks.add(task);
 			}
+			task.batch.addAll(cluster);
+			task.clusters++;
+			total += cluster.size();
 		}
+		int tasksSize = tasks.size();
 		System.gc();
-		total += batch.size();
-		results.add(service.submit(new BuildNetworkShortcutTask(this, batch, segments, networkPointsByGeoId, taskId++)));
-		logf("Scheduled %d tasks, %d total points", taskId, total);
+		logf("Scheduled %d tasks (%d clusters), %d total points, %d threads with %d MB memory budget", tasksSize,
+				clusters.size(), total, THREAD_POOL, WORKER_MEMORY_MB);
 		int maxDirectedPointsGraph = 0;
 		int maxFinalSegmentsFound = 0;
 		int totalFinalSegmentsFound = 0;
 		int totalVisitedDirectSegments = 0;
 		ind = 1;
+		// bounded, so workers don't run far ahead of db inserts
+		BlockingQueue<BuildNetworkShortcutResult> results = new ArrayBlockingQueue<>(THREAD_POOL * 2);
+		ExecutorService service = Executors.newFixedThreadPool(THREAD_POOL);
+		List<BuildNetworkShortcutWorker> workers = new ArrayList<>();
+		List<Future<Void>> futures = new ArrayList<>();
+		for (int w = 0; w < THREAD_POOL; w++) {
+			workers.add(new BuildNetworkShortcutWorker(this, w, tasks, results, segments, networkPointsByGeoId, workers));
+		}
+		for (BuildNetworkShortcutWorker worker : workers) {
+			futures.add(service.submit(worker));
+		}
 		service.shutdown();
+		int executed = 0;
+		long lastStats = System.currentTimeMillis();
 		try {
-			while (!results.isEmpty()) {
-				Thread.sleep(5000);
-				Iterator<Future<BuildNetworkShortcutResult>> it = results.iterator();
-				while (it.hasNext()) {
-					Future<BuildNetworkShortcutResult> future = it.next();
-					if (future.isDone()) {
-						BuildNetworkShortcutResult res = future.get();
-						for (int k = 0; k < res.points.size(); k++) {
-							NetworkDBPoint rpnt = res.points.get(k);
-							RouteCalculationProgress calculationProgress = res.progress.get(k);
-							ind++;
-							if (DEBUG_VERBOSE_LEVEL >= 1 || ind - prevPrintInd > 200) {
-								prevPrintInd = ind;
-								logf("%.2f%% Process %d (%d shortcuts) - %.1f ms", ind / sz, rpnt.roadId / 64,
-										res.shortcuts.get(k), rpnt.rt(false).rtDistanceFromStart);
-							}
-							networkDB.insertSegments(rpnt.connected, routingProfile);
-							if (DEBUG_VERBOSE_LEVEL >= 2) {
-								System.out.println(calculationProgress.getInfo(null));
-							}
+			while (executed < tasksSize) {
+				BuildNetworkShortcutResult res = results.poll(5, TimeUnit.SECONDS);
+				if (res == null) {
+					for (Future<Void> future : futures) {
+						if (future.isDone()) {
+							// rethrows worker exception
+							future.get();
+						}
+					}
+					continue;
+				}
+				executed++;
+				for (int k = 0; k < res.points.size(); k++) {
+					NetworkDBPoint rpnt = res.points.get(k);
+					RouteCalculationProgress calculationProgress = res.progress.get(k);
+					ind++;
+					if (DEBUG_VERBOSE_LEVEL >= 1 || ind - prevPrintInd > 200) {
+						prevPrintInd = ind;
+						logf("%.2f%% Process %d (%d shortcuts) - %.1f ms", ind / sz, rpnt.roadId / 64,
+								res.shortcuts.get(k), rpnt.rt(false).rtDistanceFromStart);
+					}
+					networkDB.insertSegments(rpnt.connected, routingProfile);
+					if (DEBUG_VERBOSE_LEVEL >= 2) {
+						System.out.println(calculationProgress.getInfo(null));
+					}
 
-							maxDirectedPointsGraph = Math.max(maxDirectedPointsGraph,
-									calculationProgress.visitedDirectSegments);
-							totalVisitedDirectSegments += calculationProgress.visitedDirectSegments;
-							maxFinalSegmentsFound = Math.max(maxFinalSegmentsFound,
-									calculationProgress.finalSegmentsFound);
-							totalFinalSegmentsFound += calculationProgress.finalSegmentsFound;
+					maxDirectedPointsGraph = Math.max(maxDirectedPointsGraph,
+							calculationProgress.visitedDirectSegments);
+					totalVisitedDirectSegments += calculationProgress.visitedDirectSegments;
+					maxFinalSegmentsFound = Math.max(maxFinalSegmentsFound,
+							calculationProgress.finalSegmentsFound);
+					totalFinalSegmentsFound += calculationProgress.finalSegmentsFound;
 
-							// clean up for gc
-							rpnt.connected.clear();
-							rpnt.connectedReverse.clear();
-						}
-						osmObjects.putAll(res.osmObjects);
-						it.remove();
-						logf("Task id %d executed %.1f seconds - %d (of %d) waiting completion", res.taskId,
-								res.totalTime, results.size(), taskId);
+					// clean up for gc
+					rpnt.connected.clear();
+					rpnt.connectedReverse.clear();
+				}
+				osmObjects.putAll(res.osmObjects);
+				logf("Task id %d executed by worker %d %.1f seconds - %d (of %d) waiting completion", res.taskId,
+						res.workerId, res.totalTime, tasksSize - executed, tasksSize);
+				if (System.currentTimeMillis() - lastStats > 60 * 1000 || executed == tasksSize) {
+					lastStats = System.currentTimeMillis();
+					logf("Live heap %d MB", getLiveHeapMB());
+					for (BuildNetworkShortcutWorker worker : workers) {
+						logf(worker.getStats());
 					}
 				}
 			}
 		} finally {
 			List<Runnable> runnable = service.shutdownNow();
-			if (!results.isEmpty()) {
-				logf("!!! %d runnable were not executed: exception occurred", runnable == null ? 0 : runnable.size());
+			if (executed < tasksSize) {
+				logf("!!! %d tasks were not executed: exception occurred", tasksSize - executed + (runnable == null ? 0 : runnable.size()));
 			}
 			service.awaitTermination(5, TimeUnit.MINUTES);
 		}
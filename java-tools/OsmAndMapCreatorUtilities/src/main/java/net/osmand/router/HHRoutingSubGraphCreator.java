@@ -27,15 +27,21 @@ import java.util.List;
 import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.xml.stream.XMLStreamException;
 
 import org.apache.commons.logging.Log;
 
 import gnu.trove.iterator.TIntIntIterator;
+import gnu.trove.iterator.TLongIntIterator;
 import gnu.trove.map.hash.TIntIntHashMap;
 import gnu.trove.map.hash.TLongIntHashMap;
 import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.set.hash.TLongHashSet;
 import net.osmand.PlatformUtil;
 import net.osmand.ResultMatcher;
 import net.osmand.binary.BinaryMapIndexReader;
@@ -131,6 +137,7 @@ public class HHRoutingSubGraphCreator {
 	static int ALG_BY_DEPTH_MINMAX_DIFF = 10;
 
 	static boolean CLEAN = false;
+	static int THREADS = 1; // regions which are far from each other are processed in parallel
 	static String ROUTING_PROFILE = "car";
 	static String ROUTING_PARAMS = "allow_private";
 
@@ -162,6 +169,8 @@ public class HHRoutingSubGraphCreator {
 				ALG_BY_DEPTH_REACH_POINTS = true;
 			} else if (a.equals("--network_by_limits")) {
 				ALG_BY_DEPTH_REACH_POINTS = false;
+			} else if (a.startsWith("--threads=")) {
+				THREADS = Integer.parseInt(a.substring("--threads=".length()));
 			} else if (a.equals("--clean")) {
 				CLEAN = true;
 			} else if (a.equals("--merge")) {
@@ -271,6 +280,7 @@ public class HHRoutingSubGraphCreator {
 			}
 		});
 		ctx.networkDB.insertRegions(ctx.routeRegions);
+		List<NetworkRouteRegion> toProcess = new ArrayList<>();
 		int procInd = 0;
 		for (NetworkRouteRegion nrouteRegion : ctx.routeRegions) {
 			System.out.println("------------------------");
@@ -289,46 +299,15 @@ public class HHRoutingSubGraphCreator {
 				}
 				throw new IllegalStateException();
 			}
-
-			double overlapBbox = OVERLAP_FOR_ROUTING;
-			boolean notProcessed = true;
-			while (notProcessed) {
-				ctx.startRegionProcess(nrouteRegion, overlapBbox);
-				RouteRegion routeRegion = null;
-				for (RouteRegion rr : ctx.rctx.reverseMap.keySet()) {
-					if (rr.getFilePointer() == nrouteRegion.region.getFilePointer()
-							&& nrouteRegion.region.getName().equals(rr.getName())) {
-						routeRegion = rr;
-						break;
-					}
-				}
-				BinaryMapIndexReader reader = ctx.rctx.reverseMap.get(routeRegion);
-				logf("Region %s %d of %d %s", nrouteRegion.region.getName(), procInd, ctx.routeRegions.size(),
-						new Date().toString());
-
-				List<RouteSubregion> regions = reader.searchRouteIndexTree(
-						BinaryMapIndexReader.buildSearchRequest(
-								MapUtils.get31TileNumberX(nrouteRegion.region.getLeftLongitude()),
-								MapUtils.get31TileNumberX(nrouteRegion.region.getRightLongitude()),
-								MapUtils.get31TileNumberY(nrouteRegion.region.getTopLatitude()),
-								MapUtils.get31TileNumberY(nrouteRegion.region.getBottomLatitude()), 16, null),
-						routeRegion.getSubregions());
-
-				final long estimatedRoads = 1 + routeRegion.getLength() / 150; // 5 000 / 1 MB - 1 per 200 Byte
-				RouteDataObjectProcessor proc = new RouteDataObjectProcessor(ctx, estimatedRoads);
-				reader.loadRouteIndexData(regions, proc);
-				boolean ok = ctx.finishRegionProcess(overlapBbox);
-				if (!ok) {
-					overlapBbox *= 2;
-					// clean up for reprocessing
-					ctx.networkDB.cleanupRegionForReprocessing(nrouteRegion, ctx.networkPointToDbInd, ctx.longRoads);
-
-				} else {
-					notProcessed = false;
-				}
-				ctx.printStatsNetworks();
+			if (THREADS > 1) {
+				toProcess.add(nrouteRegion);
+			} else {
+				processRegion(ctx, nrouteRegion, procInd);
 			}
 		}
+		if (toProcess.size() > 0) {
+			collectNetworkPointsParallel(ctx, toProcess);
+		}
 		if (ctx.longRoads.size() > 0) {
 			processLongRoads(ctx);
 		}
@@ -336,6 +315,144 @@ public class HHRoutingSubGraphCreator {
 		return ctx;
 	}
 
+	private void processRegion(NetworkCollectPointCtx ctx, NetworkRouteRegion nrouteRegion, int procInd)
+			throws IOException, SQLException {
+		double overlapBbox = OVERLAP_FOR_ROUTING;
+		boolean notProcessed = true;
+		while (notProcessed) {
+			loadRegionRoads(ctx, nrouteRegion, overlapBbox, procInd);
+			boolean ok = ctx.finishRegionProcess(overlapBbox);
+			if (!ok) {
+				overlapBbox *= 2;
+				// clean up for reprocessing
+				ctx.networkDB.cleanupRegionForReprocessing(nrouteRegion, ctx.networkPointToDbInd, ctx.longRoads);
+
+			} else {
+				notProcessed = false;
+			}
+			ctx.printStatsNetworks();
+		}
+	}
+
+	private void loadRegionRoads(NetworkCollectPointCtx ctx, NetworkRouteRegion nrouteRegion, double overlapBbox,
+			int procInd) throws IOException, SQLException {
+		ctx.startRegionProcess(nrouteRegion, overlapBbox);
+		RouteRegion routeRegion = null;
+		for (RouteRegion rr : ctx.rctx.reverseMap.keySet()) {
+			if (rr.getFilePointer() == nrouteRegion.region.getFilePointer()
+					&& nrouteRegion.region.getName().equals(rr.getName())) {
+				routeRegion = rr;
+				break;
+			}
+		}
+		BinaryMapIndexReader reader = ctx.rctx.reverseMap.get(routeRegion);
+		logf("Region %s %d of %d %s", nrouteRegion.region.getName(), procInd, ctx.routeRegions.size(),
+				new Date().toString());
+
+		List<RouteSubregion> regions = reader.searchRouteIndexTree(
+				BinaryMapIndexReader.buildSearchRequest(
+						MapUtils.get31TileNumberX(nrouteRegion.region.getLeftLongitude()),
+						MapUtils.get31TileNumberX(nrouteRegion.region.getRightLongitude()),
+						MapUtils.get31TileNumberY(nrouteRegion.region.getTopLatitude()),
+						MapUtils.get31TileNumberY(nrouteRegion.region.getBottomLatitude()), 16, null),
+				routeRegion.getSubregions());
+
+		final long estimatedRoads = 1 + routeRegion.getLength() / 150; // 5 000 / 1 MB - 1 per 200 Byte
+		RouteDataObjectProcessor proc = new RouteDataObjectProcessor(ctx, estimatedRoads);
+		reader.loadRouteIndexData(regions, proc);
+	}
+
+	private void collectNetworkPointsParallel(NetworkCollectPointCtx ctx, List<NetworkRouteRegion> toProcess)
+			throws IOException, SQLException {
+		// Regions are split into waves: region goes to the next wave after every earlier region it could share
+		// clusters with, so regions of one wave don't see each other and are processed in parallel.
+		// Results of a wave are saved in region order, so db ids don't depend on threads timing.
+		List<List<NetworkRouteRegion>> waves = new ArrayList<>();
+		int[] regionWave = new int[toProcess.size()];
+		for (int i = 0; i < toProcess.size(); i++) {
+			int wave = 0;
+			for (int j = 0; j < i; j++) {
+				if (toProcess.get(j).intersects(toProcess.get(i), 2 * OVERLAP_FOR_ROUTING)) {
+					wave = Math.max(wave, regionWave[j] + 1);
+				}
+			}
+			regionWave[i] = wave;
+			while (waves.size() <= wave) {
+				waves.add(new ArrayList<>());
+			}
+			waves.get(wave).add(toProcess.get(i));
+		}
+		logf("Process %d regions in %d waves using %d threads", toProcess.size(), waves.size(), THREADS);
+		ExecutorService service = Executors.newFixedThreadPool(THREADS);
+		try {
+			for (int w = 0; w < waves.size(); w++) {
+				List<NetworkRouteRegion> wave = waves.get(w);
+				System.out.println("------------------------");
+				logf("Wave %d of %d: %d regions", w + 1, waves.size(), wave.size());
+				List<Future<NetworkCollectPointCtx>> futures = new ArrayList<>();
+				for (NetworkRouteRegion nrouteRegion : wave) {
+					futures.add(service.submit(() -> collectRegionPoints(ctx, nrouteRegion)));
+				}
+				List<NetworkCollectPointCtx> results = new ArrayList<>();
+				for (Future<NetworkCollectPointCtx> f : futures) {
+					results.add(getRegionResult(f));
+				}
+				List<NetworkRouteRegion> reprocess = new ArrayList<>();
+				for (int i = 0; i < wave.size(); i++) {
+					if (results.get(i) == null) {
+						reprocess.add(wave.get(i));
+					} else {
+						ctx.commitRegionProcess(results.get(i));
+						ctx.printStatsNetworks();
+					}
+				}
+				// clusters went out of the routing overlap, process with the rest of the wave already saved
+				for (NetworkRouteRegion nrouteRegion : reprocess) {
+					logf("Reprocess region %s with larger overlap", nrouteRegion.getName());
+					processRegion(ctx, nrouteRegion, ctx.routeRegions.indexOf(nrouteRegion) + 1);
+				}
+				// contexts of the wave are released, gc (if memory grew) only here and not in every thread
+				prepareContext.gcMemoryLimit();
+			}
+		} finally {
+			service.shutdownNow();
+		}
+	}
+
+	private NetworkCollectPointCtx collectRegionPoints(NetworkCollectPointCtx parent, NetworkRouteRegion nrouteRegion)
+			throws IOException, SQLException {
+		int ind = parent.routeRegions.indexOf(nrouteRegion);
+		NetworkCollectPointCtx ctx = new NetworkCollectPointCtx(parent);
+		try {
+			loadRegionRoads(ctx, ctx.routeRegions.get(ind), OVERLAP_FOR_ROUTING, ind + 1);
+			if (!ctx.updateRegionBbox(OVERLAP_FOR_ROUTING)) {
+				return null;
+			}
+			return ctx;
+		} finally {
+			ctx.close();
+		}
+	}
+
+	private static NetworkCollectPointCtx getRegionResult(Future<NetworkCollectPointCtx> f)
+			throws IOException, SQLException {
+		try {
+			return f.get();
+		} catch (InterruptedException e) {
+			throw new IOException(e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof SQLException) {
+				throw (SQLException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IllegalStateException(cause);
+		}
+	}
+
 	private void processLongRoads(NetworkCollectPointCtx ctx) throws IOException, SQLException {
 		int size = ctx.longRoads.size();
 		if (size == 0) {
@@ -1184,6 +1301,30 @@ public class HHRoutingSubGraphCreator {
 			this.totalBorderPoints += borderPoints;
 
 		}
+
+		public void merge(NetworkCollectStats s) {
+			TLongIntIterator bit = s.borderPntsCluster.iterator();
+			while (bit.hasNext()) {
+				bit.advance();
+				borderPntsCluster.adjustOrPutValue(bit.key(), bit.value(), bit.value());
+			}
+			mergeDistr(borderPntsDistr, s.borderPntsDistr);
+			mergeDistr(pntsDistr, s.pntsDistr);
+			mergeDistr(edgesDistr, s.edgesDistr);
+			edges += s.edges;
+			isolatedIslands += s.isolatedIslands;
+			toMergeIslands += s.toMergeIslands;
+			shortcuts += s.shortcuts;
+			totalBorderPoints += s.totalBorderPoints;
+		}
+
+		private static void mergeDistr(TIntIntHashMap distr, TIntIntHashMap add) {
+			TIntIntIterator it = add.iterator();
+			while (it.hasNext()) {
+				it.advance();
+				distr.adjustOrPutValue(it.key(), it.value(), it.value());
+			}
+		}
 	}
 
 	private static class NetworkCollectPointCtx {
@@ -1204,6 +1345,10 @@ public class HHRoutingSubGraphCreator {
 		TLongObjectHashMap<NetworkBorderPoint> networkPointToDbInd = new TLongObjectHashMap<>();
 		List<NetworkRouteRegion> validateIntersectionRegions = new ArrayList<>();
 
+		// context of single region processed in parallel: points are saved later by parent
+		NetworkCollectPointCtx parent;
+		List<List<RouteSegmentBorderPoint>> clusterBorderPoints = new ArrayList<>();
+		TLongHashSet newNetworkPoints = new TLongHashSet();
 
 
 		public NetworkCollectPointCtx(HHRoutingPrepareContext prepareContext, HHRoutingPreparationDB networkDB) throws IOException {
@@ -1212,6 +1357,30 @@ public class HHRoutingSubGraphCreator {
 			this.networkDB = networkDB;
 		}
 
+		public NetworkCollectPointCtx(NetworkCollectPointCtx parent) {
+			this.parent = parent;
+			this.prepareContext = parent.prepareContext;
+			this.networkDB = parent.networkDB;
+			for (NetworkRouteRegion nr : parent.routeRegions) {
+				// own copy as visited vertices are loaded / unloaded per processed region
+				NetworkRouteRegion copy = new NetworkRouteRegion(nr.region, nr.file, null);
+				copy.id = nr.id;
+				copy.rect = nr.rect;
+				copy.points = nr.getPoints();
+				routeRegions.add(copy);
+			}
+		}
+
+		public void close() throws IOException {
+			if (rctx != null) {
+				for (BinaryMapIndexReader r : rctx.map.keySet()) {
+					r.close();
+				}
+				rctx = null;
+			}
+			allVerticesCache = new TLongObjectHashMap<>();
+		}
+
 		public long getTotalPoints() {
 			long totalPoints = 0;
 			for (NetworkRouteRegion r : routeRegions) {
@@ -1220,10 +1389,6 @@ public class HHRoutingSubGraphCreator {
 			return totalPoints;
 		}
 
-		public int borderPointsSize() {
-			return networkPointToDbInd.size();
-		}
-
 		public String globalVisitedMessage(long k) {
 			NetworkRouteRegion r = null;
 			if (currentProcessingRegion != null && currentProcessingRegion.visitedVertices.containsKey(k)) {
@@ -1268,7 +1433,9 @@ public class HHRoutingSubGraphCreator {
 				}
 				if (nr.intersects(nrouteRegion, OVERLAP_FOR_VISITED)) {
 					logf("Intersects with %s %s.", nr.getName(), nr.rect.toString());
-					nr.loadVisitedVertices(networkDB);
+					synchronized (networkDB) {
+						nr.loadVisitedVertices(networkDB);
+					}
 					validateIntersectionRegions.add(nr);
 					regionsForRouting.add(nr);
 				} else if (nr.intersects(nrouteRegion, overlapBbox)) {
@@ -1280,14 +1447,28 @@ public class HHRoutingSubGraphCreator {
 			if (nrouteRegion.file != null) {
 				regionsForRouting.add(nrouteRegion);
 			}
-			// force reload cause subregions could change on rerun
-			rctx = prepareContext.gcMemoryLimitToUnloadAll(rctx, regionsForRouting, true);
+			if (parent != null) {
+				// processing thread: gc and memory accounting are done by the coordinating thread between waves
+				rctx = prepareContext.reloadContext(rctx, regionsForRouting);
+			} else {
+				// force reload cause subregions could change on rerun
+				rctx = prepareContext.gcMemoryLimitToUnloadAll(rctx, regionsForRouting, true);
+			}
 
 		}
 
 		public void addCluster(NetworkIsland cluster) {
-			cluster.dbIndex = networkDB.prepareBorderPointsToInsert(currentProcessingRegion == null ? 0 : currentProcessingRegion.id,
-					cluster.borderVertices, networkPointToDbInd);
+			if (parent != null) {
+				// local index, db index is assigned by commitRegionProcess
+				cluster.dbIndex = clusterBorderPoints.size();
+				clusterBorderPoints.add(cluster.borderVertices);
+				for (RouteSegmentBorderPoint p : cluster.borderVertices) {
+					newNetworkPoints.add(p.unidirId);
+				}
+			} else {
+				cluster.dbIndex = networkDB.prepareBorderPointsToInsert(currentProcessingRegion == null ? 0 : currentProcessingRegion.id,
+						cluster.borderVertices, networkPointToDbInd);
+			}
 			lastClusterInd = cluster.dbIndex;
 			stats.addCluster(cluster);
 			if (cluster.visitedVertices.size() > TOTAL_MAX_POINTS * 1.5) {
@@ -1334,6 +1515,38 @@ public class HHRoutingSubGraphCreator {
 
 		public boolean finishRegionProcess(double overlapBbox) throws SQLException {
 			logf("Tiles " + rctx.calculationProgress.getInfo(null).get("tiles"));
+			if (!updateRegionBbox(overlapBbox)) {
+				return false;
+			}
+			saveProcessedRegion();
+			return true;
+		}
+
+		public void commitRegionProcess(NetworkCollectPointCtx regionCtx) throws SQLException {
+			NetworkRouteRegion processed = regionCtx.currentProcessingRegion;
+			NetworkRouteRegion region = routeRegions.get(regionCtx.routeRegions.indexOf(processed));
+			int[] clusterIds = new int[regionCtx.clusterBorderPoints.size()];
+			for (int k = 0; k < clusterIds.length; k++) {
+				clusterIds[k] = networkDB.prepareBorderPointsToInsert(region.id, regionCtx.clusterBorderPoints.get(k),
+						networkPointToDbInd);
+				lastClusterInd = clusterIds[k];
+			}
+			processed.visitedVertices.transformValues(k -> clusterIds[k]);
+			for (NetworkIsland c : regionCtx.visualClusters) {
+				c.dbIndex = clusterIds[c.dbIndex];
+				visualClusters.add(c);
+			}
+			region.visitedVertices = processed.visitedVertices;
+			region.points = -1;
+			region.calcRect = processed.calcRect;
+			region.rect = processed.rect;
+			longRoads.addAll(regionCtx.longRoads);
+			stats.merge(regionCtx.stats);
+			currentProcessingRegion = region;
+			saveProcessedRegion();
+		}
+
+		public boolean updateRegionBbox(double overlapBbox) {
 			QuadRect c = currentProcessingRegion.getCalcBbox();
 			QuadRect r = currentProcessingRegion.rect;
 			if(c.left < r.left || c.top > r.top || c.bottom < r.bottom || c.right > r.right) {
@@ -1351,6 +1564,10 @@ public class HHRoutingSubGraphCreator {
 				}
 				currentProcessingRegion.rect = n;
 			}
+			return true;
+		}
+
+		private void saveProcessedRegion() throws SQLException {
 			int ins = 0, tl = 0;
 			for (NetworkBorderPoint npnt : networkPointToDbInd.valueCollection()) {
 				if (npnt.positiveObj != null) {
@@ -1373,17 +1590,22 @@ public class HHRoutingSubGraphCreator {
 
 			currentProcessingRegion.unload();
 			currentProcessingRegion = null;
-			return true;
-
 		}
 
 		public boolean testIfNetworkPoint(long pntId) {
 			if (networkPointToDbInd.contains(pntId)) {
 				return true;
 			}
+			if (parent != null) {
+				return newNetworkPoints.contains(pntId) || parent.networkPointToDbInd.contains(pntId);
+			}
 			return false;
 		}
 
+		public int borderPointsSize() {
+			return networkPointToDbInd.size() + newNetworkPoints.size();
+		}
+
 
 		public void printStatsNetworks() {
 			stats.printStatsNetworks(getTotalPoints(), lastClusterInd);
@@ -1426,7 +1648,7 @@ public class HHRoutingSubGraphCreator {
 				for (int pos = 0; pos < object.getPointsLength() - 1; pos++) {
 					RouteSegmentPoint pntAround = new RouteSegmentPoint(object, pos, 0);
 					long mainPoint = calcUniDirRoutePointInternalId(pntAround);
-					if (ctx.testGlobalVisited(mainPoint) || ctx.networkPointToDbInd.containsKey(mainPoint)) {
+					if (ctx.testGlobalVisited(mainPoint) || ctx.testIfNetworkPoint(mainPoint)) {
 						// already existing cluster
 						continue;
 					}
@@ -35,7 +35,6 @@ import net.osmand.obf.preparation.IndexCreatorSettings;
 import net.osmand.osm.MapRenderingTypesEncoder;
 import net.osmand.osm.edit.Node;
 import net.osmand.osm.edit.Way;
-import rtree.RTree;
 
 public class CombineSRTMIntoFile {
 	private static final Log log = PlatformUtil.getLog(CombineSRTMIntoFile.class);
@@ -180,10 +179,6 @@ public class CombineSRTMIntoFile {
 			ic.generateIndexes(files.toArray(new File[files.size()]), new ConsoleProgressImplementation(1), null,
 					MapZooms.parseZooms("11-12;13-"), new MapRenderingTypesEncoder(genFile.getName()), log, true);
 			nodesDB.delete();
-			// reduce memory footprint for single thread generation
-			// Remove it if it is called in multithread
-			RTree.clearCache();
-
 			Algorithms.fileCopy(genFile, targetFile);
 		} finally {
 			procFile.delete();
@@ -63,7 +63,6 @@ import net.osmand.obf.preparation.IndexCreator;
 import net.osmand.obf.preparation.IndexCreatorSettings;
 import net.osmand.osm.MapRenderingTypesEncoder;
 import net.osmand.util.CountryOcbfGeneration.CountryRegion;
-import rtree.RTree;
 import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.services.batch.BatchClient;
 import software.amazon.awssdk.services.batch.model.DescribeJobsRequest;
@@ -1121,10 +1120,6 @@ public class IndexBatchCreator {
 
 	protected void generateLocalIndex(File file, String regionName, String mapFileName, RegionSpecificData rdata, Set<String> alreadyGeneratedFiles) {
 		try {
-			// reduce memory footprint for single thread generation
-			// Remove it if it is called in multithread
-			RTree.clearCache();
-
 			DBDialect osmDb = this.osmDbDialect;
 			if (file.length() / 1024 / 1024 > INMEM_LIMIT && osmDb == DBDialect.SQLITE_IN_MEMORY) {
 				log.warn("Switching SQLITE in memory dialect to SQLITE");
@@ -56,14 +56,10 @@ import net.osmand.binary.BinaryMapIndexReader.SearchRequest;
 import net.osmand.binary.BinaryMapIndexReader.TagValuePair;
 import net.osmand.binary.OsmandOdb;
 import net.osmand.obf.BinaryMerger;
-import net.osmand.obf.preparation.AbstractIndexPartCreator;
 import net.osmand.obf.preparation.BinaryFileReference;
 import net.osmand.obf.preparation.BinaryMapIndexWriter;
 import net.osmand.obf.preparation.IndexVectorMapCreator;
-import rtree.LeafElement;
-import rtree.RTree;
-import rtree.RTreeException;
-import rtree.Rect;
+import net.osmand.obf.preparation.PackedRTree;
 
 /**
  * This helper will find obf and zip files, create description for them, and zip them, or update the description. This
@@ -150,7 +146,7 @@ public class IndexUploader {
 		}
 	}
 
-	public static void main(String[] args) throws IOException, IndexUploadException, RTreeException {
+	public static void main(String[] args) throws IOException, IndexUploadException {
 //		if (true) {
 //			File src = new File("/Users/victorshcherb/osmand/temp/Luxembourg_europe_2.obf");
 //			File dest = new File("/Users/victorshcherb/osmand/maps/Luxembourg_europe_2.road.obf");
@@ -330,7 +326,7 @@ public class IndexUploader {
 		}
 	}
 
-	public void run() throws IndexUploadException, IOException, RTreeException {
+	public void run() throws IndexUploadException, IOException {
 		// take files before whole upload process
 		try {
 			uploadCredentials.connect();
@@ -378,7 +374,6 @@ public class IndexUploader {
 					it.remove();
 				}
 			}
-			RTree.clearCache();
 		}
 	}
 
@@ -422,7 +417,7 @@ public class IndexUploader {
 					}
 				}
 			}
-		} catch (OneFileException | IOException | RuntimeException | RTreeException e) {
+		} catch (OneFileException | IOException | RuntimeException e) {
 			log.error(f.getName() + ": " + e.getMessage(), e);
 		}
 	}
@@ -493,7 +488,7 @@ public class IndexUploader {
 		}
 	}
 
-	private String checkfileAndGetDescription(File mainFile) throws OneFileException, IOException, RTreeException {
+	private String checkfileAndGetDescription(File mainFile) throws OneFileException, IOException {
 		String fileName = mainFile.getName();
 		
 		if (fileName.endsWith(IndexConstants.BINARY_MAP_INDEX_EXT)) {
@@ -536,7 +531,7 @@ public class IndexUploader {
 	}
 
 	// synchronized is not needed as R-tree now works fine  
-	public static void extractRoadOnlyFile(File mainFile, File roadOnlyFile) throws IOException, RTreeException {
+	public static void extractRoadOnlyFile(File mainFile, File roadOnlyFile) throws IOException {
 		RandomAccessFile raf = new RandomAccessFile(mainFile, "r");
 		BinaryMapIndexReader index = new BinaryMapIndexReader(raf, mainFile);
 		final RandomAccessFile routf = new RandomAccessFile(roadOnlyFile, "rw");
@@ -581,7 +576,7 @@ public class IndexUploader {
 	}
 
 	private static void copyMapIndex(File roadOnlyFile, MapIndex part, BinaryMapIndexReader index,
-			CodedOutputStream ous, RandomAccessFile raf, RandomAccessFile routf) throws IOException, RTreeException {
+			CodedOutputStream ous, RandomAccessFile raf, RandomAccessFile routf) throws IOException {
 		final List<MapRoot> rts = part.getRoots();
 		BinaryMapIndexWriter writer = new BinaryMapIndexWriter(routf, ous);
 		writer.startWriteMapIndex(part.getName());
@@ -597,40 +592,24 @@ public class IndexUploader {
 				continue;
 			}
 			final TLongObjectHashMap<BinaryMapDataObject> objects = new TLongObjectHashMap<BinaryMapDataObject>();
-			String uniquefile = r.getMinZoom() + "." + roadOnlyFile.getName() + "." + part.getName() + ".rtree";
-			File nonpackRtree = new File(roadOnlyFile.getParentFile(), "nonpack" + uniquefile);
-			File packRtree = new File(roadOnlyFile.getParentFile(), "pack" + uniquefile);
-			RTree rtree = null;
-			try {
-				rtree = new RTree(nonpackRtree.getAbsolutePath());
-				final SearchRequest<BinaryMapDataObject> req = buildSearchRequest(r, objects, rtree);
-				index.searchMapIndex(req, part);
-				if (first) {
-					first = false;
-					writer.writeMapEncodingRules(part.decodingRules);
-				}
-				rtree = AbstractIndexPartCreator.packRtreeFile(rtree, nonpackRtree.getAbsolutePath(),
-						packRtree.getAbsolutePath());
-				TLongObjectHashMap<BinaryFileReference> treeHeader = new TLongObjectHashMap<BinaryFileReference>();
-
-				long rootIndex = rtree.getFileHdr().getRootIndex();
-				rtree.Node root = rtree.getReadNode(rootIndex);
-				Rect rootBounds = IndexVectorMapCreator.calcBounds(root);
-				if (rootBounds != null) {
-					writer.startWriteMapLevelIndex(r.getMinZoom(), r.getMaxZoom(), rootBounds.getMinX(),
-							rootBounds.getMaxX(), rootBounds.getMinY(), rootBounds.getMaxY());
-					IndexVectorMapCreator.writeBinaryMapTree(root, rootBounds, rtree, writer, treeHeader);
-					IndexVectorMapCreator.writeBinaryMapBlock(root, rootBounds, rtree, writer, treeHeader, objects, r.getMapZoom(), false);
-
-					writer.endWriteMapLevelIndex();
-				}
-			} finally {
-				if (rtree != null) {
-					RandomAccessFile file = rtree.getFileHdr().getFile();
-					file.close();
-				}
-				nonpackRtree.delete();
-				packRtree.delete();
+			PackedRTree rtree = new PackedRTree();
+			final SearchRequest<BinaryMapDataObject> req = buildSearchRequest(r, objects, rtree);
+			index.searchMapIndex(req, part);
+			if (first) {
+				first = false;
+				writer.writeMapEncodingRules(part.decodingRules);
+			}
+			rtree.pack();
+			TLongObjectHashMap<BinaryFileReference> treeHeader = new TLongObjectHashMap<BinaryFileReference>();
+
+			int root = rtree.getRoot();
+			if (root >= 0) {
+				writer.startWriteMapLevelIndex(r.getMinZoom(), r.getMaxZoom(), rtree.getMinX(root),
+						rtree.getMaxX(root), rtree.getMinY(root), rtree.getMaxY(root));
+				IndexVectorMapCreator.writeBinaryMapTree(root, rtree, writer, treeHeader);
+				IndexVectorMapCreator.writeBinaryMapBlock(root, rtree, writer, treeHeader, objects, r.getMapZoom(), false);
+
+				writer.endWriteMapLevelIndex();
 			}
 		}
 		writer.endWriteMapIndex();
@@ -653,7 +632,7 @@ public class IndexUploader {
 	}
 
 	private static SearchRequest<BinaryMapDataObject> buildSearchRequest(MapRoot r,
-			final TLongObjectHashMap<BinaryMapDataObject> objects, final RTree urTree) {
+			final TLongObjectHashMap<BinaryMapDataObject> objects, final PackedRTree urTree) {
 		final SearchRequest<BinaryMapDataObject> req = BinaryMapIndexReader.buildSearchRequest(0,
 				Integer.MAX_VALUE, 0, Integer.MAX_VALUE, r.getMinZoom(), new SearchFilter() {
 					@Override
@@ -676,11 +655,7 @@ public class IndexUploader {
 
 						if (accept(obj, minX, maxX, minY, maxY)) {
 							objects.put(obj.getId(), obj);
-							try {
-								urTree.insert(new LeafElement(new Rect(minX, minY, maxX, maxY), obj.getId()));
-							} catch (Exception e) {
-								throw new RuntimeException(e);
-							}
+							urTree.insert(minX, minY, maxX, maxY, obj.getId());
 						}
 						return false;
 					}
@@ -20,12 +20,17 @@ public class JapaneseTranslitHelper {
 	}
 	JapaneseTranslitHelper(){}
 
-	private static String japanese2Romaji(String text) {
+	// tokenizer is thread safe, names are transliterated by several processing threads
+	private static synchronized Tokenizer getTokenizer() {
 		if (tokenizer == null) {
 			tokenizer = new Tokenizer();
 		}
+		return tokenizer;
+	}
+
+	private static String japanese2Romaji(String text) {
 		boolean capitalizeWords = true;
-		List<Token> tokens = tokenizer.tokenize(text);
+		List<Token> tokens = getTokenizer().tokenize(text);
 		StringBuilder builder = new StringBuilder();
 		StringBuilder number = new StringBuilder();
 		for (Token token : tokens) {
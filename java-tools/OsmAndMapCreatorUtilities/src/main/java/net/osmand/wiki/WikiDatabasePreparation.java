@@ -21,8 +21,10 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -32,6 +34,11 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
@@ -970,7 +977,7 @@ public class WikiDatabasePreparation {
 		return value;
 	}
 
-	public static Map<String, Integer> POI_OTHER_TYPES = new HashMap<>();
+	public static Map<String, Integer> POI_OTHER_TYPES = new ConcurrentHashMap<>();
 
 	private static PoiFieldCategory transformCategory(String[] info) {
 		// {{listing | type=go}
@@ -999,8 +1006,7 @@ public class WikiDatabasePreparation {
 					if (res != PoiFieldCategory.OTHER) {
 						return res;
 					}
-					Integer it = POI_OTHER_TYPES.get(val);
-					POI_OTHER_TYPES.put(val, it == null ? 1 : it.intValue() + 1);
+					POI_OTHER_TYPES.merge(val, 1, Integer::sum);
 				}
 			}
 		}
@@ -1158,6 +1164,7 @@ public class WikiDatabasePreparation {
 		String wikidataFolder = "";
 		String mode = "";
 		long testArticleID = 0;
+		int threads = 1;
 		String resultDB = "";
 		String wikipediaSqliteName = "";
 		String wikidataSqliteName = "";
@@ -1175,6 +1182,8 @@ public class WikiDatabasePreparation {
 				testArticleID = Long.parseLong(val);
 			} else if (arg.startsWith("--result_db=")) {
 				resultDB = val;
+			} else if (arg.startsWith("--threads=")) {
+				threads = Integer.parseInt(val);
 			}
 		}
 
@@ -1252,10 +1261,10 @@ public class WikiDatabasePreparation {
 			break;
 		case "process-wikipedia":
 			log.info("Processing wikipedia...");
-			processWikipedia(wikipediaFolder, wikipediaSqliteName, lang, 0);
+			processWikipedia(wikipediaFolder, wikipediaSqliteName, lang, 0, threads);
 			break;
 		case "test-wikipedia":
-			processWikipedia(wikipediaFolder, wikipediaSqliteName, lang, testArticleID);
+			processWikipedia(wikipediaFolder, wikipediaSqliteName, lang, testArticleID, 1);
 			break;
 		case "test-wikidata":
 			wikidataDB = new File(wikidataSqliteName + ".test");
@@ -1466,17 +1475,24 @@ public class WikiDatabasePreparation {
 		}
 	}
 
+	/**
+	 * @param threads threads to convert articles to html, articles are still written in order of the dump
+	 */
 	public static void processWikipedia(final String wikipediaFolder, final String wikipediaSqliteFileName, String lang,
-			long testArticleId) throws ParserConfigurationException, SAXException, IOException, SQLException {
+			long testArticleId, int threads) throws ParserConfigurationException, SAXException, IOException, SQLException {
 		File wikipediaSqlite = new File(wikipediaSqliteFileName);
 		String wikiFile = wikipediaFolder + lang + WIKI_ARTICLES_GZ;
 		SAXParser sx = SAXParserFactory.newInstance().newSAXParser();
 		FileProgressImplementation progress = new FileProgressImplementation("Read wikipedia file", new File(wikiFile));
 		InputStream streamFile = progress.openFileInputStream();
 		InputSource is = getInputSource(streamFile);
-		final WikipediaHandler handler = new WikipediaHandler(sx, progress, lang, wikipediaSqlite, testArticleId);
-		sx.parse(is, handler);
-		handler.finish();
+		final WikipediaHandler handler = new WikipediaHandler(sx, progress, lang, wikipediaSqlite, testArticleId, threads);
+		try {
+			sx.parse(is, handler);
+			handler.finish();
+		} finally {
+			handler.shutdown();
+		}
 	}
 
 	public static void processWikidata(File wikidataSqlite, final String wikidataFile,
@@ -1532,13 +1548,34 @@ public class WikiDatabasePreparation {
 		private final static int BATCH_SIZE = 1000;
 		private static final long ARTICLES_BATCH = 1000;
 
-		final ByteArrayOutputStream bous = new ByteArrayOutputStream(64000);
 		private String lang;
 		private FileProgressImplementation progIS;
 		private long cid;
 
+		// articles converted in parallel and written in order, null if converted on parser thread
+		private final ExecutorService executor;
+		private final int maxInProgress;
+		private final Deque<Future<WikiArticle>> inProgress = new ArrayDeque<>();
+
+		private static class WikiArticle {
+			final long cid;
+			final long wikiId;
+			final String title;
+			final StringBuilder text;
+			String redirect;
+			String shortDescr;
+			byte[] zipContent;
+
+			WikiArticle(long cid, long wikiId, String title, StringBuilder text) {
+				this.cid = cid;
+				this.wikiId = wikiId;
+				this.title = title;
+				this.text = text;
+			}
+		}
+
 		WikipediaHandler(SAXParser saxParser, FileProgressImplementation progIS, String lang, File wikipediaSqlite,
-				long testArticleId) throws SQLException {
+				long testArticleId, int threads) throws SQLException {
 			this.lang = lang;
 			this.saxParser = saxParser;
 			this.progIS = progIS;
@@ -1555,27 +1592,51 @@ public class WikiDatabasePreparation {
 			selectPrep = conn.prepareStatement(
 					"SELECT id FROM wiki_mapping WHERE wiki_mapping.title = ? AND wiki_mapping.lang = ?");
 			imageUrlStorage = new WikiImageUrlStorage(conn, wikipediaSqlite.getParent(), lang);
+			if (threads > 1) {
+				executor = Executors.newFixedThreadPool(threads, r -> {
+					Thread t = new Thread(r, "WikiArticleConverter");
+					t.setDaemon(true);
+					return t;
+				});
+			} else {
+				executor = null;
+			}
+			maxInProgress = threads * 64;
 			log.info("Tables are prepared");
 		}
 
 		public void addBatch() throws SQLException {
 			insertPrep.addBatch();
 			if (batch++ > BATCH_SIZE) {
-				insertPrep.executeBatch();
+				// connection is shared with image url lookups of article converters
+				synchronized (conn) {
+					insertPrep.executeBatch();
+				}
 				batch = 0;
 			}
 		}
 
-		public void finish() throws SQLException {
-			insertPrep.executeBatch();
-			if (!conn.getAutoCommit()) {
-				conn.commit();
+		public void finish() throws SQLException, SAXException {
+			while (!inProgress.isEmpty()) {
+				writeArticle(inProgress.poll());
+			}
+			synchronized (conn) {
+				insertPrep.executeBatch();
+				if (!conn.getAutoCommit()) {
+					conn.commit();
+				}
 			}
 			selectPrep.close();
 			insertPrep.close();
 			conn.close();
 		}
 
+		public void shutdown() {
+			if (executor != null) {
+				executor.shutdownNow();
+			}
+		}
+
 		public int getCount() {
 			return (int) (counter - 1);
 		}
@@ -1632,49 +1693,29 @@ public class WikiDatabasePreparation {
 						cid = Long.parseLong(pageId.toString());
 					} else if (name.equals("text")) {
 						long wikiId = 0;
-						String plainStr = null;
-						String shortDescr = null;
 						if (namespace == 0) {
-							selectPrep.setString(1, title.toString());
-							selectPrep.setString(2, lang);
-							ResultSet rs = selectPrep.executeQuery();
-							if (rs.next()) {
-								wikiId = rs.getLong(1);
+							synchronized (conn) {
+								selectPrep.setString(1, title.toString());
+								selectPrep.setString(2, lang);
+								ResultSet rs = selectPrep.executeQuery();
+								if (rs.next()) {
+									wikiId = rs.getLong(1);
+								}
+								rs.close();
+								selectPrep.clearParameters();
 							}
-							rs.close();
-							selectPrep.clearParameters();
 						}
 						if (wikiId != 0) {
-							try {
-								CustomWikiModel wikiModel = new CustomWikiModel(
-										"https://" + lang + ".wikipedia.org/wiki/${image}",
-										"https://" + lang + ".wikipedia.org/wiki/${title}", imageUrlStorage, true);
-								String rawWikiText = removeMacroBlocks(ctext, null, new HashMap<>(), null, lang,
-										title.toString(), null, null);
-								plainStr = generateHtmlArticle(rawWikiText, wikiModel);
-								shortDescr = getShortDescr(rawWikiText, wikiModel);
-							} catch (RuntimeException e) {
-								log.error(String.format("Error with article %d - %s : %s", cid, title, e.getMessage()), e);
-							}
-						}
-						if (plainStr != null) {
-							String redirect = getRedirect(ctext);
-							if (++counter % ARTICLES_BATCH == 0) {
-								log.info("Article accepted " + cid + " " + title.toString());
-//								double GB = (1l << 30);
-//								log.info(String.format("Memory used : free %.2f GB of %.2f GB",
-//										Runtime.getRuntime().freeMemory() / GB, Runtime.getRuntime().totalMemory() / GB));
-							}
-							try {
-								insertPrep.setLong(1, wikiId);
-								insertPrep.setString(2, title.toString());
-								insertPrep.setString(3, lang);
-								insertPrep.setString(4, shortDescr);
-								insertPrep.setString(5, redirect);
-								insertPrep.setBytes(6, gzip(plainStr));
-								addBatch();
-							} catch (SQLException e) {
-								throw new SAXException(e);
+							// text buffer is passed to article
+							final WikiArticle article = new WikiArticle(cid, wikiId, title.toString(), text);
+							text = new StringBuilder();
+							if (executor == null) {
+								writeArticle(convertArticle(article));
+							} else {
+								inProgress.add(executor.submit(() -> convertArticle(article)));
+								if (inProgress.size() >= maxInProgress) {
+									writeArticle(inProgress.poll());
+								}
 							}
 						}
 						ctext = null;
@@ -1685,8 +1726,63 @@ public class WikiDatabasePreparation {
 			}
 		}
 
-		private byte[] gzip(String plainStr) throws IOException, UnsupportedEncodingException {
-			bous.reset();
+		private WikiArticle convertArticle(WikiArticle article) throws IOException, SQLException {
+			try {
+				CustomWikiModel wikiModel = new CustomWikiModel(
+						"https://" + lang + ".wikipedia.org/wiki/${image}",
+						"https://" + lang + ".wikipedia.org/wiki/${title}", imageUrlStorage, true);
+				String rawWikiText = removeMacroBlocks(article.text, null, new HashMap<>(), null, lang,
+						article.title, null, null);
+				String plainStr = generateHtmlArticle(rawWikiText, wikiModel);
+				article.shortDescr = getShortDescr(rawWikiText, wikiModel);
+				if (plainStr != null) {
+					article.redirect = getRedirect(article.text);
+					article.zipContent = gzip(plainStr);
+				}
+			} catch (RuntimeException e) {
+				log.error(String.format("Error with article %d - %s : %s", article.cid, article.title, e.getMessage()), e);
+			}
+			return article;
+		}
+
+		private void writeArticle(Future<WikiArticle> converted) throws SAXException {
+			try {
+				writeArticle(converted.get());
+			} catch (InterruptedException e) {
+				throw new SAXException(e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof Exception) {
+					throw new SAXException((Exception) e.getCause());
+				}
+				throw new IllegalStateException(e.getCause());
+			}
+		}
+
+		private void writeArticle(WikiArticle article) throws SAXException {
+			if (article.zipContent == null) {
+				return;
+			}
+			if (++counter % ARTICLES_BATCH == 0) {
+				log.info("Article accepted " + article.cid + " " + article.title);
+//				double GB = (1l << 30);
+//				log.info(String.format("Memory used : free %.2f GB of %.2f GB",
+//						Runtime.getRuntime().freeMemory() / GB, Runtime.getRuntime().totalMemory() / GB));
+			}
+			try {
+				insertPrep.setLong(1, article.wikiId);
+				insertPrep.setString(2, article.title);
+				insertPrep.setString(3, lang);
+				insertPrep.setString(4, article.shortDescr);
+				insertPrep.setString(5, article.redirect);
+				insertPrep.setBytes(6, article.zipContent);
+				addBatch();
+			} catch (SQLException e) {
+				throw new SAXException(e);
+			}
+		}
+
+		private static byte[] gzip(String plainStr) throws IOException, UnsupportedEncodingException {
+			ByteArrayOutputStream bous = new ByteArrayOutputStream(64000);
 			GZIPOutputStream gzout = new GZIPOutputStream(bous);
 			gzout.write((plainStr == null ? "" : plainStr).getBytes("UTF-8"));
 			gzout.close();
@@ -18,10 +18,12 @@ public class WikiImageUrlStorage {
 	public static final int WIDTH = 2;
 	public static final String LOCALIZED_WIKIPEDIA = "https://upload.wikimedia.org/wikipedia/";
 	public static final String LATEST_IMAGE_SQL_DUMP = "wiki-latest-image.sql.gz";
+	private final Connection conn;
 	private final PreparedStatement urlSelectStat;
 	private final PreparedStatement urlInsertStat;
 
 	public WikiImageUrlStorage(Connection conn, String workDir, String lang) throws SQLException {
+		this.conn = conn;
 		conn.createStatement().execute("DROP TABLE IF EXISTS image");
 		conn.createStatement().execute("CREATE TABLE IF NOT EXISTS image(name text unique, thumb_url text)");
 		urlSelectStat = conn.prepareStatement("SELECT thumb_url FROM image where name = ? ");
@@ -49,18 +51,21 @@ public class WikiImageUrlStorage {
 		}
 	}
 
+	// synchronized on connection: used by several article converters and connection is shared with the parser
 	public String getThumbUrl(String imageFileName) {
 		imageFileName = Algorithms.capitalizeFirstLetter(imageFileName.trim());
 		String url = "";
-		try {
-			urlSelectStat.setString(NAME, imageFileName);
-			ResultSet rs = urlSelectStat.executeQuery(); {
-				if (rs.next()) {
-					url = rs.getString(THUMB_URL_SELECT);
+		synchronized (conn) {
+			try {
+				urlSelectStat.setString(NAME, imageFileName);
+				try (ResultSet rs = urlSelectStat.executeQuery()) {
+					if (rs.next()) {
+						url = rs.getString(THUMB_URL_SELECT);
+					}
 				}
+			} catch (SQLException e) {
+				e.printStackTrace();
 			}
-		} catch (SQLException e) {
-			e.printStackTrace();
 		}
 		return url;
 	}
@@ -34,8 +34,6 @@ import org.apache.commons.logging.Log;
 import org.xmlpull.v1.XmlPullParserException;
 import org.xmlpull.v1.XmlSerializer;
 
-import rtree.RTree;
-
 public class WikipediaByCountryDivider {
 	private static final Log log = PlatformUtil.getLog(WikipediaByCountryDivider.class);
 	
@@ -353,9 +351,6 @@ public class WikipediaByCountryDivider {
 	}
 
 	private static void generateObf(File osmGz, File obf) throws IOException, SQLException, InterruptedException, XmlPullParserException {
-		// reduce memory footprint for single thread generation
-		// Remove it if it is called in multithread
-//		RTree.clearCache();
 		IndexCreatorSettings settings = new IndexCreatorSettings();
 		settings.indexMap = false;
 		settings.indexAddress = false;
@@ -53,6 +53,9 @@ public class GpxService {
     @Autowired
     WebGpxParser webGpxParser;
     
+    @Autowired
+    SrtmHeightService srtmHeightService;
+
     @Value("${osmand.srtm.location}")
     String srtmLocation;
 
@@ -192,13 +195,19 @@ public class GpxService {
             if (!srtmFolder.exists()) {
                 return null;
             }
-            IndexHeightData hd = new IndexHeightData();
-            hd.setSrtmData(srtmFolder.getAbsolutePath(), srtmFolder);
             for (Track tr : gpxFile.getTracks()) {
                 for (TrkSegment s : tr.getSegments()) {
-                    for (int i = 0; i < s.getPoints().size(); i++) {
-                        WptPt wpt = s.getPoints().get(i);
-                        double h = hd.getPointHeight(wpt.getLat(), wpt.getLon(), missingFile);
+                    List<WptPt> points = s.getPoints();
+                    double[] lats = new double[points.size()];
+                    double[] lons = new double[points.size()];
+                    for (int i = 0; i < points.size(); i++) {
+                        lats[i] = points.get(i).getLat();
+                        lons[i] = points.get(i).getLon();
+                    }
+                    double[] heights = srtmHeightService.getHeights(lats, lons, missingFile);
+                    for (int i = 0; i < points.size(); i++) {
+                        WptPt wpt = points.get(i);
+                        double h = heights[i];
                         if (h != IndexHeightData.INEXISTENT_HEIGHT) {
                             wpt.setEle(h);
                         } else if (i == 0) {
@@ -12,6 +12,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Value;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -35,6 +37,40 @@ public class IpLocationService {
 	private final ObjectMapper jsonMapper = new ObjectMapper();
 	private static final Log LOG = LogFactory.getLog(IpLocationService.class);
 
+	private static final int MAX_CACHED_IPS = 10000;
+	private static final long CHECK_DB_CHANGED_INTERVAL_MS = 60 * 1000L;
+
+	private volatile GeoIpDatabase dbV4;
+	private volatile GeoIpDatabase dbV6;
+
+	private final Map<String, Map<String, String>> cachedFields = new LinkedHashMap<>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Map<String, String>> eldest) {
+			return size() > MAX_CACHED_IPS;
+		}
+	};
+
+	private static class GeoIpDatabase {
+		final LookupService lookup;
+		final File file;
+		final long lastModified;
+		final long length;
+		volatile long lastCheck;
+
+		GeoIpDatabase(File file) throws IOException {
+			this.file = file;
+			this.lastModified = file.lastModified();
+			this.length = file.length();
+			this.lastCheck = System.currentTimeMillis();
+			// whole database is read into memory, so lookups don't touch the file
+			this.lookup = new LookupService(file, LookupService.GEOIP_MEMORY_CACHE);
+		}
+
+		boolean isChanged() {
+			return file.lastModified() != lastModified || file.length() != length;
+		}
+	}
+
 	public String getLocationAsJson(String ip) throws JsonProcessingException {
 		return jsonMapper.writeValueAsString(getAllFields(ip));
 	}
@@ -45,37 +81,98 @@ public class IpLocationService {
 	}
 
 	private Map<String, String> getAllFields(String ip) {
-		Map<String, String> fields = new LinkedHashMap<>();
-		if (!Algorithms.isEmpty(ip)) {
-			boolean ipv6 = ip.contains(":");
-			File db = new File(ipv6 ? GeoIPCityV6 : GeoIPCityV4);
-			try {
-				LookupService lookup = new LookupService(db);
-				Location location = ipv6 ? lookup.getLocationV6(ip) : lookup.getLocation(ip);
-				if (location == null) {
-					LOG.warn(String.format("geoiplookup null location for %s", ip));
-					return fields;
-				}
-				if (!Algorithms.isEmpty(location.countryCode)) {
-					fields.put(COUNTRY_CODE, location.countryCode);
-				}
-				if (!Algorithms.isEmpty(location.countryName)) {
-					fields.put(COUNTRY_NAME, location.countryName);
-				}
-				if (!Algorithms.isEmpty(location.city)) {
-					fields.put(CITY, location.city);
-				}
-				if (location.latitude != 0 || location.longitude != 0) {
-					fields.put(LAT, String.valueOf(location.latitude));
-					fields.put(LON, String.valueOf(location.longitude));
-					fields.put(LATITUDE, String.valueOf(location.latitude));
-					fields.put(LONGITUDE, String.valueOf(location.longitude));
+		if (Algorithms.isEmpty(ip)) {
+			return new LinkedHashMap<>();
+		}
+		boolean ipv6 = ip.contains(":");
+		GeoIpDatabase db;
+		try {
+			db = getDatabase(ipv6);
+		} catch (IOException e) {
+			LOG.warn(String.format("geoiplookup failed to open database for %s", ip));
+			LOG.info(e);
+			return new LinkedHashMap<>();
+		}
+		synchronized (cachedFields) {
+			Map<String, String> fields = cachedFields.get(ip);
+			if (fields != null) {
+				return fields;
+			}
+		}
+		Map<String, String> fields = lookupFields(db.lookup, ip, ipv6);
+		if (fields != null) {
+			synchronized (cachedFields) {
+				// don't cache results of the database which was replaced meanwhile
+				if (db == (ipv6 ? dbV6 : dbV4)) {
+					cachedFields.put(ip, fields);
 				}
-			} catch (Exception e) {
-				LOG.warn(String.format("geoiplookup failed for %s", ip));
-				LOG.info(e);
 			}
+			return fields;
+		}
+		return new LinkedHashMap<>();
+	}
+
+	private GeoIpDatabase getDatabase(boolean ipv6) throws IOException {
+		GeoIpDatabase db = ipv6 ? dbV6 : dbV4;
+		long now = System.currentTimeMillis();
+		if (db != null && now - db.lastCheck < CHECK_DB_CHANGED_INTERVAL_MS) {
+			return db;
+		}
+		synchronized (this) {
+			db = ipv6 ? dbV6 : dbV4;
+			if (db != null && now - db.lastCheck < CHECK_DB_CHANGED_INTERVAL_MS) {
+				return db;
+			}
+			if (db != null && !db.isChanged()) {
+				db.lastCheck = now;
+				return db;
+			}
+			GeoIpDatabase oldDb = db;
+			db = new GeoIpDatabase(new File(ipv6 ? GeoIPCityV6 : GeoIPCityV4));
+			if (ipv6) {
+				dbV6 = db;
+			} else {
+				dbV4 = db;
+			}
+			synchronized (cachedFields) {
+				cachedFields.clear();
+			}
+			if (oldDb != null) {
+				LOG.info(String.format("geoiplookup database %s reloaded", db.file.getName()));
+				oldDb.lookup.close();
+			}
+			return db;
+		}
+	}
+
+	private Map<String, String> lookupFields(LookupService lookup, String ip, boolean ipv6) {
+		Map<String, String> fields = new LinkedHashMap<>();
+		try {
+			Location location = ipv6 ? lookup.getLocationV6(ip) : lookup.getLocation(ip);
+			if (location == null) {
+				LOG.warn(String.format("geoiplookup null location for %s", ip));
+				return Collections.unmodifiableMap(fields);
+			}
+			if (!Algorithms.isEmpty(location.countryCode)) {
+				fields.put(COUNTRY_CODE, location.countryCode);
+			}
+			if (!Algorithms.isEmpty(location.countryName)) {
+				fields.put(COUNTRY_NAME, location.countryName);
+			}
+			if (!Algorithms.isEmpty(location.city)) {
+				fields.put(CITY, location.city);
+			}
+			if (location.latitude != 0 || location.longitude != 0) {
+				fields.put(LAT, String.valueOf(location.latitude));
+				fields.put(LON, String.valueOf(location.longitude));
+				fields.put(LATITUDE, String.valueOf(location.latitude));
+				fields.put(LONGITUDE, String.valueOf(location.longitude));
+			}
+		} catch (Exception e) {
+			LOG.warn(String.format("geoiplookup failed for %s", ip));
+			LOG.info(e);
+			return null;
 		}
-		return fields;
+		return Collections.unmodifiableMap(fields);
 	}
 }
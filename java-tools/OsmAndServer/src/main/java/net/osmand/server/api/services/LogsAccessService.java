@@ -1,21 +1,27 @@
 package net.osmand.server.api.services;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
-import java.io.RandomAccessFile;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -24,6 +30,11 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -32,7 +43,6 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StopWatch;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -50,6 +60,15 @@ public class LogsAccessService {
     protected static final Log LOGGER = LogFactory.getLog(LogsAccessService.class);
     private static final String APACHE_LOG_FORMAT = "%h %l %u %t \"%r\" %>s %O \"%{Referer}i\" \"%{User-Agent}i\"";
     private static final String DEFAULT_LOG_LOCATION = "/var/log/nginx/";
+    // logs are parsed in parallel by chunks of lines, rows are processed in order of file
+    private static final int CHUNK_SIZE = 4 << 20;
+    // binary search of time stops at this precision, reading starts this much earlier
+    // as time of lines is not strictly increasing
+    private static final long SEEK_PRECISION = 64 << 10;
+    private static final long SEEK_MARGIN = 1 << 20;
+    private static final int SEEK_LINE_SIZE = 64 << 10;
+    // line wasn't parsed as it doesn't match log filter
+    private static final LogEntry FILTERED = new LogEntry();
     
     Gson gson = new Gson();
     
@@ -64,8 +83,9 @@ public class LogsAccessService {
     }
     
     public static class LogParsingResult {
-    	StopWatch readTime = new StopWatch();
-		StopWatch parseTime = new StopWatch();
+		// time of waiting for parsed lines and total time of parsing by all threads
+		long readTime;
+		AtomicLong parseTime = new AtomicLong();
 		Date beginDate = null;
 		Date endDate = null;
 		long totalRows;
@@ -89,13 +109,27 @@ public class LogsAccessService {
 			r.out.write((LogEntry.toCSVHeader() + "\n").getBytes());
 			r.out.flush();
 		}
-		File logFile = new File(DEFAULT_LOG_LOCATION, "access.log.1");
-		if (logFile.exists()) {
-			readLogFile(logFile, startTime, endTime, parseRegion, limit, uriFilter, logFilter, presentation, r);
-		}
-		if (r.totalRows < limit || limit < 0) {
-			logFile = new File(DEFAULT_LOG_LOCATION, "access.log");
-			readLogFile(logFile, startTime, endTime, parseRegion, limit, uriFilter, logFilter, presentation, r);
+		int threads = Runtime.getRuntime().availableProcessors();
+		ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread t = new Thread(runnable, "LogParser");
+			t.setDaemon(true);
+			return t;
+		});
+		ThreadLocal<Parser<LogEntry>> parsers = ThreadLocal
+				.withInitial(() -> new HttpdLoglineParser<>(LogEntry.class, APACHE_LOG_FORMAT));
+		try {
+			File logFile = new File(DEFAULT_LOG_LOCATION, "access.log.1");
+			if (logFile.exists()) {
+				readLogFile(logFile, startTime, endTime, parseRegion, limit, uriFilter, logFilter, presentation, r,
+						executor, threads * 2, parsers);
+			}
+			if (r.totalRows < limit || limit < 0) {
+				logFile = new File(DEFAULT_LOG_LOCATION, "access.log");
+				readLogFile(logFile, startTime, endTime, parseRegion, limit, uriFilter, logFilter, presentation, r,
+						executor, threads * 2, parsers);
+			}
+		} finally {
+			executor.shutdownNow();
 		}
 		
 		
@@ -103,7 +137,7 @@ public class LogsAccessService {
 			out.write(String
 					.format("{\"errors\" : %d, \"rows\" : %d, \"parseTime\" : %d, \"readTime\" : %d, "
 							+ "\"begin\":\"%5$tF %5$tT\", \"end\":\"%6$tF %6$tT\", ", r.err, r.rows,
-							r.parseTime.getTotalTimeMillis(), r.readTime.getTotalTimeMillis(), r.beginDate, r.endDate).getBytes());
+							r.parseTime.get() / 1000000, r.readTime / 1000000, r.beginDate, r.endDate).getBytes());
 		}
 		if (presentation == LogsPresentation.BEHAVIOR) {
 			out.write("\n\"accounts\" : [".getBytes());
@@ -151,128 +185,203 @@ public class LogsAccessService {
 	}
 
 	private void readLogFile(File logFile, Date startTime, Date endTime, boolean parseRegion, long limit, String uriFilter,
-			String logFilter, LogsPresentation presentation, LogParsingResult r)
-			throws FileNotFoundException, IOException {
-		RandomAccessFile raf = new RandomAccessFile(logFile, "r");
-		BufferedReader bufferedReader = null;
-		Parser<LogEntry> parser = new HttpdLoglineParser<>(LogEntry.class, APACHE_LOG_FORMAT);
-		try {
-			Pattern aidPattern = Pattern.compile("aid=([a-z,0-9]*)");
-			LogEntry l = new LogEntry();
-			long currentLimit = raf.length();
-			boolean found = true;
-			if(startTime != null) {
-				found = seekStartTime(parser, startTime, raf);
+			String logFilter, LogsPresentation presentation, LogParsingResult r, ExecutorService executor,
+			int maxInProgress, ThreadLocal<Parser<LogEntry>> parsers) throws IOException {
+		try (FileChannel ch = FileChannel.open(logFile.toPath(), StandardOpenOption.READ)) {
+			long length = ch.size();
+			long from = 0;
+			long to = length;
+			if (startTime != null) {
+				from = seekTime(ch, 0, length, startTime.getTime());
 			}
-			
-			
-			bufferedReader = new BufferedReader(new FileReader(raf.getFD()));
-			while (found) {
-				r.readTime.start();
-				String ln = bufferedReader.readLine();
-				r.readTime.stop();
-				if (ln == null) {
-					break;
-				}
-				if (raf.getFilePointer() > currentLimit) {
-					break;
-				}
-				r.totalRows++;
-				if (r.totalRows >= limit && limit != -1) {
-					break;
-				}
-				if (logFilter != null && logFilter.length() > 0 && !ln.contains(logFilter)) {
-					// quick filter is not correct for behavior
-					continue;
-				}
-				l.clear();
-				try {
-					r.parseTime.start();
-					parser.parse(l, ln);
-					r.parseTime.stop();
-				} catch (Exception e) {
-					if (r.err++ % 100 == 0) {
-						if(presentation == LogsPresentation.PLAIN) {
-							r.out.write(String.format("Error parsing %d\n", r.err).getBytes());
+			if (endTime != null) {
+				to = seekTime(ch, from, length, endTime.getTime() + 1);
+				to = alignLine(ch, Math.min(length, to + 2 * SEEK_MARGIN), from, length);
+			}
+			Pattern aidPattern = Pattern.compile("aid=([a-z,0-9]*)");
+			Deque<Future<List<LogEntry>>> inProgress = new ArrayDeque<>();
+			long pos = from;
+			long rangeStart = from;
+			long rangeEnd = to;
+			try {
+				while (pos < to || !inProgress.isEmpty()) {
+					while (pos < to && inProgress.size() < maxInProgress) {
+						long start = pos;
+						long end = Math.min(to, pos + CHUNK_SIZE);
+						inProgress.add(executor.submit(
+								() -> parseChunk(ch, start, end, rangeStart, rangeEnd, logFilter, parsers.get(), r)));
+						pos = end;
+					}
+					long time = System.nanoTime();
+					List<LogEntry> entries = getParsedChunk(inProgress.poll());
+					r.readTime += System.nanoTime() - time;
+					for (LogEntry l : entries) {
+						if (!processLogEntry(l, startTime, endTime, parseRegion, limit, uriFilter, presentation, r,
+								aidPattern)) {
+							return;
 						}
 					}
-					continue;
-				}
-				if (startTime != null && startTime.getTime() > l.date.getTime()) {
-					// don't count row to limit
-					r.totalRows--;
-					continue;
-				}
-				if (endTime != null && endTime.getTime() < l.date.getTime()) {
-					break;
-				}
-				if (l.date == null) {
-					// don't count row to limit
-					r.totalRows--;
-					continue;
 				}
-				if (r.beginDate == null) {
-					r.beginDate = l.date;
+			} finally {
+				for (Future<List<LogEntry>> f : inProgress) {
+					f.cancel(false);
 				}
-				r.endDate = l.date;
-				
-				Matcher aidMatcher = aidPattern.matcher(l.uri);
-				String aid = aidMatcher.find() ? aidMatcher.group(1) : null ;
-				if (uriFilter != null && uriFilter.length() > 0) {
-					if (!l.uri.contains(uriFilter) && !r.behaviorMap.containsKey(l.ip) && !r.behaviorMap.containsKey(aid)) {
-						continue;
-					}
-				}
-				r.rows++;
-				UserAccount accountAid = presentation == LogsPresentation.BEHAVIOR ? retrieveUniqueAccount(aid, l,
-						r.behaviorMap) : null;
-				if(parseRegion) {
-					l.region = locationService.getField(l.ip, IpLocationService.COUNTRY_NAME);
-					if(accountAid != null) {
-						accountAid.regions.add(l.region);
-					}
+			}
+		}
+	}
+
+	private static List<LogEntry> getParsedChunk(Future<List<LogEntry>> chunk) throws IOException {
+		try {
+			return chunk.get();
+		} catch (InterruptedException e) {
+			throw new InterruptedIOException("Interrupted while parsing logs");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	/**
+	 * Parses lines starting within [start, end) of range [from, to), entry is null if line isn't parsed.
+	 */
+	private static List<LogEntry> parseChunk(FileChannel ch, long start, long end, long from, long to, String logFilter,
+			Parser<LogEntry> parser, LogParsingResult r) throws IOException {
+		long time = System.nanoTime();
+		long mapStart = start > from ? start - 1 : start;
+		MappedByteBuffer buf = ch.map(MapMode.READ_ONLY, mapStart, Math.min(to - mapStart, Integer.MAX_VALUE));
+		int p = 0;
+		if (start > from) {
+			// line started in previous chunk
+			while (p < buf.limit() && buf.get(p++) != '\n') {
+			}
+		}
+		List<LogEntry> entries = new ArrayList<>();
+		byte[] line = new byte[1024];
+		while (p < buf.limit() && mapStart + p < end) {
+			int len = 0;
+			byte b;
+			while (p < buf.limit() && (b = buf.get(p++)) != '\n') {
+				if (len == line.length) {
+					line = Arrays.copyOf(line, len * 2);
 				}
-				if(presentation == LogsPresentation.BEHAVIOR) {
-					if(l.status.startsWith("4")) {
-						continue;
-					}
-					accountAid.add(l);
-				} else if(presentation == LogsPresentation.STATS) {
-					if(l.status.startsWith("4")) {
-						continue;
-					}
-					String uri = l.uri;
-					int i = uri.indexOf('?');
-					if(i > 0) {
-						uri = uri.substring(0, i);
-					}
-					if(!uri.startsWith("/api") && !uri.startsWith("/subscription")) {
-						i = uri.indexOf('/', 1);
-						if(i > 0) {
-							uri = uri.substring(0, i);
-						}
-					}
-					Stat stat = r.stats.get(uri);
-					if(stat == null) {
-						stat = new Stat();
-						stat.uri = uri;
-						r.stats.put(uri, stat);
-					}
-					stat.add(aid, l);
-				} else {
-					r.out.write((l.toCSVString() + "\n").getBytes());
+				line[len++] = b;
+			}
+			if (len > 0 && line[len - 1] == '\r') {
+				len--;
+			}
+			String ln = new String(line, 0, len, StandardCharsets.UTF_8);
+			if (logFilter != null && logFilter.length() > 0 && !ln.contains(logFilter)) {
+				// quick filter is not correct for behavior
+				entries.add(FILTERED);
+				continue;
+			}
+			LogEntry l = new LogEntry();
+			l.clear();
+			try {
+				parser.parse(l, ln);
+				entries.add(l);
+			} catch (Exception e) {
+				entries.add(null);
+			}
+		}
+		r.parseTime.addAndGet(System.nanoTime() - time);
+		return entries;
+	}
+
+	// returns false if reading should be stopped
+	private boolean processLogEntry(LogEntry l, Date startTime, Date endTime, boolean parseRegion, long limit,
+			String uriFilter, LogsPresentation presentation, LogParsingResult r, Pattern aidPattern) throws IOException {
+		r.totalRows++;
+		if (r.totalRows >= limit && limit != -1) {
+			return false;
+		}
+		if (l == FILTERED) {
+			return true;
+		}
+		if (l == null) {
+			if (r.err++ % 100 == 0) {
+				if(presentation == LogsPresentation.PLAIN) {
+					r.out.write(String.format("Error parsing %d\n", r.err).getBytes());
 				}
-				
-				if(r.rows % 1000 == 0) {
-					r.out.flush();
+			}
+			return true;
+		}
+		if (startTime != null && startTime.getTime() > l.date.getTime()) {
+			// don't count row to limit
+			r.totalRows--;
+			return true;
+		}
+		if (endTime != null && endTime.getTime() < l.date.getTime()) {
+			return false;
+		}
+		if (l.date == null) {
+			// don't count row to limit
+			r.totalRows--;
+			return true;
+		}
+		if (r.beginDate == null) {
+			r.beginDate = l.date;
+		}
+		r.endDate = l.date;
+		
+		Matcher aidMatcher = aidPattern.matcher(l.uri);
+		String aid = aidMatcher.find() ? aidMatcher.group(1) : null ;
+		if (uriFilter != null && uriFilter.length() > 0) {
+			if (!l.uri.contains(uriFilter) && !r.behaviorMap.containsKey(l.ip) && !r.behaviorMap.containsKey(aid)) {
+				return true;
+			}
+		}
+		r.rows++;
+		UserAccount accountAid = presentation == LogsPresentation.BEHAVIOR ? retrieveUniqueAccount(aid, l,
+				r.behaviorMap) : null;
+		if(parseRegion) {
+			l.region = locationService.getField(l.ip, IpLocationService.COUNTRY_NAME);
+			if(accountAid != null) {
+				accountAid.regions.add(l.region);
+			}
+		}
+		if(presentation == LogsPresentation.BEHAVIOR) {
+			if(l.status.startsWith("4")) {
+				return true;
+			}
+			accountAid.add(l);
+		} else if(presentation == LogsPresentation.STATS) {
+			if(l.status.startsWith("4")) {
+				return true;
+			}
+			String uri = l.uri;
+			int i = uri.indexOf('?');
+			if(i > 0) {
+				uri = uri.substring(0, i);
+			}
+			if(!uri.startsWith("/api") && !uri.startsWith("/subscription")) {
+				i = uri.indexOf('/', 1);
+				if(i > 0) {
+					uri = uri.substring(0, i);
 				}
 			}
-		} finally {
-			if (bufferedReader != null) {
-				bufferedReader.close();
+			Stat stat = r.stats.get(uri);
+			if(stat == null) {
+				stat = new Stat();
+				stat.uri = uri;
+				r.stats.put(uri, stat);
 			}
-			raf.close();
+			stat.add(aid, l);
+		} else {
+			r.out.write((l.toCSVString() + "\n").getBytes());
+		}
+		
+		if(r.rows % 1000 == 0) {
+			r.out.flush();
 		}
+		return true;
 	}
 	
 	private UserAccount retrieveUniqueAccount(String aid, LogEntry l, Map<String, UserAccount> behaviorMap) {
@@ -304,37 +413,69 @@ public class LogsAccessService {
 		return accountAid;
 	}
 	
-	private boolean seekStartTime(Parser<LogEntry> parser, Date startTime, RandomAccessFile raf)
-			throws IOException {
-		long currentLimit = raf.length();
-		long pos = 0;
-		boolean found = false;
-		// seek position
-		long step = 1 << 24; // 16 MB
-		LogEntry lt = new LogEntry();
-
-		while(!found) {
-			if(currentLimit > pos + step) {
-				raf.seek(pos + step);
-				// skip incomplete line
-				raf.readLine();
-				try {
-					parser.parse(lt, raf.readLine());
-					if(startTime.getTime() < lt.date.getTime()) {
-						raf.seek(pos);
-						// skip incomplete line
-						raf.readLine();
-						found = true;
-						break;
-					}
-				} catch (Exception e) {
-				}
-				pos += step;
+	/**
+	 * Binary search of the first line with time >= time, returns start of line SEEK_MARGIN before it.
+	 */
+	private static long seekTime(FileChannel ch, long from, long to, long time) throws IOException {
+		SimpleDateFormat format = new SimpleDateFormat(TimeStampDissector.DEFAULT_APACHE_DATE_TIME_PATTERN);
+		long lo = from;
+		long hi = to;
+		while (hi - lo > SEEK_PRECISION) {
+			long mid = lo + (hi - lo) / 2;
+			long t = readLineTime(ch, mid, to, format);
+			if (t < time) {
+				lo = mid;
 			} else {
+				hi = mid;
+			}
+		}
+		return alignLine(ch, Math.max(from, lo - SEEK_MARGIN), from, to);
+	}
+
+	// time of the first line starting after pos, -1 if it is not parsed and Long.MAX_VALUE if there is no line
+	private static long readLineTime(FileChannel ch, long pos, long to, SimpleDateFormat format) throws IOException {
+		ByteBuffer buf = ByteBuffer.allocate((int) Math.min(SEEK_LINE_SIZE, to - pos));
+		while (buf.hasRemaining() && ch.read(buf, pos + buf.position()) > 0) {
+		}
+		String s = new String(buf.array(), 0, buf.position(), StandardCharsets.UTF_8);
+		int lineStart = s.indexOf('\n');
+		if (lineStart < 0) {
+			return Long.MAX_VALUE;
+		}
+		int st = s.indexOf('[', lineStart);
+		int en = st < 0 ? -1 : s.indexOf(']', st);
+		int lineEnd = s.indexOf('\n', lineStart + 1);
+		if (en < 0 || (lineEnd >= 0 && en > lineEnd)) {
+			return lineEnd < 0 ? Long.MAX_VALUE : -1;
+		}
+		try {
+			return format.parse(s.substring(st + 1, en)).getTime();
+		} catch (ParseException e) {
+			return -1;
+		}
+	}
+
+	// start of the first line starting at pos or after it
+	private static long alignLine(FileChannel ch, long pos, long from, long to) throws IOException {
+		if (pos <= from) {
+			return from;
+		}
+		ByteBuffer buf = ByteBuffer.allocate(SEEK_LINE_SIZE);
+		long p = pos - 1;
+		while (p < to) {
+			buf.clear();
+			int read = ch.read(buf, p);
+			if (read <= 0) {
 				break;
 			}
+			for (int i = 0; i < read; i++) {
+				if (buf.get(i) == '\n') {
+					return Math.min(to, p + i + 1);
+				}
+			}
+			p += read;
 		}
-		return found;
+		return to;
 	}
 	
 	
@@ -503,7 +644,9 @@ public class LogsAccessService {
 		private String status;
 		private String referrer;
 		private String region;
-		private static final SimpleDateFormat format = new SimpleDateFormat(TimeStampDissector.DEFAULT_APACHE_DATE_TIME_PATTERN);
+		// lines are parsed in several threads
+		private static final ThreadLocal<SimpleDateFormat> format = ThreadLocal
+				.withInitial(() -> new SimpleDateFormat(TimeStampDissector.DEFAULT_APACHE_DATE_TIME_PATTERN));
 		
 	    @Field("IP:connection.client.host")
 	    public void setIP(final String value) {
@@ -512,7 +655,7 @@ public class LogsAccessService {
 	    
 	    @Field("TIME.STAMP:request.receive.time")
 	    public void setTime(final String value) throws ParseException {
-			date = format.parse(value);
+			date = format.get().parse(value);
 	    }
 	    
 	    @Field("HTTP.URI:request.firstline.uri")
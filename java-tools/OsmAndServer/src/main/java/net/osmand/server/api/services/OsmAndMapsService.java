@@ -13,10 +13,12 @@ import java.nio.file.Files;
 import java.sql.SQLException;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -24,8 +26,15 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
@@ -58,6 +67,8 @@ import org.xmlpull.v1.XmlPullParserException;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 
+import gnu.trove.list.array.TLongArrayList;
+
 import net.osmand.IndexConstants;
 import net.osmand.LocationsHolder;
 import net.osmand.NativeJavaRendering;
@@ -75,6 +86,7 @@ import net.osmand.gpx.GPXUtilities.WptPt;
 import net.osmand.map.OsmandRegions;
 import net.osmand.map.WorldRegion;
 import net.osmand.obf.OsmGpxWriteContext;
+import net.osmand.obf.preparation.PackedRTree;
 import net.osmand.router.GeneralRouter;
 import net.osmand.router.GeneralRouter.RoutingParameter;
 import net.osmand.router.GeneralRouter.RoutingParameterType;
@@ -95,9 +107,11 @@ import net.osmand.router.RoutingConfiguration.RoutingMemoryLimits;
 import net.osmand.router.RoutingContext;
 import net.osmand.server.WebSecurityConfiguration;
 import net.osmand.server.api.repo.CloudUserDevicesRepository;
+import net.osmand.server.tileManager.SingleFlight;
 import net.osmand.server.tileManager.TileMemoryCache;
 import net.osmand.server.tileManager.TileServerConfig;
 import net.osmand.server.tileManager.VectorMetatile;
+import net.osmand.server.tileManager.VectorRendererPool;
 import net.osmand.server.utils.TimezoneMapper;
 import net.osmand.server.utils.WebGpxParser;
 import net.osmand.shared.gpx.GpxFile;
@@ -120,26 +134,18 @@ public class OsmAndMapsService {
 	private static final int MAX_SAME_FILE_OPEN = 15;
 	private static final long CACHE_MAX_ROUTING_CONTEXT_SEC = Integer.MAX_VALUE; //12 * 60 * 60; // 12h
 
-	private static final List<String> ALWAYS_IN_MEMORY = new ArrayList<String>();
-	static {
-		ALWAYS_IN_MEMORY.add("car:{}");
-		ALWAYS_IN_MEMORY.add("car:{}");
-//		ALWAYS_IN_MEMORY.add("car:{avoid_motorway=true, prefer_unpaved=true}"); // test
-//		ALWAYS_IN_MEMORY.add("car:{prefer_unpaved=true}"); // test
-		ALWAYS_IN_MEMORY.add("motorcycle:{}");
-		ALWAYS_IN_MEMORY.add("motorcycle:{}");
-//		ALWAYS_IN_MEMORY.add("motorcycle:{avoid_motorway=true, prefer_unpaved=true}"); // test
-//		ALWAYS_IN_MEMORY.add("motorcycle:{avoid_4wd_only=true, avoid_motorway=true, prefer_unpaved=true}"); // test
-//		ALWAYS_IN_MEMORY.add("motorcycle:{prefer_unpaved=true}"); // test
-
-		ALWAYS_IN_MEMORY.add("bicycle:{}");
-		ALWAYS_IN_MEMORY.add("bicycle:{}");
-		ALWAYS_IN_MEMORY.add("bicycle:{height_obstacles=true}");
-		ALWAYS_IN_MEMORY.add("pedestrian:{}");
-		ALWAYS_IN_MEMORY.add("pedestrian:{}");
-	}
-
-
+	// contexts of global routing file are reused for profile and params (other params have to be requested
+	// MIN_REQUESTS_TO_CACHE times between clean ups), pool of each key grows up to MAX_ROUTING_CACHES_PER_KEY
+	private static final String DEFAULT_ROUTE_PARAMS = "{}";
+	private static final int MIN_REQUESTS_TO_CACHE = 3;
+	private static final int MAX_ROUTING_CACHES_PER_KEY = 4;
+	// pools of not default params which could have contexts at the same time
+	private static final int MAX_NON_DEFAULT_ROUTING_POOLS = 4;
+	// memory reserved for a routing context
+	private static final long ROUTING_CACHE_MEMORY = (long) MEM_LIMIT << 20;
+	// default budget: number of contexts kept in memory before pools (and at most part of heap)
+	private static final int DEFAULT_ROUTING_CACHES = 11;
+	private static final int DEFAULT_ROUTING_CACHE_HEAP_PERCENT = 50;
 
 	private static final long MAX_PROFILE_WAIT_MS = 6000;
 
@@ -150,6 +156,10 @@ public class OsmAndMapsService {
 
 
 	private final Map<String, BinaryMapIndexReaderReference> obfFiles = new LinkedHashMap<>();
+	// readers returned by getReaders to return them to their pools
+	private final Map<BinaryMapIndexReader, BinaryMapIndexReaderReference> lockedReaders = new ConcurrentHashMap<>();
+	// index of region bounds of obfFiles, null when it should be rebuilt
+	private volatile ObfFilesIndex obfFilesIndex;
 
 	public enum ObfReason {
 		SEARCH("search"),
@@ -171,10 +181,23 @@ public class OsmAndMapsService {
 
 	CachedOsmandIndexes cacheFiles = null;
 
+	// all global routing contexts, pools are guarded by routingCaches monitor
 	final List<RoutingCacheContext> routingCaches = new ArrayList<>();
+	private final Map<String, RoutingCachePool> routingCachePools = new HashMap<>();
+	private int routingCachesReserved;
+	private ExecutorService routingCacheWarmup;
+	private final Object routeObfIndexLock = new Object();
+
+	private volatile RequestLimiter approximationLimiter;
+	private volatile RequestLimiter nativeApproximationLimiter;
 
 	NativeJavaRendering nativelib;
 
+	VectorRendererPool rendererPool;
+
+	// mapbox vector tiles generation by tile id, shared by tile requests and prerendering
+	private final SingleFlight<byte[]> mapboxVectorTileFlight = new SingleFlight<>("Vector tile generation");
+
 	File tempDir;
 
 	@Autowired
@@ -268,84 +291,134 @@ public class OsmAndMapsService {
 		HHRoutingContext<NetworkDBPoint> hCtx;
 		long locked;
 		long created;
+		long lastUsed;
 		int used;
 		HHRoutingConfig hhConfig;
 
 		@Override
 		public String toString() {
 			return (locked == 0 ? '\u25FB' : '\u25FC')
-					+ (ALWAYS_IN_MEMORY.contains(profile + ":" + routeParamsStr) ? "*" : "")
 					+ String.format("%s %s %s %d, %s min", profile, hCtx == null ? "-" : hCtx.hashCode() + "",
 							routeParamsStr, used, (System.currentTimeMillis() - created) / 60 / 1000);
 		}
 
-		public double importance() {
-			double minutesAlive = (System.currentTimeMillis() - created) / 1000.0 / 60.0;
-			return (used + 1) / minutesAlive;
+		String getKey() {
+			return profile + ":" + routeParamsStr;
+		}
+	}
+
+	/**
+	 * Routing contexts of the same profile and params: idle contexts are handed out (the last used first),
+	 * size follows the max number of contexts used and awaited at the same time between clean ups.
+	 */
+	private static class RoutingCachePool {
+		final String key;
+		final Deque<RoutingCacheContext> idle = new ArrayDeque<>();
+		// created contexts and contexts being created
+		int size;
+		int locked;
+		int waiting;
+		int targetSize = 1;
+		int maxDemand;
+		int requests;
+		int timeouts;
+
+		RoutingCachePool(String key) {
+			this.key = key;
+		}
+
+		void updateDemand() {
+			maxDemand = Math.max(maxDemand, locked + waiting);
 		}
 
+		@Override
+		public String toString() {
+			return String.format("%s: %d (%d idle, target %d), timeouts %d", key, size, idle.size(), targetSize, timeouts);
+		}
 	}
 
+	/**
+	 * Pool of readers of obf file: at most MAX_SAME_FILE_OPEN readers are used at the same time,
+	 * threads wait for a free reader in order of requests, idle readers are reused (the last returned first).
+	 */
 	public class BinaryMapIndexReaderReference {
 		File file;
-		private static final int WAIT_LOCK_CHECK = 10;
-		ConcurrentHashMap<BinaryMapIndexReader, Boolean> readers = new ConcurrentHashMap<>();
+		private final Semaphore permits = new Semaphore(MAX_SAME_FILE_OPEN, true);
+		private final Deque<BinaryMapIndexReader> idleReaders = new ConcurrentLinkedDeque<>();
+		// all open readers (idle and locked)
+		final Set<BinaryMapIndexReader> readers = ConcurrentHashMap.newKeySet();
 		public FileIndex fileIndex;
-
-		private synchronized void closeUnusedReaders() {
-			readers.forEach((reader, open) -> {
-				if (Boolean.TRUE.equals(open)) {
-					try {
-						reader.close();
-						readers.remove(reader);
-					} catch (IOException e) {
-						LOGGER.error(e.getMessage(), e);
-					}
+		private final AtomicLong waits = new AtomicLong();
+		private final AtomicLong waitTimeMs = new AtomicLong();
+		private final AtomicLong maxWaitTimeMs = new AtomicLong();
+		private final AtomicLong failed = new AtomicLong();
+
+		private void closeUnusedReaders() {
+			BinaryMapIndexReader reader;
+			while ((reader = idleReaders.pollLast()) != null) {
+				readers.remove(reader);
+				try {
+					reader.close();
+				} catch (IOException e) {
+					LOGGER.error(e.getMessage(), e);
 				}
-			});
+			}
 		}
 
-		private synchronized BinaryMapIndexReader lockReader() {
-			for (Entry<BinaryMapIndexReader, Boolean> r : readers.entrySet()) {
-				if (Boolean.TRUE.equals(r.getValue())) {
-					r.setValue(false);
-					return r.getKey();
-				}
+		private void closeAllReaders() throws IOException {
+			idleReaders.clear();
+			for (BinaryMapIndexReader reader : readers) {
+				reader.close();
 			}
-			return null;
+			readers.clear();
+		}
+
+		private void addReader(BinaryMapIndexReader reader) {
+			readers.add(reader);
+			idleReaders.push(reader);
 		}
 
 		public void unlockReader(BinaryMapIndexReader reader) {
-			if (reader != null && !readers.isEmpty()) {
-				readers.computeIfPresent(reader, (key, value) -> true);
+			// reader could be closed while it was used (file is updated)
+			if (readers.contains(reader)) {
+				idleReaders.push(reader);
 			}
+			permits.release();
 		}
 
 		public BinaryMapIndexReader getReader(CachedOsmandIndexes cacheFiles, int maxWaitMs) throws IOException, InterruptedException {
-			BinaryMapIndexReader resReader = lockReader();
-			if (resReader != null) {
-				return resReader;
-			}
-			if (readers.size() < MAX_SAME_FILE_OPEN) {
-				if (cacheFiles == null) {
-					initObfReaders();
-				}
-				BinaryMapIndexReader newReader = createReader();
-				if (newReader != null) {
-					readers.put(newReader, true);
+			if (!permits.tryAcquire()) {
+				long start = System.currentTimeMillis();
+				boolean acquired = permits.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+				long waited = System.currentTimeMillis() - start;
+				waits.incrementAndGet();
+				waitTimeMs.addAndGet(waited);
+				maxWaitTimeMs.accumulateAndGet(waited, Math::max);
+				if (!acquired) {
+					failed.incrementAndGet();
+					LOGGER.info("Failed to get a reader for the file " + file.getName());
+					return null;
 				}
 			}
-			int ms = 0;
-			while (ms < maxWaitMs) {
-				Thread.sleep(WAIT_LOCK_CHECK);
-				ms += WAIT_LOCK_CHECK;
-				resReader = lockReader();
-				if (resReader != null) {
-					return resReader;
+			BinaryMapIndexReader reader = idleReaders.poll();
+			if (reader == null) {
+				try {
+					if (cacheFiles == null) {
+						initObfReaders();
+					}
+					reader = createReader();
+				} finally {
+					if (reader == null) {
+						permits.release();
+					}
+				}
+				if (reader == null) {
+					return null;
 				}
+				readers.add(reader);
 			}
-			LOGGER.info("Failed to get a reader for the file " + file.getName());
-			return null;
+			lockedReaders.put(reader, this);
+			return reader;
 		}
 
 		private BinaryMapIndexReader createReader() throws IOException {
@@ -359,13 +432,7 @@ public class OsmAndMapsService {
 		}
 
 		public int getOpenFiles() {
-			int cnt = 0;
-			for (Boolean b : readers.values()) {
-				if (Boolean.TRUE.equals(b)) {
-					cnt++;
-				}
-			}
-			return cnt;
+			return readers.size();
 		}
 
 		public File getFile() {
@@ -394,6 +461,8 @@ public class OsmAndMapsService {
 			if (reader != null) {
 				if (!useGeocoding || (reader.containsAddressData() && reader.containsRouteData())) {
 					res.add(reader);
+				} else {
+					unlockReaders(Collections.singletonList(reader));
 				}
 			} else if (incompleteFlag != null) {
 				incompleteFlag[0] = true;
@@ -403,18 +472,32 @@ public class OsmAndMapsService {
 	}
 
 	public void unlockReaders(List<BinaryMapIndexReader> mapsReaders) {
-		synchronized (obfFiles) {
-			obfFiles.values().forEach(ref -> mapsReaders.forEach(ref::unlockReader));
+		for (BinaryMapIndexReader reader : mapsReaders) {
+			BinaryMapIndexReaderReference ref = lockedReaders.remove(reader);
+			if (ref != null) {
+				ref.unlockReader(reader);
+			}
 		}
 	}
 
 	@Scheduled(fixedRate = INTERVAL_TO_MONITOR_ZIP)
 	public void closeMapReaders() {
-		obfFiles.forEach((name, ref) -> {
+		long waits = 0, waitTimeMs = 0, maxWaitTimeMs = 0, failed = 0;
+		int open = 0;
+		for (BinaryMapIndexReaderReference ref : obfFiles.values()) {
 			if (!ref.readers.isEmpty()) {
 				ref.closeUnusedReaders();
 			}
-		});
+			open += ref.getOpenFiles();
+			waits += ref.waits.getAndSet(0);
+			waitTimeMs += ref.waitTimeMs.getAndSet(0);
+			maxWaitTimeMs = Math.max(maxWaitTimeMs, ref.maxWaitTimeMs.getAndSet(0));
+			failed += ref.failed.getAndSet(0);
+		}
+		if (waits > 0) {
+			LOGGER.info(String.format("Obf readers: %d in use, waited for a reader %d times (avg %d ms, max %d ms), failed %d",
+					open, waits, waitTimeMs / waits, maxWaitTimeMs, failed));
+		}
 	}
 
 	@Scheduled(fixedRate = INTERVAL_TO_CLEANUP_ROUTING_CACHE)
@@ -424,13 +507,6 @@ public class OsmAndMapsService {
 		long usedBeforeCleanup = rt.totalMemory() - rt.freeMemory();
 
 		synchronized (routingCaches) {
-			Collections.sort(routingCaches, new Comparator<RoutingCacheContext>() {
-
-				@Override
-				public int compare(RoutingCacheContext o1, RoutingCacheContext o2) {
-					return Double.compare(o1.importance(), o2.importance());
-				}
-			});
 			System.out.println("Clean fast global routing contexts " + routingCaches);
 			for (RoutingCacheContext survivor : routingCaches) {
 				if (survivor.locked == 0) {
@@ -441,37 +517,44 @@ public class OsmAndMapsService {
 //					survivor.rCtx.unloadUnusedTiles(survivor.rCtx.config.memoryLimitation);
 				}
 			}
+			// shrink pools to demand since last clean up
+			Iterator<RoutingCachePool> pools = routingCachePools.values().iterator();
+			while (pools.hasNext()) {
+				RoutingCachePool pool = pools.next();
+				pool.targetSize = Math.max(1, pool.maxDemand);
+				while (pool.size > pool.targetSize && !pool.idle.isEmpty()) {
+					removed.add(removeRoutingCache(pool, pool.idle.pollLast()));
+				}
+				long now = System.currentTimeMillis();
+				for (RoutingCacheContext check : new ArrayList<>(pool.idle)) {
+					if ((now - check.created) / 1000L >= CACHE_MAX_ROUTING_CONTEXT_SEC) {
+						pool.idle.remove(check);
+						removed.add(removeRoutingCache(pool, check));
+					}
+				}
+				pool.maxDemand = pool.locked + pool.waiting;
+				pool.requests = 0;
+				if (pool.size == 0 && pool.waiting == 0) {
+					pools.remove();
+				}
+			}
 			System.gc();
-			long brpReservedBytes = routingCaches.isEmpty() || routingCaches.get(0).rCtx == null ? 0
-					: routingCaches.size() * routingCaches.get(0).rCtx.config.memoryLimitation;
+			long brpReservedBytes = routingCachesReserved * ROUTING_CACHE_MEMORY;
 			long futureFreeMemory = rt.maxMemory() - rt.totalMemory() + rt.freeMemory();
-			boolean criticalMemory = futureFreeMemory < brpReservedBytes;
-			if (criticalMemory) {
+			if (futureFreeMemory < brpReservedBytes) {
 				System.out.printf("Trigger brpReservedBytes (future free %d MB, need %d MB)\n", futureFreeMemory >> 20, brpReservedBytes >> 20);
-			}
-			Iterator<RoutingCacheContext> it = routingCaches.iterator();
-			while (it.hasNext()) {
-				RoutingCacheContext check = it.next();
-				if (check.locked == 0 && (criticalMemory
-						|| (System.currentTimeMillis() - check.created) / 1000L >= CACHE_MAX_ROUTING_CONTEXT_SEC)) {
-					removed.add(check); // lower importance() means higher removal priority
-					System.out.printf("Delete %s global routing context from cache\n", check);
-					it.remove();
-					if (criticalMemory) {
-						criticalMemory = false;
-					}
+				RoutingCacheContext lru = evictRoutingCache();
+				if (lru != null) {
+					removed.add(lru);
 				}
 			}
+			routingCaches.notifyAll();
 		}
 
 		if (removed.size() > 0) {
 			for (RoutingCacheContext r : removed) {
-				BinaryMapIndexReader reader = r.rCtx.map.keySet().iterator().next();
-				try {
-					reader.close();
-				} catch (IOException e) {
-					e.printStackTrace();
-				}
+				System.out.printf("Delete %s global routing context from cache\n", r);
+				closeRoutingCache(r);
 			}
 			System.out.printf("Clean up %d global routing contexts, state - %s\n", removed.size(), routingCaches);
 			System.gc();
@@ -482,6 +565,10 @@ public class OsmAndMapsService {
 		long bytesReleased = usedBeforeCleanup - (totalMemory - freeMemory);
 		System.out.printf("Cache-GC: [%d] released %d MB (max %d MB, total %d MB, free %d MB)\n",
 				routingCaches.size(), bytesReleased >> 20, maxMemory >> 20, totalMemory >> 20, freeMemory >> 20);
+		synchronized (routingCaches) {
+			LOGGER.info("Routing context pools: " + routingCachePools.values());
+		}
+		LOGGER.info(getApproximationStats());
 	}
 
 
@@ -508,6 +595,15 @@ public class OsmAndMapsService {
 		@Value("${osmand.routing.hh-only-limit}") // --osmand.routing.hh-only-limit= or $HH_ONLY_LIMIT=
 		public int hhOnlyLimit; // See application.yml, set 100 for production, or 1000 for testing server (km)
 
+		@Value("${osmand.routing.approximation-threads:0}")
+		public int approximationThreads; // parallel java approximations, 0 - number of cores
+
+		@Value("${osmand.routing.native-approximation-threads:1}")
+		public int nativeApproximationThreads; // parallel native approximations
+
+		@Value("${osmand.routing.cache-memory-mb:0}")
+		public long cacheMemoryMb; // memory for global routing contexts, 0 - 11 contexts but at most half of heap
+
 		public Map<String, RoutingServerConfigEntry> config = new TreeMap<>(new ProfileComparator());
 
 		private class ProfileComparator implements Comparator<String> {
@@ -643,6 +739,9 @@ public class OsmAndMapsService {
 			}
 			String nativeLibraryPath = System.getenv("NATIVE_LIBRARY_PATH"); // use native library from file, optional
 			nativelib = NativeJavaRendering.getDefault(nativeLibraryPath, tileConfig.obfLocation, fontsFolder.getAbsolutePath());
+			if (nativelib != null) {
+				rendererPool = new VectorRendererPool(nativelib, tileConfig, tileConfig.getRenderThreads());
+			}
 		}
 		return tileConfig.initErrorMessage == null;
 	}
@@ -655,7 +754,27 @@ public class OsmAndMapsService {
 	}
 
 	public ResponseEntity<String> renderMetaTile(VectorMetatile tile, TileMemoryCache<VectorMetatile> tileMemoryCache) throws XmlPullParserException, IOException, SAXException {
-		return tile.renderMetaTile(nativelib, tileMemoryCache);
+		if (rendererPool == null) {
+			return null;
+		}
+		return rendererPool.renderMetaTile(tile, tileMemoryCache);
+	}
+
+	/**
+	 * Renderers which could be used for background work without delaying tile requests,
+	 * -1 if renderers are not initialized
+	 */
+	public int getSpareRenderers() {
+		if (rendererPool == null) {
+			return -1;
+		}
+		// with several renderers one is always left for tile requests
+		int reserve = rendererPool.getSize() > 1 ? 1 : 0;
+		return Math.max(0, rendererPool.getIdleRenderers() - reserve);
+	}
+
+	public String getRendererPoolStats() {
+		return rendererPool == null ? "renderer pool is not initialized" : rendererPool.getStats();
 	}
 
 	public BufferedImage renderGeotiffTile(String tilePath, String outColorFilename, String midColorFilename,
@@ -667,6 +786,10 @@ public class OsmAndMapsService {
 		return image;
 	}
 
+	public SingleFlight<byte[]> getMapboxVectorTileFlight() {
+		return mapboxVectorTileFlight;
+	}
+
 	public byte[] renderMapboxVectorTile(int zoom, int x, int y) throws IOException {
 		byte[] tile = null;
 		if (nativelib != null) {
@@ -753,16 +876,69 @@ public class OsmAndMapsService {
 		return approximateInternal(ctx, router, props, waypoints, useExternalTimestamps);
 	}
 
-	private synchronized List<RouteSegmentResult> approximateSyncNative(RoutingContext ctx, RoutePlannerFrontEnd router,
-	                                                                    Map<String, Object> props, List<WptPt> waypoints,
-	                                                                    boolean useExternalTimestamps)
+	private List<RouteSegmentResult> approximateSyncNative(RoutingContext ctx, RoutePlannerFrontEnd router,
+	                                                       Map<String, Object> props, List<WptPt> waypoints,
+	                                                       boolean useExternalTimestamps)
 			throws IOException, InterruptedException {
-		return approximateInternal(ctx, router, props, waypoints, useExternalTimestamps);
+		RequestLimiter limiter = getNativeApproximationLimiter();
+		limiter.acquire();
+		try {
+			return runApproximation(ctx, router, props, waypoints, useExternalTimestamps);
+		} finally {
+			limiter.release();
+		}
 	}
 
-	private synchronized List<RouteSegmentResult> approximateInternal(RoutingContext ctx, RoutePlannerFrontEnd router,
-	                                                                  Map<String, Object> props, List<WptPt> waypoints,
-	                                                                  boolean useExternalTimestamps)
+	private List<RouteSegmentResult> approximateInternal(RoutingContext ctx, RoutePlannerFrontEnd router,
+	                                                     Map<String, Object> props, List<WptPt> waypoints,
+	                                                     boolean useExternalTimestamps)
+			throws IOException, InterruptedException {
+		// every request has its own RoutingContext, so only the number of parallel requests is limited
+		RequestLimiter limiter = getApproximationLimiter();
+		limiter.acquire();
+		try {
+			return runApproximation(ctx, router, props, waypoints, useExternalTimestamps);
+		} finally {
+			limiter.release();
+		}
+	}
+
+	private RequestLimiter getApproximationLimiter() {
+		RequestLimiter limiter = approximationLimiter;
+		if (limiter == null) {
+			synchronized (routingCaches) {
+				if (approximationLimiter == null) {
+					int threads = routingConfig.approximationThreads > 0 ? routingConfig.approximationThreads
+							: Runtime.getRuntime().availableProcessors();
+					approximationLimiter = new RequestLimiter("Approximation", threads);
+				}
+				limiter = approximationLimiter;
+			}
+		}
+		return limiter;
+	}
+
+	private RequestLimiter getNativeApproximationLimiter() {
+		RequestLimiter limiter = nativeApproximationLimiter;
+		if (limiter == null) {
+			synchronized (routingCaches) {
+				if (nativeApproximationLimiter == null) {
+					nativeApproximationLimiter = new RequestLimiter("Native approximation",
+							routingConfig.nativeApproximationThreads);
+				}
+				limiter = nativeApproximationLimiter;
+			}
+		}
+		return limiter;
+	}
+
+	public String getApproximationStats() {
+		return getApproximationLimiter() + "; " + getNativeApproximationLimiter();
+	}
+
+	private List<RouteSegmentResult> runApproximation(RoutingContext ctx, RoutePlannerFrontEnd router,
+	                                                  Map<String, Object> props, List<WptPt> waypoints,
+	                                                  boolean useExternalTimestamps)
 			throws IOException, InterruptedException {
 		GpxRouteApproximation gctx = new GpxRouteApproximation(ctx);
 		List<GpxPoint> gpxPoints = router.generateGpxPoints(gctx, new LocationsHolder(waypoints));
@@ -1105,95 +1281,231 @@ public class OsmAndMapsService {
 		String rParamsStr = getCleanRouteParams(rp, rProfile);
 		String rProfileKey = rProfile + ":" + rParamsStr;
 		di.routeParametersStr = rParamsStr;
-		List<String> sameInMemoryProfiles = new ArrayList<>(ALWAYS_IN_MEMORY); // don't reuse
-		if (!sameInMemoryProfiles.contains(rProfileKey)) {
-			di.waitTime = System.currentTimeMillis() - waitTime;
-			LOGGER.info(String.format("Global routing cache %s is not available (using separate files)", rProfileKey));
-			return null;
-		}
-		// Wait for availability
-		while ((System.currentTimeMillis() - waitTime) < MAX_PROFILE_WAIT_MS) {
-			RoutingCacheContext best = null;
-			sameInMemoryProfiles = new ArrayList<>(ALWAYS_IN_MEMORY); // don't reuse
-			synchronized (routingCaches) {
-				di.routingCacheInfo = routingCaches.toString();
-				for (RoutingCacheContext c : routingCaches) {
-					if (rProfile.equals(c.profile) && c.routeParamsStr.equals(rParamsStr)) {
-						sameInMemoryProfiles.remove(rProfileKey);
-						if (c.locked == 0) {
-							best = c;
-						}
+		RoutingCachePool pool;
+		RoutingCacheContext best = null;
+		List<RoutingCacheContext> evicted = new ArrayList<>();
+		synchronized (routingCaches) {
+			di.routingCacheInfo = routingCaches.toString();
+			pool = routingCachePools.computeIfAbsent(rProfileKey, RoutingCachePool::new);
+			pool.requests++;
+			if (pool.size == 0 && !DEFAULT_ROUTE_PARAMS.equals(rParamsStr) && pool.requests < MIN_REQUESTS_TO_CACHE) {
+				di.waitTime = System.currentTimeMillis() - waitTime;
+				LOGGER.info(String.format("Global routing cache %s is not available (using separate files)", rProfileKey));
+				return null;
+			}
+			// Wait for availability
+			boolean reserved = false;
+			pool.waiting++;
+			try {
+				while ((best = pool.idle.pollFirst()) == null) {
+					if (reserveRoutingCache(pool, true, evicted)) {
+						reserved = true;
+						break;
 					}
+					long wait = waitTime + MAX_PROFILE_WAIT_MS - System.currentTimeMillis();
+					if (wait <= 0) {
+						break;
+					}
+					pool.updateDemand();
+					routingCaches.wait(wait);
 				}
-				if (best != null) {
-					best.used++;
-					best.locked = System.currentTimeMillis();
-					router.setHHRoutingConfig(best.hhConfig);
-				}
+			} finally {
+				pool.waiting--;
+			}
+			if (best == null && !reserved) {
+				pool.timeouts++;
+				di.waitTime = System.currentTimeMillis() - waitTime;
+				LOGGER.info(String.format("Global routing cache %s limits exceeded (using separate files)", rProfileKey));
+				return null;
 			}
+			pool.locked++;
+			pool.updateDemand();
 			if (best != null) {
-				best.rCtx.unloadAllData();
-				if (!best.routeParamsStr.equals(rParamsStr)) {
-					// this is not used any more cause we always match exactly route params
-					best.routeParamsStr = rParamsStr;
-					GeneralRouter oldRouter = best.rCtx.config.router;
-					oldRouter.clearCaches();
-					GeneralRouter newRouter = new GeneralRouter(oldRouter, rp.routeParams);
-					best.rCtx.setRouter(newRouter);
-					newRouter.clearCaches();
-					if (best.hCtx != null) {
-						best.hCtx.clearSegments(); // segments could be affected by params recalculation
-					}
-				}
-				if (rp.disableHHRouting) {
-					router.disableHHRoutingConfig();
-				} else {
-					router.setHHRouteCpp(rp.useNativeRouting);
-					router.setUseOnlyHHRouting(rp.useOnlyHHRouting);
-					router.setHHRoutingConfig(best.hhConfig); // after prepare
+				best.used++;
+				best.locked = System.currentTimeMillis();
+				router.setHHRoutingConfig(best.hhConfig);
+			}
+			warmUpRoutingCache(pool, rp, evicted);
+		}
+		for (RoutingCacheContext r : evicted) {
+			LOGGER.info(String.format("Delete %s global routing context from cache (memory limit)", r));
+			closeRoutingCache(r);
+		}
+		if (best != null) {
+			best.rCtx.unloadAllData();
+			if (!best.routeParamsStr.equals(rParamsStr)) {
+				// this is not used any more cause we always match exactly route params
+				best.routeParamsStr = rParamsStr;
+				GeneralRouter oldRouter = best.rCtx.config.router;
+				oldRouter.clearCaches();
+				GeneralRouter newRouter = new GeneralRouter(oldRouter, rp.routeParams);
+				best.rCtx.setRouter(newRouter);
+				newRouter.clearCaches();
+				if (best.hCtx != null) {
+					best.hCtx.clearSegments(); // segments could be affected by params recalculation
 				}
-				di.selectedCache = best.hCtx != null ? best.hCtx.hashCode() + "" : "RENEW";
-				di.waitTime = System.currentTimeMillis() - waitTime;
-				return best;
 			}
-			if (sameInMemoryProfiles.contains(rProfileKey)) {
-				// immediately start 2nd copy of cache as it's supposed
-				break;
+			if (rp.disableHHRouting) {
+				router.disableHHRoutingConfig();
+			} else {
+				router.setHHRouteCpp(rp.useNativeRouting);
+				router.setUseOnlyHHRouting(rp.useOnlyHHRouting);
+				router.setHHRoutingConfig(best.hhConfig); // after prepare
 			}
-			Thread.sleep(1000);
-		}
-		if (!sameInMemoryProfiles.contains(rProfileKey)) {
+			di.selectedCache = best.hCtx != null ? best.hCtx.hashCode() + "" : "RENEW";
 			di.waitTime = System.currentTimeMillis() - waitTime;
-			LOGGER.info(String.format("Global routing cache %s limits exceeded (using separate files)", rProfileKey));
-			return null;
+			return best;
 		}
 		// Create new global cache
-		RoutingCacheContext cs = new RoutingCacheContext();
-		cs.locked = System.currentTimeMillis();
-		cs.created = System.currentTimeMillis();
-		cs.hhConfig = RoutePlannerFrontEnd.defaultHHConfig().cacheContext(cs.hCtx);
-		cs.routeParamsStr = rParamsStr;
-		cs.profile = rProfile;
-		synchronized (routingCaches) {
-			routingCaches.add(cs);
-		}
-		// do outside synchronized to not block
-		File target = new File(routeObfLocation);
-		File targetIndex = new File(routeObfLocation + ".index");
-		CachedOsmandIndexes cache = new CachedOsmandIndexes();
-		if (targetIndex.exists()) {
-			cache.readFromFile(targetIndex);
-		}
-		BinaryMapIndexReader reader = cache.getReader(target, true);
-		cache.writeToFile(targetIndex);
-		cs.rCtx = prepareRouterContext(rp, router, Collections.singletonList(reader), false);
-		router.setHHRoutingConfig(cs.hhConfig); // after prepare
+		RoutingCacheContext cs = createRoutingCache(pool, rp, router, true);
 		LOGGER.info(String.format("Use new routing context for %s profile (%s params)", rProfile, rParamsStr));
 		di.waitTime = System.currentTimeMillis() - waitTime;
 		di.selectedCache = "NEW";
 		return cs;
 	}
 
+	/**
+	 * Reserves memory for a new context of pool, least recently used idle contexts are evicted
+	 * if evict is set, otherwise only free memory is used.
+	 */
+	private boolean reserveRoutingCache(RoutingCachePool pool, boolean evict, List<RoutingCacheContext> evicted) {
+		if (pool.size >= MAX_ROUTING_CACHES_PER_KEY) {
+			return false;
+		}
+		if (pool.size == 0 && !pool.key.endsWith(":" + DEFAULT_ROUTE_PARAMS)) {
+			int nonDefaultPools = 0;
+			for (RoutingCachePool p : routingCachePools.values()) {
+				if (p.size > 0 && !p.key.endsWith(":" + DEFAULT_ROUTE_PARAMS)) {
+					nonDefaultPools++;
+				}
+			}
+			if (nonDefaultPools >= MAX_NON_DEFAULT_ROUTING_POOLS) {
+				return false;
+			}
+		}
+		long budget = routingConfig.cacheMemoryMb > 0 ? routingConfig.cacheMemoryMb << 20
+				: Math.min(DEFAULT_ROUTING_CACHES * ROUTING_CACHE_MEMORY,
+						Runtime.getRuntime().maxMemory() / 100 * DEFAULT_ROUTING_CACHE_HEAP_PERCENT);
+		while ((routingCachesReserved + 1) * ROUTING_CACHE_MEMORY > budget) {
+			RoutingCacheContext lru = evict ? evictRoutingCache() : null;
+			if (lru == null) {
+				return false;
+			}
+			evicted.add(lru);
+		}
+		pool.size++;
+		routingCachesReserved++;
+		return true;
+	}
+
+	// should be called under routingCaches lock, context should be closed after
+	private RoutingCacheContext evictRoutingCache() {
+		RoutingCacheContext lru = null;
+		RoutingCachePool lruPool = null;
+		for (RoutingCachePool pool : routingCachePools.values()) {
+			RoutingCacheContext c = pool.idle.peekLast();
+			if (c != null && (lru == null || c.lastUsed < lru.lastUsed)) {
+				lru = c;
+				lruPool = pool;
+			}
+		}
+		if (lru != null) {
+			lruPool.idle.pollLast();
+			removeRoutingCache(lruPool, lru);
+		}
+		return lru;
+	}
+
+	// should be called under routingCaches lock
+	private RoutingCacheContext removeRoutingCache(RoutingCachePool pool, RoutingCacheContext c) {
+		routingCaches.remove(c);
+		pool.size--;
+		routingCachesReserved--;
+		return c;
+	}
+
+	private void closeRoutingCache(RoutingCacheContext c) {
+		BinaryMapIndexReader reader = c.rCtx.map.keySet().iterator().next();
+		try {
+			reader.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Creates context in background when all contexts of pool are in use and demand observed before is higher,
+	 * only free memory is used. Should be called under routingCaches lock.
+	 */
+	private void warmUpRoutingCache(RoutingCachePool pool, RouteParameters rp, List<RoutingCacheContext> evicted) {
+		if (!pool.idle.isEmpty() || pool.size >= pool.targetSize || !reserveRoutingCache(pool, false, evicted)) {
+			return;
+		}
+		if (routingCacheWarmup == null) {
+			routingCacheWarmup = Executors.newSingleThreadExecutor(r -> {
+				Thread t = new Thread(r, "RoutingCacheWarmup");
+				t.setDaemon(true);
+				return t;
+			});
+		}
+		routingCacheWarmup.execute(() -> {
+			try {
+				createRoutingCache(pool, rp, new RoutePlannerFrontEnd(), false);
+				LOGGER.info(String.format("Warmed up routing context %s", pool.key));
+			} catch (IOException | InterruptedException | RuntimeException e) {
+				LOGGER.warn(String.format("Warm up of routing context %s failed", pool.key), e);
+			}
+		});
+	}
+
+	// memory for context should be reserved in pool, locked context is returned to caller, otherwise it becomes idle
+	private RoutingCacheContext createRoutingCache(RoutingCachePool pool, RouteParameters rp, RoutePlannerFrontEnd router,
+	                                               boolean locked) throws IOException, InterruptedException {
+		RoutingCacheContext cs = new RoutingCacheContext();
+		cs.locked = locked ? System.currentTimeMillis() : 0;
+		cs.created = System.currentTimeMillis();
+		cs.lastUsed = cs.created;
+		cs.hhConfig = RoutePlannerFrontEnd.defaultHHConfig().cacheContext(cs.hCtx);
+		cs.routeParamsStr = pool.key.substring(pool.key.indexOf(':') + 1);
+		cs.profile = rp.routeProfile;
+		boolean created = false;
+		try {
+			// do outside synchronized to not block
+			File target = new File(routeObfLocation);
+			File targetIndex = new File(routeObfLocation + ".index");
+			CachedOsmandIndexes cache = new CachedOsmandIndexes();
+			BinaryMapIndexReader reader;
+			// contexts could be created in background at the same time
+			synchronized (routeObfIndexLock) {
+				if (targetIndex.exists()) {
+					cache.readFromFile(targetIndex);
+				}
+				reader = cache.getReader(target, true);
+				cache.writeToFile(targetIndex);
+			}
+			cs.rCtx = prepareRouterContext(rp, router, Collections.singletonList(reader), false);
+			router.setHHRoutingConfig(cs.hhConfig); // after prepare
+			created = true;
+		} finally {
+			synchronized (routingCaches) {
+				if (created) {
+					routingCaches.add(cs);
+					if (!locked) {
+						pool.idle.addFirst(cs);
+					}
+				} else {
+					pool.size--;
+					routingCachesReserved--;
+					if (locked) {
+						pool.locked--;
+					}
+				}
+				routingCaches.notifyAll();
+			}
+		}
+		return cs;
+	}
+
 	private String getCleanRouteParams(RouteParameters rp, String rProfile) {
 		GeneralRouter defaultRouter = RoutingConfiguration.getDefault().build(rProfile, new RoutingMemoryLimits(MEM_LIMIT, MEM_LIMIT)).router;
 		String rParamsStr = rp.routeParams.toString();
@@ -1227,6 +1539,11 @@ public class OsmAndMapsService {
 				if (c.rCtx == ctx) {
 					c.hCtx = c.hhConfig.cacheCtx;
 					c.locked = 0;
+					c.lastUsed = System.currentTimeMillis();
+					RoutingCachePool pool = routingCachePools.get(c.getKey());
+					pool.locked--;
+					pool.idle.addFirst(c);
+					routingCaches.notifyAll();
 					return true;
 				}
 			}
@@ -1307,7 +1624,7 @@ public class OsmAndMapsService {
 	}
 
 
-	private void initNewObfFiles(File target, File targetTemp) throws IOException {
+	private synchronized void initNewObfFiles(File target, File targetTemp) throws IOException {
 		initObfReaders();
 		long val = System.currentTimeMillis();
 		BinaryMapIndexReaderReference ref = obfFiles.get(target.getAbsolutePath());
@@ -1315,16 +1632,13 @@ public class OsmAndMapsService {
 			ref = new BinaryMapIndexReaderReference();
 			ref.file = target;
 			obfFiles.put(target.getAbsolutePath(), ref);
+			obfFilesIndex = null;
 		}
 		if (ref.fileIndex != null) {
 			ref.fileIndex = null;
 		}
 
-		if (!ref.readers.isEmpty()) {
-			for (Entry<BinaryMapIndexReader, Boolean> r : ref.readers.entrySet()) {
-				r.getKey().close();
-			}
-		}
+		ref.closeAllReaders();
 		if (nativelib != null) {
 			nativelib.closeMapFile(target.getAbsolutePath());
 		}
@@ -1332,7 +1646,7 @@ public class OsmAndMapsService {
 		targetTemp.renameTo(target);
 		RandomAccessFile raf = new RandomAccessFile(target, "r");
 		BinaryMapIndexReader reader = new BinaryMapIndexReader(raf, target);
-		ref.readers.put(reader, true);
+		ref.addReader(reader);
 		ref.fileIndex = cacheFiles.addToCache(reader, target);
 		cacheFiles.writeToFile(new File(tileConfig.cacheLocation, CachedOsmandIndexes.INDEXES_DEFAULT_FILENAME));
 		if (nativelib != null) {
@@ -1345,40 +1659,77 @@ public class OsmAndMapsService {
 		initObfReaders();
 		List<BinaryMapIndexReaderReference> files = new ArrayList<>();
 		List<File> filesToUse = getMaps(quadRect);
-		StringBuilder names = new StringBuilder();
-		if (!filesToUse.isEmpty()) {
+		for (File f : filesToUse) {
+			files.add(obfFiles.get(f.getAbsolutePath()));
+		}
+		if (LOGGER.isInfoEnabled()) {
+			StringBuilder names = new StringBuilder();
 			for (File f : filesToUse) {
-				BinaryMapIndexReaderReference ref = obfFiles.get(f.getAbsolutePath());
-				files.add(ref);
 				if (f.getName().length() > 20) {
 					names.append(f.getName(), 0, 20).append("..,");
 				} else {
 					names.append(f.getName()).append(",");
 				}
 			}
+			LOGGER.info(String.format("Preparing %d files for %s: %s ", files.size(), reason, names));
 		}
-		LOGGER.info(String.format("Preparing %d files for %s: %s ", files.size(), reason, names));
 		return files;
 	}
 
-	// World_seamarks is skipped as an optimization since it match every bbox.
-	private List<File> getMaps(QuadRect quadRect) throws IOException {
-		if (osmandRegions == null) {
-			osmandRegions = new OsmandRegions();
-			osmandRegions.prepareFile();
+	/**
+	 * R-tree of region polygon bounds of obf files, entry id is index of file in obfFiles order.
+	 * Bounds in the tree are expanded by 1 to cover rounding of 31 coordinates,
+	 * candidates are checked with lat/lon bounds as before.
+	 */
+	private static class ObfFilesIndex {
+		final List<File> files = new ArrayList<>();
+		final List<List<QuadRect>> bounds = new ArrayList<>();
+		final PackedRTree tree = new PackedRTree();
+
+		void add(File file, List<QuadRect> polyBboxes) {
+			int id = files.size();
+			files.add(file);
+			bounds.add(polyBboxes);
+			for (QuadRect pb : polyBboxes) {
+				int x1 = MapUtils.get31TileNumberX(pb.left);
+				int x2 = MapUtils.get31TileNumberX(pb.right);
+				int y1 = MapUtils.get31TileNumberY(pb.top);
+				int y2 = MapUtils.get31TileNumberY(pb.bottom);
+				tree.insert(Math.min(x1, x2) - 1, Math.min(y1, y2) - 1, expand(Math.max(x1, x2)), expand(Math.max(y1, y2)), id);
+			}
 		}
 
-		List<File> files = new ArrayList<>();
-		if (quadRect == null || quadRect.hasInitialState()) {
-			return files;
+		private static int expand(int max) {
+			return max == Integer.MAX_VALUE ? max : max + 1;
 		}
 
-		QuadRect queryLatLon = new QuadRect(
-				MapUtils.get31LongitudeX((int) Math.min(quadRect.left, quadRect.right)),
-				MapUtils.get31LatitudeY((int) Math.min(quadRect.top, quadRect.bottom)),
-				MapUtils.get31LongitudeX((int) Math.max(quadRect.left, quadRect.right)),
-				MapUtils.get31LatitudeY((int) Math.max(quadRect.top, quadRect.bottom)));
+		List<File> search(QuadRect quadRect, QuadRect queryLatLon) {
+			TLongArrayList ids = new TLongArrayList();
+			tree.search((int) Math.min(quadRect.left, quadRect.right), (int) Math.min(quadRect.top, quadRect.bottom),
+					(int) Math.max(quadRect.left, quadRect.right), (int) Math.max(quadRect.top, quadRect.bottom), ids);
+			// keep order of obfFiles
+			ids.sort();
+			List<File> res = new ArrayList<>();
+			for (int i = 0; i < ids.size(); i++) {
+				int id = (int) ids.get(i);
+				if (i > 0 && ids.get(i - 1) == id) {
+					continue;
+				}
+				if (bounds.get(id).stream().anyMatch(pb -> QuadRect.intersects(pb, queryLatLon))) {
+					res.add(files.get(id));
+				}
+			}
+			return res;
+		}
+	}
 
+	private synchronized ObfFilesIndex getObfFilesIndex() {
+		ObfFilesIndex index = obfFilesIndex;
+		if (index != null) {
+			return index;
+		}
+		long time = System.currentTimeMillis();
+		index = new ObfFilesIndex();
 		for (BinaryMapIndexReaderReference ref : obfFiles.values()) {
 			File file = ref.file;
 			String downloadName = getDownloadNameByFileName(file.getName());
@@ -1391,12 +1742,35 @@ public class OsmAndMapsService {
 				continue;
 			}
 			List<QuadRect> polyBboxes = wr.getAllPolygonsBounds();
-			if (polyBboxes != null && !polyBboxes.isEmpty()
-					&& polyBboxes.stream().anyMatch(pb -> QuadRect.intersects(pb, queryLatLon))) {
-				files.add(file);
+			if (polyBboxes != null && !polyBboxes.isEmpty()) {
+				index.add(file, polyBboxes);
 			}
 		}
-		return files;
+		index.tree.pack();
+		obfFilesIndex = index;
+		LOGGER.info(String.format("Index of %d obf files is built (%d ms)", index.files.size(),
+				System.currentTimeMillis() - time));
+		return index;
+	}
+
+	// World_seamarks is skipped as an optimization since it match every bbox.
+	private List<File> getMaps(QuadRect quadRect) throws IOException {
+		if (osmandRegions == null) {
+			osmandRegions = new OsmandRegions();
+			osmandRegions.prepareFile();
+		}
+
+		if (quadRect == null || quadRect.hasInitialState()) {
+			return new ArrayList<>();
+		}
+
+		QuadRect queryLatLon = new QuadRect(
+				MapUtils.get31LongitudeX((int) Math.min(quadRect.left, quadRect.right)),
+				MapUtils.get31LatitudeY((int) Math.min(quadRect.top, quadRect.bottom)),
+				MapUtils.get31LongitudeX((int) Math.max(quadRect.left, quadRect.right)),
+				MapUtils.get31LatitudeY((int) Math.max(quadRect.top, quadRect.bottom)));
+
+		return getObfFilesIndex().search(quadRect, queryLatLon);
 	}
 
 	public BinaryMapIndexReaderReference getBaseMap() throws IOException {
@@ -1464,6 +1838,7 @@ public class OsmAndMapsService {
 					}
 				}
 			}
+			obfFilesIndex = null;
 			cacheFiles.writeToFile(cacheFile);
 		}
 	}
@@ -0,0 +1,68 @@
+package net.osmand.server.api.services;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Limits the number of concurrently running heavy requests (fair, first come first served)
+ * and collects queue wait statistics.
+ */
+public class RequestLimiter {
+
+	private static final Log LOGGER = LogFactory.getLog(RequestLimiter.class);
+	private static final long LOG_WAIT_MS = 1000;
+
+	private final String name;
+	private final int limit;
+	private final Semaphore semaphore;
+	private final AtomicInteger waiting = new AtomicInteger();
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLong totalWaitMs = new AtomicLong();
+	private final AtomicLong maxWaitMs = new AtomicLong();
+
+	public RequestLimiter(String name, int limit) {
+		this.name = name;
+		this.limit = Math.max(1, limit);
+		this.semaphore = new Semaphore(this.limit, true);
+	}
+
+	public void acquire() throws InterruptedException {
+		long start = System.currentTimeMillis();
+		waiting.incrementAndGet();
+		try {
+			semaphore.acquire();
+		} finally {
+			waiting.decrementAndGet();
+		}
+		long wait = System.currentTimeMillis() - start;
+		requests.incrementAndGet();
+		totalWaitMs.addAndGet(wait);
+		maxWaitMs.accumulateAndGet(wait, Math::max);
+		if (wait >= LOG_WAIT_MS) {
+			LOGGER.info(String.format("%s waited %d ms in queue (%s)", name, wait, this));
+		}
+	}
+
+	public void release() {
+		semaphore.release();
+	}
+
+	public int getRunning() {
+		return limit - semaphore.availablePermits();
+	}
+
+	public int getWaiting() {
+		return waiting.get();
+	}
+
+	@Override
+	public String toString() {
+		long cnt = requests.get();
+		return String.format("%s: running %d of %d, waiting %d, requests %d, avg wait %d ms, max wait %d ms", name,
+				getRunning(), limit, getWaiting(), cnt, cnt == 0 ? 0 : totalWaitMs.get() / cnt, maxWaitMs.get());
+	}
+}
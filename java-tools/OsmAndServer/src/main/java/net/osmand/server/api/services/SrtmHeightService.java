@@ -0,0 +1,190 @@
+package net.osmand.server.api.services;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import net.osmand.obf.preparation.IndexHeightData;
+import net.osmand.obf.preparation.IndexHeightData.TileData;
+
+/**
+ * Process-wide SRTM heights shared by all requests. A GeoTIFF tile is decoded once, its raw heights
+ * are written to a file in raw-location and memory-mapped, so loaded tiles don't occupy java heap.
+ * Mapped tiles are kept in LRU order within a byte budget, raw files of evicted tiles are deleted,
+ * raw-location is cleaned on startup and shutdown. Tiles without data are not looked up again for a while.
+ */
+@Service
+public class SrtmHeightService {
+
+	private static final Log LOGGER = LogFactory.getLog(SrtmHeightService.class);
+
+	@Value("${osmand.srtm.location}")
+	String srtmLocation;
+
+	@Value("${osmand.srtm.cache-mb:2048}")
+	long cacheMb;
+
+	@Value("${osmand.srtm.raw-location:${java.io.tmpdir}/osmand-srtm-raw}")
+	String rawLocation;
+
+	private static final long MISSING_TILE_RETRY_MS = 60 * 60 * 1000L;
+
+	private final Map<Integer, TileData> tiles = new LinkedHashMap<>(16, 0.75f, true);
+	private final Map<Integer, CompletableFuture<TileData>> loadingTiles = new ConcurrentHashMap<>();
+	private final Map<Integer, MissingTile> missingTiles = new ConcurrentHashMap<>();
+	private long cacheSize;
+	private File rawDir;
+
+	private record MissingTile(File file, long time) {
+	}
+
+	@PostConstruct
+	public void init() {
+		rawDir = new File(rawLocation);
+		rawDir.mkdirs();
+		// raw files of previous run could be left if it wasn't stopped normally
+		cleanRawDir();
+	}
+
+	@PreDestroy
+	public void cleanRawDir() {
+		File[] files = rawDir.listFiles((d, name) -> name.endsWith(".raw"));
+		if (files != null) {
+			for (File f : files) {
+				f.delete();
+			}
+		}
+	}
+
+	/**
+	 * Calculates heights of all points at once: points are grouped by SRTM tile, so every tile is looked up once.
+	 * @return heights or IndexHeightData.INEXISTENT_HEIGHT if there is no data for the point
+	 */
+	public double[] getHeights(double[] lats, double[] lons, File[] missingFile) throws IOException {
+		int n = lats.length;
+		double[] heights = new double[n];
+		// sort point indexes by tile id
+		long[] order = new long[n];
+		for (int i = 0; i < n; i++) {
+			order[i] = ((long) IndexHeightData.getTileId(lats[i], lons[i]) << 32) | i;
+		}
+		Arrays.sort(order);
+		double[] neighbours = new double[16];
+		int i = 0;
+		while (i < n) {
+			int tileId = (int) (order[i] >> 32);
+			TileData tileData = getTile(tileId, missingFile);
+			for (; i < n && (int) (order[i] >> 32) == tileId; i++) {
+				int ind = (int) order[i];
+				heights[ind] = tileData == null ? IndexHeightData.INEXISTENT_HEIGHT
+						: IndexHeightData.getTileHeight(tileData, lats[ind], lons[ind], neighbours);
+			}
+		}
+		return heights;
+	}
+
+	public double getPointHeight(double lat, double lon, File[] missingFile) throws IOException {
+		return getHeights(new double[] { lat }, new double[] { lon }, missingFile)[0];
+	}
+
+	private TileData getTile(int tileId, File[] missingFile) throws IOException {
+		synchronized (tiles) {
+			TileData tileData = tiles.get(tileId);
+			if (tileData != null) {
+				return tileData;
+			}
+		}
+		MissingTile missingTile = missingTiles.get(tileId);
+		if (missingTile != null) {
+			if (System.currentTimeMillis() - missingTile.time() < MISSING_TILE_RETRY_MS) {
+				if (missingTile.file() != null && missingFile != null && missingFile.length > 0) {
+					missingFile[0] = missingTile.file();
+				}
+				return null;
+			}
+			missingTiles.remove(tileId, missingTile);
+		}
+		CompletableFuture<TileData> loading = new CompletableFuture<>();
+		CompletableFuture<TileData> running = loadingTiles.putIfAbsent(tileId, loading);
+		if (running != null) {
+			try {
+				return running.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while loading SRTM tile", e);
+			} catch (ExecutionException e) {
+				throw new IOException("Failed to load SRTM tile: " + e.getCause().getMessage(), e.getCause());
+			}
+		}
+		try {
+			TileData tileData = loadTile(tileId, missingFile);
+			if (tileData != null) {
+				putTile(tileData);
+			}
+			loading.complete(tileData);
+			return tileData;
+		} catch (IOException | RuntimeException e) {
+			loading.completeExceptionally(e);
+			throw e;
+		} finally {
+			loadingTiles.remove(tileId, loading);
+		}
+	}
+
+	private TileData loadTile(int tileId, File[] missingFile) throws IOException {
+		File srtmFolder = new File(srtmLocation);
+		TileData tileData = new TileData(tileId);
+		File raw = new File(rawDir, tileData.getFileName() + ".raw");
+		if (tileData.loadRawData(raw)) {
+			return tileData;
+		}
+		long time = System.currentTimeMillis();
+		File missing = tileData.loadData(srtmFolder.getAbsolutePath(), srtmFolder);
+		if (missing != null && missingFile != null && missingFile.length > 0) {
+			missingFile[0] = missing;
+		}
+		if (!tileData.hasData()) {
+			missingTiles.put(tileId, new MissingTile(missing, System.currentTimeMillis()));
+			return null;
+		}
+		tileData.writeRawData(raw);
+		TileData mapped = new TileData(tileId);
+		if (mapped.loadRawData(raw)) {
+			tileData = mapped;
+		}
+		LOGGER.info(String.format("SRTM: loaded %s (%d ms)", tileData.getFileName(), System.currentTimeMillis() - time));
+		return tileData;
+	}
+
+	private void putTile(TileData tileData) {
+		long maxSize = cacheMb << 20;
+		synchronized (tiles) {
+			TileData old = tiles.put(tileData.getId(), tileData);
+			if (old != null) {
+				cacheSize -= old.getDataSize();
+			}
+			cacheSize += tileData.getDataSize();
+			Iterator<TileData> it = tiles.values().iterator();
+			while (cacheSize > maxSize && tiles.size() > 1 && it.hasNext()) {
+				TileData t = it.next();
+				it.remove();
+				cacheSize -= t.getDataSize();
+				// already mapped buffers stay valid after the file is deleted
+				new File(rawDir, t.getFileName() + ".raw").delete();
+			}
+		}
+	}
+}
@@ -0,0 +1,340 @@
+package net.osmand.server.api.services;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.xml.sax.SAXException;
+import org.xmlpull.v1.XmlPullParserException;
+
+import net.osmand.data.QuadRect;
+import net.osmand.server.tileManager.MapboxVectorTile;
+import net.osmand.server.tileManager.TileAccessStats;
+import net.osmand.server.tileManager.TileAccessStats.TileAccess;
+import net.osmand.server.tileManager.TileMemoryCache;
+import net.osmand.server.tileManager.TileServerConfig;
+import net.osmand.server.tileManager.TileServerConfig.VectorStyle;
+import net.osmand.server.tileManager.VectorMetatile;
+import net.osmand.util.MapUtils;
+
+/**
+ * Renders tiles into the disk cache in background (after map update caches are cold):
+ * all metatiles of style within zoom range and bboxes, or the most requested tiles from access statistics.
+ * Jobs run one by one on a single low priority thread, a metatile is rendered only when there is a spare
+ * renderer and a vector tile only when no vector tile is generated for requests, so tile requests are never
+ * queued behind prerendering. Tiles already in cache are skipped.
+ */
+@Service
+public class TilePrerenderService {
+
+	private static final Log LOGGER = LogFactory.getLog(TilePrerenderService.class);
+
+	// style of mapbox vector tiles in jobs and statistics
+	public static final String MVT_STYLE = "mvt";
+
+	private static final long WAIT_RENDERER_MS = 200;
+	private static final long DECAY_INTERVAL_MILLIS = 24 * 60 * 60 * 1000L; // 1 day
+	private static final int MAX_ACCESS_STATS_TILES = 200000;
+	private static final int MAX_PRERENDER_ZOOM = 22;
+
+	@Autowired
+	OsmAndMapsService osmAndMapsService;
+
+	@Autowired
+	TileServerConfig config;
+
+	// pause after each rendered tile
+	@Value("${tile-server.prerender.pause-ms:50}")
+	long pauseMs;
+
+	private final TileAccessStats accessStats = new TileAccessStats(MAX_ACCESS_STATS_TILES);
+	private final BlockingQueue<PrerenderJob> jobs = new LinkedBlockingQueue<>();
+	// metatiles rendered here are not kept in memory
+	private final TileMemoryCache<VectorMetatile> noMemoryCache = new TileMemoryCache<>(0, 1);
+	private volatile PrerenderJob currentJob;
+	// guarded by this
+	private Thread worker;
+
+	public static class PrerenderJob {
+		final String style;
+		final int minZoom;
+		final int maxZoom;
+		final List<QuadRect> bboxes;
+		final List<TileAccess> tiles;
+		volatile boolean cancelled;
+		volatile int rendered;
+		volatile int cached;
+		volatile int failed;
+
+		PrerenderJob(String style, int minZoom, int maxZoom, List<QuadRect> bboxes, List<TileAccess> tiles) {
+			this.style = style;
+			this.minZoom = minZoom;
+			this.maxZoom = maxZoom;
+			this.bboxes = bboxes;
+			this.tiles = tiles;
+		}
+
+		@Override
+		public String toString() {
+			String name = tiles != null ? String.format("top %d tiles", tiles.size())
+					: String.format("%s zooms %d-%d, %d bboxes", style, minZoom, maxZoom, bboxes.size());
+			return String.format("%s: rendered %d, already cached %d, failed %d", name, rendered, cached, failed);
+		}
+	}
+
+	/**
+	 * Counts tile requests, for raster styles x, y could be any tile of metatile
+	 */
+	public void recordAccess(String style, int z, int x, int y, int metaSizeLog) {
+		if (metaSizeLog > 0) {
+			x = (x >> metaSizeLog) << metaSizeLog;
+			y = (y >> metaSizeLog) << metaSizeLog;
+		}
+		accessStats.record(style, z, x, y);
+	}
+
+	/**
+	 * @param bboxes boxes with left, top, right, bottom as lon, lat
+	 */
+	public synchronized PrerenderJob prerenderArea(String style, int minZoom, int maxZoom, List<QuadRect> bboxes) {
+		if (!MVT_STYLE.equals(style) && config.getStyle(style) == null) {
+			throw new IllegalArgumentException("Rendering style is undefined: " + style);
+		}
+		PrerenderJob job = new PrerenderJob(style, Math.max(1, minZoom), Math.min(MAX_PRERENDER_ZOOM, maxZoom),
+				bboxes, null);
+		submit(job);
+		return job;
+	}
+
+	public synchronized PrerenderJob prerenderTop(int count) {
+		PrerenderJob job = new PrerenderJob(null, 0, 0, null, accessStats.getTop(count));
+		submit(job);
+		return job;
+	}
+
+	public synchronized void cancel() {
+		jobs.clear();
+		PrerenderJob job = currentJob;
+		if (job != null) {
+			job.cancelled = true;
+		}
+	}
+
+	public String getStatus() {
+		PrerenderJob job = currentJob;
+		return String.format("Prerender: %s, queued jobs %d, access statistics %d tiles",
+				job == null ? "idle" : job.toString(), jobs.size(), accessStats.size());
+	}
+
+	@Scheduled(fixedRate = DECAY_INTERVAL_MILLIS, initialDelay = DECAY_INTERVAL_MILLIS)
+	public void decayAccessStats() {
+		accessStats.decay();
+	}
+
+	private void submit(PrerenderJob job) {
+		jobs.add(job);
+		LOGGER.info("Prerender job queued: " + job);
+		if (worker == null) {
+			worker = new Thread(this::runJobs, "TilePrerender");
+			worker.setDaemon(true);
+			worker.setPriority(Thread.MIN_PRIORITY);
+			worker.start();
+		}
+	}
+
+	private void runJobs() {
+		try {
+			runJobsLoop();
+		} finally {
+			// next submit starts a new worker, also if this one is stopped by an interrupt or an error
+			synchronized (this) {
+				if (worker == Thread.currentThread()) {
+					worker = null;
+				}
+			}
+		}
+	}
+
+	private void runJobsLoop() {
+		while (true) {
+			PrerenderJob job;
+			try {
+				job = jobs.take();
+			} catch (InterruptedException e) {
+				return;
+			}
+			currentJob = job;
+			long time = System.currentTimeMillis();
+			try {
+				runJob(job);
+			} catch (InterruptedException e) {
+				return;
+			} catch (RuntimeException e) {
+				LOGGER.error("Prerender job failed: " + job, e);
+			} finally {
+				currentJob = null;
+			}
+			LOGGER.info(String.format("Prerender job %s: %s (%d s)", job.cancelled ? "cancelled" : "finished", job,
+					(System.currentTimeMillis() - time) / 1000));
+		}
+	}
+
+	private void runJob(PrerenderJob job) throws InterruptedException {
+		if (job.tiles != null) {
+			for (TileAccess t : job.tiles) {
+				if (job.cancelled) {
+					return;
+				}
+				prerenderTile(job, t.style, t.z, t.x, t.y);
+			}
+			return;
+		}
+		VectorStyle vectorStyle = config.getStyle(job.style);
+		for (int z = job.minZoom; z <= job.maxZoom; z++) {
+			int step = vectorStyle == null ? 1 : 1 << Math.min(vectorStyle.metaTileSizeLog, z - 1);
+			for (QuadRect bbox : job.bboxes) {
+				int maxTile = (1 << z) - 1;
+				int minX = Math.max(0, (int) MapUtils.getTileNumberX(z, bbox.left));
+				int maxX = Math.min(maxTile, (int) MapUtils.getTileNumberX(z, bbox.right));
+				int minY = Math.max(0, (int) MapUtils.getTileNumberY(z, bbox.top));
+				int maxY = Math.min(maxTile, (int) MapUtils.getTileNumberY(z, bbox.bottom));
+				for (int x = minX - minX % step; x <= maxX; x += step) {
+					for (int y = minY - minY % step; y <= maxY; y += step) {
+						if (job.cancelled) {
+							return;
+						}
+						prerenderTile(job, job.style, z, x, y);
+					}
+				}
+			}
+		}
+	}
+
+	private void prerenderTile(PrerenderJob job, String style, int z, int x, int y) throws InterruptedException {
+		try {
+			boolean rendered;
+			if (MVT_STYLE.equals(style)) {
+				rendered = prerenderMapboxVectorTile(job, z, x, y);
+			} else {
+				VectorStyle vectorStyle = config.getStyle(style);
+				if (vectorStyle == null) {
+					job.failed++;
+					return;
+				}
+				rendered = prerenderMetatile(job, vectorStyle, z, x, y);
+			}
+			if (rendered) {
+				job.rendered++;
+				Thread.sleep(pauseMs);
+			} else {
+				job.cached++;
+			}
+		} catch (IOException | RuntimeException e) {
+			job.failed++;
+			LOGGER.warn(String.format("Prerender of %s %d/%d/%d failed: %s", style, z, x, y, e.getMessage()));
+		}
+	}
+
+	private boolean prerenderMetatile(PrerenderJob job, VectorStyle vectorStyle, int z, int x, int y)
+			throws IOException, InterruptedException {
+		int metaSizeLog = Math.min(vectorStyle.metaTileSizeLog, z - 1);
+		String tileId = config.createTileId(vectorStyle.key, x, y, z, metaSizeLog, vectorStyle.tileSizeLog);
+		VectorMetatile tile = new VectorMetatile(config, tileId, vectorStyle, z, x, y, metaSizeLog,
+				vectorStyle.tileSizeLog, null);
+		if (tile.getCacheFile(".png") == null || tile.isCached()) {
+			return false;
+		}
+		if (!waitSpareRenderer(job)) {
+			return false;
+		}
+		try {
+			// same key as tile requests, so concurrent request of this metatile waits for this rendering
+			ResponseEntity<String> err = osmAndMapsService.renderMetaTile(tile, noMemoryCache);
+			if (err != null || tile.runtimeImage == null) {
+				throw new IOException(err != null ? err.getBody() : "Metatile is not rendered");
+			}
+		} catch (XmlPullParserException | SAXException e) {
+			throw new IOException(e);
+		}
+		tile.runtimeImage = null;
+		return true;
+	}
+
+	private boolean prerenderMapboxVectorTile(PrerenderJob job, int z, int x, int y)
+			throws IOException, InterruptedException {
+		MapboxVectorTile tile = new MapboxVectorTile(config, x, y, z);
+		File cacheFile = tile.getCacheFile(".mvt");
+		if (cacheFile == null || tile.isCached()) {
+			return false;
+		}
+		if (!waitIdleVectorTileGeneration(job)) {
+			return false;
+		}
+		// same key as tile requests, so concurrent request of this tile waits for this generation and vice versa
+		String tileId = config.createTileId("vector", x, y, z, -1, -1);
+		byte[] data = osmAndMapsService.getMapboxVectorTileFlight().execute(tileId, () -> {
+			if (tile.isCached()) {
+				return tile.getCacheRuntimeTile();
+			}
+			byte[] res = osmAndMapsService.renderMapboxVectorTile(z, x, y);
+			if (res != null) {
+				tile.setRuntimeTile(res);
+				tile.saveTileToCache(tile, cacheFile);
+			}
+			return res;
+		});
+		if (data == null) {
+			throw new IOException("Tile is not rendered");
+		}
+		return true;
+	}
+
+	/**
+	 * Waits until interactive requests leave a renderer idle, false if job is cancelled
+	 */
+	private boolean waitSpareRenderer(PrerenderJob job) throws IOException, InterruptedException {
+		int spare;
+		while ((spare = osmAndMapsService.getSpareRenderers()) == 0 && !job.cancelled) {
+			Thread.sleep(WAIT_RENDERER_MS);
+		}
+		if (spare < 0) {
+			throw new IOException("Renderer is not initialized");
+		}
+		return !job.cancelled;
+	}
+
+	/**
+	 * Vector tiles are not rendered by the renderer pool, waits until no vector tile is generated for requests,
+	 * false if job is cancelled
+	 */
+	private boolean waitIdleVectorTileGeneration(PrerenderJob job) throws InterruptedException {
+		while (osmAndMapsService.getMapboxVectorTileFlight().getInFlight() > 0 && !job.cancelled) {
+			Thread.sleep(WAIT_RENDERER_MS);
+		}
+		return !job.cancelled;
+	}
+
+	public static List<QuadRect> parseBboxes(String bboxes) {
+		List<QuadRect> res = new ArrayList<>();
+		for (String bbox : bboxes.split(";")) {
+			String[] c = bbox.trim().split(",");
+			if (c.length != 4) {
+				throw new IllegalArgumentException("Bbox should be lat1,lon1,lat2,lon2: " + bbox);
+			}
+			double lat1 = Double.parseDouble(c[0]), lon1 = Double.parseDouble(c[1]);
+			double lat2 = Double.parseDouble(c[2]), lon2 = Double.parseDouble(c[3]);
+			res.add(new QuadRect(Math.min(lon1, lon2), Math.max(lat1, lat2), Math.max(lon1, lon2), Math.min(lat1, lat2)));
+		}
+		return res;
+	}
+}
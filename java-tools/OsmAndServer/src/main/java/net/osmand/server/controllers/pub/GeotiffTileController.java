@@ -10,6 +10,8 @@ import java.util.concurrent.*;
 import javax.imageio.ImageIO;
 
 import net.osmand.server.Application;
+import net.osmand.server.tileManager.PackedTileStore;
+import net.osmand.server.tileManager.SingleFlight;
 import net.osmand.server.tileManager.TileMemoryCache;
 import net.osmand.server.tileManager.TileServerConfig;
 import net.osmand.server.tileManager.GeotiffTile;
@@ -52,7 +54,11 @@ public class GeotiffTileController {
 	@Value("${osmand.heightmap.location}")
 	String geotiffTiles;
 
-	private final TileMemoryCache<GeotiffTile> tileMemoryCache = new TileMemoryCache<>();
+	private static final long MEMORY_CACHE_MAX_BYTES = 256L << 20;
+
+	private final TileMemoryCache<GeotiffTile> tileMemoryCache = new TileMemoryCache<>(MEMORY_CACHE_MAX_BYTES);
+
+	private final SingleFlight<BufferedImage> tileFlight = new SingleFlight<>("Heightmap tile generation");
 
 	private ResponseEntity<?> errorConfig(String msg) {
 		return ResponseEntity.badRequest()
@@ -79,15 +85,12 @@ public class GeotiffTileController {
 		tile.touch();
 
 		if (img == null) {
-			if (z < UNDERSCALED_BASE_ZOOM) {
-				img = generateUnderscaledTile(tile, tileType, x, y, z);
-			} else {
-				img = getTileFromService(tile);
-			}
+			img = fetchTile(tile, tileType, x, y, z);
 		}
 		if (img == null) {
 			return ResponseEntity.badRequest().body("Failed to get tile");
 		}
+		tileMemoryCache.updateTile(tile);
 		ByteArrayOutputStream baos = new ByteArrayOutputStream();
 		ImageIO.write(img, "png", baos);
 		return ResponseEntity.ok()
@@ -95,33 +98,35 @@ public class GeotiffTileController {
 				.body(new ByteArrayResource(baos.toByteArray()));
 	}
 
-	private BufferedImage generateUnderscaledTile(GeotiffTile tile, TileType tileType, int x, int y, int z) throws IOException {
-		return fetchTile(tile, tileType, x, y, z);
-	}
-
+	/**
+	 * Generates tile (from upper zoom tiles for low zooms), concurrent requests of the same tile wait for one generation
+	 */
 	private BufferedImage fetchTile(GeotiffTile tile, TileType tileType, int x, int y, int z) throws IOException {
 		String tileId = config.createTileId(tileType.getType(), x, y, z, -1, -1);
-		Object lock = tileMemoryCache.getLock(tileId);
-		synchronized (lock) {
-			try {
-				GeotiffTile currentTile = tile != null ? tile : tileMemoryCache.getTile(tileId, k -> new GeotiffTile(config, tileType, x, y, z));
-				tileMemoryCache.cleanupCache();
-				BufferedImage cachedImage = currentTile.getCacheRuntimeImage();
-				currentTile.touch();
-
-				if (cachedImage != null) {
-					return cachedImage;
-				}
-				BufferedImage img = z < UNDERSCALED_BASE_ZOOM ? fetchUpperTiles(tileType, x, y, z) : getTileFromService(currentTile);
+		return tileFlight.execute(tileId, () -> {
+			GeotiffTile currentTile = tile != null ? tile : tileMemoryCache.getTile(tileId, k -> new GeotiffTile(config, tileType, x, y, z));
+			tileMemoryCache.cleanupCache();
+			BufferedImage cachedImage = currentTile.getCacheRuntimeImage();
+			currentTile.touch();
+
+			if (cachedImage != null) {
+				return cachedImage;
+			}
+			BufferedImage img;
+			if (z < UNDERSCALED_BASE_ZOOM) {
+				img = fetchUpperTiles(tileType, x, y, z);
 				if (img != null) {
 					saveToCache(currentTile, img);
-					return img;
 				}
-				return null;
-			} finally {
-				tileMemoryCache.removeLock(tileId);
+			} else {
+				// saved to cache by getTileFromService
+				img = getTileFromService(currentTile);
 			}
-		}
+			if (img != null) {
+				tileMemoryCache.updateTile(currentTile);
+			}
+			return img;
+		});
 	}
 
 	private BufferedImage fetchUpperTiles(TileType tileType, int x, int y, int z) throws IOException {
@@ -166,6 +171,15 @@ public class GeotiffTileController {
 
 	@Scheduled(fixedRate = CLEANUP_INTERVAL_MILLIS)
 	public synchronized void cleanUpCache() {
+		LOGGER.info("Heightmap tiles memory cache: " + tileMemoryCache.getStats());
+		LOGGER.info(tileFlight.getStats());
+		PackedTileStore store = config.getPackedStore(config.heightmapLocation);
+		if (store != null) {
+			// expired tiles are removed by rewriting archives, no walk over tile files
+			store.compact(zoom -> zoom <= 7 ? CLEANUP_CACHE_BEFORE_ZOOM_7 : CLEANUP_CACHE_AFTER_ZOOM_7);
+			LOGGER.info("Heightmap tiles packed cache: " + store.getStats());
+			return;
+		}
 		File cacheDir = new File(config.heightmapLocation);
 		if (!cacheDir.exists() || !cacheDir.isDirectory()) {
 			return; // Nothing to clean up
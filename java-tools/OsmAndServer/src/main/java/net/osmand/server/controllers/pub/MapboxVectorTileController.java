@@ -6,6 +6,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.concurrent.*;
 
+import net.osmand.server.tileManager.PackedTileStore;
 import net.osmand.server.tileManager.TileMemoryCache;
 import net.osmand.server.tileManager.TileServerConfig;
 import net.osmand.server.tileManager.MapboxVectorTile;
@@ -20,6 +21,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 
 import net.osmand.server.api.services.OsmAndMapsService;
+import net.osmand.server.api.services.TilePrerenderService;
 
 @Controller
 @RequestMapping("/vector")
@@ -39,7 +41,12 @@ public class MapboxVectorTileController {
 	@Autowired
 	TileServerConfig config;
 
-	private final TileMemoryCache<MapboxVectorTile> tileMemoryCache = new TileMemoryCache<>();
+	@Autowired
+	TilePrerenderService prerenderService;
+
+	private static final long MEMORY_CACHE_MAX_BYTES = 256L << 20;
+
+	private final TileMemoryCache<MapboxVectorTile> tileMemoryCache = new TileMemoryCache<>(MEMORY_CACHE_MAX_BYTES);
 
 	private ResponseEntity<?> errorConfig(String msg) {
 		return ResponseEntity.badRequest()
@@ -57,6 +64,7 @@ public class MapboxVectorTileController {
 		}
 
 		String tileId = config.createTileId("vector", x, y, z, -1, -1);
+		prerenderService.recordAccess(TilePrerenderService.MVT_STYLE, z, x, y, 0);
         MapboxVectorTile tile = tileMemoryCache.getTile(tileId, k -> new MapboxVectorTile(config, x, y, z));
         // for testing
         //MapboxVectorTile tile = new MapboxVectorTile(config, x, y, z);
@@ -65,11 +73,16 @@ public class MapboxVectorTileController {
         tile.touch();
 
 		if (data == null) {
-            data = getTileFromService(tile);
+			// concurrent requests (and prerendering) of the same missing tile wait for one generation
+			data = osmAndMapsService.getMapboxVectorTileFlight().execute(tileId, () -> {
+				byte[] cached = tile.getCacheRuntimeTile();
+				return cached != null ? cached : getTileFromService(tile);
+			});
 		}
 		if (data == null) {
 			return ResponseEntity.badRequest().body("Failed to get tile");
 		}
+		tileMemoryCache.updateTile(tile);
 		return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_ENCODING, "gzip")
 				.header(HttpHeaders.CACHE_CONTROL, "public, max-age=2592000")
@@ -78,6 +91,15 @@ public class MapboxVectorTileController {
 
 	@Scheduled(fixedRate = CLEANUP_INTERVAL_MILLIS)
 	public synchronized void cleanUpCache() {
+		LOGGER.info("Vector tiles memory cache: " + tileMemoryCache.getStats());
+		LOGGER.info(osmAndMapsService.getMapboxVectorTileFlight().getStats());
+		PackedTileStore store = config.getPackedStore(config.mvtsLocation);
+		if (store != null) {
+			// expired tiles are removed by rewriting archives, no walk over tile files
+			store.compact(zoom -> zoom <= 7 ? CLEANUP_CACHE_BEFORE_ZOOM_7 : CLEANUP_CACHE_AFTER_ZOOM_7);
+			LOGGER.info("Vector tiles packed cache: " + store.getStats());
+			return;
+		}
 		File cacheDir = new File(config.mvtsLocation);
 		if (!cacheDir.exists() || !cacheDir.isDirectory()) {
 			return; // Nothing to clean up
@@ -8,6 +8,7 @@ import java.util.concurrent.TimeUnit;
 import javax.imageio.ImageIO;
 
 import com.google.gson.JsonObject;
+import net.osmand.server.tileManager.EncodedTile;
 import net.osmand.server.tileManager.TileMemoryCache;
 import net.osmand.server.tileManager.TileServerConfig;
 import net.osmand.server.tileManager.VectorMetatile;
@@ -16,6 +17,7 @@ import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.http.*;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -27,6 +29,7 @@ import com.google.gson.Gson;
 
 import net.osmand.render.RenderingRuleProperty;
 import net.osmand.server.api.services.OsmAndMapsService;
+import net.osmand.server.api.services.TilePrerenderService;
 import net.osmand.server.tileManager.TileServerConfig.VectorStyle;
 import net.osmand.util.Algorithms;
 
@@ -42,8 +45,19 @@ public class VectorTileController {
 	@Autowired
 	TileServerConfig config;
 
+	@Autowired
+	TilePrerenderService prerenderService;
+
+	private static final long LOG_CACHE_STATS_INTERVAL_MILLIS = 60 * 60 * 1000L; // 1 hour
+	private static final long ENCODED_CACHE_MAX_BYTES = 512L << 20;
+	private static final int ENCODED_CACHE_MAX_TILES = 200000;
+
 	private final TileMemoryCache<VectorMetatile> tileMemoryCache = new TileMemoryCache<>();
 
+	// already encoded tiles, much smaller than decoded metatile images
+	private final TileMemoryCache<EncodedTile> encodedTileCache = new TileMemoryCache<>(ENCODED_CACHE_MAX_BYTES,
+			ENCODED_CACHE_MAX_TILES);
+
 	private static final CacheControl STYLES_HTTP_CACHE =
 			CacheControl.maxAge(30, TimeUnit.DAYS).cachePublic();
 
@@ -114,12 +128,22 @@ public class VectorTileController {
 			return ResponseEntity.badRequest().body("Rendering style is undefined: " + currentStyle);
 		}
 
+		if (interactiveKey == null) {
+			prerenderService.recordAccess(vectorStyle.key, z, x, y, Math.min(vectorStyle.metaTileSizeLog, z - 1));
+		}
+		String encodedTileId = EncodedTile.createTileId(interactiveKey != null ? interactiveKey : vectorStyle.key, z, x, y);
+		EncodedTile encodedTile = encodedTileCache.get(encodedTileId);
+		byte[] png = encodedTile != null ? encodedTile.getPng(getMetaTileGeneration(vectorStyle, z, x, y, interactiveKey)) : null;
+		if (png != null) {
+			return ResponseEntity.ok()
+					.header("Cache-Control", "public, max-age=2592000")
+					.body(new ByteArrayResource(png));
+		}
 		tileMemoryCache.conditionalCleanupCache();
 		VectorMetatile tile = getMetaTile(vectorStyle, z, x, y, interactiveKey);
 		// for local debug :
 		//BufferedImage img = null;
 		BufferedImage img = tile.getCacheRuntimeImage();
-		tile.touch();
 		if (img == null) {
 			ResponseEntity<String> err = osmAndMapsService.renderMetaTile(tile, tileMemoryCache);
 			img = tile.runtimeImage;
@@ -129,12 +153,28 @@ public class VectorTileController {
 				return ResponseEntity.badRequest().body("Unexpected error during rendering");
 			}
 		}
+		tileMemoryCache.updateTile(tile);
+		long generation = tile.getGeneration();
+		boolean current = img == tile.runtimeImage;
 		BufferedImage subimage = tile.readSubImage(img, x, y);
 		ByteArrayOutputStream baos = new ByteArrayOutputStream();
 		ImageIO.write(subimage, "png", baos);
+		png = baos.toByteArray();
+		if (current) {
+			encodedTile = encodedTileCache.getTile(encodedTileId, EncodedTile::new);
+			encodedTile.setPng(generation, png);
+			encodedTileCache.updateTile(encodedTile);
+		}
 		return ResponseEntity.ok()
 				.header("Cache-Control", "public, max-age=2592000")
-				.body(new ByteArrayResource(baos.toByteArray()));
+				.body(new ByteArrayResource(png));
+	}
+
+	@Scheduled(fixedRate = LOG_CACHE_STATS_INTERVAL_MILLIS)
+	public void logCacheStats() {
+		LOGGER.info("Vector metatiles memory cache: " + tileMemoryCache.getStats());
+		LOGGER.info("Encoded vector tiles memory cache: " + encodedTileCache.getStats());
+		LOGGER.info(osmAndMapsService.getRendererPoolStats());
 	}
 
 	@GetMapping(path = "/info/{style}/{z}/{x}/{y}.json", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -147,23 +187,48 @@ public class VectorTileController {
 		if (vectorStyle == null) {
 			return ResponseEntity.badRequest().body("Rendering style is undefined: " + currentStyle);
 		}
+		String encodedTileId = EncodedTile.createTileId(interactiveKey != null ? interactiveKey : vectorStyle.key, z, x, y);
+		EncodedTile encodedTile = encodedTileCache.get(encodedTileId);
+		String info = encodedTile != null ? encodedTile.getInfo(getMetaTileGeneration(vectorStyle, z, x, y, interactiveKey)) : null;
+		if (info != null) {
+			return ResponseEntity.ok()
+					.header("Cache-Control", "public, max-age=2592000")
+					.body(info);
+		}
 		VectorMetatile tile = getMetaTile(vectorStyle, z, x, y, interactiveKey);
+		long generation = tile.getGeneration();
 		JsonObject tileInfo = osmAndMapsService.getTileInfo(tile.getCacheRuntimeInfo(), x, y, z);
-		tile.touch();
 		if (tileInfo == null) {
 			return ResponseEntity.badRequest().body("Unexpected error during rendering");
 		}
 		tileMemoryCache.conditionalCleanupCache();
+		info = String.valueOf(tileInfo);
+		encodedTile = encodedTileCache.getTile(encodedTileId, EncodedTile::new);
+		encodedTile.setInfo(generation, info);
+		encodedTileCache.updateTile(encodedTile);
 
 		return ResponseEntity.ok()
 				.header("Cache-Control", "public, max-age=2592000")
-				.body(String.valueOf(tileInfo));
+				.body(info);
 	}
 
-	public VectorMetatile getMetaTile(VectorStyle vectorStyle, int z, int x, int y, String interactiveKey) {
+	/**
+	 * Generation of the metatile in memory or -1, encoded tiles of metatiles evicted or rendered again are stale
+	 */
+	private long getMetaTileGeneration(VectorStyle vectorStyle, int z, int x, int y, String interactiveKey) {
+		VectorMetatile tile = tileMemoryCache.get(getMetaTileId(vectorStyle, z, x, y, interactiveKey));
+		return tile != null ? tile.getGeneration() : -1;
+	}
+
+	private String getMetaTileId(VectorStyle vectorStyle, int z, int x, int y, String interactiveKey) {
 		int metaSizeLog = Math.min(vectorStyle.metaTileSizeLog, z - 1);
 		String key = interactiveKey != null ? interactiveKey : vectorStyle.key;
-		String tileId = config.createTileId(key, x, y, z, metaSizeLog, vectorStyle.tileSizeLog);
+		return config.createTileId(key, x, y, z, metaSizeLog, vectorStyle.tileSizeLog);
+	}
+
+	public VectorMetatile getMetaTile(VectorStyle vectorStyle, int z, int x, int y, String interactiveKey) {
+		int metaSizeLog = Math.min(vectorStyle.metaTileSizeLog, z - 1);
+		String tileId = getMetaTileId(vectorStyle, z, x, y, interactiveKey);
 		VectorMetatile tile = tileMemoryCache.get(tileId);
 		if (tile == null) {
 			tile = new VectorMetatile(config, tileId, vectorStyle, z, x, y, metaSizeLog, vectorStyle.tileSizeLog, interactiveKey);
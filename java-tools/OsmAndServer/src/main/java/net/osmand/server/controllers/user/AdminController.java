@@ -135,6 +135,9 @@ public class AdminController {
 	@Autowired
 	private LogsAccessService logsAccessService;
 
+	@Autowired
+	private TilePrerenderService prerenderService;
+
 	@Autowired
 	private WebAccessConfig webAccessConfig;
 	
@@ -270,6 +273,40 @@ public class AdminController {
 		return ResponseEntity.badRequest().body("User is not found.");
 	}
 
+	@PostMapping(path = {"/prerender-tiles"})
+	@ResponseBody
+	public ResponseEntity<String> prerenderTiles(@RequestParam(required = false) String style,
+	                                             @RequestParam(required = false, defaultValue = "1") int minZoom,
+	                                             @RequestParam(required = false, defaultValue = "14") int maxZoom,
+	                                             @RequestParam(required = false) String bboxes,
+	                                             @RequestParam(required = false, defaultValue = "0") int top) {
+		try {
+			if (top > 0) {
+				prerenderService.prerenderTop(top);
+			} else if (style != null && bboxes != null) {
+				prerenderService.prerenderArea(style, minZoom, maxZoom, TilePrerenderService.parseBboxes(bboxes));
+			} else {
+				return ResponseEntity.badRequest().body("Specify style and bboxes (lat1,lon1,lat2,lon2;...) or top");
+			}
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+		return ResponseEntity.ok(prerenderService.getStatus());
+	}
+
+	@GetMapping(path = {"/prerender-status"})
+	@ResponseBody
+	public ResponseEntity<String> prerenderStatus() {
+		return ResponseEntity.ok(prerenderService.getStatus());
+	}
+
+	@PostMapping(path = {"/prerender-cancel"})
+	@ResponseBody
+	public ResponseEntity<String> prerenderCancel() {
+		prerenderService.cancel();
+		return ResponseEntity.ok(prerenderService.getStatus());
+	}
+
 	
 	@PostMapping(path = { "/search-emails" })
 	public String searchEmail(Model model, 
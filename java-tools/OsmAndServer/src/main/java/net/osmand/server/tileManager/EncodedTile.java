@@ -0,0 +1,68 @@
+package net.osmand.server.tileManager;
+
+/**
+ * Single already encoded tile (png bytes and interactive info json) cut from a rendered metatile,
+ * so repeated requests of a hot tile are served without cropping and png encoding.
+ * Data is valid only for the metatile generation it was cut from, see {@link VectorMetatile#getGeneration()}.
+ */
+public class EncodedTile implements TileCacheProvider {
+
+	private final String tileId;
+	private byte[] png;
+	private String info;
+	private long generation;
+
+	public EncodedTile(String tileId) {
+		this.tileId = tileId;
+	}
+
+	public static String createTileId(String style, int z, int x, int y) {
+		return style + '/' + z + '/' + x + '/' + y;
+	}
+
+	public synchronized byte[] getPng(long generation) {
+		return this.generation == generation ? png : null;
+	}
+
+	public synchronized void setPng(long generation, byte[] png) {
+		reset(generation);
+		this.png = png;
+	}
+
+	public synchronized String getInfo(long generation) {
+		return this.generation == generation ? info : null;
+	}
+
+	public synchronized void setInfo(long generation, String info) {
+		reset(generation);
+		this.info = info;
+	}
+
+	private void reset(long generation) {
+		if (this.generation != generation) {
+			this.generation = generation;
+			png = null;
+			info = null;
+		}
+	}
+
+	@Override
+	public synchronized long getTileWeight() {
+		return (png != null ? png.length : 0) + (info != null ? 2L * info.length() : 0);
+	}
+
+	@Override
+	public String getTileId() {
+		return tileId;
+	}
+
+	@Override
+	public synchronized Object getTile() {
+		return png;
+	}
+
+	@Override
+	public synchronized void setTile(Object tile) {
+		png = (byte[]) tile;
+	}
+}
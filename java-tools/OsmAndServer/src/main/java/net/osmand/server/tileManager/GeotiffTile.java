@@ -5,6 +5,8 @@ import org.jetbrains.annotations.NotNull;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 
@@ -35,6 +37,15 @@ public class GeotiffTile implements TileCacheProvider, Comparable<GeotiffTile> {
 
 	public synchronized void touch() {
 		lastAccess = System.currentTimeMillis();
+		PackedTileStore store = cfg.getPackedStore(cfg.heightmapLocation);
+		if (store != null) {
+			try {
+				store.touch(getArchiveName(), PackedTileStore.getTileKey(x, y));
+			} catch (IOException e) {
+				// tile will be rendered again
+			}
+			return;
+		}
 		File cacheFile = getCacheFile(".png");
 		if (cacheFile != null && cacheFile.exists()) {
 			long lastModifiedTime = cacheFile.lastModified();
@@ -61,6 +72,14 @@ public class GeotiffTile implements TileCacheProvider, Comparable<GeotiffTile> {
 			return img;
 		}
 		File cf = getCacheFile(".png");
+		PackedTileStore store = cfg.getPackedStore(cfg.heightmapLocation);
+		if (store != null) {
+			byte[] png = cf == null ? null : store.get(getArchiveName(), PackedTileStore.getTileKey(x, y));
+			if (png != null) {
+				runtimeImage = ImageIO.read(new ByteArrayInputStream(png));
+			}
+			return runtimeImage;
+		}
 		if (cf != null && cf.exists() && cf.length() > 0) {
 			runtimeImage = ImageIO.read(cf);
 			if (runtimeImage != null) {
@@ -78,10 +97,19 @@ public class GeotiffTile implements TileCacheProvider, Comparable<GeotiffTile> {
 		);
 	}
 
+	private String getArchiveName() {
+		return PackedTileStore.getArchiveName(tileType.getType(), z, -1, -1, ".png");
+	}
+
 	@Override
 	public void saveTileToCache(Object tile, File cacheFile) throws IOException {
 		if (tile instanceof GeotiffTile gt) {
-			if (gt.runtimeImage != null) {
+			PackedTileStore store = cfg.getPackedStore(cfg.heightmapLocation);
+			if (store != null && gt.runtimeImage != null) {
+				ByteArrayOutputStream png = new ByteArrayOutputStream();
+				ImageIO.write(gt.runtimeImage, "png", png);
+				store.put(gt.getArchiveName(), PackedTileStore.getTileKey(gt.x, gt.y), png.toByteArray());
+			} else if (gt.runtimeImage != null) {
 				cacheFile.getParentFile().mkdirs();
 				if (cacheFile.getParentFile().exists()) {
 					ImageIO.write(gt.runtimeImage, "png", cacheFile);
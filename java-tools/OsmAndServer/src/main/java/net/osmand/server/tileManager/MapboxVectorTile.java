@@ -32,6 +32,15 @@ public class MapboxVectorTile implements TileCacheProvider, Comparable<MapboxVec
 
 	public synchronized void touch() {
 		lastAccess = System.currentTimeMillis();
+		PackedTileStore store = cfg.getPackedStore(cfg.mvtsLocation);
+		if (store != null) {
+			try {
+				store.touch(getArchiveName(), PackedTileStore.getTileKey(x, y));
+			} catch (IOException e) {
+				// tile will be rendered again
+			}
+			return;
+		}
 		File cacheFile = getCacheFile(".mvt");
 		if (cacheFile != null && cacheFile.exists()) {
 			long lastModifiedTime = cacheFile.lastModified();
@@ -54,6 +63,11 @@ public class MapboxVectorTile implements TileCacheProvider, Comparable<MapboxVec
 			return tile;
 		}
 		File cf = getCacheFile(".mvt");
+		PackedTileStore store = cfg.getPackedStore(cfg.mvtsLocation);
+		if (store != null) {
+			runtimeTile = cf == null ? null : store.get(getArchiveName(), PackedTileStore.getTileKey(x, y));
+			return runtimeTile;
+		}
 		if (cf != null && cf.exists() && cf.length() > 0) {
 			runtimeTile = Files.readAllBytes(cf.toPath());
     		return runtimeTile;
@@ -69,10 +83,29 @@ public class MapboxVectorTile implements TileCacheProvider, Comparable<MapboxVec
 		);
 	}
 
+	/**
+	 * @return true if tile is stored in disk cache
+	 */
+	public boolean isCached() throws IOException {
+		File cf = getCacheFile(".mvt");
+		if (cf == null) {
+			return false;
+		}
+		PackedTileStore store = cfg.getPackedStore(cfg.mvtsLocation);
+		return store != null ? store.contains(getArchiveName(), PackedTileStore.getTileKey(x, y)) : cf.exists();
+	}
+
+	private String getArchiveName() {
+		return PackedTileStore.getArchiveName("vector", z, -1, -1, ".mvt");
+	}
+
 	@Override
 	public void saveTileToCache(Object tile, File cacheFile) throws IOException {
 		if (tile instanceof MapboxVectorTile mvt) {
-			if (mvt.runtimeTile != null) {
+			PackedTileStore store = cfg.getPackedStore(cfg.mvtsLocation);
+			if (store != null && mvt.runtimeTile != null) {
+				store.put(mvt.getArchiveName(), PackedTileStore.getTileKey(mvt.x, mvt.y), mvt.runtimeTile);
+			} else if (mvt.runtimeTile != null) {
 				cacheFile.getParentFile().mkdirs();
 				if (cacheFile.getParentFile().exists()) {
                     Files.write(cacheFile.toPath(), mvt.runtimeTile);
@@ -0,0 +1,470 @@
+package net.osmand.server.tileManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntToLongFunction;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import gnu.trove.iterator.TLongObjectIterator;
+import gnu.trove.map.hash.TLongObjectHashMap;
+
+/**
+ * Disk cache of tiles packed into archive files instead of a file per tile.
+ * There is one archive per style, zoom and tile kind (style/zoom[-meta-tilesize]ext.tiles), tiles are appended
+ * as records (key, timestamp, data) and an in-memory index keeps record offsets, so lookup is a hash lookup
+ * and one positional read. Overwritten and expired tiles are removed by {@link #compact(IntToLongFunction)}
+ * which rewrites live records into a new archive. Access times are updated in memory and saved
+ * to a sidecar file (archive.tiles.access) on compaction and shutdown, so expiration survives restarts.
+ */
+public class PackedTileStore {
+
+	private static final Log LOGGER = LogFactory.getLog(PackedTileStore.class);
+
+	public static final String ARCHIVE_EXT = ".tiles";
+	private static final String ACCESS_EXT = ".access";
+	private static final int MAGIC = 0x544c4531;
+	// magic, key, timestamp, length
+	private static final int HEADER_SIZE = 4 + 8 + 8 + 4;
+	private static final int MAX_TILE_SIZE = 64 << 20;
+	private static final double COMPACT_GARBAGE_RATIO = 0.25;
+
+	private final File dir;
+	private final Map<String, Archive> archives = new ConcurrentHashMap<>();
+
+	public PackedTileStore(File dir) {
+		this.dir = dir;
+	}
+
+	public static String getArchiveName(String styleKey, int z, int metaSizeLog, int tileSizeLog, String ext) {
+		StringBuilder name = new StringBuilder(styleKey).append('/').append(z);
+		if (metaSizeLog != -1 || tileSizeLog != -1) {
+			name.append('-').append(metaSizeLog).append('-').append(tileSizeLog);
+		}
+		return name.append(ext).toString();
+	}
+
+	public static long getTileKey(int x, int y) {
+		return ((long) x << 32) | (y & 0xffffffffL);
+	}
+
+	public byte[] get(String archiveName, long key) throws IOException {
+		return getArchive(archiveName).get(key);
+	}
+
+	public boolean contains(String archiveName, long key) throws IOException {
+		return getArchive(archiveName).contains(key);
+	}
+
+	public void put(String archiveName, long key, byte[] data) throws IOException {
+		getArchive(archiveName).put(key, data);
+	}
+
+	/**
+	 * Updates access time of the tile (kept in memory and saved with compaction and {@link #saveAccessTimes()})
+	 */
+	public void touch(String archiveName, long key) throws IOException {
+		getArchive(archiveName).touch(key);
+	}
+
+	/**
+	 * Removes tiles not accessed longer than maxAgeByZoom and rewrites archives with many overwritten tiles.
+	 * Archives which weren't opened yet are opened (indexed) first.
+	 */
+	public void compact(IntToLongFunction maxAgeByZoom) {
+		File[] styles = dir.listFiles(File::isDirectory);
+		if (styles != null) {
+			for (File style : styles) {
+				File[] files = style.listFiles((d, name) -> name.endsWith(ARCHIVE_EXT));
+				if (files == null) {
+					continue;
+				}
+				for (File f : files) {
+					String name = style.getName() + "/" + f.getName().substring(0, f.getName().length() - ARCHIVE_EXT.length());
+					try {
+						getArchive(name);
+					} catch (IOException e) {
+						LOGGER.warn("Failed to open tile archive " + f.getAbsolutePath(), e);
+					}
+				}
+			}
+		}
+		long now = System.currentTimeMillis();
+		for (Archive a : archives.values()) {
+			if (!a.opened) {
+				continue;
+			}
+			try {
+				a.compact(a.zoom < 0 ? 0 : now - maxAgeByZoom.applyAsLong(a.zoom));
+				a.saveAccessTimes();
+			} catch (IOException e) {
+				LOGGER.warn("Failed to compact tile archive " + a.file.getAbsolutePath(), e);
+			}
+		}
+	}
+
+	/**
+	 * Saves access times of opened archives, so they are not lost on restart
+	 */
+	public void saveAccessTimes() {
+		for (Archive a : archives.values()) {
+			if (!a.opened) {
+				continue;
+			}
+			try {
+				a.saveAccessTimes();
+			} catch (IOException e) {
+				LOGGER.warn("Failed to save access times of tile archive " + a.file.getAbsolutePath(), e);
+			}
+		}
+	}
+
+	public String getStats() {
+		long tiles = 0, size = 0, garbage = 0;
+		for (Archive a : archives.values()) {
+			synchronized (a.index) {
+				tiles += a.index.size();
+			}
+			size += a.end;
+			garbage += a.garbage;
+		}
+		return String.format("archives %d, tiles %d, size %d MB (%d MB to compact)", archives.size(), tiles,
+				size >> 20, garbage >> 20);
+	}
+
+	private Archive getArchive(String name) throws IOException {
+		Archive a = archives.get(name);
+		if (a == null) {
+			a = archives.computeIfAbsent(name, n -> new Archive(n, new File(dir, n + ARCHIVE_EXT)));
+		}
+		// indexing takes the monitor of this archive only, other archives are available meanwhile
+		a.open();
+		return a;
+	}
+
+	private static class Entry {
+		final long offset;
+		final int length;
+		volatile long timestamp;
+
+		Entry(long offset, int length, long timestamp) {
+			this.offset = offset;
+			this.length = length;
+			this.timestamp = timestamp;
+		}
+	}
+
+	private static class Archive {
+		final File file;
+		final File accessFile;
+		final int zoom;
+		// index is guarded by its monitor
+		final TLongObjectHashMap<Entry> index = new TLongObjectHashMap<>();
+		// read lock - channel is in use, write lock - channel is replaced by compaction
+		final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+		// appends are sequential, compaction takes it only to snapshot the index and to swap files
+		final Object appendLock = new Object();
+		final Object compactLock = new Object();
+		FileChannel channel;
+		volatile boolean opened;
+		volatile long end;
+		volatile long garbage;
+
+		Archive(String name, File file) {
+			this.file = file;
+			this.accessFile = new File(file.getParentFile(), file.getName() + ACCESS_EXT);
+			this.zoom = parseZoom(name);
+		}
+
+		void open() throws IOException {
+			if (opened) {
+				return;
+			}
+			synchronized (this) {
+				if (!opened) {
+					file.getParentFile().mkdirs();
+					channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+							StandardOpenOption.WRITE);
+					readIndex();
+					readAccessTimes();
+					opened = true;
+				}
+			}
+		}
+
+		private static int parseZoom(String name) {
+			int i = name.lastIndexOf('/') + 1;
+			int z = 0;
+			int digits = 0;
+			for (; i < name.length() && Character.isDigit(name.charAt(i)); i++, digits++) {
+				z = z * 10 + (name.charAt(i) - '0');
+			}
+			return digits == 0 ? -1 : z;
+		}
+
+		private void readIndex() throws IOException {
+			long time = System.currentTimeMillis();
+			long size = channel.size();
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			long pos = 0;
+			while (pos + HEADER_SIZE <= size) {
+				header.clear();
+				readFully(channel, header, pos);
+				header.flip();
+				int magic = header.getInt();
+				long key = header.getLong();
+				long timestamp = header.getLong();
+				int length = header.getInt();
+				if (magic != MAGIC || length < 0 || length > MAX_TILE_SIZE || pos + HEADER_SIZE + length > size) {
+					break;
+				}
+				Entry old = index.put(key, new Entry(pos, length, timestamp));
+				if (old != null) {
+					garbage += HEADER_SIZE + old.length;
+				}
+				pos += HEADER_SIZE + length;
+			}
+			if (pos < size) {
+				// not completely written record (process was stopped while appending)
+				LOGGER.warn(String.format("Tile archive %s: truncated broken tail at %d of %d bytes", file.getName(), pos, size));
+				channel.truncate(pos);
+			}
+			end = pos;
+			if (index.size() > 0) {
+				LOGGER.info(String.format("Tile archive %s: %d tiles indexed (%d ms)", file.getAbsolutePath(), index.size(),
+						System.currentTimeMillis() - time));
+			}
+		}
+
+		/**
+		 * Access times saved after records were written, record timestamps are used for tiles not in the file
+		 */
+		private void readAccessTimes() {
+			if (!accessFile.exists()) {
+				return;
+			}
+			try (FileChannel ch = FileChannel.open(accessFile.toPath(), StandardOpenOption.READ)) {
+				ByteBuffer buf = ByteBuffer.allocate((int) (ch.size() - ch.size() % 16));
+				readFully(ch, buf, 0);
+				buf.flip();
+				while (buf.remaining() >= 16) {
+					long key = buf.getLong();
+					long timestamp = buf.getLong();
+					Entry e = index.get(key);
+					if (e != null && e.timestamp < timestamp) {
+						e.timestamp = timestamp;
+					}
+				}
+			} catch (IOException | RuntimeException e) {
+				LOGGER.warn("Failed to read access times of tile archive " + file.getAbsolutePath(), e);
+			}
+		}
+
+		void saveAccessTimes() throws IOException {
+			ByteBuffer buf;
+			synchronized (index) {
+				if (index.isEmpty()) {
+					return;
+				}
+				buf = ByteBuffer.allocate(16 * index.size());
+				for (TLongObjectIterator<Entry> it = index.iterator(); it.hasNext();) {
+					it.advance();
+					buf.putLong(it.key()).putLong(it.value().timestamp);
+				}
+			}
+			buf.flip();
+			File tmp = new File(accessFile.getParentFile(), accessFile.getName() + ".tmp");
+			try (FileChannel out = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				long pos = 0;
+				while (buf.hasRemaining()) {
+					pos += out.write(buf, pos);
+				}
+			}
+			Files.move(tmp.toPath(), accessFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		}
+
+		byte[] get(long key) throws IOException {
+			lock.readLock().lock();
+			try {
+				Entry e;
+				synchronized (index) {
+					e = index.get(key);
+				}
+				if (e == null) {
+					return null;
+				}
+				ByteBuffer buf = ByteBuffer.allocate(e.length);
+				readFully(channel, buf, e.offset + HEADER_SIZE);
+				return buf.array();
+			} finally {
+				lock.readLock().unlock();
+			}
+		}
+
+		boolean contains(long key) {
+			synchronized (index) {
+				return index.containsKey(key);
+			}
+		}
+
+		void touch(long key) {
+			Entry e;
+			synchronized (index) {
+				e = index.get(key);
+			}
+			if (e != null) {
+				e.timestamp = System.currentTimeMillis();
+			}
+		}
+
+		void put(long key, byte[] data) throws IOException {
+			if (data.length > MAX_TILE_SIZE) {
+				throw new IOException("Tile is too large for archive: " + data.length);
+			}
+			long timestamp = System.currentTimeMillis();
+			synchronized (appendLock) {
+				lock.readLock().lock();
+				try {
+					long pos = end;
+					writeRecord(channel, pos, key, timestamp, data);
+					end = pos + HEADER_SIZE + data.length;
+					Entry old;
+					synchronized (index) {
+						old = index.put(key, new Entry(pos, data.length, timestamp));
+					}
+					if (old != null) {
+						garbage += HEADER_SIZE + old.length;
+					}
+				} finally {
+					lock.readLock().unlock();
+				}
+			}
+		}
+
+		/**
+		 * Rewrites archive without overwritten tiles and tiles accessed before expireTime,
+		 * reads and appends continue to the old archive while new one is written,
+		 * records appended meanwhile are copied to the new archive when it replaces the old one.
+		 */
+		void compact(long expireTime) throws IOException {
+			synchronized (compactLock) {
+				TLongObjectHashMap<Entry> live = new TLongObjectHashMap<>();
+				long expiredSize = 0;
+				long copiedEnd;
+				synchronized (appendLock) {
+					copiedEnd = end;
+					synchronized (index) {
+						for (TLongObjectIterator<Entry> it = index.iterator(); it.hasNext();) {
+							it.advance();
+							if (it.value().timestamp < expireTime) {
+								expiredSize += HEADER_SIZE + it.value().length;
+							} else {
+								live.put(it.key(), it.value());
+							}
+						}
+					}
+				}
+				if (copiedEnd == 0 || expiredSize + garbage < copiedEnd * COMPACT_GARBAGE_RATIO) {
+					return;
+				}
+				long time = System.currentTimeMillis();
+				File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+				TLongObjectHashMap<Entry> compacted = new TLongObjectHashMap<>();
+				long pos = 0;
+				lock.readLock().lock();
+				try (FileChannel out = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE,
+						StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+					for (TLongObjectIterator<Entry> it = live.iterator(); it.hasNext();) {
+						it.advance();
+						Entry e = it.value();
+						ByteBuffer buf = ByteBuffer.allocate(e.length);
+						readFully(channel, buf, e.offset + HEADER_SIZE);
+						writeRecord(out, pos, it.key(), e.timestamp, buf.array());
+						compacted.put(it.key(), new Entry(pos, e.length, e.timestamp));
+						pos += HEADER_SIZE + e.length;
+					}
+				} finally {
+					lock.readLock().unlock();
+				}
+				long newEnd;
+				synchronized (appendLock) {
+					lock.writeLock().lock();
+					try {
+						long tailEnd = end;
+						long shift = pos - copiedEnd;
+						try (FileChannel out = FileChannel.open(tmp.toPath(), StandardOpenOption.WRITE)) {
+							for (long p = copiedEnd; p < tailEnd;) {
+								out.position(p + shift);
+								p += channel.transferTo(p, tailEnd - p, out);
+							}
+							out.force(false);
+						}
+						newEnd = tailEnd + shift;
+						channel.close();
+						Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+						channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+						TLongObjectHashMap<Entry> updated = new TLongObjectHashMap<>();
+						long liveSize = 0;
+						synchronized (index) {
+							for (TLongObjectIterator<Entry> it = index.iterator(); it.hasNext();) {
+								it.advance();
+								Entry e = it.value();
+								Entry n;
+								if (e.offset >= copiedEnd) {
+									// appended while compacting
+									n = new Entry(e.offset + shift, e.length, e.timestamp);
+								} else if (live.get(it.key()) == e) {
+									// keep access times updated while compacting
+									n = compacted.get(it.key());
+									n.timestamp = Math.max(n.timestamp, e.timestamp);
+								} else {
+									continue;
+								}
+								updated.put(it.key(), n);
+								liveSize += HEADER_SIZE + n.length;
+							}
+							index.clear();
+							index.putAll(updated);
+						}
+						end = newEnd;
+						garbage = newEnd - liveSize;
+					} finally {
+						lock.writeLock().unlock();
+					}
+				}
+				LOGGER.info(String.format("Tile archive %s: compacted %d MB -> %d MB, %d tiles (%d ms)", file.getAbsolutePath(),
+						copiedEnd >> 20, newEnd >> 20, live.size(), System.currentTimeMillis() - time));
+			}
+		}
+
+		private static void writeRecord(FileChannel ch, long pos, long key, long timestamp, byte[] data) throws IOException {
+			ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE + data.length);
+			buf.putInt(MAGIC).putLong(key).putLong(timestamp).putInt(data.length).put(data);
+			buf.flip();
+			while (buf.hasRemaining()) {
+				pos += ch.write(buf, pos);
+			}
+		}
+
+		private static void readFully(FileChannel ch, ByteBuffer buf, long pos) throws IOException {
+			while (buf.hasRemaining()) {
+				int r = ch.read(buf, pos);
+				if (r < 0) {
+					throw new IOException("Unexpected end of tile archive");
+				}
+				pos += r;
+			}
+		}
+	}
+}
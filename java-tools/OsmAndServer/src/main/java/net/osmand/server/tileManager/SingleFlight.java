@@ -0,0 +1,83 @@
+package net.osmand.server.tileManager;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces concurrent generation of the same tile: the first caller for a key runs the loader,
+ * callers arriving while it runs wait for it and get the same result (or the same error).
+ * Nothing is cached after the loader finishes, caching is done by the loader itself.
+ */
+public class SingleFlight<V> {
+
+	private static final long MAX_WAIT_MINUTES = 5;
+
+	private final String name;
+	private final Map<String, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+	private final AtomicLong loads = new AtomicLong();
+	private final AtomicLong coalesced = new AtomicLong();
+
+	public interface Loader<V> {
+		V load() throws Exception;
+	}
+
+	public SingleFlight(String name) {
+		this.name = name;
+	}
+
+	public V execute(String key, Loader<V> loader) throws IOException {
+		CompletableFuture<V> job = new CompletableFuture<>();
+		CompletableFuture<V> running = inFlight.putIfAbsent(key, job);
+		if (running != null) {
+			coalesced.incrementAndGet();
+			return await(key, running);
+		}
+		loads.incrementAndGet();
+		try {
+			V res = loader.load();
+			job.complete(res);
+			return res;
+		} catch (IOException | RuntimeException e) {
+			job.completeExceptionally(e);
+			throw e;
+		} catch (Exception e) {
+			job.completeExceptionally(e);
+			throw new IOException(name + " failed for " + key + ": " + e.getMessage(), e);
+		} catch (Throwable e) {
+			// errors (oom, native link) shouldn't leave waiters blocked
+			job.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, job);
+		}
+	}
+
+	private V await(String key, CompletableFuture<V> running) throws IOException {
+		try {
+			return running.get(MAX_WAIT_MINUTES, TimeUnit.MINUTES);
+		} catch (TimeoutException e) {
+			throw new IOException("Timeout while waiting for " + name + " of " + key, e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for " + name + " of " + key, e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			throw new IOException(name + " failed for " + key + ": " + cause.getMessage(), cause);
+		}
+	}
+
+	public int getInFlight() {
+		return inFlight.size();
+	}
+
+	public String getStats() {
+		return String.format("%s: loads %d, coalesced requests %d, in flight %d", name, loads.get(), coalesced.get(),
+				getInFlight());
+	}
+}
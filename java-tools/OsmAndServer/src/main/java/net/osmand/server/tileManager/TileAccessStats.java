@@ -0,0 +1,74 @@
+package net.osmand.server.tileManager;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Access counters of tiles (metatiles for raster styles) to find the most requested ones.
+ * Number of counted tiles is bounded, counters are halved by {@link #decay()} so old popularity fades out.
+ */
+public class TileAccessStats {
+
+	private final int maxTiles;
+	private final Map<String, TileAccess> accesses = new ConcurrentHashMap<>();
+
+	public static class TileAccess {
+		public final String style;
+		public final int z;
+		public final int x;
+		public final int y;
+		final AtomicInteger count = new AtomicInteger();
+
+		TileAccess(String style, int z, int x, int y) {
+			this.style = style;
+			this.z = z;
+			this.x = x;
+			this.y = y;
+		}
+
+		public int getCount() {
+			return count.get();
+		}
+	}
+
+	public TileAccessStats(int maxTiles) {
+		this.maxTiles = maxTiles;
+	}
+
+	public void record(String style, int z, int x, int y) {
+		String key = style + "/" + z + "/" + x + "/" + y;
+		TileAccess a = accesses.get(key);
+		if (a == null) {
+			if (accesses.size() >= maxTiles) {
+				// new tiles are counted again after decay
+				return;
+			}
+			a = accesses.computeIfAbsent(key, k -> new TileAccess(style, z, x, y));
+		}
+		a.count.incrementAndGet();
+	}
+
+	public List<TileAccess> getTop(int n) {
+		List<TileAccess> list = new ArrayList<>(accesses.values());
+		list.sort((a, b) -> Integer.compare(b.getCount(), a.getCount()));
+		return new ArrayList<>(list.subList(0, Math.min(n, list.size())));
+	}
+
+	public void decay() {
+		Iterator<TileAccess> it = accesses.values().iterator();
+		while (it.hasNext()) {
+			TileAccess a = it.next();
+			if (a.count.updateAndGet(c -> c / 2) == 0) {
+				it.remove();
+			}
+		}
+	}
+
+	public int size() {
+		return accesses.size();
+	}
+}
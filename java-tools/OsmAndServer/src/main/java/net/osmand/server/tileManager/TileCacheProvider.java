@@ -1,6 +1,7 @@
 package net.osmand.server.tileManager;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
 import java.io.File;
 import java.io.IOException;
 
@@ -53,7 +54,25 @@ public interface TileCacheProvider {
 		return new File(cacheLocation, loc.toString());
 	}
 
-	void saveTileToCache(Object tile, File cacheFile) throws IOException;
+	/**
+	 * Writes tile to disk cache, memory only tiles don't implement it
+	 */
+	default void saveTileToCache(Object tile, File cacheFile) throws IOException {
+	}
+
+	/**
+	 * Memory in bytes held by the runtime tile data, used to bound TileMemoryCache.
+	 */
+	default long getTileWeight() {
+		Object tile = getTile();
+		if (tile instanceof BufferedImage img) {
+			DataBuffer db = img.getRaster().getDataBuffer();
+			return (long) db.getSize() * db.getNumBanks() * (DataBuffer.getDataTypeSize(db.getDataType()) / 8);
+		} else if (tile instanceof byte[] bytes) {
+			return bytes.length;
+		}
+		return 0;
+	}
 
 	String getTileId();
 
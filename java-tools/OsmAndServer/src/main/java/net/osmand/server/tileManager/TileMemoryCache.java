@@ -2,77 +2,285 @@ package net.osmand.server.tileManager;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Segmented LRU cache of tiles bounded by the weight in bytes of the tile data
+ * (decoded image, mvt bytes) and by the number of entries.
+ * New tiles go to the probation segment and are promoted to the protected segment on the second access,
+ * so a burst of one-time tiles can't flush the hot tiles. All operations are O(1).
+ * Lookups don't take the lock: hits are recorded in a buffer and applied to the segments in batches
+ * by the thread which gets the lock (buffer is lossy, recency is approximate under high load).
+ */
 public class TileMemoryCache<T extends TileCacheProvider> {
-	private final Map<String, T> cacheMap = new ConcurrentHashMap<>();
-	private final Map<String, Object> lockMap = new ConcurrentHashMap<>();
-	private final AtomicInteger cacheTouch = new AtomicInteger(0);
 
-	private static final int MAX_RUNTIME_IMAGE_CACHE_SIZE = 80;
+	public static final long DEFAULT_MAX_WEIGHT_BYTES = 1L << 30; // 1 GB
 	private static final int MAX_RUNTIME_TILES_CACHE_SIZE = 10000;
+	private static final int PROTECTED_PERCENT = 80;
+	// approximate memory used by the tile object itself
+	private static final long ENTRY_WEIGHT = 256;
+	private static final int READ_BUFFER_DRAIN = 64;
+	private static final int READ_BUFFER_MAX = 1024;
 
-	private final AtomicLong lastCleanupTime = new AtomicLong(0);
-	private static final long CLEANUP_INTERVAL_MILLIS = 10000;
+	private final ConcurrentHashMap<String, Entry<T>> data = new ConcurrentHashMap<>();
+	private final ConcurrentLinkedQueue<Entry<T>> readBuffer = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger readBufferSize = new AtomicInteger();
+	private final ReentrantLock lock = new ReentrantLock();
+
+	// guarded by lock, access ordered: first is the least recently used
+	private final LinkedHashMap<String, Entry<T>> probation = new LinkedHashMap<>(16, 0.75f, true);
+	private final LinkedHashMap<String, Entry<T>> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+
+	private final long maxWeight;
+	private final long maxProtectedWeight;
+	private final int maxEntries;
+	private long weight;
+	private long protectedWeight;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	private static class Entry<T> {
+		final String key;
+		final T tile;
+		long weight;
+		boolean isProtected;
+
+		Entry(String key, T tile) {
+			this.key = key;
+			this.tile = tile;
+		}
+	}
+
+	public TileMemoryCache() {
+		this(DEFAULT_MAX_WEIGHT_BYTES, MAX_RUNTIME_TILES_CACHE_SIZE);
+	}
+
+	public TileMemoryCache(long maxWeightBytes) {
+		this(maxWeightBytes, MAX_RUNTIME_TILES_CACHE_SIZE);
+	}
+
+	public TileMemoryCache(long maxWeightBytes, int maxEntries) {
+		this.maxWeight = maxWeightBytes;
+		this.maxProtectedWeight = maxWeightBytes * PROTECTED_PERCENT / 100;
+		this.maxEntries = maxEntries;
+	}
 
 	public T getTile(String key, TileProvider<T> provider) {
-		return cacheMap.computeIfAbsent(key, provider::createTile);
+		T tile = get(key);
+		if (tile != null) {
+			return tile;
+		}
+		lock.lock();
+		try {
+			drainReadBuffer();
+			Entry<T> e = data.get(key);
+			if (e == null) {
+				e = new Entry<>(key, provider.createTile(key));
+				data.put(key, e);
+				probation.put(key, e);
+				updateWeight(e);
+				evict();
+			}
+			return e.tile;
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	public void put(String key, T tile) {
-		cacheMap.put(key, tile);
+		lock.lock();
+		try {
+			drainReadBuffer();
+			Entry<T> old = remove(key);
+			Entry<T> e = new Entry<>(key, tile);
+			if (old != null) {
+				e.isProtected = old.isProtected;
+			}
+			data.put(key, e);
+			(e.isProtected ? protectedSegment : probation).put(key, e);
+			updateWeight(e);
+			evict();
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	public T get(String key) {
-		return cacheMap.get(key);
-	}
-
-	public Object getLock(String tileId) {
-		return lockMap.computeIfAbsent(tileId, k -> new Object());
+		Entry<T> e = data.get(key);
+		if (e == null) {
+			misses.incrementAndGet();
+			return null;
+		}
+		hits.incrementAndGet();
+		if (readBufferSize.get() < READ_BUFFER_MAX) {
+			readBuffer.add(e);
+			if (readBufferSize.incrementAndGet() >= READ_BUFFER_DRAIN && lock.tryLock()) {
+				try {
+					drainReadBuffer();
+				} finally {
+					lock.unlock();
+				}
+			}
+		}
+		return e.tile;
 	}
 
-	public void removeLock(String tileId) {
-		lockMap.remove(tileId);
+	/**
+	 * Recalculates the weight of the tile after its data was loaded or rendered.
+	 */
+	public void updateTile(T tile) {
+		lock.lock();
+		try {
+			drainReadBuffer();
+			Entry<T> e = data.get(tile.getTileId());
+			if (e != null && e.tile == tile) {
+				updateWeight(e);
+				evict();
+			}
+		} finally {
+			lock.unlock();
+		}
 	}
 
+	/**
+	 * Cheap enough to call per request: takes the lock only if the read buffer is full
+	 * or the cache is over capacity (weight is already enforced by every put/update), and doesn't wait for it.
+	 */
 	public void conditionalCleanupCache() {
-		long currentTime = System.currentTimeMillis();
-		long lastTime = lastCleanupTime.get();
-		if (currentTime - lastTime >= CLEANUP_INTERVAL_MILLIS && lastCleanupTime.compareAndSet(lastTime, currentTime)) {
-			cleanupCache();
+		if (readBufferSize.get() < READ_BUFFER_MAX && data.size() <= maxEntries) {
+			return;
+		}
+		if (lock.tryLock()) {
+			try {
+				drainReadBuffer();
+				evict();
+			} finally {
+				lock.unlock();
+			}
 		}
 	}
 
 	public void cleanupCache() {
-		int version = cacheTouch.incrementAndGet();
-		// so with atomic only 1 thread will get % X == 0
-		if (version % MAX_RUNTIME_IMAGE_CACHE_SIZE == 0 && version > 0) {
-			cacheTouch.set(0);
-			SortedSet<T> sortedCache = Collections.synchronizedSortedSet(new TreeSet<>(cacheMap.values()));
-			List<T> imageTiles = new ArrayList<>();
-			for (T tile : sortedCache) {
-				if (tile.getTile() != null) {
-					imageTiles.add(tile);
-				}
+		lock.lock();
+		try {
+			drainReadBuffer();
+			evict();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public CacheStats getStats() {
+		lock.lock();
+		try {
+			return new CacheStats(hits.get(), misses.get(), evictions.get(), weight, data.size());
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void drainReadBuffer() {
+		Entry<T> e;
+		while ((e = readBuffer.poll()) != null) {
+			readBufferSize.decrementAndGet();
+			// entry could be replaced or evicted after it was read
+			if (data.get(e.key) == e) {
+				access(e);
 			}
-			if (imageTiles.size() >= MAX_RUNTIME_IMAGE_CACHE_SIZE) {
-				for (int i = 0; i < MAX_RUNTIME_IMAGE_CACHE_SIZE / 2; i++) {
-					T tile = imageTiles.get(i);
-					tile.setTile(null);
-				}
+		}
+	}
+
+	private void access(Entry<T> e) {
+		if (e.isProtected) {
+			protectedSegment.get(e.key);
+		} else {
+			probation.remove(e.key);
+			e.isProtected = true;
+			protectedSegment.put(e.key, e);
+			protectedWeight += e.weight;
+		}
+		updateWeight(e);
+		demoteProtected();
+	}
+
+	private void updateWeight(Entry<T> e) {
+		long w = ENTRY_WEIGHT + e.tile.getTileWeight();
+		weight += w - e.weight;
+		if (e.isProtected) {
+			protectedWeight += w - e.weight;
+		}
+		e.weight = w;
+	}
+
+	private void demoteProtected() {
+		Iterator<Entry<T>> it = protectedSegment.values().iterator();
+		while (protectedWeight > maxProtectedWeight && it.hasNext()) {
+			Entry<T> e = it.next();
+			it.remove();
+			e.isProtected = false;
+			protectedWeight -= e.weight;
+			probation.put(e.key, e);
+		}
+	}
+
+	private void evict() {
+		while (weight > maxWeight || data.size() > maxEntries) {
+			Iterator<Entry<T>> it = !probation.isEmpty() ? probation.values().iterator()
+					: protectedSegment.values().iterator();
+			if (!it.hasNext()) {
+				break;
 			}
-			if (cacheMap.size() >= MAX_RUNTIME_TILES_CACHE_SIZE) {
-				Iterator<T> it = sortedCache.iterator();
-				while (cacheMap.size() >= MAX_RUNTIME_TILES_CACHE_SIZE / 2 && it.hasNext()) {
-					T tile = it.next();
-					cacheMap.remove(tile.getTileId());
-				}
+			Entry<T> e = it.next();
+			it.remove();
+			data.remove(e.key);
+			weight -= e.weight;
+			if (e.isProtected) {
+				protectedWeight -= e.weight;
+			}
+			evictions.incrementAndGet();
+		}
+	}
+
+	private Entry<T> remove(String key) {
+		Entry<T> e = data.remove(key);
+		if (e != null) {
+			(e.isProtected ? protectedSegment : probation).remove(key);
+			weight -= e.weight;
+			if (e.isProtected) {
+				protectedWeight -= e.weight;
 			}
 		}
+		return e;
 	}
 
 	public interface TileProvider<T> {
 		T createTile(String key);
 	}
+
+	public static class CacheStats {
+		public final long hits;
+		public final long misses;
+		public final long evictions;
+		public final long weightBytes;
+		public final int size;
+
+		CacheStats(long hits, long misses, long evictions, long weightBytes, int size) {
+			this.hits = hits;
+			this.misses = misses;
+			this.evictions = evictions;
+			this.weightBytes = weightBytes;
+			this.size = size;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("tiles %d (%d MB), hits %d, misses %d, evictions %d", size, weightBytes >> 20,
+					hits, misses, evictions);
+		}
+	}
 }
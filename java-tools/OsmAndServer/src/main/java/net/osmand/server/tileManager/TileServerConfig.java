@@ -4,16 +4,19 @@ import net.osmand.NativeJavaRendering;
 import net.osmand.render.RenderingRuleProperty;
 import net.osmand.render.RenderingRulesStorage;
 import net.osmand.util.Algorithms;
+import jakarta.annotation.PreDestroy;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Configuration
 @ConfigurationProperties("tile-server")
@@ -34,18 +37,45 @@ public class TileServerConfig {
     @Value("${tile-server.cache.mvts-location}")
     public String mvtsLocation;
 
+	// store tiles in packed archives (see PackedTileStore) instead of a file per tile
+	@Value("${tile-server.cache.packed:false}")
+	public boolean packedCache;
+
     @Value("${tile-server.cache.max-zoom}")
 	int maxZoomCache = 16;
 
 	@Value("${tile-server.metatile-size}")
 	int metatileSize;
 
+	// number of native rendering contexts, 0 - one per available core
+	@Value("${tile-server.render-threads:0}")
+	int renderThreads;
+
 	public String initErrorMessage;
 
 	protected static final Log LOGGER = LogFactory.getLog(TileServerConfig.class);
 
 	public final Map<String, VectorStyle> style = new TreeMap<>();
 
+	private final Map<String, PackedTileStore> packedStores = new ConcurrentHashMap<>();
+
+	/**
+	 * @return packed tile store for cache location or null if tiles are stored as files
+	 */
+	public PackedTileStore getPackedStore(String cacheLocation) {
+		if (!packedCache || Algorithms.isEmpty(cacheLocation)) {
+			return null;
+		}
+		return packedStores.computeIfAbsent(cacheLocation, l -> new PackedTileStore(new File(l)));
+	}
+
+	@PreDestroy
+	public void savePackedStores() {
+		for (PackedTileStore store : packedStores.values()) {
+			store.saveAccessTimes();
+		}
+	}
+
 	public void setStyle(Map<String, String> style) {
 		for (Map.Entry<String, String> e : style.entrySet()) {
 			VectorStyle vectorStyle = new VectorStyle();
@@ -105,6 +135,10 @@ public class TileServerConfig {
 		return style + '-' + z + '-' + (left >> shiftZoom) + '-' + (top >> shiftZoom);
 	}
 
+	public int getRenderThreads() {
+		return renderThreads > 0 ? renderThreads : Runtime.getRuntime().availableProcessors();
+	}
+
 	public TileServerConfig getConfig() {
 		return this;
 	}
@@ -5,20 +5,20 @@ import com.google.gson.JsonParser;
 import net.osmand.NativeJavaRendering;
 import net.osmand.server.tileManager.TileServerConfig.VectorStyle;
 import org.springframework.http.ResponseEntity;
-import org.xml.sax.SAXException;
-import org.xmlpull.v1.XmlPullParserException;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
-public class VectorMetatile implements TileCacheProvider, Comparable<VectorMetatile> {
+public class VectorMetatile implements TileCacheProvider {
 
-	public BufferedImage runtimeImage;
-	public long lastAccess;
+	private static final AtomicLong GENERATIONS = new AtomicLong();
+
+	public volatile BufferedImage runtimeImage;
 	public final String key;
 	public final int z;
 	public final int left;
@@ -27,8 +27,10 @@ public class VectorMetatile implements TileCacheProvider, Comparable<VectorMetat
 	public final int tileSizeLog;
 	public final VectorStyle style;
 	private final TileServerConfig cfg;
-	private JsonObject info;
+	private volatile JsonObject info;
 	private final String interactiveKey;
+	// changes when the tile is rendered, tiles cut from previous image are stale
+	private volatile long generation = GENERATIONS.incrementAndGet();
 
 	public VectorMetatile(TileServerConfig cfg, String tileId, VectorStyle style, int z, int x, int y,
 	                      int metaSizeLog, int tileSizeLog, String interactiveKey) {
@@ -41,7 +43,6 @@ public class VectorMetatile implements TileCacheProvider, Comparable<VectorMetat
 		this.top = getTop(y, z, metaSizeLog);
 		this.z = z;
 		this.interactiveKey = interactiveKey;
-		touch();
 	}
 
 	public int getLeft(int x, int z, int metaSizeLog) {
@@ -72,13 +73,17 @@ public class VectorMetatile implements TileCacheProvider, Comparable<VectorMetat
 		return info;
 	}
 
-	public void touch() {
-		lastAccess = System.currentTimeMillis();
+	/**
+	 * Should be read before image or info, so they are not older than the generation
+	 */
+	public long getGeneration() {
+		return generation;
 	}
 
-	@Override
-	public int compareTo(VectorMetatile o) {
-		return Long.compare(lastAccess, o.lastAccess);
+	public void setRendered(BufferedImage image, JsonObject info) {
+		this.info = info;
+		this.runtimeImage = image;
+		this.generation = GENERATIONS.incrementAndGet();
 	}
 
 	public BufferedImage readSubImage(BufferedImage img, int x, int y) {
@@ -94,6 +99,14 @@ public class VectorMetatile implements TileCacheProvider, Comparable<VectorMetat
 			return img;
 		}
 		File cf = getCacheFile(".png");
+		PackedTileStore store = cfg.getPackedStore(cfg.cacheLocation);
+		if (store != null) {
+			byte[] png = cf == null ? null : store.get(getArchiveName(".png"), getPackedTileKey());
+			if (png != null) {
+				runtimeImage = ImageIO.read(new ByteArrayInputStream(png));
+			}
+			return runtimeImage;
+		}
 		if (cf != null && cf.exists()) {
 			runtimeImage = ImageIO.read(cf);
 			return runtimeImage;
@@ -107,8 +120,11 @@ public class VectorMetatile implements TileCacheProvider, Comparable<VectorMetat
 			return tileInfo;
 		}
 		File cf = getCacheFile(".json.gz");
-		if (cf != null && cf.exists()) {
-			try (GZIPInputStream gzip = new GZIPInputStream(new FileInputStream(cf));
+		PackedTileStore store = cfg.getPackedStore(cfg.cacheLocation);
+		byte[] packed = store == null || cf == null ? null : store.get(getArchiveName(".json.gz"), getPackedTileKey());
+		if (packed != null || (store == null && cf != null && cf.exists())) {
+			InputStream in = packed != null ? new ByteArrayInputStream(packed) : new FileInputStream(cf);
+			try (GZIPInputStream gzip = new GZIPInputStream(in);
 			     Reader reader = new InputStreamReader(gzip, StandardCharsets.UTF_8)) {
 				JsonParser parser = new JsonParser();
 				tileInfo = parser.parse(reader).getAsJsonObject();
@@ -127,9 +143,41 @@ public class VectorMetatile implements TileCacheProvider, Comparable<VectorMetat
 		);
 	}
 
+	/**
+	 * @return true if metatile image is stored in disk cache
+	 */
+	public boolean isCached() throws IOException {
+		File cf = getCacheFile(".png");
+		if (cf == null) {
+			return false;
+		}
+		PackedTileStore store = cfg.getPackedStore(cfg.cacheLocation);
+		return store != null ? store.contains(getArchiveName(".png"), getPackedTileKey()) : cf.exists();
+	}
+
+	private String getArchiveName(String ext) {
+		return PackedTileStore.getArchiveName(interactiveKey != null ? interactiveKey : style.key, z, metaSizeLog,
+				tileSizeLog, ext);
+	}
+
+	private long getPackedTileKey() {
+		return PackedTileStore.getTileKey((left >> (31 - z)) >> metaSizeLog, (top >> (31 - z)) >> metaSizeLog);
+	}
+
 	public void buildCacheFileInfo(VectorMetatile tile) throws IOException {
 		File cacheFileInfo = tile.getCacheFile(".json.gz");
-		if (cacheFileInfo != null) {
+		PackedTileStore store = cfg.getPackedStore(cfg.cacheLocation);
+		if (store != null && cacheFileInfo != null) {
+			JsonObject info = tile.getInfo();
+			if (info != null) {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				try (GZIPOutputStream gzip = new GZIPOutputStream(bytes);
+				     Writer writer = new OutputStreamWriter(gzip, StandardCharsets.UTF_8)) {
+					writer.write(info.toString());
+				}
+				store.put(tile.getArchiveName(".json.gz"), tile.getPackedTileKey(), bytes.toByteArray());
+			}
+		} else if (cacheFileInfo != null) {
 			cacheFileInfo.getParentFile().mkdirs();
 			if (cacheFileInfo.getParentFile().exists()) {
 				JsonObject info = tile.getInfo();
@@ -143,84 +191,73 @@ public class VectorMetatile implements TileCacheProvider, Comparable<VectorMetat
 		}
 	}
 
-	public ResponseEntity<String> renderMetaTile(NativeJavaRendering nativelib, TileMemoryCache<VectorMetatile> tileCache)
-			throws IOException, XmlPullParserException, SAXException {
-
+	public ResponseEntity<String> renderMetaTile(NativeJavaRendering nativelib) throws IOException {
 		int ZOOM_EN_PREFERRED_LANG = 6;
 
-		// don't synchronize this to not block routing
-		synchronized (this.cfg) {
-			// for local debug :
-			// VectorMetatile rendered = null;
-			VectorMetatile rendered = tileCache.get(this.key);
-			if (rendered != null && rendered.runtimeImage != null) {
-				this.runtimeImage = rendered.runtimeImage;
-				this.setInfo(rendered.getInfo());
-				return null;
-			}
-			int imgTileSize = (256 << this.tileSizeLog) << Math.min(this.z, this.metaSizeLog);
-			int tilesize = (1 << Math.min(31 - this.z + this.metaSizeLog, 31));
-			if (tilesize <= 0) {
-				tilesize = Integer.MAX_VALUE;
-			}
-			int right = this.left + tilesize;
-			if (right <= 0) {
-				right = Integer.MAX_VALUE;
-			}
-			int bottom = this.top + tilesize;
-			if (bottom <= 0) {
-				bottom = Integer.MAX_VALUE;
-			}
-			long now = System.currentTimeMillis();
-			String props = String.format("density=%d,textScale=%d", 1 << this.tileSizeLog, 1 << this.tileSizeLog);
+		if (nativelib == null) {
+			return null;
+		}
+		int imgTileSize = (256 << this.tileSizeLog) << Math.min(this.z, this.metaSizeLog);
+		int tilesize = (1 << Math.min(31 - this.z + this.metaSizeLog, 31));
+		if (tilesize <= 0) {
+			tilesize = Integer.MAX_VALUE;
+		}
+		int right = this.left + tilesize;
+		if (right <= 0) {
+			right = Integer.MAX_VALUE;
+		}
+		int bottom = this.top + tilesize;
+		if (bottom <= 0) {
+			bottom = Integer.MAX_VALUE;
+		}
+		long now = System.currentTimeMillis();
+		String props = String.format("density=%d,textScale=%d", 1 << this.tileSizeLog, 1 << this.tileSizeLog);
 
-			if (this.z < ZOOM_EN_PREFERRED_LANG) {
-				props += ",lang=en";
-			}
-			if (nativelib == null) {
-				return null;
-			}
-			if (!this.style.name.equalsIgnoreCase(nativelib.getRenderingRuleStorage().getName())) {
-				nativelib.loadRuleStorage(this.style.name + ".render.xml", props);
-			} else {
-				nativelib.setRenderingProps(props);
-			}
-			NativeJavaRendering.RenderingImageContext ctx = new NativeJavaRendering.RenderingImageContext(this.left, right, this.top, bottom, this.z);
+		if (this.z < ZOOM_EN_PREFERRED_LANG) {
+			props += ",lang=en";
+		}
+		// style is already loaded by VectorRendererPool, only per tile properties are set here
+		nativelib.setRenderingProps(props);
+		NativeJavaRendering.RenderingImageContext ctx = new NativeJavaRendering.RenderingImageContext(this.left, right, this.top, bottom, this.z);
 
-			if (this.getInteractiveKey() != null) {
-				ctx.saveTextTile = true;
-			}
+		if (this.getInteractiveKey() != null) {
+			ctx.saveTextTile = true;
+		}
 
-			if (ctx.width > 8192) {
-				return ResponseEntity.badRequest().body("Metatile exceeds 8192x8192 size");
+		if (ctx.width > 8192) {
+			return ResponseEntity.badRequest().body("Metatile exceeds 8192x8192 size");
 
-			}
-			if (imgTileSize != ctx.width << this.tileSizeLog || imgTileSize != ctx.height << this.tileSizeLog) {
-				return ResponseEntity.badRequest().body(String.format("Metatile has wrong size (%d != %d)", imgTileSize,
-						ctx.width << this.tileSizeLog));
-			}
+		}
+		if (imgTileSize != ctx.width << this.tileSizeLog || imgTileSize != ctx.height << this.tileSizeLog) {
+			return ResponseEntity.badRequest().body(String.format("Metatile has wrong size (%d != %d)", imgTileSize,
+					ctx.width << this.tileSizeLog));
+		}
 
-			NativeJavaRendering.RenderingImageResult result = nativelib.renderImage(ctx);
-			this.runtimeImage = result.getImage();
-			if (this.runtimeImage != null) {
-				this.setInfo(result.getGenerationResult().getInfo());
-				File cacheFile = this.getCacheFile(".png");
-				if (cacheFile != null) {
-					this.saveTileToCache(this, cacheFile);
-				}
+		NativeJavaRendering.RenderingImageResult result = nativelib.renderImage(ctx);
+		if (result.getImage() != null) {
+			this.setRendered(result.getImage(), result.getGenerationResult().getInfo());
+			File cacheFile = this.getCacheFile(".png");
+			if (cacheFile != null) {
+				this.saveTileToCache(this, cacheFile);
 			}
-			String msg = String.format("Rendered %d %d at %d (%s %s): %dx%d - %d ms", this.left, this.top, this.z,
-					this.style.name, props, ctx.width, ctx.height, (int) (System.currentTimeMillis() - now));
-			System.out.println(msg);
-			// LOGGER.debug();
-			return null;
 		}
+		String msg = String.format("Rendered %d %d at %d (%s %s): %dx%d - %d ms", this.left, this.top, this.z,
+				this.style.name, props, ctx.width, ctx.height, (int) (System.currentTimeMillis() - now));
+		System.out.println(msg);
+		// LOGGER.debug();
+		return null;
 	}
 
 	@Override
 	public void saveTileToCache(Object tile, File cacheFile) throws IOException {
 		if (tile instanceof VectorMetatile vm) {
-			if (vm.runtimeImage != null) {
+			PackedTileStore store = cfg.getPackedStore(cfg.cacheLocation);
+			if (store != null && vm.runtimeImage != null) {
+				ByteArrayOutputStream png = new ByteArrayOutputStream();
+				ImageIO.write(vm.runtimeImage, "png", png);
+				store.put(vm.getArchiveName(".png"), vm.getPackedTileKey(), png.toByteArray());
+				vm.buildCacheFileInfo(vm);
+			} else if (vm.runtimeImage != null) {
 				cacheFile.getParentFile().mkdirs();
 				if (cacheFile.getParentFile().exists()) {
 					ImageIO.write(vm.runtimeImage, "png", cacheFile);
@@ -242,6 +279,6 @@ public class VectorMetatile implements TileCacheProvider, Comparable<VectorMetat
 
 	@Override
 	public void setTile(Object tile) {
-		runtimeImage = (BufferedImage) tile;
+		setRendered((BufferedImage) tile, info);
 	}
 }
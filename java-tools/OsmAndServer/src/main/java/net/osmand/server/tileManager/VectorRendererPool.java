@@ -0,0 +1,223 @@
+package net.osmand.server.tileManager;
+
+import net.osmand.NativeJavaRendering;
+import net.osmand.render.RenderingRulesStorage;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.http.ResponseEntity;
+import org.xml.sax.SAXException;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps several native rendering contexts and renders metatiles on them concurrently.
+ * Requests for the same metatile key are coalesced into a single render.
+ * The rendering rule storage is global in the native library, so only one style is loaded at a time:
+ * metatiles of the loaded style are rendered in parallel and switching to another style waits
+ * until all in-flight renders are finished. Parsed storages are kept per style, so a switch only reinits
+ * the native storage and doesn't parse xml again; the number of switches is reported in stats.
+ */
+public class VectorRendererPool {
+
+	private static final Log LOGGER = LogFactory.getLog(VectorRendererPool.class);
+
+	private final NativeJavaRendering defaultLib;
+	private final List<RendererSlot> slots = new ArrayList<>();
+	private final ReentrantLock slotsLock = new ReentrantLock(true);
+	private final Condition slotReleased = slotsLock.newCondition();
+	private int waiters;
+	private final ReentrantReadWriteLock nativeStorageLock = new ReentrantReadWriteLock(true);
+	// guarded by nativeStorageLock
+	private String loadedStyle;
+	// guarded by nativeStorageLock
+	private final Map<String, RenderingRulesStorage> parsedStyles = new HashMap<>();
+	private final AtomicLong styleSwitches = new AtomicLong();
+	private final SingleFlight<VectorMetatile> renderFlight = new SingleFlight<>("Metatile rendering");
+
+	private static class RendererSlot {
+		final NativeJavaRendering lib;
+		boolean busy;
+
+		RendererSlot(NativeJavaRendering lib) {
+			this.lib = lib;
+		}
+	}
+
+	public VectorRendererPool(NativeJavaRendering defaultLib, TileServerConfig cfg, int size) {
+		this.defaultLib = defaultLib;
+		int poolSize = Math.max(1, size);
+		nativeStorageLock.writeLock().lock();
+		try {
+			for (int i = 0; i < poolSize; i++) {
+				slots.add(new RendererSlot(i == 0 ? defaultLib : defaultLib.createSharedContext()));
+			}
+			String styleName = cfg.style.isEmpty() ? null : cfg.style.values().iterator().next().name;
+			if (styleName != null) {
+				try {
+					loadStyle(styleName);
+				} catch (IOException | XmlPullParserException | SAXException | RuntimeException e) {
+					LOGGER.error(String.format("Error preloading style %s: %s", styleName, e.getMessage()), e);
+				}
+			}
+		} finally {
+			nativeStorageLock.writeLock().unlock();
+		}
+		LOGGER.info(String.format("Init vector renderer pool: %d renderers", poolSize));
+	}
+
+	public int getSize() {
+		return slots.size();
+	}
+
+	/**
+	 * @return number of renderers which are not busy, 0 if there are requests waiting for a renderer
+	 */
+	public int getIdleRenderers() {
+		slotsLock.lock();
+		try {
+			if (waiters > 0) {
+				return 0;
+			}
+			int idle = 0;
+			for (RendererSlot slot : slots) {
+				if (!slot.busy) {
+					idle++;
+				}
+			}
+			return idle;
+		} finally {
+			slotsLock.unlock();
+		}
+	}
+
+	public ResponseEntity<String> renderMetaTile(VectorMetatile tile, TileMemoryCache<VectorMetatile> tileCache)
+			throws IOException {
+		List<ResponseEntity<String>> error = new ArrayList<>(1);
+		VectorMetatile rendered = renderFlight.execute(tile.key, () -> {
+			ResponseEntity<String> res = renderInSlot(tile, tileCache);
+			if (res != null) {
+				error.add(res);
+				return null;
+			}
+			return tile;
+		});
+		if (!error.isEmpty()) {
+			return error.get(0);
+		}
+		if (rendered != null && rendered != tile) {
+			tile.setRendered(rendered.runtimeImage, rendered.getInfo());
+		}
+		return null;
+	}
+
+	public String getStats() {
+		return renderFlight.getStats() + String.format(", style switches %d", styleSwitches.get());
+	}
+
+	private ResponseEntity<String> renderInSlot(VectorMetatile tile, TileMemoryCache<VectorMetatile> tileCache)
+			throws IOException, XmlPullParserException, SAXException {
+		VectorMetatile rendered = tileCache.get(tile.key);
+		if (rendered != null && rendered != tile && rendered.runtimeImage != null) {
+			tile.setRendered(rendered.runtimeImage, rendered.getInfo());
+			return null;
+		}
+		RendererSlot slot = acquire();
+		try {
+			lockStyle(tile.style.name);
+			try {
+				return tile.renderMetaTile(slot.lib);
+			} finally {
+				nativeStorageLock.readLock().unlock();
+			}
+		} finally {
+			release(slot);
+		}
+	}
+
+	/**
+	 * Takes the read lock with the requested style loaded. Loading another style takes the write lock,
+	 * so it waits for all in-flight renders of the previous style.
+	 */
+	private void lockStyle(String styleName) throws IOException, XmlPullParserException, SAXException {
+		nativeStorageLock.readLock().lock();
+		if (styleName.equalsIgnoreCase(loadedStyle)) {
+			return;
+		}
+		nativeStorageLock.readLock().unlock();
+		nativeStorageLock.writeLock().lock();
+		try {
+			if (!styleName.equalsIgnoreCase(loadedStyle)) {
+				loadStyle(styleName);
+			}
+			// downgrade to render under the read lock
+			nativeStorageLock.readLock().lock();
+		} finally {
+			nativeStorageLock.writeLock().unlock();
+		}
+	}
+
+	private void loadStyle(String styleName) throws IOException, XmlPullParserException, SAXException {
+		loadedStyle = null;
+		long now = System.currentTimeMillis();
+		String key = styleName.toLowerCase();
+		RenderingRulesStorage storage = parsedStyles.get(key);
+		if (storage == null) {
+			defaultLib.loadRuleStorage(styleName + ".render.xml", "");
+			parsedStyles.put(key, defaultLib.getRenderingRuleStorage());
+		} else {
+			defaultLib.initRuleStorage(storage, "");
+		}
+		styleSwitches.incrementAndGet();
+		for (RendererSlot slot : slots) {
+			if (slot.lib != defaultLib) {
+				slot.lib.useRuleStorage(defaultLib.getRenderingRuleStorage(), "");
+			}
+		}
+		loadedStyle = styleName;
+		LOGGER.debug(String.format("Loaded style %s: %d ms", styleName, System.currentTimeMillis() - now));
+	}
+
+	private RendererSlot acquire() throws IOException {
+		slotsLock.lock();
+		try {
+			waiters++;
+			try {
+				while (true) {
+					for (RendererSlot slot : slots) {
+						if (!slot.busy) {
+							slot.busy = true;
+							return slot;
+						}
+					}
+					slotReleased.await();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while waiting for a renderer", e);
+			} finally {
+				waiters--;
+			}
+		} finally {
+			slotsLock.unlock();
+		}
+	}
+
+	private void release(RendererSlot slot) {
+		slotsLock.lock();
+		try {
+			slot.busy = false;
+			slotReleased.signal();
+		} finally {
+			slotsLock.unlock();
+		}
+	}
+}